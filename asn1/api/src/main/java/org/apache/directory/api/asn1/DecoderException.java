@@ -21,6 +21,12 @@
 package org.apache.directory.api.asn1;
 
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import org.apache.directory.api.i18n.I18n;
+
+
 /**
  * Thrown when a Decoder has encountered a failure condition during a decode.
  * 
@@ -31,6 +37,15 @@ public class DecoderException extends Exception
     /** Declares the Serial Version Uid */
     private static final long serialVersionUID = 1L;
 
+    /** The error code, when the message is formatted on demand */
+    private transient I18n error;
+
+    /** The error arguments, when the message is formatted on demand */
+    private transient Object[] args;
+
+    /** The formatted message */
+    private String message;
+
 
     /**
      * Creates a DecoderException
@@ -53,4 +68,45 @@ public class DecoderException extends Exception
     {
         super( message, cause );
     }
+
+
+    /**
+     * Creates a DecoderException which message is only formatted when it's read. This is
+     * the constructor to use on the paths where a failure is expected, and the
+     * exception often dropped.
+     * 
+     * @param error The error code
+     * @param args The error arguments
+     */
+    public DecoderException( I18n error, Object... args )
+    {
+        super( error.getErrorCode() );
+        this.error = error;
+        this.args = args;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String getMessage()
+    {
+        if ( error != null )
+        {
+            message = I18n.err( error, args );
+            error = null;
+            args = null;
+        }
+
+        return ( message == null ) ? super.getMessage() : message;
+    }
+
+
+    private void writeObject( ObjectOutputStream out ) throws IOException
+    {
+        // Format the message before it is written
+        getMessage();
+        out.defaultWriteObject();
+    }
 }
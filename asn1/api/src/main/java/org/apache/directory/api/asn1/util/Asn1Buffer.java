@@ -21,10 +21,18 @@
 package org.apache.directory.api.asn1.util;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A buffer used to store an encoding PDU. It's auto-extended, and
  * filled by the end.
+ * <br>
+ * The bytes are stored in a list of chunks : when the buffer is full, a new chunk
+ * is added in front of the existing ones, so the already written bytes are never
+ * copied, and encoding a PDU is linear in its size. The chunks are up to
+ * 64 KiB big, except when a bigger value is stored at once. Some of them are kept
+ * when the buffer is cleared, to be reused for the next PDU.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -33,18 +41,59 @@ public class Asn1Buffer
     /** The buffer default size */
     private static final int DEFAULT_SIZE = 1024;
 
+    /** The maximum size of a chunk, unless a bigger value is stored at once */
+    private static final int MAX_CHUNK_SIZE = 64 * DEFAULT_SIZE;
+
+    /** The maximum number of bytes kept for reuse when the buffer is cleared */
+    private static final int MAX_RETAINED_SIZE = 64 * DEFAULT_SIZE;
+
+    /** A chunk of the buffer, filled by the end */
+    private static final class Chunk
+    {
+        /** The chunk storage */
+        private final byte[] data;
+
+        /** The position of the first stored byte */
+        private int start;
+
+
+        Chunk( int size )
+        {
+            data = new byte[size];
+            start = size;
+        }
+
+
+        /**
+         * @return The number of bytes stored in this chunk
+         */
+        int length()
+        {
+            return data.length - start;
+        }
+    }
+
     /** The current position in the buffer */
     private int pos = 0;
 
-    /** A buffer to store the encoded PDU */
-    private byte[] buffer;
-    
+    /** The chunks in use, the first one containing the end of the PDU */
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /** The chunk being filled, which is the last one of the list */
+    private Chunk current;
+
+    /** The chunks kept for reuse */
+    private final List<Chunk> spares = new ArrayList<>();
+
+    /** The total size of the chunks in use */
+    private int size;
+
     /**
      * Creates a new Asn1Buffer instance
      */
     public Asn1Buffer()
     {
-        buffer = new byte[DEFAULT_SIZE];
+        addChunk( DEFAULT_SIZE );
     }
 
 
@@ -60,12 +109,37 @@ public class Asn1Buffer
 
 
     /**
-     * Set the current position in the buffer
+     * Set the current position in the buffer. Moving it backward drops the last
+     * stored bytes, moving it forward stores zeroes.
      * 
      * @param pos The position to move the buffer to
      */
     public void setPos( int pos )
     {
+        if ( pos > this.pos )
+        {
+            put( new byte[pos - this.pos] );
+
+            return;
+        }
+
+        int drop = this.pos - pos;
+
+        while ( drop > 0 )
+        {
+            int removed = Math.min( drop, current.length() );
+            current.start += removed;
+            drop -= removed;
+
+            if ( ( current.length() == 0 ) && ( chunks.size() > 1 ) )
+            {
+                chunks.remove( chunks.size() - 1 );
+                size -= current.data.length;
+                spares.add( current );
+                current = chunks.get( chunks.size() - 1 );
+            }
+        }
+
         this.pos = pos;
     }
 
@@ -77,14 +151,14 @@ public class Asn1Buffer
      */
     public void put( byte b )
     {
-        if ( pos == buffer.length )
+        if ( current.start == 0 )
         {
-            // The buffer needs to be reallocated, its too small
+            // The buffer is full, add a chunk in front of the current one
             extend( 1 );
         }
 
         pos++;
-        buffer[buffer.length - pos] = b;
+        current.data[--current.start] = b;
     }
 
 
@@ -95,37 +169,60 @@ public class Asn1Buffer
      */
     public void put( byte[] bytes )
     {
-        if ( pos + bytes.length > buffer.length )
+        int remaining = bytes.length;
+
+        // The bytes are stored from the last one, the beginning of the
+        // array may end in a new chunk
+        while ( remaining > 0 )
         {
-            // The buffer needs to be reallocated, its too small
-            extend( bytes.length );
+            if ( current.start == 0 )
+            {
+                extend( remaining );
+            }
+
+            int length = Math.min( remaining, current.start );
+            current.start -= length;
+            remaining -= length;
+            System.arraycopy( bytes, remaining, current.data, current.start, length );
         }
 
-
         pos += bytes.length;
-        System.arraycopy( bytes, 0, buffer, buffer.length - pos, bytes.length );
     }
 
 
     /**
-     * Extend the buffer
+     * Extend the buffer, adding a new chunk in front of the existing ones. The
+     * existing content is left untouched.
      * 
-     * @param size The new buffer size
+     * @param needed The number of bytes we need to store
      */
-    private void extend( int size )
+    private void extend( int needed )
     {
-        // The buffer needs to be reallocated, it's too small
-        int newSize = ( ( size + buffer.length ) / DEFAULT_SIZE ) * DEFAULT_SIZE;
-
-        if ( size % DEFAULT_SIZE != 0 )
+        // Reuse a spare chunk if any
+        if ( !spares.isEmpty() )
         {
-            newSize += DEFAULT_SIZE;
+            Chunk spare = spares.remove( spares.size() - 1 );
+            spare.start = spare.data.length;
+            chunks.add( spare );
+            size += spare.data.length;
+            current = spare;
+
+            return;
         }
 
-        byte[] newBuffer = new byte[newSize];
-        System.arraycopy( buffer, 0, newBuffer, newSize - buffer.length, buffer.length );
+        // Double the buffer size, up to the maximum chunk size, unless a bigger
+        // value has to be stored
+        int chunkSize = Math.max( DEFAULT_SIZE, Math.min( size, MAX_CHUNK_SIZE ) );
 
-        buffer = newBuffer;
+        addChunk( Math.max( chunkSize, needed ) );
+    }
+
+
+    private void addChunk( int chunkSize )
+    {
+        current = new Chunk( chunkSize );
+        chunks.add( current );
+        size += chunkSize;
     }
 
 
@@ -138,13 +235,48 @@ public class Asn1Buffer
     {
         ByteBuffer result = ByteBuffer.allocate( pos );
 
-        result.put( buffer, buffer.length - pos, pos );
+        for ( int i = chunks.size() - 1; i >= 0; i-- )
+        {
+            Chunk chunk = chunks.get( i );
+            result.put( chunk.data, chunk.start, chunk.length() );
+        }
+
         result.flip();
 
         return result;
     }
 
 
+    /**
+     * Get the interned bytes without copying them, as an array of ByteBuffers to be
+     * written in order. The buffer hands the storage over to the caller, so it is
+     * emptied, and won't reuse the returned storage.
+     * 
+     * @return The stored encoded PDU, as a gather array of ByteBuffers.
+     */
+    public ByteBuffer[] getBuffers()
+    {
+        List<ByteBuffer> buffers = new ArrayList<>( chunks.size() );
+
+        for ( int i = chunks.size() - 1; i >= 0; i-- )
+        {
+            Chunk chunk = chunks.get( i );
+
+            if ( chunk.length() > 0 )
+            {
+                buffers.add( ByteBuffer.wrap( chunk.data, chunk.start, chunk.length() ).slice() );
+            }
+        }
+
+        chunks.clear();
+        size = 0;
+        pos = 0;
+        addChunk( DEFAULT_SIZE );
+
+        return buffers.toArray( new ByteBuffer[buffers.size()] );
+    }
+
+
     /**
      * Get the buffer size
      * 
@@ -153,21 +285,44 @@ public class Asn1Buffer
      */
     public int getSize()
     {
-        return buffer.length;
+        return size;
     }
 
 
     /**
-     * Clear the position, emptying the buffer. If it has grown, reallocate it
-     * to its initial size.
+     * Clear the position, emptying the buffer. If it has grown, only keep up to
+     * 64 KiB of its chunks for reuse.
      */
     public void clear()
     {
-        if ( buffer.length > DEFAULT_SIZE )
+        if ( chunks.size() > 1 )
         {
-            buffer = new byte[DEFAULT_SIZE];
+            int retained = 0;
+
+            for ( Chunk spare : spares )
+            {
+                retained += spare.data.length;
+            }
+
+            // The first chunk remains in use, the smallest ones are the most likely to be kept
+            for ( int i = 1; i < chunks.size(); i++ )
+            {
+                Chunk chunk = chunks.get( i );
+
+                if ( retained + chunk.data.length <= MAX_RETAINED_SIZE )
+                {
+                    retained += chunk.data.length;
+                    spares.add( chunk );
+                }
+            }
+
+            current = chunks.get( 0 );
+            chunks.clear();
+            chunks.add( current );
+            size = current.data.length;
         }
 
+        current.start = current.data.length;
         pos = 0;
     }
 
@@ -178,7 +333,7 @@ public class Asn1Buffer
     @Override
     public String toString()
     {
-        return "[" + buffer.length + ", " + pos + "] '"
-            + Asn1StringUtils.dumpBytes( buffer, buffer.length - pos, pos ) + '\'';
+        return "[" + size + ", " + pos + "] '"
+            + Asn1StringUtils.dumpBytes( getBytes().array(), 0, pos ) + '\'';
     }
 }
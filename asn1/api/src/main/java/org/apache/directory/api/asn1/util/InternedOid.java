@@ -0,0 +1,305 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.asn1.util;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.directory.api.asn1.DecoderException;
+
+
+/**
+ * An OID interned in a global table, with its canonical String and its encoded form. The
+ * OIDs of the controls and of the extended operations are carried by LDAP as the ASCII
+ * bytes of their dotted form : once interned, an OID is encoded and decoded without
+ * creating any String nor byte[], and its canonical String makes the factory lookups
+ * cheap.
+ * <br>
+ * The table is bounded : past {@link #MAX_INTERNED_OIDS} OIDs, the new ones are
+ * not interned anymore, so a peer can't make it grow forever.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class InternedOid
+{
+    /** The maximum number of interned OIDs */
+    public static final int MAX_INTERNED_OIDS = 1024;
+
+    /** The number of buckets in the table. A power of 2 */
+    private static final int NB_BUCKETS = 2048;
+
+    /** The table buckets. A bucket array is never modified, but replaced */
+    private static final AtomicReferenceArray<InternedOid[]> BUCKETS = new AtomicReferenceArray<>( NB_BUCKETS );
+
+    /** The number of interned OIDs */
+    private static int size;
+
+    /** The lock protecting the modifications of the table */
+    private static final Object LOCK = new Object();
+
+    /** The canonical String */
+    private final String value;
+
+    /** The ASCII bytes of the OID's dotted form */
+    private final byte[] bytes;
+
+    /** The Oid */
+    private final Oid oid;
+
+
+    private InternedOid( String value, Oid oid )
+    {
+        this.value = value;
+        this.oid = oid;
+        bytes = new byte[value.length()];
+
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            bytes[i] = ( byte ) value.charAt( i );
+        }
+    }
+
+
+    /**
+     * Interns an OID, after having checked it.
+     *
+     * @param oid The OID, in dotted form
+     * @return The interned OID. When the table is full, the returned instance is not interned
+     * @throws DecoderException If the OID is not valid
+     */
+    public static InternedOid intern( String oid ) throws DecoderException
+    {
+        InternedOid interned = get( oid );
+
+        if ( interned != null )
+        {
+            return interned;
+        }
+
+        Oid parsed = Oid.fromString( oid );
+        String canonical = parsed.toString();
+
+        if ( canonical.equals( oid ) )
+        {
+            // Keep the caller's instance, usually a constant
+            canonical = oid;
+        }
+
+        synchronized ( LOCK )
+        {
+            int index = index( canonical.hashCode() );
+            InternedOid[] bucket = BUCKETS.get( index );
+
+            if ( bucket != null )
+            {
+                // Interned concurrently ?
+                for ( InternedOid candidate : bucket )
+                {
+                    if ( candidate.value.equals( canonical ) )
+                    {
+                        return candidate;
+                    }
+                }
+            }
+
+            interned = new InternedOid( canonical, parsed );
+
+            if ( size < MAX_INTERNED_OIDS )
+            {
+                InternedOid[] newBucket;
+
+                if ( bucket == null )
+                {
+                    newBucket = new InternedOid[1];
+                }
+                else
+                {
+                    newBucket = new InternedOid[bucket.length + 1];
+                    System.arraycopy( bucket, 0, newBucket, 0, bucket.length );
+                }
+
+                newBucket[newBucket.length - 1] = interned;
+                BUCKETS.set( index, newBucket );
+                size++;
+            }
+
+            return interned;
+        }
+    }
+
+
+    /**
+     * Gets an interned OID
+     *
+     * @param oid The OID, in dotted form
+     * @return The interned OID, or <code>null</code> if it's not interned
+     */
+    public static InternedOid get( String oid )
+    {
+        if ( oid == null )
+        {
+            return null;
+        }
+
+        InternedOid[] bucket = bucket( oid.hashCode() );
+
+        if ( bucket != null )
+        {
+            for ( InternedOid candidate : bucket )
+            {
+                // The interned Strings are usually the constants used by the callers
+                if ( ( candidate.value == oid ) || candidate.value.equals( oid ) )
+                {
+                    return candidate;
+                }
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Gets the interned OID which dotted form is encoded in some bytes, without
+     * creating any String.
+     *
+     * @param data The ASCII bytes of the OID's dotted form
+     * @return The interned OID, or <code>null</code> if it's not interned
+     */
+    public static InternedOid get( byte[] data )
+    {
+        if ( data == null )
+        {
+            return null;
+        }
+
+        // For ASCII bytes, this is the hash code of the String
+        int hash = 0;
+
+        for ( byte b : data )
+        {
+            hash = 31 * hash + ( b & 0xFF );
+        }
+
+        InternedOid[] bucket = bucket( hash );
+
+        if ( bucket != null )
+        {
+            for ( InternedOid candidate : bucket )
+            {
+                if ( candidate.matches( data ) )
+                {
+                    return candidate;
+                }
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Gets the encoded form of an OID. The interned OIDs share their bytes, which
+     * must not be modified.
+     *
+     * @param oid The OID, in dotted form
+     * @return The ASCII bytes of the OID, or its UTF-8 bytes if it's not interned, or <code>null</code>
+     */
+    public static byte[] getBytes( String oid )
+    {
+        InternedOid interned = get( oid );
+
+        if ( interned != null )
+        {
+            return interned.bytes;
+        }
+
+        return ( oid == null ) ? null : oid.getBytes( StandardCharsets.UTF_8 );
+    }
+
+
+    private static int index( int hash )
+    {
+        return ( hash ^ ( hash >>> 16 ) ) & ( NB_BUCKETS - 1 );
+    }
+
+
+    private static InternedOid[] bucket( int hash )
+    {
+        return BUCKETS.get( index( hash ) );
+    }
+
+
+    private boolean matches( byte[] data )
+    {
+        if ( data.length != bytes.length )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < data.length; i++ )
+        {
+            if ( data[i] != bytes[i] )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * @return The canonical String
+     */
+    public String getValue()
+    {
+        return value;
+    }
+
+
+    /**
+     * @return The ASCII bytes of the OID's dotted form. They must not be modified
+     */
+    public byte[] getBytes()
+    {
+        return bytes;
+    }
+
+
+    /**
+     * @return The Oid instance
+     */
+    public Oid getOid()
+    {
+        return oid;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+        return value;
+    }
+}
@@ -317,7 +317,7 @@ public final class Oid
     {
         if ( ( oidBytes == null ) || ( oidBytes.length < 1 ) )
         {
-            throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, Arrays.toString( oidBytes ) ) );
+            throw new DecoderException( I18n.ERR_00003_INVALID_OID, Arrays.toString( oidBytes ) );
         }
 
         StringBuilder builder = new StringBuilder();
@@ -466,8 +466,8 @@ public final class Oid
     
                             if ( ( one < 0 ) || ( one > 2 ) || ( two < 0 ) || ( ( one < 2 ) && ( two > 39 ) ) )
                             {
-                                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID,
-                                    Arrays.toString( oidBytes ) ) );
+                                throw new DecoderException( I18n.ERR_00003_INVALID_OID,
+                                    Arrays.toString( oidBytes ) );
                             }
     
                             if ( one < 2 )
@@ -523,7 +523,7 @@ public final class Oid
                 
             default :
                 // This is an error
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "Should start with 0, 1 or 2" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "Should start with 0, 1 or 2" );
         }
     }
     
@@ -544,7 +544,7 @@ public final class Oid
         if ( oid.charAt( pos ) != '.' )
         {
             // Expecting a Dot here
-            throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a '.' is expected" ) );
+            throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a '.' is expected" );
         }
         
         return OidFSAState.STATE_B;
@@ -593,7 +593,7 @@ public final class Oid
                 
             default :
                 // Expecting a digit here
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a digit is expected" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a digit is expected" );
         }
     }
     
@@ -638,7 +638,7 @@ public final class Oid
                 
             default :
                 // Expecting a digit here
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a digit is expected" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a digit is expected" );
         }
     }
     
@@ -663,7 +663,7 @@ public final class Oid
         if ( c != '.' )
         {
             // Expecting a '.' here
-            throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a dot is expected" ) );
+            throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a dot is expected" );
         }
         
         // Store the first byte into it
@@ -690,7 +690,7 @@ public final class Oid
         if ( oid.charAt( pos ) != '.' )
         {
             // Expecting a Dot here
-            throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a '.' is expected" ) );
+            throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a '.' is expected" );
         }
         
         return OidFSAState.STATE_G;
@@ -735,7 +735,7 @@ public final class Oid
 
             default :
                 // Expecting a digit here
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a digit is expected" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a digit is expected" );
         }
     }
     
@@ -781,7 +781,7 @@ public final class Oid
                 
             default :
                 // Expecting a digit here
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a digit is expected" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a digit is expected" );
         }
     }
     
@@ -811,7 +811,7 @@ public final class Oid
         else
         {
             // Expecting a digit here
-            throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a digit is expected" ) );
+            throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a digit is expected" );
         }
     }
     
@@ -855,7 +855,7 @@ public final class Oid
                 
             default :
                 // Expecting a digit here
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a digit is expected" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a digit is expected" );
         }
     }
     
@@ -898,7 +898,7 @@ public final class Oid
                 
             default :
                 // Expecting a digit here
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a digit is expected" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a digit is expected" );
         }
     }
     
@@ -943,7 +943,7 @@ public final class Oid
                 
             default :
                 // Expecting a digit here
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a digit or a dot is expected" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a digit or a dot is expected" );
         }
     }
 
@@ -970,7 +970,7 @@ public final class Oid
         else
         {
             // Expecting a '.' here
-            throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "a '.' is expected" ) );
+            throw new DecoderException( I18n.ERR_00003_INVALID_OID, "a '.' is expected" );
         }
     }
 
@@ -1275,7 +1275,7 @@ public final class Oid
     {
         if ( ( oidString == null ) || oidString.isEmpty() )
         {
-            throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "empty" ) );
+            throw new DecoderException( I18n.ERR_00003_INVALID_OID, "empty" );
         }
 
         // Create a buffer that is wide enough to contain all the values
@@ -1498,7 +1498,7 @@ public final class Oid
                 
             default :
                 // This should never happen...
-                throw new DecoderException( I18n.err( I18n.ERR_00003_INVALID_OID, "Wrong OID" ) );
+                throw new DecoderException( I18n.ERR_00003_INVALID_OID, "Wrong OID" );
         }
     }
 
@@ -0,0 +1,85 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.asn1;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.directory.api.i18n.I18n;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * A test class for the DecoderException lazy messages
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DecoderExceptionTest
+{
+    @Test
+    public void testLazyMessage()
+    {
+        DecoderException de = new DecoderException( I18n.ERR_00003_INVALID_OID, "empty" );
+
+        assertEquals( I18n.err( I18n.ERR_00003_INVALID_OID, "empty" ), de.getMessage() );
+        assertEquals( de.getMessage(), de.getLocalizedMessage() );
+        assertTrue( de.toString().endsWith( de.getMessage() ) );
+    }
+
+
+    @Test
+    public void testEagerMessage()
+    {
+        assertEquals( "message", new DecoderException( "message" ).getMessage() );
+    }
+
+
+    @Test
+    public void testSerializedLazyMessage() throws Exception
+    {
+        DecoderException de = new DecoderException( I18n.ERR_00003_INVALID_OID, new Object() {
+            @Override
+            public String toString()
+            {
+                return "not serializable";
+            }
+        } );
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try ( ObjectOutputStream out = new ObjectOutputStream( baos ) )
+        {
+            out.writeObject( de );
+        }
+
+        try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( baos.toByteArray() ) ) )
+        {
+            DecoderException read = ( DecoderException ) in.readObject();
+
+            assertEquals( I18n.err( I18n.ERR_00003_INVALID_OID, "not serializable" ), read.getMessage() );
+        }
+    }
+}
@@ -19,7 +19,9 @@
  */
 package org.apache.directory.api.asn1.util;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.ByteBuffer;
 
@@ -94,6 +96,123 @@ public class Asn1BufferTest
         }
     }
 
+    @Test
+    public void testPutBigBytes()
+    {
+        Asn1Buffer buffer = new Asn1Buffer();
+        byte[] big = new byte[200_000];
+
+        for ( int i = 0; i < big.length; i++ )
+        {
+            big[i] = ( byte ) ( i % 251 );
+        }
+
+        buffer.put( ( byte ) 0x01 );
+        buffer.put( big );
+        buffer.put( ( byte ) 0x02 );
+
+        assertEquals( 200_002, buffer.getPos() );
+
+        ByteBuffer result = buffer.getBytes();
+        assertEquals( 200_002, result.remaining() );
+        assertEquals( 0x02, result.get( 0 ) );
+        assertEquals( 0x01, result.get( 200_001 ) );
+
+        for ( int i = 0; i < big.length; i++ )
+        {
+            assertEquals( big[i], result.get( i + 1 ) );
+        }
+    }
+
+
+    @Test
+    public void testSetPos()
+    {
+        Asn1Buffer buffer = new Asn1Buffer();
+
+        for ( int i = 0; i < 3000; i++ )
+        {
+            buffer.put( ( byte ) i );
+        }
+
+        // Drop the last 2500 stored bytes, across chunks
+        buffer.setPos( 500 );
+        buffer.put( new byte[] { 0x10, 0x11 } );
+
+        ByteBuffer result = buffer.getBytes();
+        assertEquals( 502, result.remaining() );
+        assertEquals( 0x10, result.get( 0 ) );
+        assertEquals( 0x11, result.get( 1 ) );
+        assertEquals( ( byte ) 499, result.get( 2 ) );
+        assertEquals( ( byte ) 0, result.get( 501 ) );
+    }
+
+
+    @Test
+    public void testGetBuffers()
+    {
+        Asn1Buffer buffer = new Asn1Buffer();
+        byte[] expected = new byte[10_000];
+
+        for ( int i = 0; i < expected.length; i++ )
+        {
+            expected[i] = ( byte ) i;
+        }
+
+        for ( int i = expected.length - 1; i >= 0; i-- )
+        {
+            buffer.put( expected[i] );
+        }
+
+        ByteBuffer[] buffers = buffer.getBuffers();
+        assertTrue( buffers.length > 1 );
+
+        ByteBuffer gathered = ByteBuffer.allocate( expected.length );
+
+        for ( ByteBuffer chunk : buffers )
+        {
+            gathered.put( chunk );
+        }
+
+        assertArrayEquals( expected, gathered.array() );
+
+        // The buffer is now empty, and usable
+        assertEquals( 0, buffer.getPos() );
+        buffer.put( ( byte ) 0x05 );
+        assertEquals( 1, buffer.getBytes().remaining() );
+    }
+
+
+    @Test
+    public void testClearKeepsChunks()
+    {
+        Asn1Buffer buffer = new Asn1Buffer();
+
+        for ( int i = 0; i < 4096; i++ )
+        {
+            buffer.put( ( byte ) i );
+        }
+
+        assertEquals( 4096, buffer.getSize() );
+
+        buffer.clear();
+        assertEquals( 0, buffer.getPos() );
+        assertEquals( 1024, buffer.getSize() );
+
+        for ( int i = 0; i < 4096; i++ )
+        {
+            buffer.put( ( byte ) ( i + 1 ) );
+        }
+
+        ByteBuffer result = buffer.getBytes();
+
+        for ( int i = 0; i < 4096; i++ )
+        {
+            assertEquals( ( byte ) ( 4096 - i ), result.get( i ) );
+        }
+    }
+
+
     @Test
     @Disabled
     public void testBytesPerf()
@@ -0,0 +1,84 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.asn1.util;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.directory.api.asn1.DecoderException;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * A test class for the InternedOid class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class InternedOidTest
+{
+    @Test
+    public void testIntern() throws DecoderException
+    {
+        String oid = "1.3.6.1.4.1.18060.0.4.1.2.999";
+        InternedOid interned = InternedOid.intern( oid );
+
+        assertSame( oid, interned.getValue() );
+        assertSame( interned, InternedOid.intern( new String( oid ) ) );
+        assertSame( interned, InternedOid.get( oid ) );
+        assertArrayEquals( oid.getBytes( StandardCharsets.US_ASCII ), interned.getBytes() );
+        assertEquals( Oid.fromString( oid ), interned.getOid() );
+    }
+
+
+    @Test
+    public void testGetFromBytes() throws DecoderException
+    {
+        InternedOid interned = InternedOid.intern( "1.3.6.1.4.1.18060.0.4.1.2.998" );
+
+        assertSame( interned, InternedOid.get( "1.3.6.1.4.1.18060.0.4.1.2.998".getBytes( StandardCharsets.US_ASCII ) ) );
+        assertNull( InternedOid.get( "1.3.6.1.4.1.18060.0.4.1.2.997".getBytes( StandardCharsets.US_ASCII ) ) );
+        assertNull( InternedOid.get( ( byte[] ) null ) );
+    }
+
+
+    @Test
+    public void testGetBytes() throws DecoderException
+    {
+        InternedOid interned = InternedOid.intern( "1.3.6.1.4.1.18060.0.4.1.2.996" );
+
+        assertSame( interned.getBytes(), InternedOid.getBytes( "1.3.6.1.4.1.18060.0.4.1.2.996" ) );
+        assertArrayEquals( "1.2.3.4.5".getBytes( StandardCharsets.US_ASCII ), InternedOid.getBytes( "1.2.3.4.5" ) );
+        assertNull( InternedOid.getBytes( null ) );
+    }
+
+
+    @Test
+    public void testInvalidOid()
+    {
+        assertThrows( DecoderException.class, () -> InternedOid.intern( "1.3.a" ) );
+        assertNull( InternedOid.get( "1.3.a" ) );
+    }
+}
@@ -75,12 +75,15 @@ public abstract class AbstractReadBitString<C extends Asn1Container> extends Gra
         // The Length should not be null, and should be 5
         if ( tlv.getLength() != 5 )
         {
-            String msg = I18n.err( I18n.ERR_01100_INCORRECT_LENGTH, 5, tlv.getLength() );
-            
-            LOG.error( msg );
+            DecoderException de = new DecoderException( I18n.ERR_01100_INCORRECT_LENGTH, 5, tlv.getLength() );
+
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
 
             // This will generate a PROTOCOL_ERROR
-            throw new DecoderException( msg );
+            throw de;
         }
 
         byte[] data = tlv.getValue().getData();
@@ -101,12 +101,15 @@ public abstract class AbstractReadInteger<E extends Asn1Container> extends Gramm
         // The Length should not be null
         if ( tlv.getLength() == 0 )
         {
-            String msg = I18n.err( I18n.ERR_01101_NULL_LENGTH );
-            
-            LOG.error( msg );
+            DecoderException de = new DecoderException( I18n.ERR_01101_NULL_LENGTH );
+
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
 
             // This will generate a PROTOCOL_ERROR
-            throw new DecoderException( msg );
+            throw de;
         }
 
         BerValue value = tlv.getValue();
@@ -91,12 +91,15 @@ public abstract class AbstractReadOctetString<C extends Asn1Container> extends G
         // The Length should not be null
         if ( ( tlv.getLength() == 0 ) && ( !canBeNull ) )
         {
-            String msg = I18n.err( I18n.ERR_01101_NULL_LENGTH );
-            
-            LOG.error( msg );
+            DecoderException de = new DecoderException( I18n.ERR_01101_NULL_LENGTH );
+
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
 
             // This will generate a PROTOCOL_ERROR
-            throw new DecoderException( msg );
+            throw de;
         }
 
         BerValue value = tlv.getValue();
@@ -104,12 +107,15 @@ public abstract class AbstractReadOctetString<C extends Asn1Container> extends G
         // The data should not be null
         if ( ( value.getData() == null ) && ( !canBeNull ) )
         {
-            String msg = I18n.err( I18n.ERR_01101_NULL_LENGTH );
-            
-            LOG.error( msg );
+            DecoderException de = new DecoderException( I18n.ERR_01101_NULL_LENGTH );
+
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
 
             // This will generate a PROTOCOL_ERROR
-            throw new DecoderException( msg );
+            throw de;
         }
 
         setOctetString( value.getData(), container );
@@ -62,12 +62,15 @@ public class CheckNotNullLength<C extends Asn1Container> extends GrammarAction<C
         // The Length should not be null
         if ( tlv.getLength() == 0 )
         {
-            String msg = I18n.err( I18n.ERR_01101_NULL_LENGTH );
-            
-            LOG.error( msg );
+            DecoderException de = new DecoderException( I18n.ERR_01101_NULL_LENGTH );
+
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
 
             // This will generate a PROTOCOL_ERROR
-            throw new DecoderException( msg );
+            throw de;
         }
     }
 }
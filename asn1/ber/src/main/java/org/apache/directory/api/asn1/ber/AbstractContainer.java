@@ -22,7 +22,9 @@ package org.apache.directory.api.asn1.ber;
 
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
+import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.Grammar;
 import org.apache.directory.api.asn1.ber.grammar.States;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
@@ -384,4 +386,15 @@ public abstract class AbstractContainer implements Asn1Container
         this.gathering = gathering;
     }
 
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The values are stored in memory by default.
+     */
+    @Override
+    public WritableByteChannel getValueChannel() throws DecoderException
+    {
+        return null;
+    }
 }
@@ -21,7 +21,9 @@ package org.apache.directory.api.asn1.ber;
 
 
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
+import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.Grammar;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
 import org.apache.directory.api.asn1.ber.tlv.TLVStateEnum;
@@ -234,4 +236,18 @@ public interface Asn1Container
      * into the container. If not set, the default value is 'false'
      */
     void setGathering( boolean isGathering );
+
+
+    /**
+     * Called when the value of the current primitive TLV starts, to know if it has to be
+     * written to a channel instead of being stored in memory. The channel receives the
+     * value bytes as soon as they are received, and the TLV's value remains empty.
+     *
+     * @return The channel receiving the value, or <code>null</code> to store it in the TLV
+     * @throws DecoderException If the channel can't be created
+     */
+    default WritableByteChannel getValueChannel() throws DecoderException
+    {
+        return null;
+    }
 }
@@ -20,7 +20,9 @@
 package org.apache.directory.api.asn1.ber;
 
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.tlv.BerValue;
@@ -211,9 +213,14 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
 
                 if ( expectedLength > 4 )
                 {
-                    String msg = I18n.err( I18n.ERR_01000_LENGTH_OVERFLOW );
-                    LOG.error( msg );
-                    throw new DecoderException( msg );
+                    DecoderException de = new DecoderException( I18n.ERR_01000_LENGTH_OVERFLOW );
+
+                    if ( LOG.isErrorEnabled() )
+                    {
+                        LOG.error( de.getMessage() );
+                    }
+
+                    throw de;
                 }
 
                 tlv.setLength( 0 );
@@ -223,9 +230,14 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
             }
             else
             {
-                String msg = I18n.err( I18n.ERR_01001_LENGTH_EXTENSION_RESERVED );
-                LOG.error( msg );
-                throw new DecoderException( msg );
+                DecoderException de = new DecoderException( I18n.ERR_01001_LENGTH_EXTENSION_RESERVED );
+
+                if ( LOG.isErrorEnabled() )
+                {
+                    LOG.error( de.getMessage() );
+                }
+
+                throw de;
             }
 
             return MORE;
@@ -269,9 +281,14 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
                 
                 if ( length < 0 )
                 {
-                    String msg = I18n.err( I18n.ERR_01002_TLV_NULL );
-                    LOG.error( msg );
-                    throw new DecoderException( msg );
+                    DecoderException de = new DecoderException( I18n.ERR_01002_TLV_NULL );
+
+                    if ( LOG.isErrorEnabled() )
+                    {
+                        LOG.error( de.getMessage() );
+                    }
+
+                    throw de;
                 }
 
                 if ( !stream.hasRemaining() )
@@ -349,9 +366,14 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
 
         if ( tlv == null )
         {
-            String msg = I18n.err( I18n.ERR_01002_TLV_NULL );
-            LOG.error( msg );
-            throw new DecoderException( msg );
+            DecoderException de = new DecoderException( I18n.ERR_01002_TLV_NULL );
+
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
+
+            throw de;
         }
 
         int length = tlv.getLength();
@@ -359,7 +381,7 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
         // Check we arent above the MAX PDU
         if ( length > container.getMaxPDUSize() )
         {
-            throw new DecoderException( I18n.err( I18n.ERR_01007_PDU_SIZE_TOO_LONG, length, container.getMaxPDUSize() ) );
+            throw new DecoderException( I18n.ERR_01007_PDU_SIZE_TOO_LONG, length, container.getMaxPDUSize() );
         }
 
         // We will check the length here. What we must control is
@@ -402,8 +424,8 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
                                 Integer.valueOf( currentLength ) ) );
                 }
                 
-                throw new DecoderException( I18n.err( I18n.ERR_01003_VALUE_LENGTH_ABOVE_EXPECTED_LENGTH, Integer
-                    .valueOf( currentLength ), Integer.valueOf( expectedLength ) ) );
+                throw new DecoderException( I18n.ERR_01003_VALUE_LENGTH_ABOVE_EXPECTED_LENGTH, currentLength,
+                    expectedLength );
             }
 
             // deal with the particular case where expected length equal
@@ -521,8 +543,10 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
      * the result and other informations.
      * @return <code>true</code> if there are more bytes to read, <code>false
      * </code> otherwise
+     * @throws DecoderException If the value can't be streamed
      */
     private static  boolean treatValueStartState( ByteBuffer stream, Asn1Container container )
+        throws DecoderException
     {
         TLV currentTlv = container.getCurrentTLV();
 
@@ -534,6 +558,16 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
         }
         else
         {
+            WritableByteChannel channel = container.getValueChannel();
+
+            if ( channel != null )
+            {
+                // The value is not stored, but written to the channel while it's received
+                currentTlv.getValue().initStream( channel );
+
+                return streamValue( stream, container, currentTlv );
+            }
+
             int length = currentTlv.getLength();
             int nbBytes = stream.remaining();
 
@@ -566,11 +600,18 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
      * @return <code>MORE</code> if some bytes remain in the buffer when the
      * value has been decoded, <code>END</code> if whe still need to get some
      * more bytes.
+     * @throws DecoderException If the value can't be streamed
      */
     private static boolean treatValuePendingState( ByteBuffer stream, Asn1Container container )
+        throws DecoderException
     {
         TLV currentTlv = container.getCurrentTLV();
 
+        if ( currentTlv.getValue().isStreamed() )
+        {
+            return streamValue( stream, container, currentTlv );
+        }
+
         int length = currentTlv.getLength();
         int currentLength = currentTlv.getValue().getCurrentLength();
         int nbBytes = stream.remaining();
@@ -595,6 +636,51 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
     }
 
 
+    /**
+     * Writes the available bytes of a streamed value to its channel.
+     *
+     * @param stream The ByteBuffer containing the PDU to decode
+     * @param container The container that stores the current state,
+     * the result and other informations.
+     * @param currentTlv The TLV which value is streamed
+     * @return <code>MORE</code> if some bytes remain in the buffer when the
+     * value has been written, <code>END</code> if whe still need to get some
+     * more bytes.
+     * @throws DecoderException If the channel failed
+     */
+    private static boolean streamValue( ByteBuffer stream, Asn1Container container, TLV currentTlv )
+        throws DecoderException
+    {
+        BerValue value = currentTlv.getValue();
+        int missing = currentTlv.getLength() - value.getCurrentLength();
+        int nbBytes = Math.min( missing, stream.remaining() );
+
+        try
+        {
+            value.stream( stream, nbBytes );
+        }
+        catch ( IOException ioe )
+        {
+            String msg = I18n.err( I18n.ERR_01009_VALUE_STREAMING_FAILURE, ioe.getMessage() );
+            LOG.error( msg );
+            throw new DecoderException( msg, ioe );
+        }
+
+        if ( nbBytes < missing )
+        {
+            container.setState( TLVStateEnum.VALUE_STATE_PENDING );
+
+            return END;
+        }
+        else
+        {
+            container.setState( TLVStateEnum.TLV_STATE_DONE );
+
+            return MORE;
+        }
+    }
+
+
     /**
      * When the TLV has been fully decoded, we have to execute the associated
      * action and switch to the next TLV, which will start with a Tag.
@@ -634,8 +720,12 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
                 }
                 else
                 {
-                    LOG.error( I18n.err( I18n.ERR_01004_MORE_TLV_EXPECTED ) );
-                    throw new DecoderException( I18n.err( I18n.ERR_01005_TRUNCATED_PDU ) );
+                    if ( LOG.isErrorEnabled() )
+                    {
+                        LOG.error( I18n.err( I18n.ERR_01004_MORE_TLV_EXPECTED ) );
+                    }
+
+                    throw new DecoderException( I18n.ERR_01005_TRUNCATED_PDU );
                 }
             }
         }
@@ -679,10 +769,15 @@ public final class Asn1Decoder implements TLVBerDecoderMBean
 
         if ( container.getDecodedBytes() > container.getMaxPDUSize() )
         {
-            String message = I18n.err( I18n.ERR_01007_PDU_SIZE_TOO_LONG, container.getDecodedBytes(), container
-                .getMaxPDUSize() );
-            LOG.error( message );
-            throw new DecoderException( message );
+            DecoderException de = new DecoderException( I18n.ERR_01007_PDU_SIZE_TOO_LONG, container.getDecodedBytes(),
+                container.getMaxPDUSize() );
+
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
+
+            throw de;
         }
 
         if ( LOG.isDebugEnabled() )
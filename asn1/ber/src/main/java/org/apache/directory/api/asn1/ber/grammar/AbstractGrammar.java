@@ -136,14 +136,17 @@ public abstract class AbstractGrammar<C extends Asn1Container> implements Gramma
         
         if ( transition == null )
         {
-            String errorMessage = I18n.err( I18n.ERR_01200_BAD_TRANSITION_FROM_STATE, currentState,
+            DecoderException de = new DecoderException( I18n.ERR_01200_BAD_TRANSITION_FROM_STATE, currentState,
                 Asn1StringUtils.dumpByte( tagByte ) );
 
-            LOG.error( errorMessage );
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
 
             // If we have no more grammar on the stack, then this is an
             // error
-            throw new DecoderException( errorMessage );
+            throw de;
         }
 
         if ( LOG.isDebugEnabled() )
@@ -159,11 +162,14 @@ public abstract class AbstractGrammar<C extends Asn1Container> implements Gramma
 
         if ( ( parent != null ) && ( parent.getExpectedLength() == 0 ) && transition.hasFollowUp() )
         {
-            String errorMessage = I18n.err( I18n.ERR_01201_MANDATORY_TRANSITION_EXPECTED, transition );
+            DecoderException de = new DecoderException( I18n.ERR_01201_MANDATORY_TRANSITION_EXPECTED, transition );
 
-            LOG.error( errorMessage );
-            
-            throw new DecoderException( errorMessage );
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( de.getMessage() );
+            }
+
+            throw de;
         }
         
         container.setTransition( transition.getCurrentState() );
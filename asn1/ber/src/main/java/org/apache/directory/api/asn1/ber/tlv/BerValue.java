@@ -20,8 +20,11 @@
 package org.apache.directory.api.asn1.ber.tlv;
 
 
+import java.io.IOException;
+import java.nio.Buffer;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 import org.apache.directory.api.asn1.EncoderException;
 import org.apache.directory.api.asn1.util.Asn1Buffer;
@@ -45,6 +48,9 @@ public class BerValue
     /** The current position of the last byte in the data buffer */
     private int currentPos;
 
+    /** The channel receiving the data, when the value is streamed instead of being stored */
+    private WritableByteChannel channel;
+
     /** The encoded byte for a TRUE value */
     public static final byte TRUE_VALUE = ( byte ) 0xFF;
 
@@ -135,6 +141,21 @@ public class BerValue
     {
         data = new byte[size];
         currentPos = 0;
+        channel = null;
+    }
+
+
+    /**
+     * Initialize the Value so that its data are written to a channel instead of
+     * being stored. The data remain null.
+     *
+     * @param channel The channel receiving the data
+     */
+    public void initStream( WritableByteChannel channel )
+    {
+        data = null;
+        currentPos = 0;
+        this.channel = channel;
     }
 
 
@@ -145,6 +166,51 @@ public class BerValue
     {
         data = null;
         currentPos = 0;
+        channel = null;
+    }
+
+
+    /**
+     * Tells if the data are written to a channel instead of being stored
+     *
+     * @return <code>true</code> if the value is streamed
+     */
+    public boolean isStreamed()
+    {
+        return channel != null;
+    }
+
+
+    /**
+     * Get the channel the data are written to, when the value is streamed
+     *
+     * @return The channel, or <code>null</code>
+     */
+    public WritableByteChannel getChannel()
+    {
+        return channel;
+    }
+
+
+    /**
+     * Writes some bytes of the buffer to the channel of a streamed value.
+     *
+     * @param buffer The buffer containing the data
+     * @param length The number of bytes to write
+     * @throws IOException If the channel failed
+     */
+    public void stream( ByteBuffer buffer, int length ) throws IOException
+    {
+        ByteBuffer chunk = buffer.duplicate();
+        ( ( Buffer ) chunk ).limit( chunk.position() + length );
+
+        while ( chunk.hasRemaining() )
+        {
+            channel.write( chunk );
+        }
+
+        ( ( Buffer ) buffer ).position( buffer.position() + length );
+        currentPos += length;
     }
 
 
@@ -23,8 +23,10 @@ package org.apache.directory.api.i18n;
 
 import java.text.MessageFormat;
 import java.util.Locale;
+import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -52,6 +54,7 @@ public enum I18n
     ERR_01006_LENGTH_TOO_LONG_FOR_DEFINITE_FORM( "ERR_01006_LENGTH_TOO_LONG_FOR_DEFINITE_FORM" ),
     ERR_01007_PDU_SIZE_TOO_LONG( "ERR_01007_PDU_SIZE_TOO_LONG" ),
     ERR_01008_REMAINING_BYTES_FOR_DECODED_PDU( "ERR_01008_REMAINING_BYTES_FOR_DECODED_PDU" ),
+    ERR_01009_VALUE_STREAMING_FAILURE( "ERR_01009_VALUE_STREAMING_FAILURE" ),
     ERR_01308_ZERO_LENGTH_TLV( "ERR_01308_ZERO_LENGTH_TLV" ),
     ERR_01309_EMPTY_TLV( "ERR_01309_EMPTY_TLV" ),
     ERR_01310_INTEGER_DECODING_ERROR( "ERR_01310_INTEGER_DECODING_ERROR" ),
@@ -218,6 +221,17 @@ public enum I18n
     ERR_04178_CANT_LOAD_KEY_STORE( "ERR_04178_CANT_LOAD_KEY_STORE" ),
     ERR_04179_TRUST_STORE_CANT_BE_READ( "ERR_04179_TRUST_STORE_CANT_BE_READ" ),
     ERR_04180_FILE_DOES_NOT_EXIST_ON_CLASSPATH( "ERR_04180_FILE_DOES_NOT_EXIST_ON_CLASSPATH" ),
+    ERR_04181_FAN_OUT_ENUMERATION_FAILED( "ERR_04181_FAN_OUT_ENUMERATION_FAILED" ),
+    ERR_04182_POOL_EXHAUSTED( "ERR_04182_POOL_EXHAUSTED" ),
+    ERR_04183_POOL_CLOSED( "ERR_04183_POOL_CLOSED" ),
+    ERR_04184_NOT_A_POOLED_CONNECTION( "ERR_04184_NOT_A_POOLED_CONNECTION" ),
+    ERR_04185_SCHEMA_CACHE_READ_FAILURE( "ERR_04185_SCHEMA_CACHE_READ_FAILURE" ),
+    ERR_04186_SCHEMA_CACHE_WRITE_FAILURE( "ERR_04186_SCHEMA_CACHE_WRITE_FAILURE" ),
+    ERR_04187_NO_SORT_MATCHING_RULE( "ERR_04187_NO_SORT_MATCHING_RULE" ),
+    ERR_04188_SORT_RUN_FAILURE( "ERR_04188_SORT_RUN_FAILURE" ),
+    ERR_04189_ENTRY_CACHE_PARAMETER_NOT_POSITIVE( "ERR_04189_ENTRY_CACHE_PARAMETER_NOT_POSITIVE" ),
+    ERR_04190_FAN_OUT_CONTROL_NOT_SUPPORTED( "ERR_04190_FAN_OUT_CONTROL_NOT_SUPPORTED" ),
+    ERR_04191_FAN_OUT_BRANCH_FAILED( "ERR_04191_FAN_OUT_BRANCH_FAILED" ),
 
     //     template                     4200-4300
     // None
@@ -290,6 +304,7 @@ public enum I18n
     ERR_05158_INVALID_REQUEST_VALUE( "ERR_05158_INVALID_REQUEST_VALUE" ),
     ERR_05159_INVALID_RESPONSE_NAME_OID( "ERR_05159_INVALID_RESPONSE_NAME_OID" ),
     ERR_05160_MORE_THAN_ONE_VALUE_INCREMENT_MOD_OP( "ERR_05160_MORE_THAN_ONE_VALUE_INCREMENT_MOD_OP" ),
+    ERR_05161_ATTRIBUTE_VALUE_SINK_FAILURE( "ERR_05161_ATTRIBUTE_VALUE_SINK_FAILURE" ),
 
 
     //     api                          5200-5299
@@ -300,6 +315,9 @@ public enum I18n
     ERR_05204_LDAP_DECODER_FAILURE( "ERR_05204_LDAP_DECODER_FAILURE" ),
     ERR_05205_PDU_DOES_NOT_CONTAIN_ENOUGH_DATA( "ERR_05205_PDU_DOES_NOT_CONTAIN_ENOUGH_DATA" ),
     ERR_05206_INPUT_STREAM_TOO_SHORT_PDU( "ERR_05206_INPUT_STREAM_TOO_SHORT_PDU" ),
+    ERR_05207_WRONG_PARAMETER_COUNT( "ERR_05207_WRONG_PARAMETER_COUNT" ),
+    ERR_05208_INVALID_PARAMETER_TYPE( "ERR_05208_INVALID_PARAMETER_TYPE" ),
+    ERR_05209_PREPARED_REQUEST_READ_ONLY( "ERR_05209_PREPARED_REQUEST_READ_ONLY" ),
 
     //     controls                     5300-5399
     ERR_05300_CANT_DECODE_CHANGE_TYPE( "ERR_05300_CANT_DECODE_CHANGE_TYPE" ),
@@ -526,6 +544,8 @@ public enum I18n
     ERR_13039_INVALID_CHAR_AT_LDAP_URL_END( "ERR_13039_INVALID_CHAR_AT_LDAP_URL_END" ),
     ERR_13040_INVALID_URL_ENCODING( "ERR_13040_INVALID_URL_ENCODING" ),
     ERR_13041_INVALID_LDAP_URL_EMPTY_STRING( "ERR_13041_INVALID_LDAP_URL_EMPTY_STRING" ),
+    ERR_13042_CREDENTIALS_COUNT_MISMATCH( "ERR_13042_CREDENTIALS_COUNT_MISMATCH" ),
+    ERR_13043_BULK_CREDENTIALS_INTERRUPTED( "ERR_13043_BULK_CREDENTIALS_INTERRUPTED" ),
 
     //     cursor                           13100 - 13199
     ERR_13100_FAILURE_ON_UNDERLYING_CURSOR( "ERR_13100_FAILURE_ON_UNDERLYING_CURSOR" ),
@@ -542,6 +562,8 @@ public enum I18n
     ERR_13111_NO_COMPARATOR_CANT_MOVE_AFTER( "ERR_13111_NO_COMPARATOR_CANT_MOVE_AFTER" ),
     ERR_13112_CANNOT_ACCESS_IF_BEFORE_FIRST( "ERR_13112_CANNOT_ACCESS_IF_BEFORE_FIRST" ),
     ERR_13113_CANNOT_ACCESS_IF_AFTER_LAST( "ERR_13113_CANNOT_ACCESS_IF_AFTER_LAST" ),
+    ERR_13114_PREFETCH_INTERRUPTED( "ERR_13114_PREFETCH_INTERRUPTED" ),
+    ERR_13115_PREFETCH_FAILURE( "ERR_13115_PREFETCH_FAILURE" ),
 
     //     entry                            13200 - 13299
     ERR_13200_VALUE_CANT_BE_NORMALIZED( "ERR_13200_VALUE_CANT_BE_NORMALIZED" ),
@@ -698,6 +720,7 @@ public enum I18n
     ERR_13473_MODDN_WITH_ATTRIBUTES( "ERR_13473_MODDN_WITH_ATTRIBUTES" ),
     ERR_13474_LINE_LENGTH_TOO_SHORT( "ERR_13474_LINE_LENGTH_TOO_SHORT" ),
     ERR_13475_UNKNOWN_ATTRIBUTETYPE( "ERR_13475_UNKNOWN_ATTRIBUTETYPE" ),
+    ERR_13476_CANNOT_CREATE_KEYED_HASH( "ERR_13476_CANNOT_CREATE_KEYED_HASH" ),
 
     //     message                          13500 - 13599
     ERR_13500_UNDEFINED_CHANGETYPE( "ERR_13500_UNDEFINED_CHANGETYPE" ),
@@ -929,6 +952,14 @@ public enum I18n
     ERR_13867_MOD_INCREMENT_NO_ATTRIBUTE( "ERR_13867_MOD_INCREMENT_NO_ATTRIBUTE" ),
     ERR_13868_MOD_INCREMENT_NO_INT_ATTRIBUTE( "ERR_13868_MOD_INCREMENT_NO_INT_ATTRIBUTE" ),
     ERR_13869_MOD_INCREMENT_OVERFLOW( "ERR_13869_MOD_INCREMENT_OVERFLOW" ),
+    ERR_13870_ENTRY_WITHOUT_OBJECT_CLASS( "ERR_13870_ENTRY_WITHOUT_OBJECT_CLASS" ),
+    ERR_13871_ENTRY_UNKNOWN_OBJECT_CLASS( "ERR_13871_ENTRY_UNKNOWN_OBJECT_CLASS" ),
+    ERR_13872_ENTRY_WITHOUT_STRUCTURAL_OBJECT_CLASS( "ERR_13872_ENTRY_WITHOUT_STRUCTURAL_OBJECT_CLASS" ),
+    ERR_13873_ENTRY_UNKNOWN_ATTRIBUTE_TYPE( "ERR_13873_ENTRY_UNKNOWN_ATTRIBUTE_TYPE" ),
+    ERR_13874_ENTRY_ATTRIBUTE_NOT_ALLOWED( "ERR_13874_ENTRY_ATTRIBUTE_NOT_ALLOWED" ),
+    ERR_13875_ENTRY_MISSING_MUST_ATTRIBUTE( "ERR_13875_ENTRY_MISSING_MUST_ATTRIBUTE" ),
+    ERR_13876_ENTRY_SINGLE_VALUED_ATTRIBUTE( "ERR_13876_ENTRY_SINGLE_VALUED_ATTRIBUTE" ),
+    ERR_13877_ENTRY_INVALID_ATTRIBUTE_SYNTAX( "ERR_13877_ENTRY_INVALID_ATTRIBUTE_SYNTAX" ),
 
     // api-ldap-model subtree          13900-13999
     ERR_13900_INTEGER_TOKEN_NOT_INTEGER( "ERR_13900_INTEGER_TOKEN_NOT_INTEGER" ),
@@ -1262,6 +1293,7 @@ public enum I18n
     MSG_04176_TRUST_MANAGER_ON_CLASSPATH( "MSG_04176_TRUST_MANAGER_ON_CLASSPATH" ),
     MSG_04177_CONNECTION_TIMEOUT( "MSG_04177_CONNECTION_TIMEOUT" ),
     MSH_04178_CLOSE_LATCH_ABORTED( "MSH_04178_CLOSE_LATCH_ABORTED" ),
+    MSG_04179_SCHEMA_NOT_CACHED( "MSG_04179_SCHEMA_NOT_CACHED" ),
 
     // api-ldap-codec-core              5000-5999
     //     <>                               5000-5099
@@ -1468,6 +1500,8 @@ public enum I18n
     MSG_13104_CREATING_LIST_CURSOR( "MSG_13104_CREATING_LIST_CURSOR" ),
     MSG_13105_CREATING_SET_CURSOR( "MSG_13105_CREATING_SET_CURSOR" ),
     MSG_13106_CREATING_SINGLE_CURSOR( "MSG_13106_CREATING_SINGLE_CURSOR" ),
+    MSG_13107_CREATING_PREFETCHING_CURSOR( "MSG_13107_CREATING_PREFETCHING_CURSOR" ),
+    MSG_13108_CLOSING_PREFETCHING_CURSOR( "MSG_13108_CLOSING_PREFETCHING_CURSOR" ),
 
     //     entry                            13200 - 13299
     MSG_13200_CANT_STORE_ATTRIBUTE( "MSG_13200_CANT_STORE_ATTRIBUTE" ),
@@ -1619,6 +1653,12 @@ public enum I18n
     private static final ResourceBundle MSG_BUNDLE = ResourceBundle
         .getBundle( "org/apache/directory/api/i18n/messages", Locale.ROOT );
 
+    /** The maximum number of compiled patterns we keep */
+    private static final int MAX_CACHED_FORMATS = 4096;
+
+    /** The compiled patterns. A MessageFormat is not thread safe, we use clones of those instances */
+    private static final Map<String, MessageFormat> FORMATS = new ConcurrentHashMap<>();
+
 
     /**
      * Creates a new instance of I18n.
@@ -1780,6 +1820,30 @@ public enum I18n
      */
     public static String format( String pattern, Object... args )
     {
-        return new MessageFormat( pattern, Locale.ROOT ).format( args );
+        // Nothing to substitute nor to unquote : the pattern is the message
+        if ( ( pattern.indexOf( '{' ) < 0 ) && ( pattern.indexOf( '\'' ) < 0 ) )
+        {
+            return pattern;
+        }
+
+        MessageFormat messageFormat = FORMATS.get( pattern );
+
+        if ( messageFormat == null )
+        {
+            messageFormat = new MessageFormat( pattern, Locale.ROOT );
+
+            // Format before publishing the instance : once in the cache, other threads clone it
+            String message = messageFormat.format( args );
+
+            // The patterns come from the bundles, but also from the callers : don't let it grow forever
+            if ( FORMATS.size() < MAX_CACHED_FORMATS )
+            {
+                FORMATS.putIfAbsent( pattern, messageFormat );
+            }
+
+            return message;
+        }
+
+        return ( ( MessageFormat ) messageFormat.clone() ).format( args );
     }
 }
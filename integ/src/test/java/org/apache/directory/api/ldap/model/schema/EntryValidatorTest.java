@@ -0,0 +1,230 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.schema;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapOperationException;
+import org.apache.directory.api.ldap.model.ldif.LdifReader;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Test the EntryValidator class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution(ExecutionMode.CONCURRENT)
+public class EntryValidatorTest
+{
+    private static EntryValidator validator;
+
+
+    @BeforeAll
+    public static void setup() throws Exception
+    {
+        validator = new EntryValidator( new DefaultSchemaManager() );
+    }
+
+
+    private static List<ResultCodeEnum> resultCodes( List<LdapOperationException> violations )
+    {
+        List<ResultCodeEnum> resultCodes = new ArrayList<>();
+
+        for ( LdapOperationException violation : violations )
+        {
+            resultCodes.add( violation.getResultCode() );
+        }
+
+        return resultCodes;
+    }
+
+
+    @Test
+    public void testValidEntry() throws Exception
+    {
+        Entry entry = new DefaultEntry( "cn=test,ou=system",
+            "objectClass: person",
+            "cn: test",
+            "sn: Test",
+            "telephoneNumber: +1 555 1234",
+            "createTimestamp: 20240101000000Z" );
+
+        assertTrue( validator.validate( entry ).isEmpty() );
+    }
+
+
+    @Test
+    public void testObjectClassViolations() throws Exception
+    {
+        // No sn, mail is not allowed by person, and foo is not an objectClass
+        Entry entry = new DefaultEntry( "cn=test,ou=system",
+            "objectClass: person",
+            "objectClass: foo",
+            "cn: test",
+            "mail: test@example.com" );
+
+        List<LdapOperationException> violations = validator.validate( entry );
+
+        assertEquals( 3, violations.size() );
+
+        for ( LdapOperationException violation : violations )
+        {
+            assertEquals( ResultCodeEnum.OBJECT_CLASS_VIOLATION, violation.getResultCode() );
+        }
+    }
+
+
+    @Test
+    public void testNoStructuralObjectClass() throws Exception
+    {
+        Entry entry = new DefaultEntry( "cn=test,ou=system",
+            "objectClass: top",
+            "objectClass: extensibleObject",
+            "cn: test" );
+
+        List<LdapOperationException> violations = validator.validate( entry );
+
+        assertEquals( 1, violations.size() );
+        assertEquals( ResultCodeEnum.OBJECT_CLASS_VIOLATION, violations.get( 0 ).getResultCode() );
+    }
+
+
+    @Test
+    public void testNoObjectClass() throws Exception
+    {
+        Entry entry = new DefaultEntry( "cn=test,ou=system",
+            "cn: test" );
+
+        List<LdapOperationException> violations = validator.validate( entry );
+
+        assertEquals( 1, violations.size() );
+        assertEquals( ResultCodeEnum.OBJECT_CLASS_VIOLATION, violations.get( 0 ).getResultCode() );
+    }
+
+
+    @Test
+    public void testValueViolations() throws Exception
+    {
+        Entry entry = new DefaultEntry( "cn=test,ou=system",
+            "objectClass: inetOrgPerson",
+            "cn: test",
+            "sn: Test",
+            "telephoneNumber: not a number",
+            "displayName: one",
+            "displayName: two",
+            "unknownAttribute: test" );
+
+        List<ResultCodeEnum> resultCodes = resultCodes( validator.validate( entry ) );
+
+        assertEquals( 3, resultCodes.size() );
+        assertTrue( resultCodes.contains( ResultCodeEnum.INVALID_ATTRIBUTE_SYNTAX ) );
+        assertTrue( resultCodes.contains( ResultCodeEnum.CONSTRAINT_VIOLATION ) );
+        assertTrue( resultCodes.contains( ResultCodeEnum.UNDEFINED_ATTRIBUTE_TYPE ) );
+    }
+
+
+    @Test
+    public void testExtensibleObject() throws Exception
+    {
+        Entry entry = new DefaultEntry( "cn=test,ou=system",
+            "objectClass: person",
+            "objectClass: extensibleObject",
+            "cn: test",
+            "sn: Test",
+            "mail: test@example.com" );
+
+        assertTrue( validator.validate( entry ).isEmpty() );
+    }
+
+
+    @Test
+    public void testValidateStream() throws Exception
+    {
+        List<Entry> entries = new ArrayList<>();
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            if ( i % 10 == 0 )
+            {
+                entries.add( new DefaultEntry( "cn=test" + i + ",ou=system",
+                    "objectClass: person",
+                    "cn: test" + i ) );
+            }
+            else
+            {
+                entries.add( new DefaultEntry( "cn=test" + i + ",ou=system",
+                    "objectClass: person",
+                    "cn: test" + i,
+                    "sn: test" ) );
+            }
+        }
+
+        Map<Dn, List<LdapOperationException>> invalidEntries = validator.validate( entries.stream() );
+
+        assertEquals( 100, invalidEntries.size() );
+        assertTrue( invalidEntries.containsKey( new Dn( "cn=test10,ou=system" ) ) );
+    }
+
+
+    @Test
+    public void testValidateLdif() throws Exception
+    {
+        String ldif =
+            "dn: cn=valid,ou=system\n"
+            + "changetype: add\n"
+            + "objectClass: person\n"
+            + "cn: valid\n"
+            + "sn: valid\n"
+            + "\n"
+            + "dn: cn=invalid,ou=system\n"
+            + "changetype: add\n"
+            + "objectClass: person\n"
+            + "cn: invalid\n"
+            + "\n"
+            + "dn: cn=modified,ou=system\n"
+            + "changetype: modify\n"
+            + "delete: cn\n"
+            + "-\n";
+
+        try ( LdifReader reader = new LdifReader() )
+        {
+            Map<Dn, List<LdapOperationException>> invalidEntries =
+                validator.validateLdif( reader.parseLdif( ldif ) );
+
+            assertEquals( 1, invalidEntries.size() );
+            assertEquals( 1, invalidEntries.get( new Dn( "cn=invalid,ou=system" ) ).size() );
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.ldap.client.api.metrics.LdapConnectionMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +50,9 @@ public abstract class AbstractPoolableLdapConnectionFactory implements PooledObj
     /** The validator to use */
     protected LdapConnectionValidator validator = new LookupLdapConnectionValidator();
 
+    /** The metrics to feed, if any */
+    protected volatile LdapConnectionMetrics metrics;
+
     /** A internal class to wrap a standard LDAP connection */ 
     private static class PooledLdapConnectionFactory implements LdapConnectionFactory
     {
@@ -190,7 +194,27 @@ public abstract class AbstractPoolableLdapConnectionFactory implements PooledObj
             LOG.debug( I18n.msg( I18n.MSG_04150_CREATING_LDAP_CONNECTION ) );
         }
         
-        return new DefaultPooledObject<>( connectionFactory.newLdapConnection() );
+        return new DefaultPooledObject<>( newMeteredLdapConnection() );
+    }
+
+
+    /**
+     * Creates a new connection using the LdapConnection factory, and makes it report
+     * its operations latencies to the metrics, if any.
+     *
+     * @return The new connection
+     * @throws LdapException If unable to connect.
+     */
+    protected LdapConnection newMeteredLdapConnection() throws LdapException
+    {
+        LdapConnection connection = connectionFactory.newLdapConnection();
+
+        if ( ( metrics != null ) && ( connection instanceof LdapNetworkConnection ) )
+        {
+            ( ( LdapNetworkConnection ) connection ).setMetrics( metrics );
+        }
+
+        return connection;
     }
 
 
@@ -256,6 +280,27 @@ public abstract class AbstractPoolableLdapConnectionFactory implements PooledObj
     }
 
 
+    /**
+     * Sets the metrics fed with the validation costs and, for the connections created
+     * from now on, with the operations latencies.
+     *
+     * @param metrics The metrics, or null to stop collecting them
+     */
+    public void setMetrics( LdapConnectionMetrics metrics )
+    {
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * @return The metrics fed by this factory, if any
+     */
+    public LdapConnectionMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+
     /**
      * {@inheritDoc}
      * 
@@ -269,6 +314,17 @@ public abstract class AbstractPoolableLdapConnectionFactory implements PooledObj
             LOG.debug( I18n.msg( I18n.MSG_04152_VALIDATING, connection ) );
         }
         
-        return validator.validate( connection.getObject() );
+        LdapConnectionMetrics currentMetrics = metrics;
+
+        if ( currentMetrics == null )
+        {
+            return validator.validate( connection.getObject() );
+        }
+
+        long start = System.nanoTime();
+        boolean valid = validator.validate( connection.getObject() );
+        currentMetrics.connectionValidated( System.nanoTime() - start, valid );
+
+        return valid;
     }
 }
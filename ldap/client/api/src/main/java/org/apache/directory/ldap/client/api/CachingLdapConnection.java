@@ -0,0 +1,816 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import java.io.IOException;
+
+import org.apache.directory.api.asn1.util.Oid;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Modification;
+import org.apache.directory.api.ldap.model.entry.ModificationOperation;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.AddRequest;
+import org.apache.directory.api.ldap.model.message.AddResponse;
+import org.apache.directory.api.ldap.model.message.BindRequest;
+import org.apache.directory.api.ldap.model.message.BindResponse;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.DeleteRequest;
+import org.apache.directory.api.ldap.model.message.DeleteResponse;
+import org.apache.directory.api.ldap.model.message.ExtendedRequest;
+import org.apache.directory.api.ldap.model.message.ExtendedResponse;
+import org.apache.directory.api.ldap.model.message.ModifyDnRequest;
+import org.apache.directory.api.ldap.model.message.ModifyDnResponse;
+import org.apache.directory.api.ldap.model.message.ModifyRequest;
+import org.apache.directory.api.ldap.model.message.ModifyResponse;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.Rdn;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+
+
+/**
+ * A LdapConnection keeping the entries it looks up in an {@link EntryCache}, so that the
+ * entries read again and again (groups, configuration entries...) are not fetched from
+ * the server each time. The lookups using controls are not cached.
+ * <br>
+ * The cached entries are invalidated when they are modified through this connection : a
+ * modify or an add invalidates the entry, a rename, a move or a delete invalidates the
+ * entry and all the entries below it. A bind, an unbind or an extended operation (a StartTLS
+ * may change the identity, for instance) clears the cache, as the entries a user can read
+ * depend on their identity. The changes done by other clients are only
+ * seen once the cached entries expire, unless the cache is notified of them, for instance
+ * by a persistent search.
+ * <br>
+ * The Dns are normalized with the connection's SchemaManager. Without a SchemaManager, the
+ * same entry can be named in many ways (<code>cn=foo</code>, <code>CN=foo</code>,
+ * <code>commonName=Foo</code>...) which can't be recognized as equal : the whole cache is
+ * then cleared on each change instead of only invalidating the modified entries. A
+ * connection without SchemaManager should only be used for data which rarely changes.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class CachingLdapConnection extends LdapConnectionWrapper
+{
+    /** The cached entries */
+    private final EntryCache cache;
+
+
+    /**
+     * Creates a new CachingLdapConnection
+     *
+     * @param connection The wrapped connection
+     * @param maxSize The maximum number of cached entries
+     * @param timeToLive The time, in milliseconds, an entry stays in the cache
+     */
+    public CachingLdapConnection( LdapConnection connection, int maxSize, long timeToLive )
+    {
+        this( connection, new EntryCache( maxSize, timeToLive ) );
+    }
+
+
+    /**
+     * Creates a new CachingLdapConnection using a given cache
+     *
+     * @param connection The wrapped connection
+     * @param cache The cache storing the looked up entries
+     */
+    public CachingLdapConnection( LdapConnection connection, EntryCache cache )
+    {
+        super( connection );
+        this.cache = cache;
+    }
+
+
+    /**
+     * @return The cache storing the looked up entries
+     */
+    public EntryCache getCache()
+    {
+        return cache;
+    }
+
+
+    /**
+     * Gets the Dn used to store an entry, normalized with the connection's SchemaManager if any.
+     */
+    private Dn toDn( Dn dn ) throws LdapException
+    {
+        SchemaManager schemaManager = connection.getSchemaManager();
+
+        if ( ( dn == null ) || ( schemaManager == null ) || dn.isSchemaAware() )
+        {
+            return dn;
+        }
+
+        return new Dn( schemaManager, dn );
+    }
+
+
+    /**
+     * Gets the Dn used to store an entry, normalized with the connection's SchemaManager if any.
+     */
+    private Dn toDn( String dn ) throws LdapException
+    {
+        return new Dn( connection.getSchemaManager(), dn );
+    }
+
+
+    /**
+     * Invalidates a modified entry. A Dn which is not schema aware may name a cached entry
+     * differently, so the whole cache is cleared.
+     */
+    private void invalidate( Dn dn )
+    {
+        if ( ( dn == null ) || !dn.isSchemaAware() )
+        {
+            cache.clear();
+        }
+        else
+        {
+            cache.invalidate( dn );
+        }
+    }
+
+
+    /**
+     * Invalidates a renamed, moved or deleted entry, and all the entries below it. A Dn which is
+     * not schema aware may name a cached entry differently, so the whole cache is cleared.
+     */
+    private void invalidateSubtree( Dn dn )
+    {
+        if ( ( dn == null ) || !dn.isSchemaAware() )
+        {
+            cache.clear();
+        }
+        else
+        {
+            cache.invalidateSubtree( dn );
+        }
+    }
+
+
+    /**
+     * Looks up an entry in the cache, and reads it from the server if it's not present.
+     */
+    private Entry cachedLookup( Dn dn, Dn cacheDn, String... attributes ) throws LdapException
+    {
+        Entry entry = cache.get( cacheDn, attributes );
+
+        if ( entry != null )
+        {
+            return entry;
+        }
+
+        long invalidations = cache.getInvalidations();
+        entry = connection.lookup( dn, attributes );
+        cache.put( invalidations, cacheDn, entry, attributes );
+
+        return entry;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        cache.clear();
+        connection.close();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add( Entry entry ) throws LdapException
+    {
+        Dn dn = toDn( entry.getDn() );
+
+        try
+        {
+            connection.add( entry );
+        }
+        finally
+        {
+            invalidate( dn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AddResponse add( AddRequest addRequest ) throws LdapException
+    {
+        Dn dn = toDn( addRequest.getEntryDn() );
+
+        try
+        {
+            return connection.add( addRequest );
+        }
+        finally
+        {
+            invalidate( dn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind() throws LdapException
+    {
+        cache.clear();
+        connection.bind();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void anonymousBind() throws LdapException
+    {
+        cache.clear();
+        connection.anonymousBind();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind( String name ) throws LdapException
+    {
+        cache.clear();
+        connection.bind( name );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind( String name, String credentials ) throws LdapException
+    {
+        cache.clear();
+        connection.bind( name, credentials );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind( Dn name ) throws LdapException
+    {
+        cache.clear();
+        connection.bind( name );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bind( Dn name, String credentials ) throws LdapException
+    {
+        cache.clear();
+        connection.bind( name, credentials );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BindResponse bind( BindRequest bindRequest ) throws LdapException
+    {
+        cache.clear();
+
+        return connection.bind( bindRequest );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BindResponse bind( SaslRequest saslRequest ) throws LdapException
+    {
+        cache.clear();
+
+        return connection.bind( saslRequest );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unBind() throws LdapException
+    {
+        cache.clear();
+        connection.unBind();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExtendedResponse extended( String oid ) throws LdapException
+    {
+        cache.clear();
+
+        return connection.extended( oid );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExtendedResponse extended( String oid, byte[] value ) throws LdapException
+    {
+        cache.clear();
+
+        return connection.extended( oid, value );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExtendedResponse extended( Oid oid ) throws LdapException
+    {
+        cache.clear();
+
+        return connection.extended( oid );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExtendedResponse extended( Oid oid, byte[] value ) throws LdapException
+    {
+        cache.clear();
+
+        return connection.extended( oid, value );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExtendedResponse extended( ExtendedRequest extendedRequest ) throws LdapException
+    {
+        cache.clear();
+
+        return connection.extended( extendedRequest );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void modify( Dn dn, Modification... modifications ) throws LdapException
+    {
+        Dn cacheDn = toDn( dn );
+
+        try
+        {
+            connection.modify( dn, modifications );
+        }
+        finally
+        {
+            invalidate( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void modify( String dn, Modification... modifications ) throws LdapException
+    {
+        Dn cacheDn = toDn( dn );
+
+        try
+        {
+            connection.modify( dn, modifications );
+        }
+        finally
+        {
+            invalidate( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void modify( Entry entry, ModificationOperation modOp ) throws LdapException
+    {
+        Dn cacheDn = toDn( entry.getDn() );
+
+        try
+        {
+            connection.modify( entry, modOp );
+        }
+        finally
+        {
+            invalidate( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ModifyResponse modify( ModifyRequest modRequest ) throws LdapException
+    {
+        Dn cacheDn = toDn( modRequest.getName() );
+
+        try
+        {
+            return connection.modify( modRequest );
+        }
+        finally
+        {
+            invalidate( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rename( String entryDn, String newRdn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.rename( entryDn, newRdn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rename( Dn entryDn, Rdn newRdn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.rename( entryDn, newRdn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rename( String entryDn, String newRdn, boolean deleteOldRdn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.rename( entryDn, newRdn, deleteOldRdn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rename( Dn entryDn, Rdn newRdn, boolean deleteOldRdn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.rename( entryDn, newRdn, deleteOldRdn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void move( String entryDn, String newSuperiorDn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.move( entryDn, newSuperiorDn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void move( Dn entryDn, Dn newSuperiorDn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.move( entryDn, newSuperiorDn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveAndRename( Dn entryDn, Dn newDn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.moveAndRename( entryDn, newDn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveAndRename( String entryDn, String newDn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.moveAndRename( entryDn, newDn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveAndRename( Dn entryDn, Dn newDn, boolean deleteOldRdn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.moveAndRename( entryDn, newDn, deleteOldRdn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void moveAndRename( String entryDn, String newDn, boolean deleteOldRdn ) throws LdapException
+    {
+        Dn cacheDn = toDn( entryDn );
+
+        try
+        {
+            connection.moveAndRename( entryDn, newDn, deleteOldRdn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ModifyDnResponse modifyDn( ModifyDnRequest modDnRequest ) throws LdapException
+    {
+        Dn cacheDn = toDn( modDnRequest.getName() );
+
+        try
+        {
+            return connection.modifyDn( modDnRequest );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete( String dn ) throws LdapException
+    {
+        Dn cacheDn = toDn( dn );
+
+        try
+        {
+            connection.delete( dn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete( Dn dn ) throws LdapException
+    {
+        Dn cacheDn = toDn( dn );
+
+        try
+        {
+            connection.delete( dn );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeleteResponse delete( DeleteRequest deleteRequest ) throws LdapException
+    {
+        Dn cacheDn = toDn( deleteRequest.getName() );
+
+        try
+        {
+            return connection.delete( deleteRequest );
+        }
+        finally
+        {
+            invalidateSubtree( cacheDn );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Entry lookup( Dn dn ) throws LdapException
+    {
+        return cachedLookup( dn, toDn( dn ), SchemaConstants.ALL_USER_ATTRIBUTES_ARRAY );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Entry lookup( String dn ) throws LdapException
+    {
+        Dn entryDn = toDn( dn );
+
+        return cachedLookup( entryDn, entryDn, SchemaConstants.ALL_USER_ATTRIBUTES_ARRAY );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Entry lookup( Dn dn, String... attributes ) throws LdapException
+    {
+        return cachedLookup( dn, toDn( dn ), attributes );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Entry lookup( Dn dn, Control[] controls, String... attributes ) throws LdapException
+    {
+        if ( ( controls != null ) && ( controls.length > 0 ) )
+        {
+            return connection.lookup( dn, controls, attributes );
+        }
+
+        return cachedLookup( dn, toDn( dn ), attributes );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Entry lookup( String dn, String... attributes ) throws LdapException
+    {
+        Dn entryDn = toDn( dn );
+
+        return cachedLookup( entryDn, entryDn, attributes );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Entry lookup( String dn, Control[] controls, String... attributes ) throws LdapException
+    {
+        if ( ( controls != null ) && ( controls.length > 0 ) )
+        {
+            return connection.lookup( dn, controls, attributes );
+        }
+
+        Dn entryDn = toDn( dn );
+
+        return cachedLookup( entryDn, entryDn, attributes );
+    }
+}
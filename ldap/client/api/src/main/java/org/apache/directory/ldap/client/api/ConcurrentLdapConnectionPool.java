@@ -0,0 +1,940 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.pool2.DestroyMode;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObjectInfo;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.codec.api.LdapApiService;
+import org.apache.directory.ldap.client.api.exception.LdapConnectionTimeOutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A {@link LdapConnectionPool} designed for highly concurrent applications. The
+ * connections are kept in a concurrent map, each one having an atomic state, so that
+ * a connection is borrowed or released with a single compare-and-set. A borrower first
+ * tries the connections it has recently released (a per-thread LIFO cache), then any
+ * idle connection, starting at a random position so that concurrent borrowers don't all
+ * compete for the same connections, then creates a new one if the pool is not full, and
+ * eventually waits until a releasing thread signals that a connection is available.
+ * <br>
+ * Connections are never validated on borrow or on return : if any of the <i>testOnBorrow</i>,
+ * <i>testOnReturn</i> or <i>testWhileIdle</i> flags is set, the idle connections are
+ * validated in the background, every <i>timeBetweenEvictionRuns</i> (30 seconds by default).
+ * The same background task evicts the connections that have been idle for longer than
+ * <i>minEvictableIdleDuration</i>, or in excess of <i>maxIdle</i>, and creates new
+ * connections to keep <i>minIdle</i> of them.
+ * <br>
+ * The <i>maxTotal</i>, <i>maxWait</i> and <i>blockWhenExhausted</i> settings are honored,
+ * the other GenericObjectPool settings (abandoned objects, eviction policy, fairness)
+ * are ignored.
+ * <br>
+ * The number of active, idle and waiting connections ({@link #getNumActive()},
+ * {@link #getNumIdle()} and {@link #getNumWaiters()}) are computed by this pool. The other
+ * GenericObjectPool statistics don't apply : <code>getBorrowedCount()</code>,
+ * <code>getReturnedCount()</code>, <code>getCreatedCount()</code>,
+ * <code>getDestroyedCount()</code> and the mean and maximum durations are final methods of
+ * the GenericObjectPool, which is not used to manage the connections, so they always return
+ * zero. Use {@link #getConnectionsBorrowed()}, {@link #getConnectionsReturned()},
+ * {@link #getConnectionsCreated()} and {@link #getConnectionsDestroyed()} instead, or the
+ * {@link org.apache.directory.ldap.client.api.metrics.LdapConnectionMetrics} for the durations.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConcurrentLdapConnectionPool extends LdapConnectionPool
+{
+    /** This class logger */
+    private static final Logger LOG = LoggerFactory.getLogger( ConcurrentLdapConnectionPool.class );
+
+    /** The maximum number of connections remembered by a thread */
+    private static final int THREAD_LOCAL_CAPACITY = 16;
+
+    /** The default delay between two background validations */
+    private static final long DEFAULT_HOUSEKEEPING_PERIOD = 30_000L;
+
+    /** The connection states */
+    private static final int STATE_REMOVED = -1;
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_IN_USE = 1;
+    private static final int STATE_RESERVED = 2;
+
+    /** A connection managed by the pool */
+    private static final class PoolEntry
+    {
+        /** The connection, as created by the factory */
+        private final PooledObject<LdapConnection> pooledObject;
+
+        /** The connection state. A new connection belongs to the thread that created it */
+        private final AtomicInteger state = new AtomicInteger( STATE_IN_USE );
+
+        /** The last time the connection was released */
+        private volatile long lastReleased = System.nanoTime();
+
+
+        PoolEntry( PooledObject<LdapConnection> pooledObject )
+        {
+            this.pooledObject = pooledObject;
+        }
+    }
+
+    /** The factory used to create, activate, passivate, validate and destroy the connections */
+    private final PooledObjectFactory<LdapConnection> connectionFactory;
+
+    /** All the connections, so that they can be found when released */
+    private final ConcurrentMap<LdapConnection, PoolEntry> entriesByConnection = new ConcurrentHashMap<>();
+
+    /** All the connections, in an array copied on each change, so that they can be scanned from any position */
+    private volatile PoolEntry[] entries = new PoolEntry[0];
+
+    /** The connections recently released by each thread */
+    private final ThreadLocal<ArrayDeque<PoolEntry>> threadEntries = ThreadLocal.withInitial( ArrayDeque::new );
+
+    /** The lock the waiting threads hold while looking for a connection, and release while waiting */
+    private final ReentrantLock waitLock = new ReentrantLock();
+
+    /** Signaled when a connection is released, or removed, leaving room for a new one */
+    private final Condition connectionAvailable = waitLock.newCondition();
+
+    /** The number of threads waiting for a connection */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /** The number of connections, including the ones being created */
+    private final AtomicInteger totalCount = new AtomicInteger();
+
+    /** The background validation task executor */
+    private final ScheduledExecutorService housekeeper;
+
+    /** The number of connections borrowed so far */
+    private final AtomicLong borrowedCount = new AtomicLong();
+
+    /** The number of connections returned so far */
+    private final AtomicLong returnedCount = new AtomicLong();
+
+    /** The number of connections created so far */
+    private final AtomicLong createdCount = new AtomicLong();
+
+    /** The number of connections destroyed so far */
+    private final AtomicLong destroyedCount = new AtomicLong();
+
+    /** A flag set when the pool is closed */
+    private volatile boolean closed;
+
+
+    /**
+     * Instantiates a new concurrent LDAP connection pool.
+     *
+     * @param connectionConfig The connection configuration
+     * @param apiService The api service (codec)
+     * @param timeout The connection timeout in millis
+     */
+    public ConcurrentLdapConnectionPool( LdapConnectionConfig connectionConfig,
+        LdapApiService apiService, long timeout )
+    {
+        this( connectionConfig, apiService, timeout, null );
+    }
+
+
+    /**
+     * Instantiates a new concurrent LDAP connection pool.
+     *
+     * @param connectionConfig The connection configuration
+     * @param apiService The api service (codec)
+     * @param timeout The connection timeout in millis
+     * @param poolConfig The pool configuration
+     */
+    public ConcurrentLdapConnectionPool( LdapConnectionConfig connectionConfig,
+        LdapApiService apiService, long timeout, GenericObjectPoolConfig poolConfig )
+    {
+        this( newConnectionFactory( connectionConfig, apiService, timeout ), poolConfig );
+    }
+
+
+    /**
+     * Instantiates a new concurrent LDAP connection pool.
+     *
+     * @param factory The LDAP connection factory
+     */
+    public ConcurrentLdapConnectionPool( PooledObjectFactory<LdapConnection> factory )
+    {
+        this( factory, null );
+    }
+
+
+    /**
+     * Instantiates a new concurrent LDAP connection pool.
+     *
+     * @param factory The LDAP connection factory
+     * @param poolConfig The pool configuration
+     */
+    public ConcurrentLdapConnectionPool( PooledObjectFactory<LdapConnection> factory, GenericObjectPoolConfig poolConfig )
+    {
+        super( factory, withoutEvictor( poolConfig ) );
+        connectionFactory = factory;
+
+        long period = DEFAULT_HOUSEKEEPING_PERIOD;
+
+        if ( ( poolConfig != null ) && !poolConfig.getDurationBetweenEvictionRuns().isNegative()
+            && !poolConfig.getDurationBetweenEvictionRuns().isZero() )
+        {
+            period = poolConfig.getDurationBetweenEvictionRuns().toMillis();
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor( runnable ->
+        {
+            Thread thread = new Thread( runnable, "LdapConnectionPool-housekeeper" );
+            thread.setDaemon( true );
+
+            return thread;
+        } );
+
+        housekeeper.scheduleWithFixedDelay( this::houseKeep, period, period, TimeUnit.MILLISECONDS );
+    }
+
+
+    private static ValidatingPoolableLdapConnectionFactory newConnectionFactory(
+        LdapConnectionConfig connectionConfig, LdapApiService apiService, long timeout )
+    {
+        DefaultLdapConnectionFactory connectionFactory = new DefaultLdapConnectionFactory( connectionConfig );
+        connectionFactory.setLdapApiService( apiService );
+        connectionFactory.setTimeOut( timeout );
+
+        return new ValidatingPoolableLdapConnectionFactory( connectionFactory );
+    }
+
+
+    /**
+     * The GenericObjectPool machinery is not used : make sure it does not start its
+     * own evictor nor register itself in JMX.
+     */
+    private static GenericObjectPoolConfig withoutEvictor( GenericObjectPoolConfig poolConfig )
+    {
+        GenericObjectPoolConfig config = poolConfig == null ? new GenericObjectPoolConfig() : poolConfig.clone();
+        config.setTimeBetweenEvictionRuns( Duration.ofMillis( -1L ) );
+        config.setJmxEnabled( false );
+
+        return config;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LdapConnection borrowObject() throws Exception
+    {
+        return borrow( getMaxWaitDuration().toMillis() );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Deprecated
+    public LdapConnection borrowObject( long maxWaitMillis ) throws Exception
+    {
+        return borrow( maxWaitMillis );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LdapConnection borrowObject( Duration maxWait ) throws Exception
+    {
+        return borrow( maxWait.toMillis() );
+    }
+
+
+    private LdapConnection borrow( long maxWaitMillis ) throws Exception
+    {
+        while ( true )
+        {
+            assertOpen();
+
+            boolean created = false;
+            PoolEntry entry = reserveIdle();
+
+            if ( entry == null )
+            {
+                entry = create();
+                created = entry != null;
+            }
+
+            if ( entry == null )
+            {
+                entry = await( maxWaitMillis );
+            }
+
+            try
+            {
+                connectionFactory.activateObject( entry.pooledObject );
+                borrowedCount.incrementAndGet();
+
+                return entry.pooledObject.getObject();
+            }
+            catch ( Exception e )
+            {
+                remove( entry );
+
+                // A connection we have just created is unusable : don't try again
+                if ( created )
+                {
+                    throw e;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Takes an idle connection, trying first the ones recently released by the current thread.
+     */
+    private PoolEntry reserveIdle()
+    {
+        ArrayDeque<PoolEntry> local = threadEntries.get();
+
+        while ( !local.isEmpty() )
+        {
+            PoolEntry entry = local.pollLast();
+
+            if ( entry.state.compareAndSet( STATE_IDLE, STATE_IN_USE ) )
+            {
+                return entry;
+            }
+        }
+
+        PoolEntry[] allEntries = entries;
+        int nbEntries = allEntries.length;
+
+        if ( nbEntries == 0 )
+        {
+            return null;
+        }
+
+        // Start anywhere, so that the borrowers don't all try the same connections first
+        int start = ThreadLocalRandom.current().nextInt( nbEntries );
+
+        for ( int i = 0; i < nbEntries; i++ )
+        {
+            PoolEntry entry = allEntries[( start + i ) % nbEntries];
+
+            if ( entry.state.compareAndSet( STATE_IDLE, STATE_IN_USE ) )
+            {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Adds a connection to the scanned connections.
+     */
+    private synchronized void addEntry( PoolEntry entry )
+    {
+        PoolEntry[] newEntries = Arrays.copyOf( entries, entries.length + 1 );
+        newEntries[entries.length] = entry;
+        entries = newEntries;
+    }
+
+
+    /**
+     * Removes a connection from the scanned connections.
+     */
+    private synchronized void removeEntry( PoolEntry entry )
+    {
+        PoolEntry[] allEntries = entries;
+
+        for ( int i = 0; i < allEntries.length; i++ )
+        {
+            if ( allEntries[i] == entry )
+            {
+                PoolEntry[] newEntries = new PoolEntry[allEntries.length - 1];
+                System.arraycopy( allEntries, 0, newEntries, 0, i );
+                System.arraycopy( allEntries, i + 1, newEntries, i, allEntries.length - i - 1 );
+                entries = newEntries;
+
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Creates a new connection if the pool is not full. The connection is in use.
+     */
+    private PoolEntry create() throws Exception
+    {
+        int maxTotal = getMaxTotal() < 0 ? Integer.MAX_VALUE : getMaxTotal();
+
+        while ( true )
+        {
+            int current = totalCount.get();
+
+            if ( current >= maxTotal )
+            {
+                return null;
+            }
+
+            if ( totalCount.compareAndSet( current, current + 1 ) )
+            {
+                break;
+            }
+        }
+
+        try
+        {
+            PoolEntry entry = new PoolEntry( connectionFactory.makeObject() );
+            entriesByConnection.put( entry.pooledObject.getObject(), entry );
+            addEntry( entry );
+            createdCount.incrementAndGet();
+
+            return entry;
+        }
+        catch ( Exception | Error e )
+        {
+            totalCount.decrementAndGet();
+
+            throw e;
+        }
+    }
+
+
+    /**
+     * Waits for a connection to be released, or for some room to create a new one.
+     */
+    private PoolEntry await( long maxWaitMillis ) throws Exception
+    {
+        if ( !getBlockWhenExhausted() )
+        {
+            throw new LdapConnectionTimeOutException( I18n.err( I18n.ERR_04182_POOL_EXHAUSTED, 0 ) );
+        }
+
+        boolean forever = maxWaitMillis < 0L;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( Math.max( 0L, maxWaitMillis ) );
+
+        waiters.incrementAndGet();
+
+        try
+        {
+            while ( true )
+            {
+                // The connection is not created while holding the lock, as it may take a while
+                PoolEntry entry = create();
+
+                if ( entry != null )
+                {
+                    return entry;
+                }
+
+                waitLock.lock();
+
+                try
+                {
+                    assertOpen();
+
+                    // A connection released or removed once we hold the lock signals us : it
+                    // can't be released between this last look and the wait without being seen
+                    entry = reserveIdle();
+
+                    if ( entry != null )
+                    {
+                        return entry;
+                    }
+
+                    if ( hasRoom() )
+                    {
+                        continue;
+                    }
+
+                    if ( forever )
+                    {
+                        connectionAvailable.await();
+                    }
+                    else
+                    {
+                        long remaining = deadline - System.nanoTime();
+
+                        if ( remaining <= 0L )
+                        {
+                            throw new LdapConnectionTimeOutException(
+                                I18n.err( I18n.ERR_04182_POOL_EXHAUSTED, maxWaitMillis ) );
+                        }
+
+                        connectionAvailable.awaitNanos( remaining );
+                    }
+                }
+                finally
+                {
+                    waitLock.unlock();
+                }
+            }
+        }
+        finally
+        {
+            waiters.decrementAndGet();
+        }
+    }
+
+
+    /**
+     * Tells if a new connection can be created
+     */
+    private boolean hasRoom()
+    {
+        int maxTotal = getMaxTotal() < 0 ? Integer.MAX_VALUE : getMaxTotal();
+
+        return totalCount.get() < maxTotal;
+    }
+
+
+    /**
+     * Wakes up a waiting thread, if any, when a connection is available or can be created.
+     *
+     * @return true if a thread was waiting
+     */
+    private boolean signalWaiter()
+    {
+        if ( waiters.get() == 0 )
+        {
+            return false;
+        }
+
+        waitLock.lock();
+
+        try
+        {
+            connectionAvailable.signal();
+        }
+        finally
+        {
+            waitLock.unlock();
+        }
+
+        return true;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void returnObject( LdapConnection connection )
+    {
+        PoolEntry entry = entriesByConnection.get( connection );
+
+        // Only one thread can return a borrowed connection : the others fail here
+        if ( ( entry == null ) || !entry.state.compareAndSet( STATE_IN_USE, STATE_RESERVED ) )
+        {
+            throw new IllegalStateException( I18n.err( I18n.ERR_04184_NOT_A_POOLED_CONNECTION, connection ) );
+        }
+
+        returnedCount.incrementAndGet();
+
+        if ( closed )
+        {
+            remove( entry );
+
+            return;
+        }
+
+        try
+        {
+            connectionFactory.passivateObject( entry.pooledObject );
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( I18n.err( I18n.ERR_04107_UNEXPECTED_THROWN_EXCEPTION, e.getMessage() ), e );
+            remove( entry );
+
+            return;
+        }
+
+        entry.lastReleased = System.nanoTime();
+
+        if ( makeAvailable( entry ) )
+        {
+            // Remember this connection, so that this thread gets it back the next time
+            ArrayDeque<PoolEntry> local = threadEntries.get();
+
+            if ( local.size() >= THREAD_LOCAL_CAPACITY )
+            {
+                local.pollFirst();
+            }
+
+            local.addLast( entry );
+        }
+    }
+
+
+    /**
+     * Makes a connection idle, and wakes up a waiting thread if any. The waiting threads
+     * look at the pool while holding the wait lock, which is needed to signal them, so a
+     * connection released while a thread is about to wait is never missed.
+     *
+     * @return true if no thread was waiting for the connection
+     */
+    private boolean makeAvailable( PoolEntry entry )
+    {
+        entry.state.set( STATE_IDLE );
+
+        return !signalWaiter();
+    }
+
+
+    /**
+     * Removes a connection from the pool, and destroys it.
+     */
+    private void remove( PoolEntry entry )
+    {
+        if ( entry.state.getAndSet( STATE_REMOVED ) == STATE_REMOVED )
+        {
+            return;
+        }
+
+        entriesByConnection.remove( entry.pooledObject.getObject() );
+        removeEntry( entry );
+        totalCount.decrementAndGet();
+        destroyedCount.incrementAndGet();
+
+        // There is room for a new connection
+        signalWaiter();
+
+        try
+        {
+            connectionFactory.destroyObject( entry.pooledObject );
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( I18n.err( I18n.ERR_04107_UNEXPECTED_THROWN_EXCEPTION, e.getMessage() ), e );
+        }
+    }
+
+
+    /**
+     * Validates and evicts the idle connections, then creates the missing ones.
+     */
+    private void houseKeep()
+    {
+        try
+        {
+            boolean validate = getTestWhileIdle() || getTestOnBorrow() || getTestOnReturn();
+            long minEvictableIdle = getMinEvictableIdleDuration().toNanos();
+            int maxIdle = getMaxIdle() < 0 ? Integer.MAX_VALUE : getMaxIdle();
+            int idle = getNumIdle();
+
+            for ( PoolEntry entry : entriesByConnection.values() )
+            {
+                if ( closed )
+                {
+                    return;
+                }
+
+                if ( !entry.state.compareAndSet( STATE_IDLE, STATE_RESERVED ) )
+                {
+                    continue;
+                }
+
+                boolean tooOld = ( minEvictableIdle > 0L )
+                    && ( System.nanoTime() - entry.lastReleased > minEvictableIdle )
+                    && ( totalCount.get() > getMinIdle() );
+
+                if ( tooOld || ( idle > maxIdle ) || ( validate && !connectionFactory.validateObject( entry.pooledObject ) ) )
+                {
+                    remove( entry );
+                    idle--;
+                }
+                else
+                {
+                    makeAvailable( entry );
+                }
+            }
+
+            while ( !closed && ( totalCount.get() < getMinIdle() ) )
+            {
+                PoolEntry entry = create();
+
+                if ( entry == null )
+                {
+                    break;
+                }
+
+                makeAvailable( entry );
+            }
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( I18n.err( I18n.ERR_04107_UNEXPECTED_THROWN_EXCEPTION, e.getMessage() ), e );
+        }
+    }
+
+
+    private void assertOpen()
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( I18n.err( I18n.ERR_04183_POOL_CLOSED ) );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateObject( LdapConnection connection )
+    {
+        PoolEntry entry = entriesByConnection.get( connection );
+
+        if ( entry == null )
+        {
+            throw new IllegalStateException( I18n.err( I18n.ERR_04184_NOT_A_POOLED_CONNECTION, connection ) );
+        }
+
+        remove( entry );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidateObject( LdapConnection connection, DestroyMode destroyMode )
+    {
+        invalidateObject( connection );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addObject() throws Exception
+    {
+        assertOpen();
+
+        PoolEntry entry = create();
+
+        if ( entry != null )
+        {
+            makeAvailable( entry );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void preparePool() throws Exception
+    {
+        while ( totalCount.get() < getMinIdle() )
+        {
+            addObject();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumActive()
+    {
+        return countEntries( STATE_IN_USE );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumIdle()
+    {
+        return countEntries( STATE_IDLE );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumWaiters()
+    {
+        return waiters.get();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<DefaultPooledObjectInfo> listAllObjects()
+    {
+        Set<DefaultPooledObjectInfo> infos = new HashSet<>();
+
+        for ( PoolEntry entry : entriesByConnection.values() )
+        {
+            infos.add( new DefaultPooledObjectInfo( entry.pooledObject ) );
+        }
+
+        return infos;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Runs the background validation immediately.
+     */
+    @Override
+    public void evict()
+    {
+        houseKeep();
+    }
+
+
+    /**
+     * @return The number of connections borrowed from this pool so far
+     */
+    public long getConnectionsBorrowed()
+    {
+        return borrowedCount.get();
+    }
+
+
+    /**
+     * @return The number of connections returned to this pool so far
+     */
+    public long getConnectionsReturned()
+    {
+        return returnedCount.get();
+    }
+
+
+    /**
+     * @return The number of connections created by this pool so far
+     */
+    public long getConnectionsCreated()
+    {
+        return createdCount.get();
+    }
+
+
+    /**
+     * @return The number of connections destroyed by this pool so far
+     */
+    public long getConnectionsDestroyed()
+    {
+        return destroyedCount.get();
+    }
+
+
+    private int countEntries( int state )
+    {
+        int count = 0;
+
+        for ( PoolEntry entry : entriesByConnection.values() )
+        {
+            if ( entry.state.get() == state )
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Destroys all the idle connections.
+     */
+    @Override
+    public void clear()
+    {
+        for ( PoolEntry entry : entriesByConnection.values() )
+        {
+            if ( entry.state.compareAndSet( STATE_IDLE, STATE_RESERVED ) )
+            {
+                remove( entry );
+            }
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The idle connections are destroyed immediately, the borrowed ones when they are released.
+     */
+    @Override
+    public void close()
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        closed = true;
+        housekeeper.shutdownNow();
+        clear();
+
+        // The waiting threads fail as the pool is closed
+        waitLock.lock();
+
+        try
+        {
+            connectionAvailable.signalAll();
+        }
+        finally
+        {
+            waitLock.unlock();
+        }
+
+        super.close();
+    }
+}
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.model.constants.MetaSchemaConstants;
@@ -52,6 +53,7 @@ import org.apache.directory.api.ldap.model.schema.NameForm;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.ldap.model.schema.SchemaObject;
 import org.apache.directory.api.ldap.model.schema.SchemaObjectWrapper;
+import org.apache.directory.api.ldap.model.schema.parsers.AbstractSchemaParser;
 import org.apache.directory.api.ldap.model.schema.parsers.AttributeTypeDescriptionSchemaParser;
 import org.apache.directory.api.ldap.model.schema.parsers.DitContentRuleDescriptionSchemaParser;
 import org.apache.directory.api.ldap.model.schema.parsers.DitStructureRuleDescriptionSchemaParser;
@@ -93,19 +95,25 @@ public class DefaultSchemaLoader extends AbstractSchemaLoader
     /** the subschemaSubentry DN */
     private Dn subschemaSubentryDn;
 
-    /** The SubschemaSubentry descriptions parsers */
-    private static final AttributeTypeDescriptionSchemaParser AT_DESCR_SCHEMA_PARSER = new AttributeTypeDescriptionSchemaParser();
-    private static final DitStructureRuleDescriptionSchemaParser DSR_DESCR_SCHEMA_PARSER = new DitStructureRuleDescriptionSchemaParser();
-    private static final DitContentRuleDescriptionSchemaParser DCR_DESCR_SCHEMA_PARSER = new DitContentRuleDescriptionSchemaParser();
-    private static final MatchingRuleDescriptionSchemaParser MR_DESCR_SCHEMA_PARSER = new MatchingRuleDescriptionSchemaParser();
-    private static final MatchingRuleUseDescriptionSchemaParser MRU_DESCR_SCHEMA_PARSER = new MatchingRuleUseDescriptionSchemaParser();
-    private static final NameFormDescriptionSchemaParser NF_DESCR_SCHEMA_PARSER = new NameFormDescriptionSchemaParser();
-    private static final ObjectClassDescriptionSchemaParser OC_DESCR_SCHEMA_PARSER = new ObjectClassDescriptionSchemaParser();
-    private static final LdapSyntaxDescriptionSchemaParser LS_DESCR_SCHEMA_PARSER = new LdapSyntaxDescriptionSchemaParser();
+    /** The minimal number of descriptions parsed in parallel */
+    private static final int PARALLEL_THRESHOLD = 32;
 
-    private static final LdapComparatorDescriptionSchemaParser C_DESCR_SCHEMA_PARSER = new LdapComparatorDescriptionSchemaParser();
-    private static final NormalizerDescriptionSchemaParser N_DESCR_SCHEMA_PARSER = new NormalizerDescriptionSchemaParser();
-    private static final SyntaxCheckerDescriptionSchemaParser SC_DESCR_SCHEMA_PARSER = new SyntaxCheckerDescriptionSchemaParser();
+    /**
+     * The SubschemaSubentry descriptions parsers. They only read their quirks mode when
+     * parsing, so the threads parsing the descriptions of this loader can share them.
+     */
+    private final AttributeTypeDescriptionSchemaParser atDescrSchemaParser = new AttributeTypeDescriptionSchemaParser();
+    private final DitStructureRuleDescriptionSchemaParser dsrDescrSchemaParser = new DitStructureRuleDescriptionSchemaParser();
+    private final DitContentRuleDescriptionSchemaParser dcrDescrSchemaParser = new DitContentRuleDescriptionSchemaParser();
+    private final MatchingRuleDescriptionSchemaParser mrDescrSchemaParser = new MatchingRuleDescriptionSchemaParser();
+    private final MatchingRuleUseDescriptionSchemaParser mruDescrSchemaParser = new MatchingRuleUseDescriptionSchemaParser();
+    private final NameFormDescriptionSchemaParser nfDescrSchemaParser = new NameFormDescriptionSchemaParser();
+    private final ObjectClassDescriptionSchemaParser ocDescrSchemaParser = new ObjectClassDescriptionSchemaParser();
+    private final LdapSyntaxDescriptionSchemaParser lsDescrSchemaParser = new LdapSyntaxDescriptionSchemaParser();
+
+    private final LdapComparatorDescriptionSchemaParser cDescrSchemaParser = new LdapComparatorDescriptionSchemaParser();
+    private final NormalizerDescriptionSchemaParser nDescrSchemaParser = new NormalizerDescriptionSchemaParser();
+    private final SyntaxCheckerDescriptionSchemaParser scDescrSchemaParser = new SyntaxCheckerDescriptionSchemaParser();
 
     /**
      * A default constructor
@@ -243,6 +251,23 @@ public class DefaultSchemaLoader extends AbstractSchemaLoader
         loadSchemas();
     }
 
+    /**
+     * Creates a new instance of DefaultSchemaLoader from a SubschemaSubentry which has
+     * already been read, from a server or from a file.
+     *
+     * @param subschemaSubentry The SubschemaSubentry, with its schema attributes
+     * @param relaxed initial setting for the relaxed mode
+     * @throws LdapException if there are any problems while loading the schema entries
+     */
+    public DefaultSchemaLoader( Entry subschemaSubentry, boolean relaxed ) throws LdapException
+    {
+        setRelaxed( relaxed );
+        setQuirksMode( relaxed );
+        subschemaSubentryDn = subschemaSubentry.getDn();
+
+        loadSchemas( subschemaSubentry );
+    }
+
     /**
      * Get the LdapConnecgion instance
      * 
@@ -322,51 +347,8 @@ public class DefaultSchemaLoader extends AbstractSchemaLoader
             {
                 throw new LdapException( "Unable to read schema at: " + subschemaSubentryDn );
             }
-            Entry subschemaSubentry = subschemaSubentryCursor.get();
-
-            // Load all the AT
-            Attribute attributeTypes = subschemaSubentry.get( SchemaConstants.ATTRIBUTE_TYPES_AT );
-            loadAttributeTypes( attributeTypes );
-
-            // Load all the C
-            Attribute comparators = subschemaSubentry.get( SchemaConstants.COMPARATORS_AT );
-            loadComparators( comparators );
-
-            // Load all the DCR
-            Attribute ditContentRules = subschemaSubentry.get( SchemaConstants.DIT_CONTENT_RULES_AT );
-            loadDitContentRules( ditContentRules );
-
-            // Load all the DSR
-            Attribute ditStructureRules = subschemaSubentry.get( SchemaConstants.DIT_STRUCTURE_RULES_AT );
-            loadDitStructureRules( ditStructureRules );
-
-            // Load all the LS
-            Attribute ldapSytaxes = subschemaSubentry.get( SchemaConstants.LDAP_SYNTAXES_AT );
-            loadLdapSyntaxes( ldapSytaxes );
-
-            // Load all the MR
-            Attribute matchingRules = subschemaSubentry.get( SchemaConstants.MATCHING_RULES_AT );
-            loadMatchingRules( matchingRules );
-
-            // Load all the MRU
-            Attribute matchingRuleUse = subschemaSubentry.get( SchemaConstants.MATCHING_RULE_USE_AT );
-            loadMatchingRuleUses( matchingRuleUse );
-
-            // Load all the N
-            Attribute normalizers = subschemaSubentry.get( SchemaConstants.NORMALIZERS_AT );
-            loadNormalizers( normalizers );
-
-            // Load all the NF
-            Attribute nameForms = subschemaSubentry.get( SchemaConstants.NAME_FORMS_AT );
-            loadNameForms( nameForms );
-
-            // Load all the OC
-            Attribute objectClasses = subschemaSubentry.get( SchemaConstants.OBJECT_CLASSES_AT );
-            loadObjectClasses( objectClasses );
 
-            // Load all the SC
-            Attribute syntaxCheckers = subschemaSubentry.get( SchemaConstants.SYNTAX_CHECKERS_AT );
-            loadSyntaxCheckers( syntaxCheckers );
+            loadSchemas( subschemaSubentryCursor.get() );
         }
         catch ( CursorException e )
         {
@@ -376,277 +358,97 @@ public class DefaultSchemaLoader extends AbstractSchemaLoader
     }
 
 
-    private void loadAttributeTypes( Attribute attributeTypes ) throws LdapException
-    {
-        if ( attributeTypes == null )
-        {
-            return;
-        }
-
-        for ( Value value : attributeTypes )
-        {
-            String desc = value.getString();
-
-            try
-            {
-                AttributeType attributeType = AT_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( attributeType );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
-        }
-    }
-
-
-    private void loadComparators( Attribute comparators ) throws LdapException
-    {
-        if ( comparators == null )
-        {
-            return;
-        }
-
-        for ( Value value : comparators )
-        {
-            String desc = value.getString();
-
-            try
-            {
-                LdapComparatorDescription comparator = C_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( comparator );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
-        }
-    }
-
-
-    private void loadDitContentRules( Attribute ditContentRules ) throws LdapException
-    {
-        if ( ditContentRules == null )
-        {
-            return;
-        }
-
-        for ( Value value : ditContentRules )
-        {
-            String desc = value.getString();
-
-            try
-            {
-                DitContentRule ditContentRule = DCR_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( ditContentRule );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
-        }
-    }
-
-
-    private void loadDitStructureRules( Attribute ditStructureRules ) throws LdapException
-    {
-        if ( ditStructureRules == null )
-        {
-            return;
-        }
-
-        for ( Value value : ditStructureRules )
-        {
-            String desc = value.getString();
-
-            try
-            {
-                DitStructureRule ditStructureRule = DSR_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( ditStructureRule );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
-        }
-    }
-
-
-    private void loadLdapSyntaxes( Attribute ldapSyntaxes ) throws LdapException
+    /**
+     * Load all the schemas from a SubschemaSubentry.
+     * 
+     * @param subschemaSubentry The SubschemaSubentry
+     * @throws LdapException If one schema can't be loaded
+     */
+    private void loadSchemas( Entry subschemaSubentry ) throws LdapException
     {
-        if ( ldapSyntaxes == null )
-        {
-            return;
-        }
-
-        for ( Value value : ldapSyntaxes )
-        {
-            String desc = value.getString();
-
-            try
-            {
-                LdapSyntax ldapSyntax = LS_DESCR_SCHEMA_PARSER.parse( desc );
+        // Gather all the descriptions, in the order they are registered
+        List<String> descriptions = new ArrayList<>();
+        List<AbstractSchemaParser<?>> parsers = new ArrayList<>();
 
-                updateSchemas( ldapSyntax );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
-        }
-    }
+        addDescriptions( subschemaSubentry.get( SchemaConstants.ATTRIBUTE_TYPES_AT ), atDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.COMPARATORS_AT ), cDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.DIT_CONTENT_RULES_AT ), dcrDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.DIT_STRUCTURE_RULES_AT ), dsrDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.LDAP_SYNTAXES_AT ), lsDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.MATCHING_RULES_AT ), mrDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.MATCHING_RULE_USE_AT ), mruDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.NORMALIZERS_AT ), nDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.NAME_FORMS_AT ), nfDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.OBJECT_CLASSES_AT ), ocDescrSchemaParser,
+            descriptions, parsers );
+        addDescriptions( subschemaSubentry.get( SchemaConstants.SYNTAX_CHECKERS_AT ), scDescrSchemaParser,
+            descriptions, parsers );
 
+        // Parse them, on the fork-join pool if there are enough of them
+        Object[] results = new Object[descriptions.size()];
+        IntStream indexes = IntStream.range( 0, results.length );
 
-    private void loadMatchingRules( Attribute matchingRules ) throws LdapException
-    {
-        if ( matchingRules == null )
+        if ( results.length >= PARALLEL_THRESHOLD )
         {
-            return;
-        }
-
-        for ( Value value : matchingRules )
-        {
-            String desc = value.getString();
-
-            try
-            {
-                MatchingRule matchingRule = MR_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( matchingRule );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
-        }
-    }
-
-
-    private void loadMatchingRuleUses( Attribute matchingRuleUses ) throws LdapException
-    {
-        if ( matchingRuleUses == null )
-        {
-            return;
-        }
-
-        for ( Value value : matchingRuleUses )
-        {
-            String desc = value.getString();
-
-            try
-            {
-                MatchingRuleUse matchingRuleUse = MRU_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( matchingRuleUse );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
+            indexes = indexes.parallel();
         }
-    }
-
 
-    private void loadNameForms( Attribute nameForms ) throws LdapException
-    {
-        if ( nameForms == null )
-        {
-            return;
-        }
+        indexes.forEach( i -> results[i] = parse( parsers.get( i ), descriptions.get( i ) ) );
 
-        for ( Value value : nameForms )
+        // And register them in order, so that the first error is always the same
+        for ( Object result : results )
         {
-            String desc = value.getString();
-
-            try
+            if ( result instanceof ParseException )
             {
-                NameForm nameForm = NF_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( nameForm );
+                throw new LdapException( ( ParseException ) result );
             }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
-        }
-    }
-
 
-    private void loadNormalizers( Attribute normalizers ) throws LdapException
-    {
-        if ( normalizers == null )
-        {
-            return;
-        }
-
-        for ( Value value : normalizers )
-        {
-            String desc = value.getString();
-
-            try
-            {
-                NormalizerDescription normalizer = N_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( normalizer );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
+            updateSchemas( ( SchemaObject ) result );
         }
     }
 
 
-    private void loadObjectClasses( Attribute objectClasses ) throws LdapException
+    private static void addDescriptions( Attribute attribute, AbstractSchemaParser<?> parser, List<String> descriptions,
+        List<AbstractSchemaParser<?>> parsers )
     {
-        if ( objectClasses == null )
+        if ( attribute == null )
         {
             return;
         }
 
-        for ( Value value : objectClasses )
+        for ( Value value : attribute )
         {
-            String desc = value.getString();
-
-            try
-            {
-                ObjectClass objectClass = OC_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( objectClass );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
+            descriptions.add( value.getString() );
+            parsers.add( parser );
         }
     }
 
 
-    private void loadSyntaxCheckers( Attribute syntaxCheckers ) throws LdapException
+    /**
+     * Parses a description
+     *
+     * @param parser The parser to use
+     * @param description The description
+     * @return The parsed SchemaObject, or the ParseException if the description is invalid
+     */
+    private static Object parse( AbstractSchemaParser<?> parser, String description )
     {
-        if ( syntaxCheckers == null )
+        try
         {
-            return;
+            return parser.parse( description );
         }
-
-        for ( Value value : syntaxCheckers )
+        catch ( ParseException pe )
         {
-            String desc = value.getString();
-
-            try
-            {
-                SyntaxCheckerDescription syntaxChecker = SC_DESCR_SCHEMA_PARSER.parse( desc );
-
-                updateSchemas( syntaxChecker );
-            }
-            catch ( ParseException pe )
-            {
-                throw new LdapException( pe );
-            }
+            return pe;
         }
     }
 
@@ -1183,16 +985,16 @@ public class DefaultSchemaLoader extends AbstractSchemaLoader
      */
     public void setQuirksMode( boolean enabled )
     {
-        AT_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        C_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        DCR_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        DSR_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        LS_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        MR_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        MRU_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        N_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        NF_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        OC_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
-        SC_DESCR_SCHEMA_PARSER.setQuirksMode( enabled );
+        atDescrSchemaParser.setQuirksMode( enabled );
+        cDescrSchemaParser.setQuirksMode( enabled );
+        dcrDescrSchemaParser.setQuirksMode( enabled );
+        dsrDescrSchemaParser.setQuirksMode( enabled );
+        lsDescrSchemaParser.setQuirksMode( enabled );
+        mrDescrSchemaParser.setQuirksMode( enabled );
+        mruDescrSchemaParser.setQuirksMode( enabled );
+        nDescrSchemaParser.setQuirksMode( enabled );
+        nfDescrSchemaParser.setQuirksMode( enabled );
+        ocDescrSchemaParser.setQuirksMode( enabled );
+        scDescrSchemaParser.setQuirksMode( enabled );
     }
 }
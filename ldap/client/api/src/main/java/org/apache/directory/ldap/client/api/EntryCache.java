@@ -0,0 +1,440 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.util.tree.DnNode;
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * A cache of the entries read from a server, indexed by their Dn in a {@link DnNode} tree,
+ * so that an entry and all the entries below it can be dropped at once when it is renamed,
+ * moved or deleted. An entry is cached for each list of requested attributes.
+ * <br>
+ * The cache holds at most a given number of entries, the least recently used ones being
+ * evicted first, and an entry is not returned once its time to live has elapsed. The cache
+ * does not see the changes made by the other clients : a persistent search or a syncrepl
+ * consumer can call {@link #invalidate(Dn)} or {@link #invalidateSubtree(Dn)} when it is
+ * notified of a change. The Dns are compared by their normalized form : they should be
+ * schema aware, otherwise the same entry named with different attribute types or cases
+ * isn't recognized.
+ * <br>
+ * The cached entries are copied when they are stored and when they are returned, so they
+ * can be freely modified by the callers. This class is thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class EntryCache
+{
+    /** The key used when no attributes are requested, which means all the user attributes */
+    private static final String DEFAULT_ATTRIBUTES = SchemaConstants.ALL_USER_ATTRIBUTES + ",";
+
+    /** The maximum number of cached entries */
+    private final int maxSize;
+
+    /** The time, in milliseconds, an entry stays in the cache */
+    private final long timeToLive;
+
+    /** The clock giving the current time in milliseconds */
+    private final LongSupplier clock;
+
+    /** The cached entries, per Dn and list of requested attributes */
+    private final DnNode<Map<String, CachedEntry>> tree = new DnNode<>();
+
+    /** The cached entries, from the least recently used to the most recently used */
+    private final LinkedHashMap<CachedEntry, CachedEntry> usage = new LinkedHashMap<>( 16, 0.75f, true );
+
+    /** The number of invalidations done so far */
+    private long invalidations;
+
+
+    /**
+     * An entry stored in the cache
+     */
+    private static final class CachedEntry
+    {
+        /** The entry's Dn, as used to store it */
+        private final Dn dn;
+
+        /** The requested attributes */
+        private final String attributes;
+
+        /** The entry */
+        private final Entry entry;
+
+        /** The time after which the entry is not valid anymore */
+        private final long expiration;
+
+
+        private CachedEntry( Dn dn, String attributes, Entry entry, long expiration )
+        {
+            this.dn = dn;
+            this.attributes = attributes;
+            this.entry = entry;
+            this.expiration = expiration;
+        }
+    }
+
+
+    /**
+     * Creates a new EntryCache
+     *
+     * @param maxSize The maximum number of cached entries
+     * @param timeToLive The time, in milliseconds, an entry stays in the cache
+     */
+    public EntryCache( int maxSize, long timeToLive )
+    {
+        this( maxSize, timeToLive, System::currentTimeMillis );
+    }
+
+
+    /**
+     * Creates a new EntryCache using a given clock
+     *
+     * @param maxSize The maximum number of cached entries
+     * @param timeToLive The time, in milliseconds, an entry stays in the cache
+     * @param clock The clock giving the current time in milliseconds
+     */
+    EntryCache( int maxSize, long timeToLive, LongSupplier clock )
+    {
+        if ( maxSize <= 0 )
+        {
+            throw new IllegalArgumentException( I18n.err( I18n.ERR_04189_ENTRY_CACHE_PARAMETER_NOT_POSITIVE,
+                "maxSize", maxSize ) );
+        }
+
+        if ( timeToLive <= 0 )
+        {
+            throw new IllegalArgumentException( I18n.err( I18n.ERR_04189_ENTRY_CACHE_PARAMETER_NOT_POSITIVE,
+                "timeToLive", timeToLive ) );
+        }
+
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Gets a copy of a cached entry
+     *
+     * @param dn The entry's Dn
+     * @param attributes The requested attributes
+     * @return A copy of the entry, or <code>null</code> if it's not cached or has expired
+     */
+    public synchronized Entry get( Dn dn, String... attributes )
+    {
+        Map<String, CachedEntry> entries = getEntries( dn );
+
+        if ( entries == null )
+        {
+            return null;
+        }
+
+        CachedEntry cached = entries.get( attributesKey( attributes ) );
+
+        if ( cached == null )
+        {
+            return null;
+        }
+
+        if ( cached.expiration - clock.getAsLong() <= 0L )
+        {
+            remove( cached );
+
+            return null;
+        }
+
+        // Tell the usage map that the entry has been accessed
+        usage.get( cached );
+
+        return cached.entry.clone();
+    }
+
+
+    /**
+     * Stores a copy of an entry, evicting the least recently used entry if the cache is full.
+     * The root DSE is not cached.
+     *
+     * @param dn The entry's Dn
+     * @param entry The entry read with the given attributes
+     * @param attributes The requested attributes
+     * @throws LdapException If the entry can't be stored
+     */
+    public synchronized void put( Dn dn, Entry entry, String... attributes ) throws LdapException
+    {
+        put( invalidations, dn, entry, attributes );
+    }
+
+
+    /**
+     * Stores a copy of an entry read from the server, unless some entries have been invalidated
+     * since the read started : the entry may then have been modified before being returned.
+     *
+     * @param invalidationCount The number of invalidations when the read started
+     * @param dn The entry's Dn
+     * @param entry The entry read with the given attributes
+     * @param attributes The requested attributes
+     * @throws LdapException If the entry can't be stored
+     */
+    synchronized void put( long invalidationCount, Dn dn, Entry entry, String... attributes ) throws LdapException
+    {
+        if ( ( invalidationCount != invalidations ) || ( dn == null ) || dn.isEmpty() || ( entry == null ) )
+        {
+            return;
+        }
+
+        String key = attributesKey( attributes );
+        CachedEntry cached = new CachedEntry( dn, key, entry.clone(), clock.getAsLong() + timeToLive );
+        Map<String, CachedEntry> entries = getEntries( dn );
+
+        if ( entries == null )
+        {
+            // Either creates the node, or attaches the map to an existing intermediate node
+            entries = new HashMap<>();
+            tree.add( dn, entries );
+        }
+
+        CachedEntry previous = entries.put( key, cached );
+
+        if ( previous != null )
+        {
+            usage.remove( previous );
+        }
+
+        usage.put( cached, cached );
+
+        if ( usage.size() > maxSize )
+        {
+            remove( usage.keySet().iterator().next() );
+        }
+    }
+
+
+    /**
+     * Removes the cached copies of an entry, for all the requested attributes
+     *
+     * @param dn The entry's Dn
+     */
+    public synchronized void invalidate( Dn dn )
+    {
+        invalidations++;
+        Map<String, CachedEntry> entries = getEntries( dn );
+
+        if ( entries != null )
+        {
+            for ( CachedEntry cached : new ArrayList<>( entries.values() ) )
+            {
+                remove( cached );
+            }
+        }
+    }
+
+
+    /**
+     * Removes the cached copies of an entry and of all the entries below it
+     *
+     * @param dn The subtree's Dn
+     */
+    public synchronized void invalidateSubtree( Dn dn )
+    {
+        invalidations++;
+
+        if ( ( dn == null ) || dn.isEmpty() )
+        {
+            clear();
+
+            return;
+        }
+
+        DnNode<Map<String, CachedEntry>> node = tree.getNode( dn );
+
+        if ( ( node == null ) || ( node.getDn().size() != dn.size() ) )
+        {
+            return;
+        }
+
+        List<CachedEntry> removed = new ArrayList<>();
+        collect( node, removed );
+
+        for ( CachedEntry cached : removed )
+        {
+            usage.remove( cached );
+        }
+
+        node.setElement( null );
+        node.getChildren().clear();
+        prune( node );
+    }
+
+
+    /**
+     * Removes all the cached entries
+     */
+    public synchronized void clear()
+    {
+        invalidations++;
+        usage.clear();
+        tree.getChildren().clear();
+    }
+
+
+    /**
+     * @return The number of invalidations done so far
+     */
+    synchronized long getInvalidations()
+    {
+        return invalidations;
+    }
+
+
+    /**
+     * @return The number of cached entries, including the expired ones not yet evicted
+     */
+    public synchronized int size()
+    {
+        return usage.size();
+    }
+
+
+    /**
+     * Gets the entries stored for a Dn, if any.
+     */
+    private Map<String, CachedEntry> getEntries( Dn dn )
+    {
+        if ( ( dn == null ) || dn.isEmpty() )
+        {
+            return null;
+        }
+
+        // The tree returns the closest parent, which is not what we are looking for
+        DnNode<Map<String, CachedEntry>> node = tree.getNode( dn );
+
+        if ( ( node == null ) || ( node.getDn().size() != dn.size() ) )
+        {
+            return null;
+        }
+
+        return node.getElement();
+    }
+
+
+    /**
+     * Removes one cached entry, and the nodes which don't hold any entry anymore.
+     */
+    private void remove( CachedEntry cached )
+    {
+        usage.remove( cached );
+        DnNode<Map<String, CachedEntry>> node = tree.getNode( cached.dn );
+
+        if ( ( node == null ) || ( node.getDn().size() != cached.dn.size() ) || !node.hasElement() )
+        {
+            return;
+        }
+
+        Map<String, CachedEntry> entries = node.getElement();
+        entries.remove( cached.attributes );
+
+        if ( entries.isEmpty() )
+        {
+            node.setElement( null );
+            prune( node );
+        }
+    }
+
+
+    /**
+     * Detaches a node and its parents from the tree, as long as they neither hold
+     * an entry nor have children. We can't use DnNode.remove(), which also removes
+     * the parents holding an element.
+     */
+    private void prune( DnNode<Map<String, CachedEntry>> node )
+    {
+        DnNode<Map<String, CachedEntry>> current = node;
+
+        while ( ( current != tree ) && !current.hasElement() && !current.hasChildren() )
+        {
+            DnNode<Map<String, CachedEntry>> parent = current.getParent();
+            parent.getChildren().remove( current.getRdn().getNormName() );
+            current = parent;
+        }
+    }
+
+
+    /**
+     * Gathers the entries held by a node and all its descendants.
+     */
+    private static void collect( DnNode<Map<String, CachedEntry>> node, List<CachedEntry> removed )
+    {
+        if ( node.hasElement() )
+        {
+            removed.addAll( node.getElement().values() );
+        }
+
+        for ( DnNode<Map<String, CachedEntry>> child : node.getChildren().values() )
+        {
+            collect( child, removed );
+        }
+    }
+
+
+    /**
+     * Builds the key identifying a list of requested attributes, whatever their order and case.
+     */
+    private static String attributesKey( String... attributes )
+    {
+        if ( ( attributes == null ) || ( attributes.length == 0 ) )
+        {
+            return DEFAULT_ATTRIBUTES;
+        }
+
+        String[] names = new String[attributes.length];
+
+        for ( int i = 0; i < attributes.length; i++ )
+        {
+            names[i] = Strings.toLowerCaseAscii( Strings.trim( attributes[i] ) );
+        }
+
+        Arrays.sort( names );
+
+        StringBuilder sb = new StringBuilder();
+
+        for ( String name : names )
+        {
+            sb.append( name ).append( ',' );
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,861 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.extras.controls.vlv.VirtualListViewRequest;
+import org.apache.directory.api.ldap.model.cursor.AbstractCursor;
+import org.apache.directory.api.ldap.model.cursor.CursorException;
+import org.apache.directory.api.ldap.model.cursor.EntryCursor;
+import org.apache.directory.api.ldap.model.cursor.InvalidCursorPositionException;
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapOperationException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.SearchResultDoneImpl;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.message.controls.SortRequest;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+
+
+/**
+ * An EntryCursor splitting a SUBTREE search in many narrower searches, run
+ * concurrently on connections borrowed from a {@link LdapConnectionPool} :
+ * <ul>
+ * <li>the children of the search base are first enumerated using a ONELEVEL search</li>
+ * <li>the base entry itself is searched using an OBJECT search</li>
+ * <li>each child's subtree is searched using a SUBTREE search</li>
+ * </ul>
+ * At most <code>parallelism</code> searches are run at the same time. The entries
+ * are returned in no specific order, as soon as they are received. A bounded buffer
+ * is used between the searches and the cursor, so the searches are slowed down if the
+ * entries are not consumed fast enough.
+ * <br>
+ * The size and time limits of the original request apply to the whole fan-out : once
+ * <code>sizeLimit</code> entries have been returned, or once the time limit has elapsed,
+ * all the searches are stopped, next() returns <code>false</code>, and the SearchResultDone
+ * contains SIZE_LIMIT_EXCEEDED or TIME_LIMIT_EXCEEDED. If a search ends with any other
+ * error, next() throws an exception.
+ * <br>
+ * The PagedResults, Sort and Virtual List View controls can't be split across the
+ * searches, so they are rejected. The other controls are sent with each search.
+ * <br>
+ * Note: This is a forward only cursor hence the only valid operations are next(), get() and close() 
+ * 
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class FanOutSearchCursor extends AbstractCursor<Entry> implements EntryCursor
+{
+    /** The default number of entries buffered between the searches and the cursor */
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+    
+    /** The marker sent when a branch has been fully searched */
+    private static final Object BRANCH_DONE = new Object();
+    
+    /** The marker sent when a branch has reached the size limit */
+    private static final Object SIZE_LIMIT_REACHED = new Object();
+    
+    /** The marker sent when a branch has reached the time limit */
+    private static final Object TIME_LIMIT_REACHED = new Object();
+    
+    /** The controls which can't be sent with each branch search */
+    private static final String[] UNSUPPORTED_CONTROLS = new String[]
+        {
+            PagedResults.OID,
+            SortRequest.OID,
+            VirtualListViewRequest.OID
+        };
+    
+    /** The number used to name the threads created by the cursors */
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+    
+    /** The pool providing the connections */
+    private final LdapConnectionPool connectionPool;
+    
+    /** The original search request */
+    private final SearchRequest searchRequest;
+    
+    /** The maximum number of concurrent searches */
+    private final int parallelism;
+    
+    /** The entries, errors and markers sent by the searches */
+    private final BlockingQueue<Object> queue;
+    
+    /** The result of the searches : the first failure, or a success */
+    private final AtomicReference<SearchResultDone> searchResultDone = new AtomicReference<>();
+    
+    /** The branch searches not started yet */
+    private final Queue<SearchRequest> branches = new ConcurrentLinkedQueue<>();
+    
+    /** The tasks searching the branches */
+    private final List<Future<?>> tasks = new ArrayList<>();
+    
+    /** The number of entries pushed into the queue by all the searches */
+    private final AtomicLong pushedEntries = new AtomicLong();
+    
+    /** The executor running the searches, null if we create our own */
+    private final ExecutorService callerExecutor;
+    
+    /** The executor we have created to run the searches, if any */
+    private ExecutorService ownExecutor;
+    
+    /** Tells if the searches have been started */
+    private boolean started;
+    
+    /** Tells if all the entries have been returned */
+    private boolean exhausted;
+    
+    /** Tells if the original request has a time limit */
+    private final boolean timeLimited;
+    
+    /** The time after which the searches are stopped, as a System.nanoTime() value */
+    private long deadline;
+    
+    /** The number of entries returned by the cursor */
+    private long returnedEntries;
+    
+    /** The number of branches not completely read yet */
+    private int pendingBranches;
+    
+    /** The current entry */
+    private Entry entry;
+    
+    /** Tells the searches to stop */
+    private volatile boolean stopped;
+
+
+    /**
+     * Creates a new instance of FanOutSearchCursor, using a default buffer size. 
+     * The searches are started on the first call to {@link #next()}.
+     *
+     * @param connectionPool The pool to obtain connections from
+     * @param searchRequest The SUBTREE search request to split
+     * @param parallelism The maximum number of concurrent searches
+     */
+    public FanOutSearchCursor( LdapConnectionPool connectionPool, SearchRequest searchRequest, int parallelism )
+    {
+        this( connectionPool, searchRequest, parallelism, DEFAULT_BUFFER_SIZE );
+    }
+
+
+    /**
+     * Creates a new instance of FanOutSearchCursor. The searches are started on the 
+     * first call to {@link #next()}, using daemon threads created by the cursor.
+     *
+     * @param connectionPool The pool to obtain connections from
+     * @param searchRequest The SUBTREE search request to split
+     * @param parallelism The maximum number of concurrent searches
+     * @param bufferSize The number of entries buffered between the searches and the cursor
+     */
+    public FanOutSearchCursor( LdapConnectionPool connectionPool, SearchRequest searchRequest, int parallelism,
+        int bufferSize )
+    {
+        this( connectionPool, searchRequest, parallelism, bufferSize, null );
+    }
+
+
+    /**
+     * Creates a new instance of FanOutSearchCursor. The searches are started on the 
+     * first call to {@link #next()}.
+     *
+     * @param connectionPool The pool to obtain connections from
+     * @param searchRequest The SUBTREE search request to split
+     * @param parallelism The maximum number of concurrent searches
+     * @param bufferSize The number of entries buffered between the searches and the cursor
+     * @param executor The executor running the searches, or <code>null</code> to let the 
+     * cursor create its own threads. The executor is not shut down when the cursor is closed.
+     * @throws IllegalArgumentException If the search request has a PagedResults, Sort or 
+     * Virtual List View control
+     */
+    public FanOutSearchCursor( LdapConnectionPool connectionPool, SearchRequest searchRequest, int parallelism,
+        int bufferSize, ExecutorService executor )
+    {
+        for ( String oid : UNSUPPORTED_CONTROLS )
+        {
+            if ( searchRequest.hasControl( oid ) )
+            {
+                throw new IllegalArgumentException( I18n.err( I18n.ERR_04190_FAN_OUT_CONTROL_NOT_SUPPORTED, oid ) );
+            }
+        }
+        
+        this.connectionPool = connectionPool;
+        this.searchRequest = searchRequest;
+        this.parallelism = Math.max( 1, parallelism );
+        this.callerExecutor = executor;
+        timeLimited = searchRequest.getTimeLimit() > 0;
+        queue = new ArrayBlockingQueue<>( Math.max( 1, bufferSize ) );
+    }
+    
+    
+    /**
+     * Enumerate the children of the search base, and start the searches 
+     * 
+     * @throws LdapException If the children can't be enumerated
+     * @throws CursorException If the enumeration cursor failed
+     */
+    private void start() throws LdapException, CursorException
+    {
+        started = true;
+        
+        if ( timeLimited )
+        {
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( searchRequest.getTimeLimit() );
+        }
+        
+        List<Dn> children = new ArrayList<>();
+        LdapConnection connection = connectionPool.getConnection();
+        
+        try
+        {
+            SearchRequest oneLevelRequest = new SearchRequestImpl()
+                .setBase( searchRequest.getBase() )
+                .setScope( SearchScope.ONELEVEL )
+                .setDerefAliases( searchRequest.getDerefAliases() )
+                .setTimeLimit( searchRequest.getTimeLimit() )
+                .setFilter( "(" + SchemaConstants.OBJECT_CLASS_AT + "=*)" )
+                .addAttributes( SchemaConstants.NO_ATTRIBUTE );
+            
+            try ( SearchCursor cursor = connection.search( oneLevelRequest ) )
+            {
+                while ( cursor.next() )
+                {
+                    if ( cursor.isEntry() )
+                    {
+                        children.add( cursor.getEntry().getDn() );
+                    }
+                }
+                
+                SearchResultDone done = cursor.getSearchResultDone();
+                
+                if ( ( done != null ) && ( done.getLdapResult().getResultCode() != ResultCodeEnum.SUCCESS ) )
+                {
+                    throw new LdapException( I18n.err( I18n.ERR_04181_FAN_OUT_ENUMERATION_FAILED, 
+                        searchRequest.getBase(), done.getLdapResult().getResultCode() ) );
+                }
+            }
+            catch ( IOException ioe )
+            {
+                throw new LdapException( ioe.getMessage(), ioe );
+            }
+        }
+        finally
+        {
+            connectionPool.releaseConnection( connection );
+        }
+        
+        // The base entry itself, then each child's subtree
+        branches.add( branchRequest( searchRequest.getBase(), SearchScope.OBJECT ) );
+        
+        for ( Dn child : children )
+        {
+            branches.add( branchRequest( child, SearchScope.SUBTREE ) );
+        }
+        
+        pendingBranches = branches.size();
+        ExecutorService executor = callerExecutor;
+        
+        if ( executor == null )
+        {
+            ownExecutor = Executors.newFixedThreadPool( parallelism, new SearchThreadFactory() );
+            executor = ownExecutor;
+        }
+        
+        // Each task searches the branches one after the other, so that at most
+        // 'parallelism' searches are running, whatever the executor
+        for ( int i = 0; i < Math.min( parallelism, pendingBranches ); i++ )
+        {
+            tasks.add( executor.submit( this::searchBranches ) );
+        }
+        
+        if ( ownExecutor != null )
+        {
+            // No more tasks : the threads will be released when all the searches are done
+            ownExecutor.shutdown();
+        }
+    }
+    
+    
+    /**
+     * The factory creating the daemon threads running the searches
+     */
+    private static final class SearchThreadFactory implements ThreadFactory
+    {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, "FanOutSearchCursor-" + THREAD_NUMBER.incrementAndGet() );
+            thread.setDaemon( true );
+            
+            return thread;
+        }
+    }
+    
+    
+    /**
+     * Create the search request for a branch, copying the original request parameters
+     * 
+     * @param base The branch base
+     * @param scope The branch scope
+     * @return The search request
+     */
+    private SearchRequest branchRequest( Dn base, SearchScope scope )
+    {
+        SearchRequest request = new SearchRequestImpl()
+            .setBase( base )
+            .setScope( scope )
+            .setDerefAliases( searchRequest.getDerefAliases() )
+            .setSizeLimit( searchRequest.getSizeLimit() )
+            .setTypesOnly( searchRequest.getTypesOnly() )
+            .setFilter( searchRequest.getFilter() );
+        
+        request.addAttributes( searchRequest.getAttributes().toArray( new String[0] ) );
+        
+        for ( Control control : searchRequest.getControls().values() )
+        {
+            request.addControl( control );
+        }
+        
+        return request;
+    }
+    
+    
+    /**
+     * Search the branches until there is none left, or until the cursor is closed. 
+     * This is executed by the executor threads.
+     */
+    private void searchBranches()
+    {
+        SearchRequest request = branches.poll();
+        
+        while ( ( request != null ) && !stopped )
+        {
+            if ( !searchBranch( request ) )
+            {
+                return;
+            }
+            
+            request = branches.poll();
+        }
+    }
+    
+    
+    /**
+     * Search a branch, pushing the entries into the queue. 
+     * 
+     * @param request The branch search request
+     * @return <code>false</code> if the thread has been interrupted
+     */
+    private boolean searchBranch( SearchRequest request )
+    {
+        LdapConnection connection = null;
+        long sizeLimit = searchRequest.getSizeLimit();
+        
+        try
+        {
+            if ( timeLimited )
+            {
+                // The time left for the whole fan-out, rounded up to the next second
+                long remaining = deadline - System.nanoTime();
+                
+                if ( remaining <= 0L )
+                {
+                    offer( TIME_LIMIT_REACHED );
+                    
+                    return true;
+                }
+                
+                request.setTimeLimit( ( int ) TimeUnit.NANOSECONDS.toSeconds( remaining + 999_999_999L ) );
+            }
+            
+            connection = connectionPool.getConnection();
+            
+            try ( SearchCursor cursor = connection.search( request ) )
+            {
+                while ( !stopped && cursor.next() )
+                {
+                    if ( cursor.isEntry() )
+                    {
+                        queue.put( cursor.getEntry() );
+                        
+                        // One entry more than the limit tells the cursor the limit is exceeded :
+                        // there is no need to read more
+                        if ( ( sizeLimit > 0 ) && ( pushedEntries.incrementAndGet() > sizeLimit ) )
+                        {
+                            break;
+                        }
+                        
+                        if ( ( timeLimited ) && ( deadline - System.nanoTime() <= 0L ) )
+                        {
+                            offer( TIME_LIMIT_REACHED );
+                            break;
+                        }
+                    }
+                }
+                
+                SearchResultDone done = cursor.getSearchResultDone();
+                
+                if ( done != null )
+                {
+                    processDone( request, done );
+                }
+            }
+        }
+        catch ( InterruptedException ie )
+        {
+            // The cursor has been closed
+            Thread.currentThread().interrupt();
+            
+            return false;
+        }
+        catch ( Exception e )
+        {
+            offer( e );
+        }
+        finally
+        {
+            release( connection );
+        }
+
+        offer( BRANCH_DONE );
+        
+        return true;
+    }
+    
+    
+    /**
+     * Process the result of a branch search : a limit is reported to the cursor, 
+     * any other error is sent as an exception.
+     * 
+     * @param request The branch search request
+     * @param done The result of the branch search
+     */
+    private void processDone( SearchRequest request, SearchResultDone done )
+    {
+        ResultCodeEnum resultCode = done.getLdapResult().getResultCode();
+        
+        switch ( resultCode )
+        {
+            case SUCCESS:
+                searchResultDone.compareAndSet( null, done );
+                break;
+                
+            case SIZE_LIMIT_EXCEEDED:
+                offer( SIZE_LIMIT_REACHED );
+                break;
+                
+            case TIME_LIMIT_EXCEEDED:
+                offer( TIME_LIMIT_REACHED );
+                break;
+                
+            default:
+                searchResultDone.set( done );
+                
+                try
+                {
+                    // Get the exception associated with the result code, if any
+                    ResultCodeEnum.processResponse( done );
+                    
+                    offer( new LdapOperationException( resultCode, I18n.err( I18n.ERR_04191_FAN_OUT_BRANCH_FAILED,
+                        request.getBase(), resultCode, done.getLdapResult().getDiagnosticMessage() ) ) );
+                }
+                catch ( LdapException le )
+                {
+                    offer( le );
+                }
+                
+                break;
+        }
+    }
+    
+    
+    /**
+     * Push an element into the queue, unless the cursor has been closed
+     * 
+     * @param element The element to push
+     */
+    private void offer( Object element )
+    {
+        try
+        {
+            if ( !stopped )
+            {
+                queue.put( element );
+            }
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    
+    /**
+     * Release a connection to the pool, ignoring any error
+     * 
+     * @param connection The connection to release
+     */
+    private void release( LdapConnection connection )
+    {
+        if ( connection != null )
+        {
+            try
+            {
+                connectionPool.releaseConnection( connection );
+            }
+            catch ( LdapException le )
+            {
+                // Nothing we can do here
+            }
+        }
+    }
+    
+    
+    /**
+     * Wait for the next element sent by the searches, until the time limit
+     * 
+     * @return The next element, or TIME_LIMIT_REACHED
+     * @throws InterruptedException If the thread has been interrupted
+     */
+    private Object take() throws InterruptedException
+    {
+        if ( !timeLimited )
+        {
+            return queue.take();
+        }
+        
+        Object element = queue.poll( deadline - System.nanoTime(), TimeUnit.NANOSECONDS );
+        
+        return element == null ? TIME_LIMIT_REACHED : element;
+    }
+    
+    
+    /**
+     * End the search because a limit has been reached : the searches are stopped,
+     * and the result code is stored in the SearchResultDone.
+     * 
+     * @param resultCode The result code
+     * @return <code>false</code>, as no more entry will be returned
+     */
+    private boolean limitReached( ResultCodeEnum resultCode )
+    {
+        stop();
+        exhausted = true;
+        
+        SearchResultDone done = new SearchResultDoneImpl();
+        done.getLdapResult().setResultCode( resultCode );
+        searchResultDone.set( done );
+        
+        return false;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean next() throws LdapException, CursorException
+    {
+        checkNotClosed();
+        
+        if ( exhausted )
+        {
+            entry = null;
+            
+            return false;
+        }
+        
+        if ( !started )
+        {
+            start();
+        }
+        
+        try
+        {
+            while ( pendingBranches > 0 )
+            {
+                Object element = take();
+                
+                if ( element == BRANCH_DONE )
+                {
+                    pendingBranches--;
+                }
+                else if ( element == SIZE_LIMIT_REACHED )
+                {
+                    return limitReached( ResultCodeEnum.SIZE_LIMIT_EXCEEDED );
+                }
+                else if ( element == TIME_LIMIT_REACHED )
+                {
+                    return limitReached( ResultCodeEnum.TIME_LIMIT_EXCEEDED );
+                }
+                else if ( element instanceof Exception )
+                {
+                    Exception cause = ( Exception ) element;
+                    LdapException ldapException;
+                    
+                    if ( cause instanceof LdapException )
+                    {
+                        ldapException = ( LdapException ) cause;
+                    }
+                    else
+                    {
+                        ldapException = new LdapException( cause.getMessage(), cause );
+                    }
+                    
+                    close( ldapException );
+                    
+                    throw ldapException;
+                }
+                else
+                {
+                    long sizeLimit = searchRequest.getSizeLimit();
+                    
+                    if ( ( sizeLimit > 0 ) && ( returnedEntries >= sizeLimit ) )
+                    {
+                        return limitReached( ResultCodeEnum.SIZE_LIMIT_EXCEEDED );
+                    }
+                    
+                    returnedEntries++;
+                    entry = ( Entry ) element;
+                    
+                    return true;
+                }
+            }
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            
+            throw new LdapException( ie.getMessage(), ie );
+        }
+        catch ( IOException ioe )
+        {
+            throw new LdapException( ioe.getMessage(), ioe );
+        }
+        
+        exhausted = true;
+        entry = null;
+        
+        return false;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Entry get() throws CursorException
+    {
+        if ( entry == null )
+        {
+            throw new InvalidCursorPositionException();
+        }
+        
+        return entry;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean available()
+    {
+        return entry != null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResultDone getSearchResultDone()
+    {
+        return searchResultDone.get();
+    }
+    
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMessageId()
+    {
+        SearchResultDone done = searchResultDone.get();
+        
+        return done == null ? 0 : done.getMessageId();
+    }
+
+
+    /**
+     * Stop the searches, and release their connections.
+     */
+    private void stop()
+    {
+        stopped = true;
+        
+        for ( Future<?> task : tasks )
+        {
+            task.cancel( true );
+        }
+        
+        if ( ownExecutor != null )
+        {
+            ownExecutor.shutdownNow();
+        }
+        
+        queue.clear();
+        entry = null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        stop();
+        super.close();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close( Exception cause ) throws IOException
+    {
+        stop();
+        super.close( cause );
+    }
+
+
+    // rest of all operations will throw UnsupportedOperationException
+
+    /**
+     * This operation is not supported in FanOutSearchCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void after( Entry element ) throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "after( Entry element )" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in FanOutSearchCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterLast() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "afterLast()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in FanOutSearchCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void before( Entry element ) throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "before( Entry element )" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in FanOutSearchCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void beforeFirst() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "beforeFirst()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in FanOutSearchCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean first() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "first()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in FanOutSearchCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean last() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "last()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in FanOutSearchCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean previous() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "previous()" ) ) );
+    }
+}
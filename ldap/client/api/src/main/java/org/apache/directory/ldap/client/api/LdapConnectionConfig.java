@@ -21,16 +21,20 @@
 package org.apache.directory.ldap.client.api;
 
 
+import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
 import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 
 import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.codec.api.AttributeValueSink;
 import org.apache.directory.api.ldap.codec.api.BinaryAttributeDetector;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
@@ -67,6 +71,12 @@ public class LdapConnectionConfig
     /** the default protocol used for creating SSL context */
     public static final String DEFAULT_SSL_PROTOCOL = "TLS";
 
+    /** The default number of TLS sessions kept for resumption */
+    public static final int DEFAULT_SSL_SESSION_CACHE_SIZE = 1000;
+
+    /** The default lifetime of a TLS session kept for resumption, in seconds : 1 hour */
+    public static final int DEFAULT_SSL_SESSION_TIMEOUT = 3600;
+
     // --- private members ----
     /** A flag indicating if we are using SSL or not, default value is false */
     private boolean useSsl = false;
@@ -139,9 +149,27 @@ public class LdapConnectionConfig
     /** the endpoint identification algorithm used for hostname verification during TLS handshake, default value is "LDAPS" (RFC 4513) */
     private String sslEndpointIdentificationAlgorithm = "LDAPS";
 
+    /** The maximum number of TLS sessions kept for resumption */
+    private int sslSessionCacheSize = DEFAULT_SSL_SESSION_CACHE_SIZE;
+
+    /** The lifetime of the TLS sessions kept for resumption, in seconds */
+    private int sslSessionTimeout = DEFAULT_SSL_SESSION_TIMEOUT;
+
+    /** The SSL context shared by all the connections using this configuration */
+    private SSLContext sslContext;
+
     /** The class used to detect if an attribute is HR or not */
     private BinaryAttributeDetector binaryAttributeDetector;
 
+    /** The sink receiving the large attribute values of the search results, if any */
+    private AttributeValueSink attributeValueSink;
+
+    /** Tells if the complete SearchResultEntry PDUs are decoded without the grammar */
+    private boolean searchResultEntryFastPath = false;
+
+    /** The cache of the SchemaManagers shared by the connections, if any */
+    private SchemaCache schemaCache;
+
     /** The Service to use internally when creating connections */
     private LdapApiService ldapApiService;
 
@@ -620,6 +648,7 @@ public class LdapConnectionConfig
             throw new IllegalArgumentException( "TrustManagers must not be null or empty" );
         }
         this.trustManagers = trustManagers;
+        resetSslContext();
     }
 
 
@@ -642,6 +671,7 @@ public class LdapConnectionConfig
     public void setSslProtocol( String sslProtocol )
     {
         this.sslProtocol = sslProtocol;
+        resetSslContext();
     }
 
 
@@ -690,6 +720,7 @@ public class LdapConnectionConfig
     public void setKeyManagers( KeyManager[] keyManagers )
     {
         this.keyManagers = keyManagers;
+        resetSslContext();
     }
 
 
@@ -712,6 +743,7 @@ public class LdapConnectionConfig
     public void setSecureRandom( SecureRandom secureRandom )
     {
         this.secureRandom = secureRandom;
+        resetSslContext();
     }
 
 
@@ -781,6 +813,78 @@ public class LdapConnectionConfig
     }
 
 
+    /**
+     * Get the sink receiving the large attribute values of the search results
+     * 
+     * @return the attributeValueSink, or <code>null</code> if all the values are stored in memory
+     */
+    public AttributeValueSink getAttributeValueSink()
+    {
+        return attributeValueSink;
+    }
+
+
+    /**
+     * Set the sink receiving the large attribute values of the search results. The
+     * streamed values are not held in memory, and are not stored in the entries : they
+     * are only available through the sink. The maximum PDU size still applies to the
+     * whole entry, and must be raised accordingly.
+     * 
+     * @param attributeValueSink the attributeValueSink to set
+     */
+    public void setAttributeValueSink( AttributeValueSink attributeValueSink )
+    {
+        this.attributeValueSink = attributeValueSink;
+    }
+
+
+    /**
+     * Tells if the complete SearchResultEntry PDUs are decoded without the grammar
+     * 
+     * @return <code>true</code> if the fast path is enabled. It is disabled by default
+     */
+    public boolean isSearchResultEntryFastPath()
+    {
+        return searchResultEntryFastPath;
+    }
+
+
+    /**
+     * Enables or disables the decoding of the complete SearchResultEntry PDUs without
+     * the grammar. The PDUs the fast path can't handle are still decoded by the grammar.
+     * 
+     * @param searchResultEntryFastPath <code>true</code> to enable the fast path
+     */
+    public void setSearchResultEntryFastPath( boolean searchResultEntryFastPath )
+    {
+        this.searchResultEntryFastPath = searchResultEntryFastPath;
+    }
+
+
+    /**
+     * Get the cache of the SchemaManagers loaded by the connections
+     * 
+     * @return the schemaCache, or <code>null</code> if each connection loads its own schema
+     */
+    public SchemaCache getSchemaCache()
+    {
+        return schemaCache;
+    }
+
+
+    /**
+     * Set the cache of the SchemaManagers loaded by the connections. The connections
+     * loading the schema of the same server then share the same SchemaManager, which
+     * must not be modified.
+     * 
+     * @param schemaCache the schemaCache to set
+     */
+    public void setSchemaCache( SchemaCache schemaCache )
+    {
+        this.schemaCache = schemaCache;
+    }
+
+
     /**
      * Checks if TLS is used.
      *
@@ -823,4 +927,104 @@ public class LdapConnectionConfig
     {
         this.ldapApiService = ldapApiService;
     }
+
+
+    /**
+     * Gets the maximum number of TLS sessions kept for resumption.
+     *
+     * @return the TLS session cache size
+     */
+    public int getSslSessionCacheSize()
+    {
+        return sslSessionCacheSize;
+    }
+
+
+    /**
+     * Sets the maximum number of TLS sessions kept for resumption. 0 means no limit.
+     *
+     * @param sslSessionCacheSize the TLS session cache size
+     */
+    public void setSslSessionCacheSize( int sslSessionCacheSize )
+    {
+        this.sslSessionCacheSize = sslSessionCacheSize;
+        resetSslContext();
+    }
+
+
+    /**
+     * Gets the lifetime of the TLS sessions kept for resumption.
+     *
+     * @return the TLS session lifetime, in seconds
+     */
+    public int getSslSessionTimeout()
+    {
+        return sslSessionTimeout;
+    }
+
+
+    /**
+     * Sets the lifetime of the TLS sessions kept for resumption. 0 means no limit.
+     *
+     * @param sslSessionTimeout the TLS session lifetime, in seconds
+     */
+    public void setSslSessionTimeout( int sslSessionTimeout )
+    {
+        this.sslSessionTimeout = sslSessionTimeout;
+        resetSslContext();
+    }
+
+
+    /**
+     * Gets the SSL context used by all the connections created with this configuration.
+     * It is built on the first call, from the SSL protocol, the key managers, the trust
+     * managers and the secure random. Sharing it lets the connections resume the TLS
+     * sessions established by the previous ones (or use the TLS 1.3 session tickets
+     * they got), instead of going through a full handshake.
+     *
+     * @return the shared SSL context
+     * @throws GeneralSecurityException If the SSL context cannot be created
+     */
+    public synchronized SSLContext getSslContext() throws GeneralSecurityException
+    {
+        if ( sslContext == null )
+        {
+            SSLContext context = SSLContext.getInstance( sslProtocol );
+            context.init( keyManagers, trustManagers, secureRandom );
+
+            SSLSessionContext sessionContext = context.getClientSessionContext();
+
+            if ( sessionContext != null )
+            {
+                sessionContext.setSessionCacheSize( sslSessionCacheSize );
+                sessionContext.setSessionTimeout( sslSessionTimeout );
+            }
+
+            sslContext = context;
+        }
+
+        return sslContext;
+    }
+
+
+    /**
+     * Sets the SSL context to use, instead of building one. It will be discarded if any of
+     * the SSL parameters is modified afterward.
+     *
+     * @param sslContext the SSL context to use
+     */
+    public synchronized void setSslContext( SSLContext sslContext )
+    {
+        this.sslContext = sslContext;
+    }
+
+
+    /**
+     * Discards the shared SSL context, and the sessions it holds. It will be rebuilt when
+     * a connection needs it.
+     */
+    private synchronized void resetSslContext()
+    {
+        sslContext = null;
+    }
 }
@@ -27,6 +27,7 @@ import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.ldap.client.api.metrics.LdapConnectionMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +46,9 @@ public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
 
     private PooledObjectFactory<LdapConnection> factory;
 
+    /** The metrics to feed, if any */
+    private volatile LdapConnectionMetrics metrics;
+
 
     /**
      * Instantiates a new LDAP connection pool.
@@ -110,6 +114,34 @@ public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
     }
 
 
+    /**
+     * Sets the metrics fed with the borrow and return timings. If the pool factory is an
+     * {@link AbstractPoolableLdapConnectionFactory}, the metrics are also fed with the
+     * validation costs and the operations latencies of the connections created from now on,
+     * so they should be set before the first connection is borrowed.
+     *
+     * @param metrics The metrics, or null to stop collecting them
+     */
+    public void setMetrics( LdapConnectionMetrics metrics )
+    {
+        this.metrics = metrics;
+
+        if ( factory instanceof AbstractPoolableLdapConnectionFactory )
+        {
+            ( ( AbstractPoolableLdapConnectionFactory ) factory ).setMetrics( metrics );
+        }
+    }
+
+
+    /**
+     * @return The metrics fed by this pool, if any
+     */
+    public LdapConnectionMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+
     /**
      * Gives a LdapConnection fetched from the pool.
      *
@@ -119,11 +151,18 @@ public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
     public LdapConnection getConnection() throws LdapException
     {
         LdapConnection connection;
+        LdapConnectionMetrics currentMetrics = metrics;
+        long start = currentMetrics == null ? 0L : System.nanoTime();
 
         try
         {
-            connection = super.borrowObject();
+            connection = borrowObject();
             
+            if ( currentMetrics != null )
+            {
+                currentMetrics.connectionBorrowed( System.nanoTime() - start );
+            }
+
             if ( LOG.isTraceEnabled() )
             {
                 LOG.trace( I18n.msg( I18n.MSG_04163_BORROWED_CONNECTION, connection ) );
@@ -169,14 +208,35 @@ public class LdapConnectionPool extends GenericObjectPool<LdapConnection>
         // Unwrap if required
         if ( connection instanceof PooledLdapConnection ) 
         {
-           releaseConnection( ( ( PooledLdapConnection ) connection ).wrapped() );
-           
-           return;
+            PooledLdapConnection pooledConnection = ( PooledLdapConnection ) connection;
+            returnConnection( pooledConnection.wrapped(), pooledConnection.getHeldNanos() );
+
+            return;
         }
 
+        returnConnection( connection, -1L );
+    }
+
+
+    /**
+     * Returns a connection to the pool, feeding the metrics if any.
+     *
+     * @param connection The unwrapped connection
+     * @param heldNanos The time the connection was held by the borrower, or -1 if unknown
+     */
+    private void returnConnection( LdapConnection connection, long heldNanos )
+    {
+        LdapConnectionMetrics currentMetrics = metrics;
+        long start = currentMetrics == null ? 0L : System.nanoTime();
+
         try
         {
-            super.returnObject( connection );
+            returnObject( connection );
+
+            if ( currentMetrics != null )
+            {
+                currentMetrics.connectionReturned( heldNanos, System.nanoTime() - start );
+            }
 
             if ( LOG.isTraceEnabled() )
             {
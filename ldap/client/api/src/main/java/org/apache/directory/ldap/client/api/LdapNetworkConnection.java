@@ -57,6 +57,7 @@ import javax.security.sasl.Sasl;
 import javax.security.sasl.SaslClient;
 
 import org.apache.directory.api.asn1.DecoderException;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.asn1.util.Oid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.BinaryAttributeDetector;
@@ -169,6 +170,7 @@ import org.apache.directory.ldap.client.api.future.ModifyDnFuture;
 import org.apache.directory.ldap.client.api.future.ModifyFuture;
 import org.apache.directory.ldap.client.api.future.ResponseFuture;
 import org.apache.directory.ldap.client.api.future.SearchFuture;
+import org.apache.directory.ldap.client.api.metrics.LdapConnectionMetrics;
 import org.apache.mina.core.filterchain.IoFilter;
 import org.apache.mina.core.filterchain.IoFilterChain;
 import org.apache.mina.core.future.CloseFuture;
@@ -242,12 +244,21 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     /** a map to hold the ResponseFutures for all operations */
     private Map<Integer, ResponseFuture<? extends Response>> futureMap = new ConcurrentHashMap<>();
 
+    /** The metrics fed with the operations latencies, if any */
+    private volatile LdapConnectionMetrics metrics;
+
+    /** The time each pending operation was sent, when metrics are collected */
+    private Map<Integer, Long> operationStartTimes = new ConcurrentHashMap<>();
+
     /** list of controls supported by the server */
     private List<String> supportedControls;
 
     /** The ROOT DSE entry */
     private Entry rootDse;
 
+    /** The cache the SchemaManager is shared through, if it has been loaded from a SchemaCache */
+    private SchemaCache sharedSchemaCache;
+
     /** A flag indicating that the BindRequest has been issued and successfully authenticated the user */
     private AtomicBoolean authenticated = new AtomicBoolean( false );
 
@@ -276,6 +287,12 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     
     /** A future used to block any action until the handshake is completed */
     private HandshakeFuture handshakeFuture;
+
+    /** The time the last TLS handshake started, to measure its duration */
+    private volatile long handshakeStartNanos;
+
+    /** The wall clock time the last TLS handshake started, to detect resumed sessions */
+    private volatile long handshakeStartMillis;
     
     /** A future used to wait for a connection to be closed */
     private CompletableFuture<Integer> connectionCloseFuture = new CompletableFuture<>(); 
@@ -636,6 +653,14 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
         }
         
         futureMap.put( messageId, future );
+
+        LdapConnectionMetrics currentMetrics = metrics;
+
+        if ( currentMetrics != null )
+        {
+            operationStartTimes.put( messageId, System.nanoTime() );
+            currentMetrics.operationStarted();
+        }
     }
 
 
@@ -648,10 +673,69 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
             LOG.debug( I18n.msg( I18n.MSG_04126_REMOVING, messageId, future.getClass().getName() ) );
         }
 
+        // If the operation is still pending, it won't get its final response
+        abortOperation( messageId );
+
         return future;
     }
 
 
+    /**
+     * Records the round-trip latency of an operation, if the given response is its final one.
+     *
+     * @param response The received response
+     */
+    private void completeOperation( Response response )
+    {
+        LdapConnectionMetrics currentMetrics = metrics;
+
+        switch ( response.getType() )
+        {
+            case INTERMEDIATE_RESPONSE:
+            case SEARCH_RESULT_ENTRY:
+            case SEARCH_RESULT_REFERENCE:
+                return;
+
+            default:
+                Long start = operationStartTimes.remove( response.getMessageId() );
+
+                if ( ( currentMetrics != null ) && ( start != null ) )
+                {
+                    currentMetrics.operationCompleted( response.getType(), System.nanoTime() - start );
+                }
+        }
+    }
+
+
+    /**
+     * Notifies the metrics that an operation will never get its final response.
+     *
+     * @param messageId The operation message ID
+     */
+    private void abortOperation( int messageId )
+    {
+        Long start = operationStartTimes.remove( messageId );
+        LdapConnectionMetrics currentMetrics = metrics;
+
+        if ( ( currentMetrics != null ) && ( start != null ) )
+        {
+            currentMetrics.operationAborted();
+        }
+    }
+
+
+    /**
+     * Notifies the metrics that all the pending operations will never get their final response.
+     */
+    private void abortAllOperations()
+    {
+        for ( Integer messageId : operationStartTimes.keySet() )
+        {
+            abortOperation( messageId );
+        }
+    }
+
+
     private ResponseFuture<? extends Response> peekFromFutureMap( int messageId )
     {
         ResponseFuture<? extends Response> future = futureMap.get( messageId );
@@ -941,6 +1025,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
             }
 
             futureMap.clear();
+            abortAllOperations();
         } );
     }
     
@@ -975,6 +1060,8 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
 
             // Bound the size of the PDUs we accept from the peer
             newContainer.setMaxPDUSize( config.getMaxPDUSize() );
+            newContainer.setAttributeValueSink( config.getAttributeValueSink() );
+            newContainer.setSearchResultEntryFastPath( config.isSearchResultEntryFastPath() );
 
             ioSession.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR, newContainer );
         }
@@ -3091,6 +3178,11 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
             return;
         }
 
+        if ( !operationStartTimes.isEmpty() )
+        {
+            completeOperation( response );
+        }
+
         switch ( response.getType() )
         {
             case ADD_RESPONSE:
@@ -4250,7 +4342,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     {
         try
         {
-            return extended( Oid.fromString( oid ), value );
+            return extended( InternedOid.intern( oid ).getOid(), value );
         }
         catch ( DecoderException e )
         {
@@ -4643,7 +4735,17 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     @Override
     public void loadSchema() throws LdapException
     {
-        loadSchema( new DefaultSchemaLoader( this ) );
+        SchemaCache schemaCache = config.getSchemaCache();
+
+        if ( schemaCache != null )
+        {
+            setSchemaManagerInternal( schemaCache.getSchemaManager( this, getServerIdentity(), false ) );
+            sharedSchemaCache = schemaCache;
+        }
+        else
+        {
+            loadSchema( new DefaultSchemaLoader( this ) );
+        }
     }
 
 
@@ -4653,7 +4755,26 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     @Override
     public void loadSchemaRelaxed() throws LdapException
     {
-        loadSchema( new DefaultSchemaLoader( this, true ) );
+        SchemaCache schemaCache = config.getSchemaCache();
+
+        if ( schemaCache != null )
+        {
+            setSchemaManagerInternal( schemaCache.getSchemaManager( this, getServerIdentity(), true ) );
+            sharedSchemaCache = schemaCache;
+        }
+        else
+        {
+            loadSchema( new DefaultSchemaLoader( this, true ) );
+        }
+    }
+
+
+    /**
+     * @return The identity of the server, in the schema cache
+     */
+    private String getServerIdentity()
+    {
+        return Strings.toLowerCaseAscii( config.getLdapHost() ) + ':' + config.getLdapPort();
     }
 
 
@@ -4683,21 +4804,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
                 throw new LdapException( msg );
             }
 
-            schemaManager = tmp;
-
-            // Change the container's BinaryDetector
-            LdapMessageContainer<Message> ldapMessageContainer = 
-                new LdapMessageContainer<>( codec,
-                    new SchemaBinaryAttributeDetector( schemaManager ) );
-            
-            // Associate a DnFactory to the container
-            ldapMessageContainer.setDnFactory( new DefaultDnFactory( schemaManager, 1000 ) );
-            
-            // Bound the size of the PDUs we accept from the peer
-            ldapMessageContainer.setMaxPDUSize( config.getMaxPDUSize() );
-
-            ioSession.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR, ldapMessageContainer );
-
+            setSchemaManagerInternal( tmp );
         }
         catch ( LdapException le )
         {
@@ -4711,6 +4818,33 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     }
 
 
+    /**
+     * Use a SchemaManager, and update the decoder accordingly
+     *
+     * @param schemaManager The loaded SchemaManager
+     */
+    private void setSchemaManagerInternal( SchemaManager schemaManager )
+    {
+        this.schemaManager = schemaManager;
+        sharedSchemaCache = null;
+
+        // Change the container's BinaryDetector
+        LdapMessageContainer<Message> ldapMessageContainer = 
+            new LdapMessageContainer<>( codec,
+                new SchemaBinaryAttributeDetector( schemaManager ) );
+        
+        // Associate a DnFactory to the container
+        ldapMessageContainer.setDnFactory( new DefaultDnFactory( schemaManager, 1000 ) );
+        
+        // Bound the size of the PDUs we accept from the peer
+        ldapMessageContainer.setMaxPDUSize( config.getMaxPDUSize() );
+        ldapMessageContainer.setAttributeValueSink( config.getAttributeValueSink() );
+        ldapMessageContainer.setSearchResultEntryFastPath( config.isSearchResultEntryFastPath() );
+
+        ioSession.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR, ldapMessageContainer );
+    }
+
+
     /**
      * parses the given schema file present in OpenLDAP schema format
      * and adds all the SchemaObjects present in it to the SchemaManager
@@ -4732,6 +4866,12 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
                 throw new LdapException( I18n.err( I18n.ERR_04116_FAIL_LOAD_SCHEMA ) );
             }
 
+            if ( sharedSchemaCache != null )
+            {
+                // The other connections use the same SchemaManager : modify our own copy
+                setSchemaManagerInternal( sharedSchemaCache.copy( schemaManager ) );
+            }
+
             OpenLdapSchemaParser olsp = new OpenLdapSchemaParser();
             olsp.setQuirksMode( true );
             olsp.parse( schemaFile );
@@ -4882,6 +5022,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     private void clearMaps()
     {
         futureMap.clear();
+        abortAllOperations();
     }
 
 
@@ -4956,6 +5097,12 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
         // Bound the level number of filter we accept
         ldapMessageContainer.setMaxFilterDepth( config.getMaxFilterDepth() );
 
+        // Stream the large attribute values, if requested
+        ldapMessageContainer.setAttributeValueSink( config.getAttributeValueSink() );
+
+        // Decode the complete SearchResultEntry PDUs without the grammar, if requested
+        ldapMessageContainer.setSearchResultEntryFastPath( config.isSearchResultEntryFastPath() );
+
         session.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR, ldapMessageContainer );
     }
 
@@ -5099,9 +5246,9 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     {
         try
         {
-            SSLContext sslContext = SSLContext.getInstance( config.getSslProtocol() );
-            
-            sslContext.init( config.getKeyManagers(), config.getTrustManagers(), config.getSecureRandom() );
+            // The context is shared by all the connections using the same configuration,
+            // so that they can resume the previously established TLS sessions
+            SSLContext sslContext = config.getSslContext();
 
             SslFilter sslFilter = new SslFilter( sslContext );
             //sslFilter.setUseClientMode( true );
@@ -5136,6 +5283,8 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
 
             // for LDAPS/TLS
             handshakeFuture = new HandshakeFuture();
+            handshakeStartNanos = System.nanoTime();
+            handshakeStartMillis = System.currentTimeMillis();
             
             if ( ( ioSession == null ) || !isConnected() )
             {
@@ -5515,6 +5664,45 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     }
 
 
+    /**
+     * Sets the metrics fed with the round-trip latency of the operations sent on this
+     * connection. The latency is measured from the moment the request is registered to
+     * the moment its final response is received.
+     *
+     * The operations pending when the metrics are replaced are reported as aborted
+     * to the previous metrics, and are not measured by the new ones.
+     *
+     * @param metrics The metrics, or null to stop collecting them
+     */
+    public synchronized void setMetrics( LdapConnectionMetrics metrics )
+    {
+        LdapConnectionMetrics previousMetrics = this.metrics;
+        this.metrics = metrics;
+
+        if ( ( previousMetrics == null ) || ( previousMetrics == metrics ) )
+        {
+            return;
+        }
+
+        for ( Integer messageId : operationStartTimes.keySet() )
+        {
+            if ( operationStartTimes.remove( messageId ) != null )
+            {
+                previousMetrics.operationAborted();
+            }
+        }
+    }
+
+
+    /**
+     * @return The metrics fed by this connection, if any
+     */
+    public LdapConnectionMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -5535,6 +5723,7 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     public void setSchemaManager( SchemaManager schemaManager )
     {
         this.schemaManager = schemaManager;
+        sharedSchemaCache = null;
     }
 
 
@@ -5569,6 +5758,17 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
         // Check if it's a SSLevent 
         if ( ( event instanceof SslEvent ) && ( ( SslEvent ) event == SslEvent.SECURED ) )
         {
+            LdapConnectionMetrics currentMetrics = metrics;
+
+            if ( currentMetrics != null )
+            {
+                // A resumed session has been created by a previous handshake
+                SSLSession sslSession = ( SSLSession ) session.getAttribute( SslFilter.SSL_SECURED );
+                boolean resumed = ( sslSession != null ) && ( sslSession.getCreationTime() < handshakeStartMillis );
+
+                currentMetrics.tlsHandshakeCompleted( System.nanoTime() - handshakeStartNanos, resumed );
+            }
+
             handshakeFuture.secured();
         }
     }
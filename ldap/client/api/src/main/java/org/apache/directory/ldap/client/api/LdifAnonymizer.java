@@ -26,17 +26,25 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.PrintStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.entry.Attribute;
@@ -110,6 +118,15 @@ import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
  * <li>description</li>
  * <li>memberUid</li>
  * </ul>
+ * 
+ * By default, the anonymized values are computed sequentially, and the mapping between the
+ * original values and the anonymized values is kept in memory. When a hash key is set, the
+ * anonymized values are derived from the original values using a keyed hash instead : the
+ * mapping is still consistent (the same value is always anonymized the same way, across
+ * entries and across runs using the same key), but nothing has to be kept in memory, and
+ * the entries can be anonymized by many threads (see 
+ * {@link #anonymizeFile(String, Writer, int)}). The short values are then extended, so that
+ * two distinct values can't get the same anonymized value.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -138,6 +155,12 @@ public class LdifAnonymizer
     
     /** The PrintStream used to write informations about the processing */
     private PrintStream out = null;
+    
+    /** The secret key used to compute the anonymized values, if any */
+    private byte[] hashKey;
+    
+    /** The number of pending entries per thread when anonymizing a file with many threads */
+    private static final int PENDING_ENTRIES_PER_THREAD = 64;
 
     /**
      * Creates a default instance of LdifAnonymizer. The list of anonymized attribute
@@ -344,6 +367,13 @@ public class LdifAnonymizer
         {
             attributeAnonymizers.put( attributeType.getOid(), new BinaryAnonymizer() );
         }
+        
+        Anonymizer anonymizer = attributeAnonymizers.get( attributeType.getOid() );
+        
+        if ( anonymizer != null )
+        {
+            anonymizer.setHashKey( hashKey );
+        }
     }
     
     
@@ -357,6 +387,7 @@ public class LdifAnonymizer
     public void addAnonAttributeType( AttributeType attributeType, Anonymizer<?> anonymizer ) throws LdapException
     {
         schemaManager.add( attributeType );
+        anonymizer.setHashKey( hashKey );
         attributeAnonymizers.put( attributeType.getOid(), anonymizer );
     }
     
@@ -382,6 +413,32 @@ public class LdifAnonymizer
         return attributeAnonymizers;
     }
     
+    
+    /**
+     * Set the secret key used to compute the anonymized values with a keyed hash. The
+     * value maps are not used when this key is set, so the memory consumption does not 
+     * grow with the number of anonymized values.
+     * 
+     * @param hashKey The secret key, or <code>null</code> to use sequential values
+     */
+    public void setHashKey( byte[] hashKey )
+    {
+        if ( hashKey == null )
+        {
+            this.hashKey = null;
+        }
+        else
+        {
+            this.hashKey = Arrays.copyOf( hashKey, hashKey.length );
+        }
+        
+        for ( Anonymizer anonymizer : attributeAnonymizers.values() )
+        {
+            anonymizer.setHashKey( this.hashKey );
+        }
+    }
+    
+    
     /**
      * Add a new NamingContext
      *
@@ -407,9 +464,14 @@ public class LdifAnonymizer
     {
         Value value = ava.getValue();
         AttributeType attributeType = ava.getAttributeType();
-        Value anonymizedValue = valueMap.get( value );
+        Value anonymizedValue = null;
         Ava anonymizedAva;
         
+        if ( hashKey == null )
+        {
+            anonymizedValue = valueMap.get( value );
+        }
+        
         if ( anonymizedValue == null )
         {
             Attribute attribute = new DefaultAttribute( attributeType );
@@ -654,6 +716,116 @@ public class LdifAnonymizer
     }
     
     
+    /**
+     * Anonymize a LDIF file using many threads. The file is read as a stream, and a bounded
+     * number of entries are anonymized concurrently, so the memory consumption does not depend
+     * on the file size. The anonymized entries are written in the same order as in the 
+     * original file.
+     * <br>
+     * This requires a hash key to be set (see {@link #setHashKey(byte[])}), as the sequential
+     * values depend on the order in which the values are processed. If no hash key is set,
+     * the file is anonymized using a single thread.
+     * 
+     * @param ldifFile The ldif file to anonymize
+     * @param writer The Writer to use to write the result
+     * @param nbThreads The number of threads to use
+     * @throws LdapException If we got some LDAP related exception
+     * @throws IOException If we had some issue during some IO operations
+     */
+    public void anonymizeFile( String ldifFile, Writer writer, int nbThreads ) throws LdapException, IOException
+    {
+        if ( ( hashKey == null ) || ( nbThreads <= 1 ) )
+        {
+            anonymizeFile( ldifFile, writer );
+            
+            return;
+        }
+        
+        File inputFile = new File( ldifFile );
+        
+        if ( !inputFile.exists() )
+        {
+            println( "Cannot open file " + ldifFile );
+            return;
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool( nbThreads );
+        int maxPending = nbThreads * PENDING_ENTRIES_PER_THREAD;
+        Deque<Future<String>> pending = new ArrayDeque<>( maxPending );
+        int count = 0;
+        int nbErrors = 0;
+        
+        try ( LdifReader ldifReader = new LdifReader( inputFile, schemaManager ) )
+        {
+            for ( LdifEntry ldifEntry : ldifReader )
+            {
+                count++;
+                pending.add( executor.submit( () -> anonymizeLdifEntry( ldifEntry ) ) );
+                
+                // Write the oldest entry when we have enough entries being processed
+                if ( pending.size() >= maxPending )
+                {
+                    nbErrors += writeAnonymized( pending.poll(), writer );
+                }
+            }
+            
+            while ( !pending.isEmpty() )
+            {
+                nbErrors += writeAnonymized( pending.poll(), writer );
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+            println();
+
+            if ( nbErrors != 0 )
+            {
+                println( "There are " + nbErrors + " bad entries" );
+            }
+                
+            println( "Nb entries : " + count ); 
+        }
+    }
+    
+    
+    /**
+     * Wait for an entry to be anonymized, and write it.
+     * 
+     * @param future The future containing the anonymized entry
+     * @param writer The Writer to use to write the result
+     * @return 1 if the entry could not be anonymized, 0 otherwise
+     * @throws IOException If the entry can't be written
+     */
+    private int writeAnonymized( Future<String> future, Writer writer ) throws IOException
+    {
+        try
+        {
+            String anonymized = future.get();
+            
+            if ( anonymized != null )
+            {
+                writer.write( anonymized );
+                writer.write( "\n" );
+            }
+            
+            return 0;
+        }
+        catch ( ExecutionException ee )
+        {
+            println( "error : " + ee.getCause().getMessage() );
+            
+            return 1;
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+            
+            throw new InterruptedIOException( ie.getMessage() );
+        }
+    }
+    
+    
     /**
      * Anonymize a Modify change
      * 
@@ -935,6 +1107,53 @@ public class LdifAnonymizer
     }
 
 
+    /**
+     * Anonymize a LDIF entry, whatever its kind (entry or change)
+     * 
+     * @param ldifEntry The LDIF entry to anonymize
+     * @return The anonymized entry as a LDIF String, or null if it can't be anonymized
+     * @throws LdapException If the anonymization failed
+     */
+    private String anonymizeLdifEntry( LdifEntry ldifEntry ) throws LdapException
+    {
+        if ( ldifEntry.isEntry() && !ldifEntry.isChangeAdd() )
+        {
+            // process a full entry. Add changes aren't processed here.
+            return LdifUtils.convertToLdif( anonymizeEntry( ldifEntry ) );
+        }
+        
+        LdifEntry newLdifEntry = null;
+        
+        if ( ldifEntry.isChangeDelete() )
+        {
+            // A Delete operation
+            newLdifEntry = anonymizeChangeDelete( ldifEntry );
+        }
+        else if ( ldifEntry.isChangeAdd() )
+        {
+            // A Add operation
+            newLdifEntry = anonymizeChangeAdd( ldifEntry );
+        }
+        else if ( ldifEntry.isChangeModify() )
+        {
+            // A Modify operation
+            newLdifEntry = anonymizeChangeModify( ldifEntry );
+        }
+        else if ( ldifEntry.isChangeModDn() ||  ldifEntry.isChangeModRdn() )
+        {
+            // A MODDN operation
+            newLdifEntry = anonymizeChangeModDn( ldifEntry );
+        }
+        
+        if ( newLdifEntry == null )
+        {
+            return null;
+        }
+        
+        return newLdifEntry.toString();
+    }
+    
+    
     /**
      * Anonymize a LDIF 
      * 
@@ -954,58 +1173,13 @@ public class LdifAnonymizer
 
             for ( LdifEntry ldifEntry : entries )
             {
-                if ( ldifEntry.isEntry() && !ldifEntry.isChangeAdd() )
+                String anonymized = anonymizeLdifEntry( ldifEntry );
+                
+                if ( anonymized != null )
                 {
-                    // process a full entry. Add changes aren't preocessed ghere.
-                    Entry newEntry = anonymizeEntry( ldifEntry );
-                    
-                    result.append( LdifUtils.convertToLdif( newEntry ) );
+                    result.append( anonymized );
                     result.append( "\n" );
                 }
-                else if ( ldifEntry.isChangeDelete() )
-                {
-                    // A Delete operation
-                    LdifEntry newLdifEntry = anonymizeChangeDelete( ldifEntry );
-
-                    if ( newLdifEntry != null )
-                    {
-                        result.append( newLdifEntry );
-                        result.append( "\n" );
-                    }
-                }
-                else if ( ldifEntry.isChangeAdd() )
-                {
-                    // A Add operation
-                    LdifEntry newLdifEntry = anonymizeChangeAdd( ldifEntry );
-
-                    if ( newLdifEntry != null )
-                    {
-                        result.append( newLdifEntry );
-                        result.append( "\n" );
-                    }
-                }
-                else if ( ldifEntry.isChangeModify() )
-                {
-                    // A Modify operation
-                    LdifEntry newLdifEntry = anonymizeChangeModify( ldifEntry );
-
-                    if ( newLdifEntry != null )
-                    {
-                        result.append( newLdifEntry );
-                        result.append( "\n" );
-                    }
-                }
-                else if ( ldifEntry.isChangeModDn() ||  ldifEntry.isChangeModRdn() )
-                {
-                    // A MODDN operation
-                    LdifEntry newLdifEntry = anonymizeChangeModDn( ldifEntry );
-
-                    if ( newLdifEntry != null )
-                    {
-                        result.append( newLdifEntry );
-                        result.append( "\n" );
-                    }
-                }
             }
 
             return result.toString();
@@ -21,6 +21,7 @@ package org.apache.directory.ldap.client.api;
 
 
 import org.apache.directory.api.asn1.DecoderException;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.asn1.util.Oid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.extras.extended.startTls.StartTlsRequest;
@@ -45,7 +46,7 @@ public final class MonitoringLdapConnection extends LdapConnectionWrapper
     {
         try
         {
-            START_TLS_OID = Oid.fromString( StartTlsRequest.EXTENSION_OID );
+            START_TLS_OID = InternedOid.intern( StartTlsRequest.EXTENSION_OID ).getOid();
         }
         catch ( DecoderException de )
         {
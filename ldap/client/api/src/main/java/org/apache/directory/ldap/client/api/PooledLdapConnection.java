@@ -31,6 +31,9 @@ public class PooledLdapConnection extends LdapConnectionWrapper
     /** The connection pool */
     private LdapConnectionPool pool;
 
+    /** The time this connection was borrowed, in nanoseconds */
+    private final long borrowedAt = System.nanoTime();
+
     /**
      * A PooledLdapConnection instance that delegates the LdapConnection creation
      * 
@@ -66,6 +69,15 @@ public class PooledLdapConnection extends LdapConnectionWrapper
         }
     }
 
+    /**
+     * @return The time elapsed since this connection was borrowed, in nanoseconds
+     */
+    long getHeldNanos()
+    {
+        return System.nanoTime() - borrowedAt;
+    }
+
+
     /**
      * Set the connection pool to use
      * 
@@ -0,0 +1,484 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.cursor.CursorException;
+import org.apache.directory.api.ldap.model.cursor.EntryCursor;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.ldif.LdifEntry;
+import org.apache.directory.api.ldap.model.ldif.LdifReader;
+import org.apache.directory.api.ldap.model.ldif.LdifUtils;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.apache.directory.api.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A cache of the SchemaManagers built from the servers' SubschemaSubentry, shared by
+ * all the connections configured with it. A SchemaManager is identified by the server,
+ * and by the modifyTimestamp and entryCSN of its SubschemaSubentry : as long as the
+ * server schema does not change, the connections only read those two attributes, and
+ * share the same SchemaManager, which must not be modified : a connection adding some
+ * schema elements works on its own copy, built with {@link #copy(SchemaManager)}.
+ * <br>
+ * The SubschemaSubentries can also be stored in a directory, so that a restarted
+ * application does not have to download them again. Only the last stored version of
+ * each server's schema is kept. If the SubschemaSubentry has neither a modifyTimestamp
+ * nor an entryCSN, the schema is not cached.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaCache
+{
+    /** The logger */
+    private static final Logger LOG = LoggerFactory.getLogger( SchemaCache.class );
+
+    /** The prefix of the files storing the SubschemaSubentries */
+    private static final String FILE_PREFIX = "schema-";
+
+    /** The suffix of the files storing the SubschemaSubentries */
+    private static final String FILE_SUFFIX = ".ldif";
+
+    /** The attributes read from the SubschemaSubentry to load the schema */
+    private static final String[] SCHEMA_ATTRIBUTES = new String[]
+        {
+            SchemaConstants.ATTRIBUTE_TYPES_AT,
+            SchemaConstants.COMPARATORS_AT,
+            SchemaConstants.DIT_CONTENT_RULES_AT,
+            SchemaConstants.DIT_STRUCTURE_RULES_AT,
+            SchemaConstants.LDAP_SYNTAXES_AT,
+            SchemaConstants.MATCHING_RULES_AT,
+            SchemaConstants.MATCHING_RULE_USE_AT,
+            SchemaConstants.NAME_FORMS_AT,
+            SchemaConstants.NORMALIZERS_AT,
+            SchemaConstants.OBJECT_CLASSES_AT,
+            SchemaConstants.SYNTAX_CHECKERS_AT
+        };
+
+    /** The directory storing the SubschemaSubentries, if any */
+    private final File directory;
+
+    /** The SchemaManagers, being loaded or loaded, per server and schema version */
+    private final Map<String, FutureTask<SchemaManager>> schemaManagers = new ConcurrentHashMap<>();
+
+    /** The SubschemaSubentries the cached SchemaManagers have been loaded from, to copy them */
+    private final Map<SchemaManager, Entry> subschemaSubentries = Collections.synchronizedMap( new WeakHashMap<>() );
+
+
+    /**
+     * Creates a new SchemaCache, keeping the SchemaManagers in memory
+     */
+    public SchemaCache()
+    {
+        this( null );
+    }
+
+
+    /**
+     * Creates a new SchemaCache, keeping the SchemaManagers in memory and storing
+     * the SubschemaSubentries in a directory
+     *
+     * @param directory The directory where the SubschemaSubentries are stored, or <code>null</code>
+     */
+    public SchemaCache( File directory )
+    {
+        this.directory = directory;
+    }
+
+
+    /**
+     * Gets the SchemaManager of the server a connection is connected to. The SchemaManager is
+     * only loaded if the server's schema is not known yet, or if it has changed.
+     *
+     * @param connection The connection, which must be connected and, if needed, bound
+     * @param server The server identity, like its host and port
+     * @param relaxed Tells if the schema is loaded in relaxed mode
+     * @return The SchemaManager
+     * @throws LdapException If the schema can't be read or loaded
+     */
+    public SchemaManager getSchemaManager( LdapConnection connection, String server, boolean relaxed )
+        throws LdapException
+    {
+        Entry rootDse = connection.lookup( Dn.ROOT_DSE, SchemaConstants.SUBSCHEMA_SUBENTRY_AT );
+        Attribute subschemaSubentryAttribute = ( rootDse == null ) ? null
+            : rootDse.get( SchemaConstants.SUBSCHEMA_SUBENTRY_AT );
+
+        if ( ( subschemaSubentryAttribute == null ) || ( subschemaSubentryAttribute.size() == 0 ) )
+        {
+            throw new LdapException( I18n.err( I18n.ERR_04116_FAIL_LOAD_SCHEMA ) );
+        }
+
+        Dn subschemaSubentryDn = new Dn( subschemaSubentryAttribute.getString() );
+
+        // Only read the schema version
+        Entry versionEntry = connection.lookup( subschemaSubentryDn, SchemaConstants.MODIFY_TIMESTAMP_AT,
+            SchemaConstants.ENTRY_CSN_AT );
+        String version = getVersion( versionEntry );
+
+        if ( version == null )
+        {
+            // We can't tell if the schema has changed
+            if ( LOG.isDebugEnabled() )
+            {
+                LOG.debug( I18n.msg( I18n.MSG_04179_SCHEMA_NOT_CACHED, server ) );
+            }
+
+            Entry subschemaSubentry = readSubschemaSubentry( connection, subschemaSubentryDn );
+            SchemaManager schemaManager = load( subschemaSubentry, relaxed );
+            subschemaSubentries.put( schemaManager, subschemaSubentry );
+
+            return schemaManager;
+        }
+
+        // The versions of the same schema share the same family
+        String family = server + '|' + subschemaSubentryDn.getName() + '|' + relaxed;
+        String key = family + '|' + version;
+        FutureTask<SchemaManager> task = new FutureTask<>( () -> load( connection, subschemaSubentryDn, family,
+            key, relaxed ) );
+        FutureTask<SchemaManager> existing = schemaManagers.putIfAbsent( key, task );
+
+        if ( existing == null )
+        {
+            // We load the schema, the other connections will wait for it
+            existing = task;
+            task.run();
+        }
+
+        try
+        {
+            return existing.get();
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new LdapException( ie.getMessage(), ie );
+        }
+        catch ( ExecutionException ee )
+        {
+            // Don't keep the failure, the next connection will try again
+            schemaManagers.remove( key, existing );
+
+            if ( ee.getCause() instanceof LdapException )
+            {
+                throw ( LdapException ) ee.getCause();
+            }
+
+            throw new LdapException( ee.getCause().getMessage(), ee.getCause() );
+        }
+    }
+
+
+    /**
+     * Creates a private copy of a SchemaManager returned by this cache, which can be
+     * modified without impacting the other connections.
+     *
+     * @param schemaManager The shared SchemaManager
+     * @return A new SchemaManager, loaded from the same SubschemaSubentry
+     * @throws LdapException If the SchemaManager has not been returned by this cache, or can't be loaded
+     */
+    public SchemaManager copy( SchemaManager schemaManager ) throws LdapException
+    {
+        Entry subschemaSubentry = subschemaSubentries.get( schemaManager );
+
+        if ( subschemaSubentry == null )
+        {
+            throw new LdapException( I18n.err( I18n.ERR_04116_FAIL_LOAD_SCHEMA ) );
+        }
+
+        return load( subschemaSubentry, schemaManager.isRelaxed() );
+    }
+
+
+    /**
+     * Removes all the cached SchemaManagers and the stored SubschemaSubentries
+     */
+    public void clear()
+    {
+        schemaManagers.clear();
+
+        if ( directory != null )
+        {
+            File[] files = directory.listFiles( ( dir, name ) -> name.startsWith( FILE_PREFIX )
+                && name.endsWith( FILE_SUFFIX ) );
+
+            if ( files != null )
+            {
+                for ( File file : files )
+                {
+                    if ( !file.delete() && LOG.isWarnEnabled() )
+                    {
+                        LOG.warn( I18n.err( I18n.ERR_04186_SCHEMA_CACHE_WRITE_FAILURE, file, "not deleted" ) );
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @return The number of SchemaManagers in the cache
+     */
+    public int size()
+    {
+        return schemaManagers.size();
+    }
+
+
+    private static String getVersion( Entry versionEntry ) throws LdapException
+    {
+        if ( versionEntry == null )
+        {
+            return null;
+        }
+
+        Attribute modifyTimestamp = versionEntry.get( SchemaConstants.MODIFY_TIMESTAMP_AT );
+        Attribute entryCsn = versionEntry.get( SchemaConstants.ENTRY_CSN_AT );
+
+        if ( ( modifyTimestamp == null ) && ( entryCsn == null ) )
+        {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        if ( modifyTimestamp != null )
+        {
+            sb.append( modifyTimestamp.getString() );
+        }
+
+        sb.append( '|' );
+
+        if ( entryCsn != null )
+        {
+            sb.append( entryCsn.getString() );
+        }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Loads a SchemaManager, from the stored SubschemaSubentry if any, or from the server
+     */
+    private SchemaManager load( LdapConnection connection, Dn subschemaSubentryDn, String family, String key,
+        boolean relaxed ) throws LdapException
+    {
+        // The files are named after the family and the version, so that the previous versions can be found
+        String filePrefix = FILE_PREFIX + digest( family ) + '-';
+        File file = ( directory == null ) ? null : new File( directory, filePrefix + digest( key ) + FILE_SUFFIX );
+        Entry subschemaSubentry = ( file == null ) ? null : read( file );
+
+        if ( subschemaSubentry == null )
+        {
+            subschemaSubentry = readSubschemaSubentry( connection, subschemaSubentryDn );
+
+            if ( ( file != null ) && write( file, subschemaSubentry ) )
+            {
+                deletePreviousVersions( file, filePrefix );
+            }
+        }
+
+        SchemaManager schemaManager = load( subschemaSubentry, relaxed );
+        subschemaSubentries.put( schemaManager, subschemaSubentry );
+
+        // Forget the previous versions of this schema
+        String familyPrefix = family + '|';
+        schemaManagers.keySet().removeIf( other -> other.startsWith( familyPrefix ) && !other.equals( key ) );
+
+        return schemaManager;
+    }
+
+
+    /**
+     * Deletes the stored SubschemaSubentries of the same family as the one just stored
+     */
+    private void deletePreviousVersions( File file, String filePrefix )
+    {
+        File[] files = directory.listFiles( ( dir, name ) -> name.startsWith( filePrefix )
+            && name.endsWith( FILE_SUFFIX ) && !name.equals( file.getName() ) );
+
+        if ( files != null )
+        {
+            for ( File previous : files )
+            {
+                if ( !previous.delete() && LOG.isWarnEnabled() )
+                {
+                    LOG.warn( I18n.err( I18n.ERR_04186_SCHEMA_CACHE_WRITE_FAILURE, previous, "not deleted" ) );
+                }
+            }
+        }
+    }
+
+
+    private static SchemaManager load( Entry subschemaSubentry, boolean relaxed ) throws LdapException
+    {
+        DefaultSchemaLoader loader = new DefaultSchemaLoader( subschemaSubentry, relaxed );
+        SchemaManager schemaManager = new DefaultSchemaManager( loader );
+
+        try
+        {
+            schemaManager.loadAllEnabled();
+        }
+        catch ( LdapException le )
+        {
+            throw le;
+        }
+        catch ( Exception e )
+        {
+            throw new LdapException( e.getMessage(), e );
+        }
+
+        if ( !schemaManager.getErrors().isEmpty() && loader.isStrict() )
+        {
+            String msg = I18n.err( I18n.ERR_04115_ERROR_LOADING_SCHEMA );
+
+            if ( LOG.isErrorEnabled() )
+            {
+                LOG.error( I18n.err( I18n.ERR_05114_ERROR_MESSAGE, msg,
+                    Strings.listToString( schemaManager.getErrors() ) ) );
+            }
+
+            throw new LdapException( msg );
+        }
+
+        return schemaManager;
+    }
+
+
+    private static Entry readSubschemaSubentry( LdapConnection connection, Dn subschemaSubentryDn )
+        throws LdapException
+    {
+        try ( EntryCursor cursor = connection.search( subschemaSubentryDn, "(objectClass=subschema)",
+            SearchScope.OBJECT, SCHEMA_ATTRIBUTES ) )
+        {
+            if ( !cursor.next() )
+            {
+                throw new LdapException( "Unable to read schema at: " + subschemaSubentryDn );
+            }
+
+            return cursor.get();
+        }
+        catch ( CursorException | IOException e )
+        {
+            throw new LdapException( e.getMessage(), e );
+        }
+    }
+
+
+    /**
+     * Reads a stored SubschemaSubentry. A missing or unreadable file is ignored.
+     */
+    private static Entry read( File file )
+    {
+        if ( !file.exists() )
+        {
+            return null;
+        }
+
+        try ( LdifReader reader = new LdifReader( file ) )
+        {
+            for ( LdifEntry ldifEntry : reader )
+            {
+                return ldifEntry.getEntry();
+            }
+        }
+        catch ( IOException | LdapException e )
+        {
+            if ( LOG.isWarnEnabled() )
+            {
+                LOG.warn( I18n.err( I18n.ERR_04185_SCHEMA_CACHE_READ_FAILURE, file, e.getMessage() ) );
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Stores a SubschemaSubentry. The file is written aside and then moved, so that
+     * the other processes never read a partial file.
+     *
+     * @return <code>true</code> if the file has been written
+     */
+    private static boolean write( File file, Entry subschemaSubentry )
+    {
+        File tmp = new File( file.getParentFile(), file.getName() + ".tmp" );
+
+        try
+        {
+            Files.write( tmp.toPath(), LdifUtils.convertToLdif( subschemaSubentry ).getBytes( StandardCharsets.UTF_8 ) );
+            Files.move( tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE );
+
+            return true;
+        }
+        catch ( IOException e )
+        {
+            if ( LOG.isWarnEnabled() )
+            {
+                LOG.warn( I18n.err( I18n.ERR_04186_SCHEMA_CACHE_WRITE_FAILURE, file, e.getMessage() ) );
+            }
+
+            tmp.delete();
+
+            return false;
+        }
+    }
+
+
+    private static String digest( String key )
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-256" );
+
+            return Strings.toHexString( digest.digest( key.getBytes( StandardCharsets.UTF_8 ) ) );
+        }
+        catch ( NoSuchAlgorithmException nsae )
+        {
+            // SHA-256 is always available
+            throw new IllegalStateException( nsae );
+        }
+    }
+}
@@ -0,0 +1,1039 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.cursor.AbstractCursor;
+import org.apache.directory.api.ldap.model.cursor.CursorException;
+import org.apache.directory.api.ldap.model.cursor.EntryCursor;
+import org.apache.directory.api.ldap.model.cursor.InvalidCursorPositionException;
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.controls.SortKey;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.LdapComparator;
+import org.apache.directory.api.ldap.model.schema.MatchingRule;
+import org.apache.directory.api.ldap.model.schema.Normalizer;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+
+
+/**
+ * An EntryCursor returning the entries of a search sorted on the client side, like a
+ * server supporting the Server Side Sort control (RFC 2891) would do. This is useful
+ * when the server does not support this control, or when the result set is larger
+ * than the server sort limit.
+ * <br>
+ * Each {@link SortKey} is applied using the ordering matching rule it names, or the
+ * ordering matching rule of its attribute type, or its equality matching rule. When a
+ * matching rule comparator provides sort keys, they are computed once per value. An
+ * entry with no value, or with no valid value, is considered greater than all the
+ * other entries. For a multi-valued attribute, the lowest value is used, or the greatest
+ * one in reverse order. Entries which compare equal are returned in the order they have
+ * been received. Without a SchemaManager, the values are compared as Strings.
+ * <br>
+ * The whole search is read on the first call to {@link #next()}. The entries are sorted
+ * in memory by runs of at most <code>maxEntriesInMemory</code> entries : if there is more
+ * than one run, the sorted runs are written in temporary files, then merged.
+ * <br>
+ * Note: This is a forward only cursor hence the only valid operations are next(), get() and close() 
+ * 
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SortedEntryCursor extends AbstractCursor<Entry> implements EntryCursor
+{
+    /** The default maximum number of entries sorted in memory */
+    public static final int DEFAULT_MAX_ENTRIES_IN_MEMORY = 10_000;
+
+    /** The maximum number of runs merged at once */
+    private static final int MAX_MERGE_WIDTH = 64;
+
+    /** The tags of the keys stored in the runs */
+    private static final int NO_KEY = 0;
+    private static final int BYTES_KEY = 1;
+    private static final int STRING_KEY = 2;
+
+    /** The cursor providing the entries */
+    private final SearchCursor searchCursor;
+
+    /** The SchemaManager used to compare the values, if any */
+    private final SchemaManager schemaManager;
+
+    /** The maximum number of entries sorted in memory */
+    private final int maxEntriesInMemory;
+
+    /** The directory where the runs are written, or <code>null</code> for the default one */
+    private final File directory;
+
+    /** The resolved sort keys */
+    private final SortAttribute[] sortAttributes;
+
+    /** The comparator of the entries */
+    private final Comparator<SortedEntry> comparator = this::compare;
+
+    /** The runs written in temporary files */
+    private final List<File> runs = new ArrayList<>();
+
+    /** The entries sorted in memory, when there is only one run */
+    private List<SortedEntry> entries;
+
+    /** The position in the in-memory entries */
+    private int position;
+
+    /** The runs being merged, ordered by their current entry */
+    private PriorityQueue<RunReader> heads;
+
+    /** The SearchResultDone of the search */
+    private SearchResultDone searchResultDone;
+
+    /** The current entry */
+    private Entry entry;
+
+    /** Tells if the search has been read and sorted */
+    private boolean sorted;
+
+
+    /**
+     * Creates a new instance of SortedEntryCursor, sorting at most
+     * {@link #DEFAULT_MAX_ENTRIES_IN_MEMORY} entries in memory.
+     *
+     * @param searchCursor The cursor providing the entries
+     * @param schemaManager The SchemaManager used to compare the values, or <code>null</code>
+     * @param sortKeys The sort keys
+     * @throws LdapException If a sort key can't be applied
+     */
+    public SortedEntryCursor( SearchCursor searchCursor, SchemaManager schemaManager, List<SortKey> sortKeys )
+        throws LdapException
+    {
+        this( searchCursor, schemaManager, sortKeys, DEFAULT_MAX_ENTRIES_IN_MEMORY, null );
+    }
+
+
+    /**
+     * Creates a new instance of SortedEntryCursor.
+     *
+     * @param searchCursor The cursor providing the entries
+     * @param schemaManager The SchemaManager used to compare the values, or <code>null</code>
+     * @param sortKeys The sort keys
+     * @param maxEntriesInMemory The maximum number of entries sorted in memory
+     * @param directory The directory where the sorted runs are written, or <code>null</code>
+     * for the default temporary directory
+     * @throws LdapException If a sort key can't be applied
+     */
+    public SortedEntryCursor( SearchCursor searchCursor, SchemaManager schemaManager, List<SortKey> sortKeys,
+        int maxEntriesInMemory, File directory ) throws LdapException
+    {
+        this.searchCursor = searchCursor;
+        this.schemaManager = schemaManager;
+        this.maxEntriesInMemory = Math.max( 1, maxEntriesInMemory );
+        this.directory = directory;
+
+        sortAttributes = new SortAttribute[sortKeys.size()];
+
+        for ( int i = 0; i < sortAttributes.length; i++ )
+        {
+            sortAttributes[i] = new SortAttribute( sortKeys.get( i ) );
+        }
+    }
+
+
+    /**
+     * A SortKey, resolved against the schema
+     */
+    private final class SortAttribute
+    {
+        /** The attribute to sort on */
+        final String attributeId;
+
+        /** The attribute type to sort on, if we have a schema */
+        final AttributeType attributeType;
+
+        /** The matching rule used to compare the values, if we have a schema */
+        final MatchingRule matchingRule;
+
+        /** The matching rule comparator */
+        final LdapComparator<? super Object> ldapComparator;
+
+        /** Tells if the order is reversed */
+        final boolean reverseOrder;
+
+
+        SortAttribute( SortKey sortKey ) throws LdapException
+        {
+            reverseOrder = sortKey.isReverseOrder();
+
+            if ( schemaManager == null )
+            {
+                attributeId = sortKey.getAttributeTypeDesc();
+                attributeType = null;
+                matchingRule = null;
+                ldapComparator = null;
+
+                return;
+            }
+
+            attributeType = schemaManager.lookupAttributeTypeRegistry( sortKey.getAttributeTypeDesc() );
+            attributeId = attributeType.getOid();
+
+            if ( sortKey.getMatchingRuleId() != null )
+            {
+                matchingRule = schemaManager.lookupMatchingRuleRegistry( sortKey.getMatchingRuleId() );
+            }
+            else if ( attributeType.getOrdering() != null )
+            {
+                matchingRule = attributeType.getOrdering();
+            }
+            else
+            {
+                matchingRule = attributeType.getEquality();
+            }
+
+            if ( ( matchingRule == null ) || ( matchingRule.getLdapComparator() == null ) )
+            {
+                throw new LdapException( I18n.err( I18n.ERR_04187_NO_SORT_MATCHING_RULE,
+                    sortKey.getAttributeTypeDesc() ) );
+            }
+
+            ldapComparator = matchingRule.getLdapComparator();
+        }
+
+
+        /**
+         * Computes the key of a value : its sort key if the comparator provides one, its normalized
+         * String otherwise, or its bytes if the value is binary.
+         *
+         * @param value The value
+         * @return The key, or <code>null</code> if the value is invalid
+         */
+        Object getKey( Value value )
+        {
+            if ( !value.isHumanReadable() )
+            {
+                return value.getBytes();
+            }
+
+            String string = value.getString();
+
+            if ( matchingRule == null )
+            {
+                return string;
+            }
+
+            try
+            {
+                byte[] sortKey = matchingRule.getSortKey( string );
+
+                if ( sortKey != null )
+                {
+                    return sortKey;
+                }
+
+                Normalizer normalizer = matchingRule.getNormalizer();
+
+                return ( normalizer == null ) ? string : normalizer.normalize( string );
+            }
+            catch ( IllegalArgumentException | LdapException e )
+            {
+                // An invalid value is handled as a missing one
+                return null;
+            }
+        }
+
+
+        /**
+         * Compares two keys of values
+         *
+         * @param key1 The first key
+         * @param key2 The second key
+         * @return A negative value, zero or a positive value if the first key is lower, equal or greater
+         */
+        int compareKeys( Object key1, Object key2 )
+        {
+            if ( key1 instanceof byte[] )
+            {
+                if ( key2 instanceof byte[] )
+                {
+                    return LdapComparator.compareSortKeys( ( byte[] ) key1, ( byte[] ) key2 );
+                }
+
+                return -1;
+            }
+            else if ( key2 instanceof byte[] )
+            {
+                return 1;
+            }
+            else if ( ldapComparator != null )
+            {
+                return ldapComparator.compare( key1, key2 );
+            }
+            else
+            {
+                return ( ( String ) key1 ).compareTo( ( String ) key2 );
+            }
+        }
+
+
+        /**
+         * Gets the attribute to sort on from an entry. When we have a schema, the entry may not be
+         * schema aware : its attributes are then stored with their names or OID, as received.
+         *
+         * @param entry The entry
+         * @return The attribute, or <code>null</code> if the entry does not have it
+         */
+        Attribute getAttribute( Entry entry )
+        {
+            if ( attributeType == null )
+            {
+                return entry.get( attributeId );
+            }
+
+            Attribute attribute = entry.get( attributeType );
+
+            if ( ( attribute != null ) || entry.isSchemaAware() )
+            {
+                return attribute;
+            }
+
+            for ( String name : attributeType.getNames() )
+            {
+                attribute = entry.get( name );
+
+                if ( attribute != null )
+                {
+                    return attribute;
+                }
+            }
+
+            return null;
+        }
+
+
+        /**
+         * Computes the key of an entry : the key of its lowest value, or its greatest one in reverse order
+         *
+         * @param entry The entry
+         * @return The key, or <code>null</code> if the entry has no valid value
+         */
+        Object getKey( Entry entry )
+        {
+            Attribute attribute = getAttribute( entry );
+
+            if ( attribute == null )
+            {
+                return null;
+            }
+
+            Object entryKey = null;
+
+            for ( Value value : attribute )
+            {
+                Object key = getKey( value );
+
+                if ( key == null )
+                {
+                    continue;
+                }
+
+                if ( entryKey == null )
+                {
+                    entryKey = key;
+                }
+                else
+                {
+                    int comparison = compareKeys( key, entryKey );
+
+                    if ( reverseOrder ? comparison > 0 : comparison < 0 )
+                    {
+                        entryKey = key;
+                    }
+                }
+            }
+
+            return entryKey;
+        }
+    }
+
+
+    /**
+     * An entry with its precomputed keys
+     */
+    private static final class SortedEntry
+    {
+        /** The entry */
+        final Entry entry;
+
+        /** The keys, one per sort key */
+        final Object[] keys;
+
+        /** The position of the entry in the search results */
+        final long sequence;
+
+
+        SortedEntry( Entry entry, Object[] keys, long sequence )
+        {
+            this.entry = entry;
+            this.keys = keys;
+            this.sequence = sequence;
+        }
+    }
+
+
+    /**
+     * Compares two entries, using their keys
+     */
+    private int compare( SortedEntry sortedEntry1, SortedEntry sortedEntry2 )
+    {
+        for ( int i = 0; i < sortAttributes.length; i++ )
+        {
+            Object key1 = sortedEntry1.keys[i];
+            Object key2 = sortedEntry2.keys[i];
+
+            if ( key1 == null )
+            {
+                if ( key2 != null )
+                {
+                    // A missing value sorts last, whatever the order
+                    return 1;
+                }
+            }
+            else if ( key2 == null )
+            {
+                return -1;
+            }
+            else
+            {
+                int comparison = sortAttributes[i].compareKeys( key1, key2 );
+
+                if ( comparison != 0 )
+                {
+                    return sortAttributes[i].reverseOrder ? -comparison : comparison;
+                }
+            }
+        }
+
+        return Long.compare( sortedEntry1.sequence, sortedEntry2.sequence );
+    }
+
+
+    /**
+     * Reads the whole search, and sorts the entries
+     *
+     * @throws LdapException If the search failed
+     * @throws CursorException If the search cursor failed
+     * @throws IOException If a run can't be written or read
+     */
+    private void sort() throws LdapException, CursorException, IOException
+    {
+        List<SortedEntry> run = new ArrayList<>();
+        long sequence = 0L;
+
+        while ( searchCursor.next() )
+        {
+            if ( !searchCursor.isEntry() )
+            {
+                continue;
+            }
+
+            Entry searchEntry = searchCursor.getEntry();
+            Object[] keys = new Object[sortAttributes.length];
+
+            for ( int i = 0; i < keys.length; i++ )
+            {
+                keys[i] = sortAttributes[i].getKey( searchEntry );
+            }
+
+            run.add( new SortedEntry( searchEntry, keys, sequence++ ) );
+
+            if ( run.size() >= maxEntriesInMemory )
+            {
+                runs.add( write( run ) );
+                run.clear();
+            }
+        }
+
+        searchResultDone = searchCursor.getSearchResultDone();
+        searchCursor.close();
+
+        if ( runs.isEmpty() )
+        {
+            // Everything fits in memory
+            run.sort( comparator );
+            entries = run;
+
+            return;
+        }
+
+        if ( !run.isEmpty() )
+        {
+            runs.add( write( run ) );
+        }
+
+        // Merge the runs, a group at a time, until they can all be merged at once
+        while ( runs.size() > MAX_MERGE_WIDTH )
+        {
+            List<File> group = new ArrayList<>( runs.subList( 0, MAX_MERGE_WIDTH ) );
+            runs.subList( 0, MAX_MERGE_WIDTH ).clear();
+            runs.add( merge( group ) );
+        }
+
+        heads = open( runs );
+    }
+
+
+    /**
+     * Sorts a run, and writes it in a temporary file
+     *
+     * @param run The entries to sort
+     * @return The file containing the sorted run
+     * @throws IOException If the run can't be written
+     */
+    private File write( List<SortedEntry> run ) throws IOException
+    {
+        run.sort( comparator );
+        File file = File.createTempFile( "ldap-sort-", ".run", directory );
+
+        try ( ObjectOutputStream out = new ObjectOutputStream( new BufferedOutputStream(
+            Files.newOutputStream( file.toPath() ) ) ) )
+        {
+            for ( SortedEntry sortedEntry : run )
+            {
+                write( out, sortedEntry );
+            }
+
+            out.writeBoolean( false );
+        }
+        catch ( IOException ioe )
+        {
+            delete( file );
+
+            throw ioe;
+        }
+
+        return file;
+    }
+
+
+    private void write( ObjectOutputStream out, SortedEntry sortedEntry ) throws IOException
+    {
+        out.writeBoolean( true );
+        out.writeLong( sortedEntry.sequence );
+
+        for ( Object key : sortedEntry.keys )
+        {
+            if ( key == null )
+            {
+                out.writeByte( NO_KEY );
+            }
+            else if ( key instanceof byte[] )
+            {
+                byte[] bytes = ( byte[] ) key;
+                out.writeByte( BYTES_KEY );
+                out.writeInt( bytes.length );
+                out.write( bytes );
+            }
+            else
+            {
+                String string = ( String ) key;
+                out.writeByte( STRING_KEY );
+                out.writeInt( string.length() );
+                out.writeChars( string );
+            }
+        }
+
+        // The entries which are not schema aware are read back as they are
+        out.writeBoolean( sortedEntry.entry.isSchemaAware() );
+        sortedEntry.entry.writeExternal( out );
+    }
+
+
+    /**
+     * Merges some runs into a new run
+     *
+     * @param group The runs to merge
+     * @return The file containing the merged run
+     * @throws IOException If a run can't be read or written
+     */
+    private File merge( List<File> group ) throws IOException
+    {
+        PriorityQueue<RunReader> readers = open( group );
+        File file = File.createTempFile( "ldap-sort-", ".run", directory );
+
+        try ( ObjectOutputStream out = new ObjectOutputStream( new BufferedOutputStream(
+            Files.newOutputStream( file.toPath() ) ) ) )
+        {
+            while ( !readers.isEmpty() )
+            {
+                RunReader reader = readers.poll();
+                write( out, reader.current );
+
+                if ( reader.advance() )
+                {
+                    readers.add( reader );
+                }
+                else
+                {
+                    reader.close();
+                }
+            }
+
+            out.writeBoolean( false );
+        }
+        catch ( IOException ioe )
+        {
+            for ( RunReader reader : readers )
+            {
+                reader.close();
+            }
+
+            for ( File run : group )
+            {
+                delete( run );
+            }
+
+            delete( file );
+
+            throw ioe;
+        }
+
+        return file;
+    }
+
+
+    /**
+     * Opens some runs
+     *
+     * @param files The runs to open
+     * @return The runs readers, ordered by their first entry
+     * @throws IOException If a run can't be read
+     */
+    private PriorityQueue<RunReader> open( List<File> files ) throws IOException
+    {
+        PriorityQueue<RunReader> readers = new PriorityQueue<>( files.size(),
+            ( reader1, reader2 ) -> compare( reader1.current, reader2.current ) );
+
+        for ( File file : new ArrayList<>( files ) )
+        {
+            RunReader reader = new RunReader( file );
+
+            if ( reader.advance() )
+            {
+                readers.add( reader );
+            }
+            else
+            {
+                reader.close();
+            }
+        }
+
+        return readers;
+    }
+
+
+    /**
+     * A reader of a sorted run. The run file is deleted when the reader is closed.
+     */
+    private final class RunReader implements Closeable
+    {
+        /** The run file */
+        private final File file;
+
+        /** The stream reading the run */
+        private final ObjectInputStream in;
+
+        /** The current entry */
+        SortedEntry current;
+
+
+        RunReader( File file ) throws IOException
+        {
+            this.file = file;
+            in = new ObjectInputStream( new BufferedInputStream( Files.newInputStream( file.toPath() ) ) );
+        }
+
+
+        /**
+         * Reads the next entry of the run
+         *
+         * @return <code>true</code> if there is one
+         * @throws IOException If the run can't be read
+         */
+        boolean advance() throws IOException
+        {
+            if ( !in.readBoolean() )
+            {
+                current = null;
+
+                return false;
+            }
+
+            long sequence = in.readLong();
+            Object[] keys = new Object[sortAttributes.length];
+
+            for ( int i = 0; i < keys.length; i++ )
+            {
+                int tag = in.readByte();
+
+                if ( tag == BYTES_KEY )
+                {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully( bytes );
+                    keys[i] = bytes;
+                }
+                else if ( tag == STRING_KEY )
+                {
+                    char[] chars = new char[in.readInt()];
+
+                    for ( int j = 0; j < chars.length; j++ )
+                    {
+                        chars[j] = in.readChar();
+                    }
+
+                    keys[i] = new String( chars );
+                }
+            }
+
+            Entry runEntry = ( in.readBoolean() && ( schemaManager != null ) ) ? new DefaultEntry( schemaManager )
+                : new DefaultEntry();
+
+            try
+            {
+                runEntry.readExternal( in );
+            }
+            catch ( ClassNotFoundException cnfe )
+            {
+                throw new IOException( cnfe.getMessage(), cnfe );
+            }
+
+            current = new SortedEntry( runEntry, keys, sequence );
+
+            return true;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close()
+        {
+            try
+            {
+                in.close();
+            }
+            catch ( IOException ioe )
+            {
+                // Nothing we can do here
+            }
+
+            delete( file );
+        }
+    }
+
+
+    /**
+     * Deletes a run file, and forgets it
+     *
+     * @param file The file to delete
+     */
+    private void delete( File file )
+    {
+        runs.remove( file );
+
+        try
+        {
+            Files.deleteIfExists( file.toPath() );
+        }
+        catch ( IOException ioe )
+        {
+            // Nothing we can do here
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean next() throws LdapException, CursorException
+    {
+        checkNotClosed();
+
+        try
+        {
+            if ( !sorted )
+            {
+                sorted = true;
+                sort();
+            }
+
+            if ( heads == null )
+            {
+                if ( position < entries.size() )
+                {
+                    entry = entries.get( position ).entry;
+
+                    // Release the entry as soon as it has been returned
+                    entries.set( position++, null );
+
+                    return true;
+                }
+            }
+            else if ( !heads.isEmpty() )
+            {
+                RunReader reader = heads.poll();
+                entry = reader.current.entry;
+
+                if ( reader.advance() )
+                {
+                    heads.add( reader );
+                }
+                else
+                {
+                    reader.close();
+                }
+
+                return true;
+            }
+        }
+        catch ( IOException ioe )
+        {
+            LdapException ldapException = new LdapException( I18n.err( I18n.ERR_04188_SORT_RUN_FAILURE,
+                ioe.getMessage() ), ioe );
+
+            try
+            {
+                close( ldapException );
+            }
+            catch ( IOException e )
+            {
+                // Nothing we can do here
+            }
+
+            throw ldapException;
+        }
+
+        entry = null;
+
+        return false;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Entry get() throws CursorException
+    {
+        if ( entry == null )
+        {
+            throw new InvalidCursorPositionException();
+        }
+
+        return entry;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean available()
+    {
+        return entry != null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResultDone getSearchResultDone()
+    {
+        return searchResultDone;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMessageId()
+    {
+        return searchResultDone == null ? 0 : searchResultDone.getMessageId();
+    }
+
+
+    /**
+     * Releases the search cursor, the in-memory entries and the runs.
+     *
+     * @throws IOException If the search cursor can't be closed
+     */
+    private void release() throws IOException
+    {
+        entry = null;
+        entries = null;
+
+        if ( heads != null )
+        {
+            for ( RunReader reader : heads )
+            {
+                reader.close();
+            }
+
+            heads = null;
+        }
+
+        for ( File file : new ArrayList<>( runs ) )
+        {
+            delete( file );
+        }
+
+        if ( !searchCursor.isClosed() )
+        {
+            searchCursor.close();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        release();
+        super.close();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close( Exception cause ) throws IOException
+    {
+        release();
+        super.close( cause );
+    }
+
+
+    // rest of all operations will throw UnsupportedOperationException
+
+    /**
+     * This operation is not supported in SortedEntryCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void after( Entry element ) throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "after( Entry element )" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in SortedEntryCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterLast() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "afterLast()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in SortedEntryCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void before( Entry element ) throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "before( Entry element )" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in SortedEntryCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void beforeFirst() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "beforeFirst()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in SortedEntryCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean first() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "first()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in SortedEntryCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean last() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "last()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in SortedEntryCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean previous() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "previous()" ) ) );
+    }
+}
@@ -144,7 +144,7 @@ public class ValidatingPoolableLdapConnectionFactory extends AbstractPoolableLda
             LOG.debug( I18n.msg( I18n.MSG_04150_CREATING_LDAP_CONNECTION ) );
         }
         
-        return new DefaultPooledObject<LdapConnection>( new MonitoringLdapConnection( connectionFactory.newLdapConnection() ) );
+        return new DefaultPooledObject<LdapConnection>( new MonitoringLdapConnection( newMeteredLdapConnection() ) );
     }
 
 
@@ -0,0 +1,352 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.metrics;
+
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.directory.api.ldap.model.message.MessageTypeEnum;
+
+
+/**
+ * The default {@link LdapConnectionMetrics} implementation. It keeps everything in
+ * memory, using {@link LatencyHistogram}s, and can be exposed through JMX :
+ * <pre>
+ * DefaultLdapConnectionMetrics metrics = new DefaultLdapConnectionMetrics();
+ * pool.setMetrics( metrics );
+ * metrics.register( "myPool" );
+ * </pre>
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DefaultLdapConnectionMetrics implements LdapConnectionMetrics, LdapConnectionMetricsMXBean
+{
+    /** The JMX domain used when registering the metrics */
+    public static final String JMX_DOMAIN = "org.apache.directory.ldap.client.api";
+
+    /** The borrow wait times */
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+
+    /** The hold times */
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+
+    /** The return times */
+    private final LatencyHistogram returnTime = new LatencyHistogram();
+
+    /** The validation times */
+    private final LatencyHistogram validationTime = new LatencyHistogram();
+
+    /** The number of failed validations */
+    private final LongAdder validationFailures = new LongAdder();
+
+    /** The operation latencies, per response type */
+    private final ConcurrentMap<MessageTypeEnum, LatencyHistogram> operations = new ConcurrentHashMap<>();
+
+    /** The number of operations waiting for a response */
+    private final AtomicLong inFlight = new AtomicLong();
+
+    /** The number of aborted operations */
+    private final LongAdder aborted = new LongAdder();
+
+    /** The TLS handshake times */
+    private final LatencyHistogram tlsHandshakeTime = new LatencyHistogram();
+
+    /** The number of resumed TLS handshakes */
+    private final LongAdder resumedTlsHandshakes = new LongAdder();
+
+    /** The name under which this instance has been registered, if any */
+    private ObjectName objectName;
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void connectionBorrowed( long waitNanos )
+    {
+        borrowWait.record( waitNanos );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void connectionReturned( long heldNanos, long returnNanos )
+    {
+        if ( heldNanos >= 0L )
+        {
+            holdTime.record( heldNanos );
+        }
+
+        returnTime.record( returnNanos );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void connectionValidated( long durationNanos, boolean valid )
+    {
+        validationTime.record( durationNanos );
+
+        if ( !valid )
+        {
+            validationFailures.increment();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void operationStarted()
+    {
+        inFlight.incrementAndGet();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void operationCompleted( MessageTypeEnum responseType, long durationNanos )
+    {
+        inFlight.decrementAndGet();
+        operations.computeIfAbsent( responseType, type -> new LatencyHistogram() ).record( durationNanos );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void operationAborted()
+    {
+        inFlight.decrementAndGet();
+        aborted.increment();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void tlsHandshakeCompleted( long durationNanos, boolean resumed )
+    {
+        tlsHandshakeTime.record( durationNanos );
+
+        if ( resumed )
+        {
+            resumedTlsHandshakes.increment();
+        }
+    }
+
+
+    /**
+     * Gets the histogram recording the round-trip latency of a given kind of operation.
+     *
+     * @param responseType The final response type of the operation
+     * @return The histogram, or null if no such operation has completed yet
+     */
+    public LatencyHistogram getOperationHistogram( MessageTypeEnum responseType )
+    {
+        return operations.get( responseType );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getBorrowWait()
+    {
+        return borrowWait.snapshotMicros();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getHoldTime()
+    {
+        return holdTime.snapshotMicros();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getReturnTime()
+    {
+        return returnTime.snapshotMicros();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getValidationTime()
+    {
+        return validationTime.snapshotMicros();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValidationFailures()
+    {
+        return validationFailures.sum();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, LatencySnapshot> getOperationLatencies()
+    {
+        Map<String, LatencySnapshot> latencies = new TreeMap<>();
+
+        for ( Map.Entry<MessageTypeEnum, LatencyHistogram> operation : operations.entrySet() )
+        {
+            latencies.put( operation.getKey().name(), operation.getValue().snapshotMicros() );
+        }
+
+        return latencies;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getInFlightOperations()
+    {
+        return inFlight.get();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAbortedOperations()
+    {
+        return aborted.sum();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LatencySnapshot getTlsHandshakeTime()
+    {
+        return tlsHandshakeTime.snapshotMicros();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getResumedTlsHandshakes()
+    {
+        return resumedTlsHandshakes.sum();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset()
+    {
+        borrowWait.reset();
+        holdTime.reset();
+        returnTime.reset();
+        validationTime.reset();
+        validationFailures.reset();
+        operations.clear();
+        aborted.reset();
+        tlsHandshakeTime.reset();
+        resumedTlsHandshakes.reset();
+    }
+
+
+    /**
+     * Registers this instance in the platform MBean server, as
+     * <code>org.apache.directory.ldap.client.api:type=LdapConnectionMetrics,name=&lt;name&gt;</code>.
+     *
+     * @param name The name to use, typically the name of the monitored pool
+     * @return The ObjectName this instance has been registered with
+     * @throws JMException If the registration failed
+     */
+    public synchronized ObjectName register( String name ) throws JMException
+    {
+        unregister();
+
+        ObjectName newName = new ObjectName( JMX_DOMAIN + ":type=LdapConnectionMetrics,name="
+            + ObjectName.quote( name ) );
+        ManagementFactory.getPlatformMBeanServer().registerMBean( this, newName );
+        objectName = newName;
+
+        return objectName;
+    }
+
+
+    /**
+     * Removes this instance from the platform MBean server, if it was registered.
+     *
+     * @throws JMException If the unregistration failed
+     */
+    public synchronized void unregister() throws JMException
+    {
+        if ( objectName != null )
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            if ( server.isRegistered( objectName ) )
+            {
+                server.unregisterMBean( objectName );
+            }
+
+            objectName = null;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.metrics;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A lock-free latency histogram, in the spirit of the HDR histograms. Values are
+ * stored in log-linear buckets : each power of two is split in {@value #SUB_BUCKET_COUNT}
+ * linear sub-buckets, so the recorded values are known with a relative error lower
+ * than 1/{@value #SUB_BUCKET_COUNT}, whatever their magnitude, using a fixed amount of memory.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LatencyHistogram
+{
+    /** The number of bits used for the linear part of a bucket index */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** The number of linear sub-buckets per power of two */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** The mask used to extract the sub-bucket */
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+    /** Enough buckets to store any positive long */
+    private static final int BUCKET_COUNT = ( Long.SIZE - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT;
+
+    /** The buckets */
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKET_COUNT );
+
+    /** The number of recorded values */
+    private final LongAdder count = new LongAdder();
+
+    /** The sum of all the recorded values */
+    private final LongAdder sum = new LongAdder();
+
+    /** The highest recorded value */
+    private final AtomicLong max = new AtomicLong();
+
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value The value to record
+     */
+    public void record( long value )
+    {
+        if ( value < 0L )
+        {
+            value = 0L;
+        }
+
+        buckets.incrementAndGet( bucketIndex( value ) );
+        count.increment();
+        sum.add( value );
+
+        long currentMax = max.get();
+
+        while ( ( value > currentMax ) && !max.compareAndSet( currentMax, value ) )
+        {
+            currentMax = max.get();
+        }
+    }
+
+
+    /**
+     * @return The number of recorded values
+     */
+    public long getCount()
+    {
+        return count.sum();
+    }
+
+
+    /**
+     * @return The highest recorded value
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+
+    /**
+     * @return The mean of the recorded values, or 0 if nothing was recorded
+     */
+    public double getMean()
+    {
+        long nbValues = count.sum();
+
+        if ( nbValues == 0L )
+        {
+            return 0d;
+        }
+
+        return ( double ) sum.sum() / nbValues;
+    }
+
+
+    /**
+     * Gets the value at a given percentile. The returned value is the upper bound
+     * of the bucket containing the percentile, capped by the highest recorded value.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The value at the given percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile( double percentile )
+    {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0L;
+
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            snapshot[i] = buckets.get( i );
+            total += snapshot[i];
+        }
+
+        if ( total == 0L )
+        {
+            return 0L;
+        }
+
+        double bounded = Math.min( 100d, Math.max( 0d, percentile ) );
+        long target = Math.max( 1L, ( long ) Math.ceil( bounded / 100d * total ) );
+        long seen = 0L;
+
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            seen += snapshot[i];
+
+            if ( seen >= target )
+            {
+                return Math.min( bucketUpperBound( i ), max.get() );
+            }
+        }
+
+        return max.get();
+    }
+
+
+    /**
+     * Takes a snapshot of this histogram, converting the values from nanoseconds
+     * to microseconds.
+     *
+     * @return The snapshot
+     */
+    public LatencySnapshot snapshotMicros()
+    {
+        return new LatencySnapshot( getCount(), ( long ) ( getMean() / 1000d ),
+            getValueAtPercentile( 50d ) / 1000L, getValueAtPercentile( 90d ) / 1000L,
+            getValueAtPercentile( 99d ) / 1000L, getMax() / 1000L );
+    }
+
+
+    /**
+     * Forgets all the recorded values. Values recorded concurrently may or may not be kept.
+     */
+    public void reset()
+    {
+        for ( int i = 0; i < BUCKET_COUNT; i++ )
+        {
+            buckets.set( i, 0L );
+        }
+
+        count.reset();
+        sum.reset();
+        max.set( 0L );
+    }
+
+
+    /**
+     * Computes the bucket a value belongs to. The values lower than {@value #SUB_BUCKET_COUNT}
+     * have their own bucket, the others use the {@value #SUB_BUCKET_BITS} bits following
+     * their highest one bit to select a sub-bucket.
+     */
+    static int bucketIndex( long value )
+    {
+        if ( value < SUB_BUCKET_COUNT )
+        {
+            return ( int ) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+
+        return ( ( shift + 1 ) << SUB_BUCKET_BITS ) + ( int ) ( ( value >>> shift ) & SUB_BUCKET_MASK );
+    }
+
+
+    /**
+     * Computes the highest value stored in a given bucket.
+     */
+    static long bucketUpperBound( int index )
+    {
+        if ( index < SUB_BUCKET_COUNT )
+        {
+            return index;
+        }
+
+        int shift = ( index >>> SUB_BUCKET_BITS ) - 1;
+        long lowerBound = ( long ) ( SUB_BUCKET_COUNT + ( index & SUB_BUCKET_MASK ) ) << shift;
+
+        return lowerBound + ( 1L << shift ) - 1L;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.metrics;
+
+
+/**
+ * An immutable view of a {@link LatencyHistogram}, in microseconds. It is exposed
+ * as a composite value through JMX.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LatencySnapshot
+{
+    /** The number of recorded values */
+    private final long count;
+
+    /** The mean value */
+    private final long mean;
+
+    /** The median */
+    private final long p50;
+
+    /** The 90th percentile */
+    private final long p90;
+
+    /** The 99th percentile */
+    private final long p99;
+
+    /** The highest value */
+    private final long max;
+
+
+    /**
+     * Creates a new LatencySnapshot instance
+     *
+     * @param count The number of recorded values
+     * @param mean The mean value
+     * @param p50 The median
+     * @param p90 The 90th percentile
+     * @param p99 The 99th percentile
+     * @param max The highest value
+     */
+    public LatencySnapshot( long count, long mean, long p50, long p90, long p99, long max )
+    {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+
+    /**
+     * @return The number of recorded values
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * @return The mean value, in microseconds
+     */
+    public long getMean()
+    {
+        return mean;
+    }
+
+
+    /**
+     * @return The median, in microseconds
+     */
+    public long getP50()
+    {
+        return p50;
+    }
+
+
+    /**
+     * @return The 90th percentile, in microseconds
+     */
+    public long getP90()
+    {
+        return p90;
+    }
+
+
+    /**
+     * @return The 99th percentile, in microseconds
+     */
+    public long getP99()
+    {
+        return p99;
+    }
+
+
+    /**
+     * @return The highest value, in microseconds
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+
+    /**
+     * @see Object#toString()
+     */
+    @Override
+    public String toString()
+    {
+        return "count=" + count + ", mean=" + mean + "us, p50=" + p50 + "us, p90=" + p90 + "us, p99=" + p99
+            + "us, max=" + max + "us";
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.metrics;
+
+
+import org.apache.directory.api.ldap.model.message.MessageTypeEnum;
+
+
+/**
+ * A SPI used by the connection pool, the poolable connection factories and the
+ * LdapNetworkConnection to report how long they spent doing things. Implementations
+ * must be thread safe, and must be cheap : they are called on every borrow, every
+ * return, every validation and every operation round-trip.
+ * <br>
+ * All the durations are expressed in nanoseconds.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface LdapConnectionMetrics
+{
+    /**
+     * Called when a connection has been borrowed from the pool.
+     *
+     * @param waitNanos The time spent waiting for the connection, including its creation if needed
+     */
+    void connectionBorrowed( long waitNanos );
+
+
+    /**
+     * Called when a connection has been given back to the pool.
+     *
+     * @param heldNanos The time the connection was held by the caller, or -1 if unknown
+     * @param returnNanos The time spent returning the connection, including its passivation
+     */
+    void connectionReturned( long heldNanos, long returnNanos );
+
+
+    /**
+     * Called when a connection has been validated by the pool's validator.
+     *
+     * @param durationNanos The time spent validating the connection
+     * @param valid The validation result
+     */
+    void connectionValidated( long durationNanos, boolean valid );
+
+
+    /**
+     * Called when a request expecting a response has been sent to the server.
+     */
+    void operationStarted();
+
+
+    /**
+     * Called when the final response for a previously started operation has been received.
+     *
+     * @param responseType The type of the final response
+     * @param durationNanos The time elapsed since the request was sent
+     */
+    void operationCompleted( MessageTypeEnum responseType, long durationNanos );
+
+
+    /**
+     * Called when a previously started operation will never get a response, because it
+     * was abandoned or because the connection was closed.
+     */
+    void operationAborted();
+
+
+    /**
+     * Called when a TLS handshake (LDAPS or StartTLS) has completed.
+     *
+     * @param durationNanos The time spent in the handshake
+     * @param resumed Tells if the handshake resumed a previously established session
+     */
+    void tlsHandshakeCompleted( long durationNanos, boolean resumed );
+}
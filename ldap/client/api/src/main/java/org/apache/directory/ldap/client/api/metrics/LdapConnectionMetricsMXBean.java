@@ -0,0 +1,98 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.metrics;
+
+
+import java.util.Map;
+
+
+/**
+ * The JMX view of a {@link DefaultLdapConnectionMetrics} instance. All the
+ * latencies are expressed in microseconds.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface LdapConnectionMetricsMXBean
+{
+    /**
+     * @return The time spent waiting for a connection to be borrowed from the pool
+     */
+    LatencySnapshot getBorrowWait();
+
+
+    /**
+     * @return The time the borrowed connections were held before being released
+     */
+    LatencySnapshot getHoldTime();
+
+
+    /**
+     * @return The time spent returning a connection to the pool
+     */
+    LatencySnapshot getReturnTime();
+
+
+    /**
+     * @return The time spent validating connections
+     */
+    LatencySnapshot getValidationTime();
+
+
+    /**
+     * @return The number of validations that declared a connection invalid
+     */
+    long getValidationFailures();
+
+
+    /**
+     * @return The round-trip latency of the operations, per final response type
+     */
+    Map<String, LatencySnapshot> getOperationLatencies();
+
+
+    /**
+     * @return The number of operations waiting for their final response
+     */
+    long getInFlightOperations();
+
+
+    /**
+     * @return The number of operations that were abandoned or lost because their connection was closed
+     */
+    long getAbortedOperations();
+
+
+    /**
+     * @return The time spent in TLS handshakes
+     */
+    LatencySnapshot getTlsHandshakeTime();
+
+
+    /**
+     * @return The number of TLS handshakes that resumed a previous session
+     */
+    long getResumedTlsHandshakes();
+
+
+    /**
+     * Resets all the histograms and counters, except the in-flight operations count.
+     */
+    void reset();
+}
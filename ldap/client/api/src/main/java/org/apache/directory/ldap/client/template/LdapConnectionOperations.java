@@ -21,6 +21,7 @@ package org.apache.directory.ldap.client.template;
 
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.apache.directory.api.ldap.model.entry.Attribute;
 import org.apache.directory.api.ldap.model.message.AddRequest;
@@ -445,6 +446,44 @@ public interface LdapConnectionOperations
         EntryMapper<T> entryMapper );
 
 
+    /**
+     * Searches for the entries matching the supplied <code>searchRequest</code>,
+     * one page at a time using the PagedResults control, feeding each entry into 
+     * the <code>entryMapper</code> and the mapped entry into the <code>callback</code>
+     * as soon as it is read. Unlike {@link #search(SearchRequest, EntryMapper)}, 
+     * the result is never fully loaded in memory. The pages are requested with
+     * a copy of the <code>searchRequest</code>, which is left unchanged.
+     *
+     * @param searchRequest The search request
+     * @param pageSize The number of entries to request per page
+     * @param entryMapper The mapper
+     * @param callback The callback processing each mapped entry
+     * @param <T> The type of the mapped entry
+     */
+    <T> void searchPaged( SearchRequest searchRequest, int pageSize,
+        EntryMapper<T> entryMapper, SearchCallback<T> callback );
+
+
+    /**
+     * Searches for the entries matching the supplied <code>searchRequest</code>,
+     * one page at a time using the PagedResults control, returning a lazy 
+     * <code>Stream</code> of the mapped entries. The pages are requested as the 
+     * stream is consumed.
+     * <br>
+     * The connection used for the search is held until the stream is closed, 
+     * so the stream <b>must</b> be closed, typically using a try-with-resources
+     * statement.
+     *
+     * @param searchRequest The search request
+     * @param pageSize The number of entries to request per page
+     * @param entryMapper The mapper
+     * @param <T> The type of the mapped entry
+     * @return The stream of mapped entries
+     */
+    <T> Stream<T> searchStream( SearchRequest searchRequest, int pageSize,
+        EntryMapper<T> entryMapper );
+
+
     /**
      * Searches for the first entry matching the supplied criteria, feeding the 
      * result into the <code>entryMapper</code>.
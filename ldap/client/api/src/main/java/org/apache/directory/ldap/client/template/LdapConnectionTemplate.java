@@ -22,6 +22,10 @@ package org.apache.directory.ldap.client.template;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.extras.controls.ppolicy.PasswordPolicyResponse;
@@ -844,6 +848,85 @@ public class LdapConnectionTemplate implements LdapConnectionOperations, ModelFa
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void searchPaged( SearchRequest searchRequest, int pageSize,
+        EntryMapper<T> entryMapper, SearchCallback<T> callback )
+    {
+        LdapConnection connection = null;
+        try
+        {
+            connection = connectionPool.getConnection();
+
+            try ( PagedSearchIterator<T> iterator = 
+                new PagedSearchIterator<>( connection, searchRequest, pageSize, entryMapper ) )
+            {
+                while ( iterator.hasNext() )
+                {
+                    callback.process( iterator.next() );
+                }
+            }
+        }
+        catch ( LdapException e )
+        {
+            throw new LdapRuntimeException( e );
+        }
+        finally
+        {
+            returnLdapConnection( connection );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> Stream<T> searchStream( SearchRequest searchRequest, int pageSize,
+        EntryMapper<T> entryMapper )
+    {
+        LdapConnection connection;
+        
+        try
+        {
+            connection = connectionPool.getConnection();
+        }
+        catch ( LdapException e )
+        {
+            throw new LdapRuntimeException( e );
+        }
+
+        PagedSearchIterator<T> iterator;
+        
+        try
+        {
+            iterator = new PagedSearchIterator<>( connection, searchRequest, pageSize, entryMapper );
+        }
+        catch ( RuntimeException e )
+        {
+            // The stream won't be returned, so it won't release the connection
+            returnLdapConnection( connection );
+            throw e;
+        }
+        
+        return StreamSupport.stream( 
+            Spliterators.spliteratorUnknownSize( iterator, Spliterator.ORDERED ), false )
+            .onClose( () ->
+            {
+                try
+                {
+                    iterator.close();
+                }
+                finally
+                {
+                    returnLdapConnection( connection );
+                }
+            } );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,377 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.template;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.directory.api.ldap.model.cursor.CursorException;
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.message.controls.PagedResultsImpl;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.template.exception.LdapRequestUnsuccessfulException;
+import org.apache.directory.ldap.client.template.exception.LdapRuntimeException;
+
+
+/**
+ * An iterator over the mapped entries of a search, driving the PagedResults
+ * control : only one page of entries is read at a time, and the next page is 
+ * requested when the current one has been consumed. Each entry is mapped and
+ * released as soon as it has been read, so the memory used does not depend on
+ * the number of entries returned by the search.
+ * <br>
+ * All the pages are read on the same connection, which must not be released
+ * before this iterator is closed. Search result references and intermediate
+ * responses are ignored.
+ * 
+ * @param <T> The type of the mapped entry
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class PagedSearchIterator<T> implements Iterator<T>, Closeable
+{
+    /** The connection used to read all the pages */
+    private final LdapConnection connection;
+    
+    /** The copy of the caller's search request, sent once per page */
+    private final SearchRequest searchRequest;
+    
+    /** The mapper used to map each entry */
+    private final EntryMapper<T> entryMapper;
+    
+    /** The PagedResults control added to the copy of the search request */
+    private final PagedResults pagedResults;
+    
+    /** The cursor on the current page, null if no page is being read */
+    private SearchCursor cursor;
+    
+    /** The next mapped entry */
+    private T nextElement;
+    
+    /** Tells if we have read the next element */
+    private boolean hasNextElement;
+    
+    /** Tells if the server has sent the last page */
+    private boolean lastPage;
+    
+    /** Tells if the iterator has been closed */
+    private boolean closed;
+
+
+    /**
+     * Creates a new instance of PagedSearchIterator. The search request is copied,
+     * and the PagedResults control is added to the copy, replacing the caller's
+     * PagedResults control if any : the caller's request is not modified, and can
+     * be used by many iterators at the same time.
+     *
+     * @param connection The connection to use
+     * @param searchRequest The search request
+     * @param pageSize The number of entries to request per page
+     * @param entryMapper The mapper
+     */
+    PagedSearchIterator( LdapConnection connection, SearchRequest searchRequest, int pageSize,
+        EntryMapper<T> entryMapper )
+    {
+        this.connection = connection;
+        this.searchRequest = copy( searchRequest );
+        this.entryMapper = entryMapper;
+        
+        pagedResults = new PagedResultsImpl();
+        pagedResults.setSize( pageSize );
+        this.searchRequest.addControl( pagedResults );
+    }
+    
+    
+    /**
+     * Copy a search request, except its PagedResults control
+     * 
+     * @param searchRequest The search request to copy
+     * @return The copy
+     */
+    private static SearchRequest copy( SearchRequest searchRequest )
+    {
+        SearchRequest copy = new SearchRequestImpl()
+            .setBase( searchRequest.getBase() )
+            .setScope( searchRequest.getScope() )
+            .setDerefAliases( searchRequest.getDerefAliases() )
+            .setSizeLimit( searchRequest.getSizeLimit() )
+            .setTimeLimit( searchRequest.getTimeLimit() )
+            .setTypesOnly( searchRequest.getTypesOnly() )
+            .setFilter( searchRequest.getFilter() );
+        
+        copy.addAttributes( searchRequest.getAttributes().toArray( new String[0] ) );
+        
+        if ( searchRequest.isFollowReferrals() )
+        {
+            copy.followReferrals();
+        }
+        else if ( searchRequest.isIgnoreReferrals() )
+        {
+            copy.ignoreReferrals();
+        }
+        
+        for ( Control control : searchRequest.getControls().values() )
+        {
+            if ( !PagedResults.OID.equals( control.getOid() ) )
+            {
+                copy.addControl( control );
+            }
+        }
+        
+        return copy;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext()
+    {
+        if ( hasNextElement )
+        {
+            return true;
+        }
+        
+        if ( closed )
+        {
+            return false;
+        }
+        
+        try
+        {
+            hasNextElement = fetchNext();
+            
+            return hasNextElement;
+        }
+        catch ( CursorException e )
+        {
+            throw new LdapRuntimeException( new LdapException( e.getMessage(), e ) );
+        }
+        catch ( LdapException e )
+        {
+            throw new LdapRuntimeException( e );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T next()
+    {
+        if ( !hasNext() )
+        {
+            throw new NoSuchElementException();
+        }
+        
+        T element = nextElement;
+        nextElement = null;
+        hasNextElement = false;
+        
+        return element;
+    }
+    
+    
+    /**
+     * Read the next entry, requesting a new page if needed.
+     * 
+     * @return <code>true</code> if we have read one more entry
+     * @throws LdapException If the search failed
+     * @throws CursorException If the cursor failed
+     */
+    private boolean fetchNext() throws LdapException, CursorException
+    {
+        while ( true )
+        {
+            if ( cursor == null )
+            {
+                if ( lastPage )
+                {
+                    return false;
+                }
+                
+                cursor = connection.search( searchRequest );
+            }
+            
+            if ( cursor.next() )
+            {
+                if ( cursor.isEntry() )
+                {
+                    nextElement = entryMapper.map( cursor.getEntry() );
+                    
+                    return true;
+                }
+            }
+            else
+            {
+                endPage();
+            }
+        }
+    }
+    
+    
+    /**
+     * Process the end of a page : get the cookie sent back by the server, if any,
+     * to be able to request the next page.
+     * 
+     * @throws LdapException If the search failed
+     */
+    private void endPage() throws LdapException
+    {
+        SearchResultDone searchResultDone = cursor.getSearchResultDone();
+        closeCursor();
+        
+        if ( ( searchResultDone == null ) 
+            || ( searchResultDone.getLdapResult().getResultCode() != ResultCodeEnum.SUCCESS ) )
+        {
+            lastPage = true;
+            
+            if ( searchResultDone != null )
+            {
+                throw new LdapRequestUnsuccessfulException( searchResultDone );
+            }
+            
+            return;
+        }
+        
+        PagedResults pagedResultsResponse = ( PagedResults ) searchResultDone.getControl( PagedResults.OID );
+        
+        if ( ( pagedResultsResponse == null ) || Strings.isEmpty( pagedResultsResponse.getCookie() ) )
+        {
+            // The server has no more entries, or does not support paging at all
+            lastPage = true;
+        }
+        else
+        {
+            pagedResults.setCookie( pagedResultsResponse.getCookie() );
+        }
+    }
+    
+    
+    /**
+     * Close the cursor on the current page
+     * 
+     * @throws LdapException If the cursor can't be closed
+     */
+    private void closeCursor() throws LdapException
+    {
+        try
+        {
+            cursor.close();
+        }
+        catch ( IOException ioe )
+        {
+            throw new LdapException( ioe.getMessage(), ioe );
+        }
+        finally
+        {
+            cursor = null;
+        }
+    }
+
+
+    /**
+     * Read the cursor until the SearchResultDone, skipping the remaining entries
+     * 
+     * @throws LdapException If the search failed
+     * @throws CursorException If the cursor failed
+     */
+    private void readToDone() throws LdapException, CursorException
+    {
+        while ( cursor.next() )
+        {
+            // Skip it
+        }
+    }
+
+
+    /**
+     * Close the iterator. If the search is not completed, the rest of the current
+     * page is read, without mapping the entries, to get the cookie sent back by
+     * the server. The server is then told we are not interested in the next pages,
+     * sending a zero size PagedResults control as specified in RFC 2696, so that
+     * it can release its paging state. The current page is not abandoned, and
+     * the zero size request is read until its SearchResultDone, as abandoning them
+     * could leave the server's paging state behind.
+     */
+    @Override
+    public void close()
+    {
+        if ( closed )
+        {
+            return;
+        }
+        
+        closed = true;
+        
+        try
+        {
+            if ( cursor != null )
+            {
+                // Get the cookie of the current page
+                readToDone();
+                endPage();
+            }
+            
+            if ( !lastPage && !Strings.isEmpty( pagedResults.getCookie() ) )
+            {
+                // Release the server resources associated with the cookie
+                pagedResults.setSize( 0 );
+                cursor = connection.search( searchRequest );
+                readToDone();
+                closeCursor();
+            }
+        }
+        catch ( CursorException e )
+        {
+            throw new LdapRuntimeException( new LdapException( e.getMessage(), e ) );
+        }
+        catch ( LdapException e )
+        {
+            throw new LdapRuntimeException( e );
+        }
+        finally
+        {
+            if ( cursor != null )
+            {
+                try
+                {
+                    closeCursor();
+                }
+                catch ( LdapException e )
+                {
+                    // Already failing, nothing more to do
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.DefaultModification;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.ModificationOperation;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.controls.ManageDsaITImpl;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Tests the CachingLdapConnection and its EntryCache.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution(ExecutionMode.CONCURRENT)
+public class CachingLdapConnectionTest
+{
+    /** The SchemaManager used to normalize the Dns */
+    private static SchemaManager schemaManager;
+
+    /** The number of lookups sent to the fake server */
+    private AtomicInteger lookups;
+
+    /** The fake clock used by the cache */
+    private AtomicLong clock;
+
+    /** An action run by the fake server while it processes a lookup */
+    private Runnable onLookup;
+
+
+    @BeforeAll
+    public static void setup() throws Exception
+    {
+        schemaManager = new DefaultSchemaManager();
+    }
+
+
+    @BeforeEach
+    public void init()
+    {
+        lookups = new AtomicInteger();
+        clock = new AtomicLong();
+        onLookup = () -> { };
+    }
+
+
+    /**
+     * Creates a connection answering each lookup with a new version of the entry
+     */
+    private CachingLdapConnection createConnection( int maxSize )
+    {
+        return createConnection( maxSize, schemaManager );
+    }
+
+
+    /**
+     * Creates a connection answering each lookup with a new version of the entry, using
+     * the given SchemaManager
+     */
+    private CachingLdapConnection createConnection( int maxSize, SchemaManager connectionSchemaManager )
+    {
+        LdapConnection connection = mock( LdapConnection.class, invocation ->
+        {
+            if ( "getSchemaManager".equals( invocation.getMethod().getName() ) )
+            {
+                return connectionSchemaManager;
+            }
+
+            if ( "lookup".equals( invocation.getMethod().getName() ) )
+            {
+                onLookup.run();
+                Object dn = invocation.getArgument( 0 );
+
+                return new DefaultEntry( dn.toString(), "description: " + lookups.incrementAndGet() );
+            }
+
+            return null;
+        } );
+
+        return new CachingLdapConnection( connection, new EntryCache( maxSize, 1000L, clock::get ) );
+    }
+
+
+    @Test
+    public void testLookupIsCached() throws Exception
+    {
+        CachingLdapConnection connection = createConnection( 10 );
+
+        Entry entry = connection.lookup( "cn=group,ou=groups,dc=example,dc=com" );
+        assertEquals( "1", entry.get( "description" ).getString() );
+
+        // The returned entries are copies, the cached one is not modified
+        entry.put( "description", "modified" );
+        assertEquals( "1", connection.lookup( new Dn( "cn=group,ou=groups,dc=example,dc=com" ) )
+            .get( "description" ).getString() );
+        assertEquals( 1, lookups.get() );
+
+        // Another list of attributes is another cached entry, whatever the order
+        assertEquals( "2", connection.lookup( "cn=group,ou=groups,dc=example,dc=com", "member", "cn" )
+            .get( "description" ).getString() );
+        assertEquals( "2", connection.lookup( "cn=group,ou=groups,dc=example,dc=com", "CN", "member" )
+            .get( "description" ).getString() );
+        assertEquals( 2, lookups.get() );
+        assertEquals( 2, connection.getCache().size() );
+
+        // Controls bypass the cache
+        connection.lookup( "cn=group,ou=groups,dc=example,dc=com", new Control[]
+            { new ManageDsaITImpl() } );
+        assertEquals( 3, lookups.get() );
+    }
+
+
+    @Test
+    public void testModifyInvalidatesEntry() throws Exception
+    {
+        CachingLdapConnection connection = createConnection( 10 );
+
+        connection.lookup( "ou=groups,dc=example,dc=com" );
+        connection.lookup( "cn=group,ou=groups,dc=example,dc=com" );
+        connection.lookup( "cn=group,ou=groups,dc=example,dc=com", "member" );
+
+        connection.modify( "cn=group,ou=groups,dc=example,dc=com",
+            new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, "description", "x" ) );
+
+        // Both copies of the modified entry are dropped, not its parent
+        assertEquals( 1, connection.getCache().size() );
+        assertEquals( "4", connection.lookup( "cn=group,ou=groups,dc=example,dc=com" )
+            .get( "description" ).getString() );
+        assertEquals( "1", connection.lookup( "ou=groups,dc=example,dc=com" )
+            .get( "description" ).getString() );
+    }
+
+
+    @Test
+    public void testDeleteAndRenameInvalidateSubtree() throws Exception
+    {
+        CachingLdapConnection connection = createConnection( 10 );
+
+        connection.lookup( "dc=example,dc=com" );
+        connection.lookup( "ou=groups,dc=example,dc=com" );
+        connection.lookup( "cn=a,ou=groups,dc=example,dc=com" );
+        connection.lookup( "cn=b,ou=groups,dc=example,dc=com" );
+        connection.lookup( "ou=people,dc=example,dc=com" );
+        connection.lookup( "uid=c,ou=people,dc=example,dc=com" );
+        assertEquals( 6, connection.getCache().size() );
+
+        connection.delete( new Dn( "ou=groups,dc=example,dc=com" ) );
+        assertEquals( 3, connection.getCache().size() );
+        assertNull( connection.getCache().get( new Dn( "cn=a,ou=groups,dc=example,dc=com" ), "*" ) );
+
+        connection.rename( "ou=people,dc=example,dc=com", "ou=users" );
+        assertEquals( 1, connection.getCache().size() );
+
+        // The remaining entry is still served from the cache
+        assertEquals( "1", connection.lookup( "dc=example,dc=com" ).get( "description" ).getString() );
+        assertEquals( 6, lookups.get() );
+    }
+
+
+    @Test
+    public void testEviction() throws Exception
+    {
+        CachingLdapConnection connection = createConnection( 2 );
+
+        connection.lookup( "cn=a,dc=example,dc=com" );
+        connection.lookup( "cn=b,dc=example,dc=com" );
+
+        // Use cn=a, so that cn=b is the least recently used entry
+        connection.lookup( "cn=a,dc=example,dc=com" );
+        connection.lookup( "cn=c,dc=example,dc=com" );
+        assertEquals( 2, connection.getCache().size() );
+        assertEquals( 3, lookups.get() );
+
+        connection.lookup( "cn=a,dc=example,dc=com" );
+        assertEquals( 3, lookups.get() );
+        connection.lookup( "cn=b,dc=example,dc=com" );
+        assertEquals( 4, lookups.get() );
+
+        // The entries expire after their time to live
+        clock.addAndGet( 1000L );
+        assertEquals( "5", connection.lookup( "cn=b,dc=example,dc=com" ).get( "description" ).getString() );
+    }
+
+
+    @Test
+    public void testBindAndConcurrentChangesClearCache() throws Exception
+    {
+        CachingLdapConnection connection = createConnection( 10 );
+
+        connection.lookup( "cn=a,dc=example,dc=com" );
+        connection.bind( "cn=admin,dc=example,dc=com", "secret" );
+        assertEquals( 0, connection.getCache().size() );
+
+        // A StartTLS may change the identity
+        connection.lookup( "cn=a,dc=example,dc=com" );
+        assertEquals( 1, connection.getCache().size() );
+        connection.extended( "1.3.6.1.4.1.1466.20037" );
+        assertEquals( 0, connection.getCache().size() );
+
+        // An entry read while it is modified is not cached
+        onLookup = () -> connection.getCache().invalidate( Dn.EMPTY_DN );
+        connection.lookup( "cn=a,dc=example,dc=com" );
+        assertEquals( 0, connection.getCache().size() );
+
+        assertThrows( IllegalArgumentException.class, () -> new EntryCache( 0, 1000L ) );
+    }
+
+
+    @Test
+    public void testInvalidationWithoutSchemaManager() throws Exception
+    {
+        CachingLdapConnection connection = createConnection( 10, null );
+
+        connection.lookup( "ou=groups,dc=example,dc=com" );
+        connection.lookup( "cn=foo,ou=groups,dc=example,dc=com" );
+        assertEquals( 2, connection.getCache().size() );
+
+        // The same entry, named differently : it can't be found, so everything is dropped
+        connection.modify( "CN=foo,ou=groups,dc=example,dc=com",
+            new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, "description", "x" ) );
+        assertEquals( 0, connection.getCache().size() );
+        assertEquals( "3", connection.lookup( "cn=foo,ou=groups,dc=example,dc=com" )
+            .get( "description" ).getString() );
+
+        connection.lookup( "ou=groups,dc=example,dc=com" );
+        connection.delete( "commonName=Foo,ou=groups,dc=example,dc=com" );
+        assertEquals( 0, connection.getCache().size() );
+    }
+
+
+    @Test
+    public void testInvalidationWithSchemaManager() throws Exception
+    {
+        CachingLdapConnection connection = createConnection( 10 );
+
+        connection.lookup( "ou=groups,dc=example,dc=com" );
+        connection.lookup( "cn=foo,ou=groups,dc=example,dc=com" );
+
+        // The Dns are normalized, so only the modified entry is dropped
+        connection.modify( "commonName=Foo,ou=groups,dc=example,dc=com",
+            new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, "description", "x" ) );
+        assertEquals( 1, connection.getCache().size() );
+        assertEquals( "3", connection.lookup( "CN=foo,ou=groups,dc=example,dc=com" )
+            .get( "description" ).getString() );
+    }
+}
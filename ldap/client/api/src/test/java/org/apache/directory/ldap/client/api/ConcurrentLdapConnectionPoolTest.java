@@ -0,0 +1,290 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.directory.ldap.client.api.exception.LdapConnectionTimeOutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the ConcurrentLdapConnectionPool.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConcurrentLdapConnectionPoolTest
+{
+    /** The number of connections created */
+    private AtomicInteger created;
+
+    /** The number of validations */
+    private AtomicInteger validations;
+
+    /** The validation result */
+    private AtomicBoolean valid;
+
+    private DefaultPoolableLdapConnectionFactory factory;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        created = new AtomicInteger();
+        validations = new AtomicInteger();
+        valid = new AtomicBoolean( true );
+
+        LdapConnectionFactory connectionFactory = mock( LdapConnectionFactory.class );
+        when( connectionFactory.newLdapConnection() ).thenAnswer( invocation ->
+        {
+            created.incrementAndGet();
+            LdapConnection connection = mock( LdapConnection.class );
+            when( connection.isConnected() ).thenReturn( true );
+            when( connection.isAuthenticated() ).thenReturn( true );
+
+            return connection;
+        } );
+
+        factory = new DefaultPoolableLdapConnectionFactory( connectionFactory );
+        factory.setValidator( connection ->
+        {
+            validations.incrementAndGet();
+
+            return valid.get();
+        } );
+    }
+
+
+    private GenericObjectPoolConfig newConfig( int maxTotal, long maxWaitMillis )
+    {
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setMaxTotal( maxTotal );
+        poolConfig.setMaxWait( Duration.ofMillis( maxWaitMillis ) );
+        poolConfig.setTestOnBorrow( true );
+
+        return poolConfig;
+    }
+
+
+    @Test
+    public void testThreadAffinity() throws Exception
+    {
+        try ( LdapConnectionPool pool = new ConcurrentLdapConnectionPool( factory, newConfig( 4, 1000L ) ) )
+        {
+            LdapConnection first = pool.getConnection();
+            LdapConnection second = pool.getConnection();
+            LdapConnection firstRaw = ( ( PooledLdapConnection ) first ).wrapped();
+            LdapConnection secondRaw = ( ( PooledLdapConnection ) second ).wrapped();
+            assertNotSame( firstRaw, secondRaw );
+            assertEquals( 2, pool.getNumActive() );
+
+            pool.releaseConnection( first );
+            pool.releaseConnection( second );
+            assertEquals( 2, pool.getNumIdle() );
+
+            // The last released connection comes back first
+            LdapConnection again = pool.getConnection();
+            assertSame( secondRaw, ( ( PooledLdapConnection ) again ).wrapped() );
+            pool.releaseConnection( again );
+
+            // No validation on borrow
+            assertEquals( 0, validations.get() );
+            assertEquals( 2, created.get() );
+
+            ConcurrentLdapConnectionPool concurrentPool = ( ConcurrentLdapConnectionPool ) pool;
+            assertEquals( 3, concurrentPool.getConnectionsBorrowed() );
+            assertEquals( 3, concurrentPool.getConnectionsReturned() );
+            assertEquals( 2, concurrentPool.getConnectionsCreated() );
+            assertEquals( 0, concurrentPool.getConnectionsDestroyed() );
+            assertEquals( 2, pool.listAllObjects().size() );
+        }
+    }
+
+
+    @Test
+    public void testExhaustedPool() throws Exception
+    {
+        try ( LdapConnectionPool pool = new ConcurrentLdapConnectionPool( factory, newConfig( 1, 100L ) ) )
+        {
+            LdapConnection connection = pool.getConnection();
+
+            assertThrows( LdapConnectionTimeOutException.class, () -> pool.getConnection() );
+
+            // A waiting thread gets the connection as soon as it is released
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+
+            try
+            {
+                Future<LdapConnection> waiter = executor.submit( () -> 
+                {
+                    return pool.borrowObject( Duration.ofSeconds( 5L ) );
+                } );
+
+                Thread.sleep( 20L );
+                pool.releaseConnection( connection );
+
+                LdapConnection handedOver = waiter.get( 5L, TimeUnit.SECONDS );
+                assertSame( ( ( PooledLdapConnection ) connection ).wrapped(), handedOver );
+                pool.returnObject( handedOver );
+
+                // A connection can't be returned twice
+                assertThrows( IllegalStateException.class, () -> pool.returnObject( handedOver ) );
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+
+    @Test
+    public void testCloseWakesWaiters() throws Exception
+    {
+        LdapConnectionPool pool = new ConcurrentLdapConnectionPool( factory, newConfig( 1, 30000L ) );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try
+        {
+            pool.getConnection();
+
+            Future<LdapConnection> waiter = executor.submit( () -> pool.getConnection() );
+
+            long deadline = System.currentTimeMillis() + 5000L;
+
+            while ( ( pool.getNumWaiters() == 0 ) && ( System.currentTimeMillis() < deadline ) )
+            {
+                Thread.sleep( 1L );
+            }
+
+            assertEquals( 1, pool.getNumWaiters() );
+            pool.close();
+
+            // The waiting thread fails right away, instead of waiting until the timeout
+            ExecutionException failure = assertThrows( ExecutionException.class,
+                () -> waiter.get( 5L, TimeUnit.SECONDS ) );
+            assertTrue( failure.getCause() instanceof IllegalStateException );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testConcurrentBorrows() throws Exception
+    {
+        Set<LdapConnection> inUse = ConcurrentHashMap.newKeySet();
+        AtomicInteger conflicts = new AtomicInteger();
+        int nbThreads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool( nbThreads );
+
+        try ( LdapConnectionPool pool = new ConcurrentLdapConnectionPool( factory, newConfig( 4, 10000L ) ) )
+        {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for ( int i = 0; i < nbThreads; i++ )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    for ( int j = 0; j < 200; j++ )
+                    {
+                        LdapConnection connection = pool.getConnection();
+                        LdapConnection raw = ( ( PooledLdapConnection ) connection ).wrapped();
+
+                        if ( !inUse.add( raw ) )
+                        {
+                            conflicts.incrementAndGet();
+                        }
+
+                        Thread.yield();
+                        inUse.remove( raw );
+                        pool.releaseConnection( connection );
+                    }
+
+                    return null;
+                } ) );
+            }
+
+            for ( Future<?> future : futures )
+            {
+                future.get( 30L, TimeUnit.SECONDS );
+            }
+
+            assertEquals( 0, conflicts.get() );
+            assertTrue( created.get() <= 4 );
+            assertEquals( 0, pool.getNumActive() );
+            assertEquals( created.get(), pool.getNumIdle() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testBackgroundValidation() throws Exception
+    {
+        GenericObjectPoolConfig poolConfig = newConfig( 4, 1000L );
+        poolConfig.setTimeBetweenEvictionRuns( Duration.ofMillis( 10L ) );
+
+        try ( LdapConnectionPool pool = new ConcurrentLdapConnectionPool( factory, poolConfig ) )
+        {
+            pool.releaseConnection( pool.getConnection() );
+            assertEquals( 1, pool.getNumIdle() );
+
+            valid.set( false );
+
+            long deadline = System.currentTimeMillis() + 5000L;
+
+            while ( ( pool.getNumIdle() > 0 ) && ( System.currentTimeMillis() < deadline ) )
+            {
+                Thread.sleep( 10L );
+            }
+
+            assertEquals( 0, pool.getNumIdle() );
+            assertTrue( validations.get() > 0 );
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.directory.api.ldap.model.cursor.EntryCursor;
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapNoPermissionException;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.SearchResultDoneImpl;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResultsImpl;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the FanOutSearchCursor class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class FanOutSearchCursorTest
+{
+    private LdapConnectionPool connectionPool;
+    
+    private LdapConnection connection;
+    
+    private SearchRequest searchRequest;
+    
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        connection = mock( LdapConnection.class );
+        connectionPool = mock( LdapConnectionPool.class );
+        when( connectionPool.getConnection() ).thenReturn( connection );
+
+        searchRequest = new SearchRequestImpl()
+            .setBase( new Dn( "ou=people,dc=example,dc=com" ) )
+            .setScope( SearchScope.SUBTREE )
+            .setFilter( "(objectClass=*)" );
+    }
+    
+    
+    /**
+     * Creates a cursor returning the given entries
+     */
+    private static SearchCursor cursor( ResultCodeEnum resultCode, String... dns ) throws Exception
+    {
+        SearchCursor cursor = mock( SearchCursor.class );
+        Boolean[] nexts = new Boolean[dns.length];
+        Entry[] entries = new Entry[dns.length + 1];
+        
+        for ( int i = 0; i < dns.length; i++ )
+        {
+            nexts[i] = i < dns.length - 1;
+            entries[i] = new DefaultEntry( dns[i] );
+        }
+        
+        SearchResultDone done = new SearchResultDoneImpl();
+        done.getLdapResult().setResultCode( resultCode );
+        
+        when( cursor.next() ).thenReturn( dns.length > 0, nexts );
+        when( cursor.isEntry() ).thenReturn( true );
+        when( cursor.getEntry() ).thenReturn( entries[0], Arrays.copyOfRange( entries, 1, entries.length ) );
+        when( cursor.getSearchResultDone() ).thenReturn( done );
+        
+        return cursor;
+    }
+
+
+    @Test
+    public void testFanOutSearch() throws Exception
+    {
+        SearchCursor oneLevel = cursor( ResultCodeEnum.SUCCESS, 
+            "ou=a,ou=people,dc=example,dc=com", "ou=b,ou=people,dc=example,dc=com" );
+        SearchCursor base = cursor( ResultCodeEnum.SUCCESS, "ou=people,dc=example,dc=com" );
+        SearchCursor branchA = cursor( ResultCodeEnum.SUCCESS, "ou=a,ou=people,dc=example,dc=com", 
+            "uid=a1,ou=a,ou=people,dc=example,dc=com", "uid=a2,ou=a,ou=people,dc=example,dc=com" );
+        SearchCursor branchB = cursor( ResultCodeEnum.SUCCESS, "ou=b,ou=people,dc=example,dc=com", 
+            "uid=b1,ou=b,ou=people,dc=example,dc=com" );
+        
+        when( connection.search( any( SearchRequest.class ) ) ).thenAnswer( invocation ->
+        {
+            SearchRequest request = invocation.getArgument( 0 );
+            
+            switch ( request.getScope() )
+            {
+                case ONELEVEL:
+                    return oneLevel;
+                    
+                case OBJECT:
+                    return base;
+                    
+                default:
+                    return request.getBase().getRdn().getValue().equals( "a" ) ? branchA : branchB;
+            }
+        } );
+        
+        Set<String> dns = new HashSet<>();
+        
+        try ( EntryCursor cursor = new FanOutSearchCursor( connectionPool, searchRequest, 2, 2 ) )
+        {
+            while ( cursor.next() )
+            {
+                dns.add( cursor.get().getDn().getName() );
+            }
+            
+            assertEquals( ResultCodeEnum.SUCCESS, cursor.getSearchResultDone().getLdapResult().getResultCode() );
+        }
+        
+        assertEquals( 6, dns.size() );
+        assertTrue( dns.contains( "ou=people,dc=example,dc=com" ) );
+        assertTrue( dns.contains( "uid=a2,ou=a,ou=people,dc=example,dc=com" ) );
+        assertTrue( dns.contains( "uid=b1,ou=b,ou=people,dc=example,dc=com" ) );
+    }
+
+
+    @Test
+    public void testFanOutSearchNoSuchBase() throws Exception
+    {
+        SearchCursor oneLevel = cursor( ResultCodeEnum.NO_SUCH_OBJECT );
+        when( connection.search( any( SearchRequest.class ) ) ).thenReturn( oneLevel );
+        
+        try ( EntryCursor cursor = new FanOutSearchCursor( connectionPool, searchRequest, 2 ) )
+        {
+            assertThrows( LdapException.class, () -> cursor.next() );
+        }
+    }
+
+
+    @Test
+    public void testFanOutSearchNoChildren() throws Exception
+    {
+        SearchCursor oneLevel = cursor( ResultCodeEnum.SUCCESS );
+        SearchCursor base = cursor( ResultCodeEnum.SUCCESS, "ou=people,dc=example,dc=com" );
+        
+        when( connection.search( any( SearchRequest.class ) ) ).thenReturn( oneLevel, base );
+        
+        try ( EntryCursor cursor = new FanOutSearchCursor( connectionPool, searchRequest, 4 ) )
+        {
+            assertTrue( cursor.next() );
+            assertEquals( "ou=people,dc=example,dc=com", cursor.get().getDn().getName() );
+            assertFalse( cursor.next() );
+        }
+    }
+
+    
+    
+    /**
+     * Answers the searches with a base entry and two branches of entries
+     */
+    private void answerSearches( SearchCursor branchB ) throws Exception
+    {
+        SearchCursor oneLevel = cursor( ResultCodeEnum.SUCCESS, 
+            "ou=a,ou=people,dc=example,dc=com", "ou=b,ou=people,dc=example,dc=com" );
+        SearchCursor base = cursor( ResultCodeEnum.SUCCESS, "ou=people,dc=example,dc=com" );
+        SearchCursor branchA = cursor( ResultCodeEnum.SUCCESS, "ou=a,ou=people,dc=example,dc=com", 
+            "uid=a1,ou=a,ou=people,dc=example,dc=com", "uid=a2,ou=a,ou=people,dc=example,dc=com" );
+        
+        when( connection.search( any( SearchRequest.class ) ) ).thenAnswer( invocation ->
+        {
+            SearchRequest request = invocation.getArgument( 0 );
+            
+            switch ( request.getScope() )
+            {
+                case ONELEVEL:
+                    return oneLevel;
+                    
+                case OBJECT:
+                    return base;
+                    
+                default:
+                    return request.getBase().getRdn().getValue().equals( "a" ) ? branchA : branchB;
+            }
+        } );
+    }
+
+
+    @Test
+    public void testFanOutSearchBranchFailure() throws Exception
+    {
+        answerSearches( cursor( ResultCodeEnum.INSUFFICIENT_ACCESS_RIGHTS ) );
+        
+        try ( EntryCursor cursor = new FanOutSearchCursor( connectionPool, searchRequest, 2, 10 ) )
+        {
+            // The failing branch is reported, the results are not silently partial
+            assertThrows( LdapNoPermissionException.class, () -> 
+            {
+                while ( cursor.next() )
+                {
+                    cursor.get();
+                }
+            } );
+        }
+    }
+
+
+    @Test
+    public void testFanOutSearchSizeLimit() throws Exception
+    {
+        answerSearches( cursor( ResultCodeEnum.SUCCESS, "ou=b,ou=people,dc=example,dc=com", 
+            "uid=b1,ou=b,ou=people,dc=example,dc=com" ) );
+        searchRequest.setSizeLimit( 4 );
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        
+        try ( EntryCursor cursor = new FanOutSearchCursor( connectionPool, searchRequest, 2, 10, executor ) )
+        {
+            int count = 0;
+            
+            while ( cursor.next() )
+            {
+                count++;
+            }
+            
+            // The limit applies to the whole fan-out, not to each branch
+            assertEquals( 4, count );
+            assertFalse( cursor.next() );
+            assertEquals( ResultCodeEnum.SIZE_LIMIT_EXCEEDED, 
+                cursor.getSearchResultDone().getLdapResult().getResultCode() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testFanOutSearchTimeLimit() throws Exception
+    {
+        // The second branch never ends
+        SearchCursor blocked = mock( SearchCursor.class );
+        when( blocked.next() ).thenAnswer( invocation ->
+        {
+            Thread.sleep( 60_000L );
+            
+            return false;
+        } );
+        
+        answerSearches( blocked );
+        searchRequest.setTimeLimit( 1 );
+        
+        try ( EntryCursor cursor = new FanOutSearchCursor( connectionPool, searchRequest, 3, 10 ) )
+        {
+            int count = 0;
+            
+            while ( cursor.next() )
+            {
+                count++;
+            }
+            
+            assertEquals( 4, count );
+            assertEquals( ResultCodeEnum.TIME_LIMIT_EXCEEDED, 
+                cursor.getSearchResultDone().getLdapResult().getResultCode() );
+        }
+    }
+
+
+    @Test
+    public void testFanOutSearchPagedControlRejected() throws Exception
+    {
+        searchRequest.addControl( new PagedResultsImpl() );
+        
+        assertThrows( IllegalArgumentException.class, 
+            () -> new FanOutSearchCursor( connectionPool, searchRequest, 2 ) );
+    }
+}
@@ -19,8 +19,12 @@
  */
 package org.apache.directory.ldap.client.api;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
+import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 
 import org.junit.jupiter.api.Assertions;
@@ -52,5 +56,19 @@ public class LdapConnectionConfigTest {
         config.setTrustManagers(new NoVerificationTrustManager());
         assertNotNull(config.getTrustManagers());
     }
-}
+    
+    @Test
+    public void testSharedSslContext() throws Exception {
+        LdapConnectionConfig config = new LdapConnectionConfig();
+        config.setSslSessionCacheSize(10);
+        SSLContext sslContext = config.getSslContext();
 
+        assertSame(sslContext, config.getSslContext());
+        assertEquals(10, sslContext.getClientSessionContext().getSessionCacheSize());
+        assertEquals(LdapConnectionConfig.DEFAULT_SSL_SESSION_TIMEOUT, sslContext.getClientSessionContext().getSessionTimeout());
+
+        // Changing the SSL parameters discards the context
+        config.setTrustManagers(new NoVerificationTrustManager());
+        assertNotSame(sslContext, config.getSslContext());
+    }
+}
@@ -20,6 +20,8 @@
 package org.apache.directory.ldap.client.api;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.math.BigInteger;
@@ -40,6 +42,7 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.TrustManagerFactory;
 
 import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.ldap.client.api.metrics.DefaultLdapConnectionMetrics;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
 import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
@@ -270,4 +273,52 @@ public class LdapNetworkConnectionSslTest
             }
         }
     }
+
+
+    /**
+     * Two connections created from the same configuration share the same SSLContext,
+     * so the second one resumes the TLS session established by the first one.
+     */
+    @Test
+    public void testSslSessionResumedAcrossConnections() throws Exception
+    {
+        SSLServerSocketFactory ssf = serverSslContext.getServerSocketFactory();
+        try ( SSLServerSocket serverSocket = ( SSLServerSocket ) ssf.createServerSocket( 0 ) )
+        {
+            serverSocket.setSoTimeout( 10_000 );
+            int port = serverSocket.getLocalPort();
+
+            LdapConnectionConfig config = new LdapConnectionConfig();
+            config.setUseSsl( true );
+            config.setLdapHost( "localhost" );
+            config.setLdapPort( port );
+            config.setTrustManagers( new NoVerificationTrustManager() );
+            // TLS 1.3 session tickets are sent after the handshake, use TLS 1.2 to keep the test deterministic
+            config.setEnabledProtocols( "TLSv1.2" );
+            DefaultLdapConnectionMetrics metrics = new DefaultLdapConnectionMetrics();
+
+            for ( int i = 0; i < 2; i++ )
+            {
+                Thread serverThread = startTlsServer( serverSocket, false );
+
+                LdapNetworkConnection conn = new LdapNetworkConnection( config );
+                conn.setMetrics( metrics );
+                conn.setTimeOut( 5_000L );
+
+                try
+                {
+                    conn.connect();
+                }
+                finally
+                {
+                    conn.close();
+                    serverThread.join( 5_000L );
+                }
+            }
+
+            assertSame( config.getSslContext(), config.getSslContext() );
+            assertEquals( 2L, metrics.getTlsHandshakeTime().getCount() );
+            assertEquals( 1L, metrics.getResumedTlsHandshakes() );
+        }
+    }
 }
@@ -0,0 +1,195 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.directory.api.ldap.codec.api.LdapApiService;
+import org.apache.directory.api.ldap.codec.api.LdapApiServiceFactory;
+import org.apache.directory.api.ldap.codec.api.LdapDecoder;
+import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.protocol.mina.LdapProtocolCodecFactory;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.message.AddRequest;
+import org.apache.directory.api.ldap.model.message.AddRequestImpl;
+import org.apache.directory.api.ldap.model.message.Message;
+import org.apache.mina.core.future.ConnectFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.service.IoHandlerAdapter;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.filter.codec.ProtocolCodecFilter;
+import org.apache.mina.transport.socket.nio.NioSocketAcceptor;
+import org.apache.mina.transport.socket.nio.NioSocketConnector;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the LdapProtocolEncoder when many threads write big PDUs on the same session.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapProtocolEncoderTest
+{
+    /** The number of threads writing on the session */
+    private static final int NB_THREADS = 4;
+
+    /** The number of requests each thread writes */
+    private static final int NB_REQUESTS = 20;
+
+    /** The size of the value we add in each request, so that the PDUs span many chunks */
+    private static final int VALUE_SIZE = 200 * 1024;
+
+
+    /**
+     * Creates a request, with a big value depending on the message ID
+     */
+    private static AddRequest createRequest( int messageId ) throws Exception
+    {
+        char[] chars = new char[VALUE_SIZE];
+        Arrays.fill( chars, ( char ) ( 'a' + messageId % 26 ) );
+
+        AddRequest addRequest = new AddRequestImpl();
+        addRequest.setMessageId( messageId );
+        addRequest.setEntry( new DefaultEntry( "cn=test" + messageId + ",dc=example,dc=com",
+            "objectClass: top",
+            "objectClass: person",
+            "cn: test" + messageId,
+            "sn: test",
+            "description: " + new String( chars ) ) );
+
+        return addRequest;
+    }
+
+
+    @Test
+    public void testConcurrentBigPdus() throws Exception
+    {
+        LdapApiService codec = LdapApiServiceFactory.getSingleton();
+        BlockingQueue<Message> received = new LinkedBlockingQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        NioSocketAcceptor acceptor = new NioSocketAcceptor();
+        acceptor.getFilterChain().addLast( "codec", new ProtocolCodecFilter( new LdapProtocolCodecFactory( codec ) ) );
+        acceptor.setHandler( new IoHandlerAdapter()
+        {
+            @Override
+            public void sessionCreated( IoSession session )
+            {
+                session.setAttribute( LdapDecoder.MESSAGE_CONTAINER_ATTR, new LdapMessageContainer<>( codec ) );
+            }
+
+
+            @Override
+            public void messageReceived( IoSession session, Object message )
+            {
+                received.add( ( Message ) message );
+            }
+
+
+            @Override
+            public void exceptionCaught( IoSession session, Throwable cause )
+            {
+                failure.compareAndSet( null, cause );
+            }
+        } );
+        acceptor.bind( new InetSocketAddress( "localhost", 0 ) );
+
+        NioSocketConnector connector = new NioSocketConnector();
+        connector.getFilterChain().addLast( "codec", new ProtocolCodecFilter( new LdapProtocolCodecFactory( codec ) ) );
+        connector.setHandler( new IoHandlerAdapter() );
+        ExecutorService executor = Executors.newFixedThreadPool( NB_THREADS );
+
+        try
+        {
+            ConnectFuture connectFuture = connector.connect( acceptor.getLocalAddress() );
+            IoSession session = connectFuture.awaitUninterruptibly().getSession();
+            List<Future<List<WriteFuture>>> writers = new ArrayList<>();
+
+            for ( int i = 0; i < NB_THREADS; i++ )
+            {
+                int thread = i;
+
+                writers.add( executor.submit( () ->
+                {
+                    List<WriteFuture> writes = new ArrayList<>();
+
+                    for ( int j = 0; j < NB_REQUESTS; j++ )
+                    {
+                        // No synchronization, as in LdapNetworkConnection.writeRequest()
+                        writes.add( session.write( createRequest( thread * NB_REQUESTS + j + 1 ) ) );
+                    }
+
+                    return writes;
+                } ) );
+            }
+
+            for ( Future<List<WriteFuture>> writer : writers )
+            {
+                for ( WriteFuture write : writer.get( 30, TimeUnit.SECONDS ) )
+                {
+                    assertTrue( write.awaitUninterruptibly( 30, TimeUnit.SECONDS ) );
+                    assertTrue( write.isWritten() );
+                }
+            }
+
+            // Each PDU must be received as it was written
+            for ( int i = 0; i < NB_THREADS * NB_REQUESTS; i++ )
+            {
+                Message message = received.poll( 30, TimeUnit.SECONDS );
+
+                assertNull( failure.get() );
+                assertNotNull( message );
+
+                AddRequest addRequest = ( AddRequest ) message;
+                String description = addRequest.getEntry().get( "description" ).getString();
+
+                assertEquals( VALUE_SIZE, description.length() );
+                assertEquals( 'a' + addRequest.getMessageId() % 26, description.charAt( VALUE_SIZE - 1 ) );
+                assertEquals( "cn=test" + addRequest.getMessageId() + ",dc=example,dc=com",
+                    addRequest.getEntryDn().getName() );
+            }
+
+            assertNull( failure.get() );
+            session.closeNow().awaitUninterruptibly();
+        }
+        finally
+        {
+            executor.shutdownNow();
+            connector.dispose();
+            acceptor.dispose();
+        }
+    }
+}
@@ -22,10 +22,16 @@ package org.apache.directory.ldap.client.api;
 
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -409,4 +415,159 @@ public class LdifAnonymizerTest
             assertEquals( str.length(), value.length() );
         }
     }
+    
+    
+    @Test
+    public void testLdifAnonymizerHashKey() throws Exception
+    {
+        String ldif =
+            "dn: cn=emmanuel,dc=acme,dc=com\n" +
+            "objectClass: top\n" +
+            "objectClass: person\n" +
+            "cn: emmanuel\n" +
+            "sn: lecharny\n"+
+            "\n" +
+            "dn: cn=kiran,dc=acme,dc=com\n" +
+            "objectClass: top\n" +
+            "objectClass: person\n" +
+            "cn: kiran\n" +
+            "sn: ayyagari\n" +
+            "seeAlso: cn=Emmanuel,dc=acme,dc=com\n";
+
+        LdifAnonymizer anonymizer = new LdifAnonymizer( schemaManager );
+        anonymizer.addNamingContext( "dc=acme,dc=com" );
+        anonymizer.setHashKey( Strings.getBytesUtf8( "secret" ) );
+        
+        String result = anonymizer.anonymize( ldif );
+        
+        List<LdifEntry> entries = ldifReader.parseLdif( result );
+        
+        assertEquals( 2, entries.size() );
+        
+        Entry entry1 = entries.get( 0 ).getEntry();
+        Entry entry2 = entries.get( 1 ).getEntry();
+        
+        // The values are anonymized, and short values are extended so that they can't collide
+        String cn = entry1.get( "cn" ).getString();
+        assertTrue( cn.length() > "emmanuel".length() );
+        assertNotEquals( "emmanuel", cn );
+        assertEquals( "cn=" + cn + ",dc=acme,dc=com", entry1.getDn().toString() );
+        
+        // The DN value is anonymized the same way, even if its case is different 
+        assertEquals( entry1.getDn().toString(), entry2.get( "seeAlso" ).getString() );
+        
+        // A new anonymizer with the same key produces the same values, nothing is kept in memory
+        LdifAnonymizer anonymizer2 = new LdifAnonymizer( schemaManager );
+        anonymizer2.addNamingContext( "dc=acme,dc=com" );
+        anonymizer2.setHashKey( Strings.getBytesUtf8( "secret" ) );
+        
+        assertEquals( result, anonymizer2.anonymize( ldif ) );
+        assertTrue( anonymizer2.getValueMap().isEmpty() );
+        
+        // A different key produces different values
+        anonymizer2.setHashKey( Strings.getBytesUtf8( "another secret" ) );
+        assertNotEquals( result, anonymizer2.anonymize( ldif ) );
+    }
+    
+    
+    @Test
+    public void testAnonymizeFileManyThreads() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        for ( int i = 0; i < 1000; i++ )
+        {
+            sb.append( "dn: uid=user" ).append( i ).append( ",ou=people,dc=acme,dc=com\n" );
+            sb.append( "objectClass: top\n" );
+            sb.append( "objectClass: person\n" );
+            sb.append( "objectClass: uidObject\n" );
+            sb.append( "uid: user" ).append( i ).append( '\n' );
+            sb.append( "cn: User " ).append( i ).append( '\n' );
+            sb.append( "sn: Number " ).append( i ).append( "\n\n" );
+        }
+        
+        String ldif = sb.toString();
+        File file = File.createTempFile( "anonymizer", "ldif" );
+        file.deleteOnExit();
+        Files.write( file.toPath(), Strings.getBytesUtf8( ldif ) );
+
+        LdifAnonymizer anonymizer = new LdifAnonymizer( schemaManager );
+        anonymizer.addNamingContext( "dc=acme,dc=com" );
+        anonymizer.setHashKey( "secret".getBytes( StandardCharsets.UTF_8 ) );
+        
+        Writer writer = new StringWriter();
+        anonymizer.anonymizeFile( file.getAbsolutePath(), writer, 4 );
+        
+        // The result must be the same than the single threaded anonymization, in the same order
+        assertEquals( anonymizer.anonymize( ldif ), writer.toString() );
+        assertEquals( 1000, ldifReader.parseLdif( writer.toString() ).size() );
+    }
+    
+    
+    @Test
+    public void testLdifAnonymizerHashKeyCollisions() throws Exception
+    {
+        // One char values : they would collide if the anonymized values kept the same length
+        String chars = "abcdefghijklmnopqrstuvwxyz0123456789";
+        StringBuilder sb = new StringBuilder();
+        
+        for ( char c : chars.toCharArray() )
+        {
+            sb.append( "dn: cn=" ).append( c ).append( ",dc=acme,dc=com\n" );
+            sb.append( "objectClass: top\n" );
+            sb.append( "objectClass: person\n" );
+            sb.append( "cn: " ).append( c ).append( '\n' );
+            sb.append( "sn: x\n\n" );
+        }
+        
+        sb.append( "dn: cn=all,dc=acme,dc=com\n" );
+        sb.append( "objectClass: top\n" );
+        sb.append( "objectClass: person\n" );
+        sb.append( "cn: all\n" );
+        
+        for ( char c : chars.toCharArray() )
+        {
+            sb.append( "sn: " ).append( c ).append( '\n' );
+        }
+
+        LdifAnonymizer anonymizer = new LdifAnonymizer( schemaManager );
+        anonymizer.addNamingContext( "dc=acme,dc=com" );
+        anonymizer.setHashKey( Strings.getBytesUtf8( "secret" ) );
+        
+        List<LdifEntry> entries = ldifReader.parseLdif( anonymizer.anonymize( sb.toString() ) );
+        Set<String> dns = new HashSet<>();
+        
+        for ( LdifEntry entry : entries )
+        {
+            dns.add( entry.getDn().getNormName() );
+        }
+        
+        // Each entry keeps its own Dn, and no value is lost
+        assertEquals( chars.length() + 1, dns.size() );
+        assertEquals( chars.length(), entries.get( chars.length() ).getEntry().get( "sn" ).size() );
+        
+        // The mapping only depends on the key and on the value, not on the order of the values
+        StringBuilder reversed = new StringBuilder();
+        
+        for ( int i = chars.length() - 1; i >= 0; i-- )
+        {
+            char c = chars.charAt( i );
+            reversed.append( "dn: cn=" ).append( c ).append( ",dc=acme,dc=com\n" );
+            reversed.append( "objectClass: top\n" );
+            reversed.append( "objectClass: person\n" );
+            reversed.append( "cn: " ).append( c ).append( '\n' );
+            reversed.append( "sn: x\n\n" );
+        }
+        
+        LdifAnonymizer anonymizer2 = new LdifAnonymizer( schemaManager );
+        anonymizer2.addNamingContext( "dc=acme,dc=com" );
+        anonymizer2.setHashKey( Strings.getBytesUtf8( "secret" ) );
+        
+        List<LdifEntry> reversedEntries = ldifReader.parseLdif( anonymizer2.anonymize( reversed.toString() ) );
+        
+        for ( int i = 0; i < chars.length(); i++ )
+        {
+            assertEquals( entries.get( i ).getDn(), reversedEntries.get( chars.length() - 1 - i ).getDn() );
+        }
+    }
 }
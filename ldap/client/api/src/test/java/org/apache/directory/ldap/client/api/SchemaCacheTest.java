@@ -0,0 +1,234 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.cursor.EntryCursor;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.ldif.LdifEntry;
+import org.apache.directory.api.ldap.model.ldif.LdifReader;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Tests the SchemaCache.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaCacheTest
+{
+    /** The schema served by the fake connections */
+    private Entry schema;
+
+    /** The modifyTimestamp of the subschemaSubentry, if any */
+    private String modifyTimestamp;
+
+    /** The number of subschemaSubentry searches */
+    private AtomicInteger searches;
+
+
+    @BeforeEach
+    public void init() throws Exception
+    {
+        try ( LdifReader reader = new LdifReader( new File( "src/test/resources/schema-minimal.ldif" ) ) )
+        {
+            for ( LdifEntry ldifEntry : reader )
+            {
+                schema = ldifEntry.getEntry();
+            }
+        }
+
+        modifyTimestamp = "20240101000000Z";
+        searches = new AtomicInteger();
+    }
+
+
+    /**
+     * Creates a connection answering the rootDSE and subschemaSubentry lookups and searches
+     */
+    private LdapConnection createFakeConnection()
+    {
+        return mock( LdapConnection.class, invocation ->
+        {
+            switch ( invocation.getMethod().getName() )
+            {
+                case "lookup":
+                    Dn dn = invocation.getArgument( 0 );
+
+                    if ( dn.isRootDse() )
+                    {
+                        return new DefaultEntry( "", SchemaConstants.SUBSCHEMA_SUBENTRY_AT + ": cn=schema" );
+                    }
+
+                    Entry version = new DefaultEntry( "cn=schema" );
+
+                    if ( modifyTimestamp != null )
+                    {
+                        version.add( SchemaConstants.MODIFY_TIMESTAMP_AT, modifyTimestamp );
+                    }
+
+                    return version;
+
+                case "search":
+                    searches.incrementAndGet();
+                    EntryCursor cursor = mock( EntryCursor.class );
+                    when( cursor.next() ).thenReturn( true );
+                    when( cursor.get() ).thenReturn( schema );
+
+                    return cursor;
+
+                default:
+                    return null;
+            }
+        } );
+    }
+
+
+    @Test
+    public void testSchemaManagerIsShared() throws Exception
+    {
+        SchemaCache cache = new SchemaCache();
+
+        SchemaManager schemaManager1 = cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+        SchemaManager schemaManager2 = cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+
+        assertSame( schemaManager1, schemaManager2 );
+        assertTrue( schemaManager1.getAttributeTypeRegistry().contains( "cn" ) );
+        assertEquals( 1, searches.get() );
+        assertEquals( 1, cache.size() );
+
+        // Another server, or another mode, gets its own SchemaManager
+        assertNotSame( schemaManager1, cache.getSchemaManager( createFakeConnection(), "otherhost:389", false ) );
+        assertNotSame( schemaManager1, cache.getSchemaManager( createFakeConnection(), "localhost:389", true ) );
+        assertEquals( 3, searches.get() );
+        assertEquals( 3, cache.size() );
+    }
+
+
+    @Test
+    public void testSchemaChange() throws Exception
+    {
+        SchemaCache cache = new SchemaCache();
+
+        SchemaManager schemaManager1 = cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+        modifyTimestamp = "20240102000000Z";
+        SchemaManager schemaManager2 = cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+
+        assertNotSame( schemaManager1, schemaManager2 );
+        assertEquals( 2, searches.get() );
+
+        // The previous version has been evicted
+        assertEquals( 1, cache.size() );
+    }
+
+
+    @Test
+    public void testNoVersionIsNotCached() throws Exception
+    {
+        SchemaCache cache = new SchemaCache();
+        modifyTimestamp = null;
+
+        SchemaManager schemaManager1 = cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+        SchemaManager schemaManager2 = cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+
+        assertNotSame( schemaManager1, schemaManager2 );
+        assertEquals( 2, searches.get() );
+        assertEquals( 0, cache.size() );
+    }
+
+
+    @Test
+    public void testStoredSchema( @TempDir Path directory ) throws Exception
+    {
+        SchemaManager schemaManager1 = new SchemaCache( directory.toFile() )
+            .getSchemaManager( createFakeConnection(), "localhost:389", false );
+
+        // A new cache, like after a restart, reads the stored schema
+        SchemaCache cache = new SchemaCache( directory.toFile() );
+        SchemaManager schemaManager2 = cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+
+        assertNotSame( schemaManager1, schemaManager2 );
+        assertTrue( schemaManager2.getObjectClassRegistry().contains( "person" ) );
+        assertEquals( 1, searches.get() );
+
+        cache.clear();
+        assertEquals( 0, cache.size() );
+        assertEquals( 0, directory.toFile().list().length );
+    }
+
+
+    @Test
+    public void testCopy() throws Exception
+    {
+        SchemaCache cache = new SchemaCache();
+
+        SchemaManager shared = cache.getSchemaManager( createFakeConnection(), "localhost:389", true );
+        SchemaManager copy = cache.copy( shared );
+
+        assertNotSame( shared, copy );
+        assertTrue( copy.isRelaxed() );
+        assertTrue( copy.getAttributeTypeRegistry().contains( "cn" ) );
+        assertEquals( 1, searches.get() );
+
+        // Modifying the copy does not modify the shared SchemaManager
+        AttributeType attributeType = new AttributeType( "1.3.6.1.4.1.18060.0.4.1.2.999" );
+        attributeType.setNames( "privateAttribute" );
+        copy.getRegistries().getAttributeTypeRegistry().register( attributeType );
+
+        assertTrue( copy.getAttributeTypeRegistry().contains( "privateAttribute" ) );
+        assertFalse( shared.getAttributeTypeRegistry().contains( "privateAttribute" ) );
+    }
+
+
+    @Test
+    public void testStoredPreviousVersionsDeleted( @TempDir Path directory ) throws Exception
+    {
+        SchemaCache cache = new SchemaCache( directory.toFile() );
+
+        cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+        cache.getSchemaManager( createFakeConnection(), "otherhost:389", false );
+        assertEquals( 2, directory.toFile().list().length );
+
+        // Only the last version of each schema is kept
+        modifyTimestamp = "20240102000000Z";
+        cache.getSchemaManager( createFakeConnection(), "localhost:389", false );
+        assertEquals( 2, directory.toFile().list().length );
+        assertEquals( 3, searches.get() );
+    }
+}
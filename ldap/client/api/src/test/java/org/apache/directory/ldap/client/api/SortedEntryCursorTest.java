@@ -0,0 +1,295 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.controls.SortKey;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.ldap.schema.manager.impl.DefaultSchemaManager;
+import org.apache.directory.api.util.GeneralizedTime;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Tests the SortedEntryCursor.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SortedEntryCursorTest
+{
+    private static SchemaManager schemaManager;
+
+
+    @BeforeAll
+    public static void init() throws Exception
+    {
+        schemaManager = new DefaultSchemaManager();
+    }
+
+
+    /**
+     * Creates a cursor returning the given entries
+     */
+    private static SearchCursor createSearchCursor( List<Entry> entries ) throws Exception
+    {
+        Iterator<Entry> iterator = entries.iterator();
+        Entry[] current = new Entry[1];
+        SearchCursor cursor = mock( SearchCursor.class );
+
+        when( cursor.next() ).thenAnswer( invocation ->
+        {
+            current[0] = iterator.hasNext() ? iterator.next() : null;
+
+            return current[0] != null;
+        } );
+        when( cursor.isEntry() ).thenReturn( true );
+        when( cursor.getEntry() ).thenAnswer( invocation -> current[0] );
+
+        return cursor;
+    }
+
+
+    /**
+     * Creates entries with shuffled timestamps, some of them having no timestamp
+     */
+    private static List<Entry> createEntries( int count ) throws Exception
+    {
+        List<Entry> entries = new ArrayList<>();
+
+        for ( int i = 0; i < count; i++ )
+        {
+            Entry entry = new DefaultEntry( schemaManager, "cn=User " + i + ",ou=system",
+                "objectClass: person",
+                "cn: User " + i,
+                "sn: " + ( i % 3 ) );
+
+            if ( i % 10 != 0 )
+            {
+                // Mixed time zones, so that the String order is not the time order
+                entry.add( "createTimestamp", ( i % 2 == 0 )
+                    ? String.format( Locale.ROOT, "2024%02d01120000Z", 1 + ( i * 7 ) % 12 )
+                    : String.format( Locale.ROOT, "2024%02d01140000+0200", 1 + ( i * 7 ) % 12 ) );
+            }
+
+            entries.add( entry );
+        }
+
+        Collections.shuffle( entries );
+
+        return entries;
+    }
+
+
+    private static List<String> read( SortedEntryCursor cursor ) throws Exception
+    {
+        List<String> names = new ArrayList<>();
+
+        try ( SortedEntryCursor sortedCursor = cursor )
+        {
+            while ( sortedCursor.next() )
+            {
+                names.add( sortedCursor.get().get( "cn" ).getString() );
+            }
+        }
+
+        return names;
+    }
+
+
+    @Test
+    public void testSortInMemory() throws Exception
+    {
+        List<Entry> entries = Arrays.asList(
+            new DefaultEntry( schemaManager, "cn=b,ou=system", "objectClass: person", "cn: b", "sn: B" ),
+            new DefaultEntry( schemaManager, "cn=c,ou=system", "objectClass: person", "cn: c", "sn: c" ),
+            new DefaultEntry( schemaManager, "cn=a,ou=system", "objectClass: person", "cn: a", "sn: a",
+                "sn: d" ) );
+
+        // sn has no ordering matching rule, the equality one is used
+        assertEquals( Arrays.asList( "a", "b", "c" ), read( new SortedEntryCursor( createSearchCursor( entries ),
+            schemaManager, Collections.singletonList( new SortKey( "sn" ) ) ) ) );
+
+        // In reverse order, the greatest value of a multi-valued attribute is used
+        assertEquals( Arrays.asList( "a", "c", "b" ), read( new SortedEntryCursor( createSearchCursor( entries ),
+            schemaManager, Collections.singletonList( new SortKey( "sn", null, true ) ) ) ) );
+    }
+
+
+    @Test
+    public void testSortWithRuns( @TempDir Path directory ) throws Exception
+    {
+        List<Entry> entries = createEntries( 500 );
+
+        // Some entries are not schema aware, and have an attribute the schema does not know
+        for ( int i = 0; i < 20; i++ )
+        {
+            entries.add( i * 25, new DefaultEntry( "cn=Other " + i + ",ou=system",
+                "objectClass: person",
+                "cn: Other " + i,
+                "SN: " + ( i % 4 ),
+                "x-unknown-attribute: " + i ) );
+        }
+
+        List<SortKey> sortKeys = Arrays.asList( new SortKey( "createTimestamp" ), new SortKey( "sn", null, true ),
+            new SortKey( "cn" ) );
+
+        List<String> inMemory = readWithSchemaAwareness( new SortedEntryCursor( createSearchCursor( entries ),
+            schemaManager, sortKeys ) );
+
+        // 520 runs of one entry are merged in many passes
+        for ( int maxEntriesInMemory : new int[] { 1, 7, 100 } )
+        {
+            assertEquals( inMemory, readWithSchemaAwareness( new SortedEntryCursor( createSearchCursor( entries ),
+                schemaManager, sortKeys, maxEntriesInMemory, directory.toFile() ) ) );
+            assertEquals( 0, directory.toFile().list().length );
+        }
+
+        assertEquals( 520, inMemory.size() );
+    }
+
+
+    /**
+     * Reads the entries' cn, with their schema awareness and their unknown attribute, if any
+     */
+    private static List<String> readWithSchemaAwareness( SortedEntryCursor cursor ) throws Exception
+    {
+        List<String> names = new ArrayList<>();
+
+        try ( SortedEntryCursor sortedCursor = cursor )
+        {
+            while ( sortedCursor.next() )
+            {
+                Entry entry = sortedCursor.get();
+                names.add( entry.get( "cn" ).getString() + '|' + entry.isSchemaAware() + '|'
+                    + ( entry.isSchemaAware() ? "" : entry.get( "x-unknown-attribute" ).getString() ) );
+            }
+        }
+
+        return names;
+    }
+
+
+    @Test
+    public void testSortOrder() throws Exception
+    {
+        List<Entry> entries = createEntries( 50 );
+        SortedEntryCursor cursor = new SortedEntryCursor( createSearchCursor( entries ), schemaManager,
+            Collections.singletonList( new SortKey( "createTimestamp" ) ), 4, null );
+        long previous = Long.MIN_VALUE;
+        int withoutTimestamp = 0;
+
+        while ( cursor.next() )
+        {
+            Entry entry = cursor.get();
+
+            if ( entry.get( "createTimestamp" ) == null )
+            {
+                withoutTimestamp++;
+            }
+            else
+            {
+                // The entries without timestamp are last
+                assertEquals( 0, withoutTimestamp );
+
+                long time = new GeneralizedTime( entry.get( "createTimestamp" ).getString() ).getTime();
+                assertFalse( time < previous );
+                previous = time;
+            }
+        }
+
+        cursor.close();
+        assertEquals( 5, withoutTimestamp );
+    }
+
+
+    @Test
+    public void testReverseOrderMissingValue( @TempDir Path directory ) throws Exception
+    {
+        List<Entry> entries = Arrays.asList(
+            new DefaultEntry( schemaManager, "cn=b,ou=system", "objectClass: person", "cn: b", "sn: b" ),
+            new DefaultEntry( schemaManager, "cn=none,ou=system", "objectClass: top", "objectClass: device",
+                "cn: none" ),
+            new DefaultEntry( schemaManager, "cn=c,ou=system", "objectClass: person", "cn: c", "sn: c" ),
+            new DefaultEntry( schemaManager, "cn=a,ou=system", "objectClass: person", "cn: a", "sn: a" ) );
+        List<SortKey> sortKeys = Collections.singletonList( new SortKey( "sn", null, true ) );
+
+        // The entries without value sort last, in reverse order too
+        assertEquals( Arrays.asList( "c", "b", "a", "none" ), read( new SortedEntryCursor(
+            createSearchCursor( entries ), schemaManager, sortKeys ) ) );
+        assertEquals( Arrays.asList( "c", "b", "a", "none" ), read( new SortedEntryCursor(
+            createSearchCursor( entries ), schemaManager, sortKeys, 1, directory.toFile() ) ) );
+    }
+
+
+    @Test
+    public void testSortNotSchemaAwareEntries() throws Exception
+    {
+        // The entries are received with the attribute's names or OID
+        List<Entry> entries = Arrays.asList(
+            new DefaultEntry( "cn=b,ou=system", "cn: b", "surname: b" ),
+            new DefaultEntry( "cn=c,ou=system", "cn: c", "2.5.4.4: c" ),
+            new DefaultEntry( "cn=a,ou=system", "cn: a", "SN: a" ) );
+
+        assertEquals( Arrays.asList( "a", "b", "c" ), read( new SortedEntryCursor( createSearchCursor( entries ),
+            schemaManager, Collections.singletonList( new SortKey( "sn" ) ) ) ) );
+    }
+
+
+    @Test
+    public void testSortWithoutSchema() throws Exception
+    {
+        List<Entry> entries = Arrays.asList(
+            new DefaultEntry( "cn=b,ou=system", "cn: b" ),
+            new DefaultEntry( "cn=c,ou=system", "cn: c" ),
+            new DefaultEntry( "cn=a,ou=system", "cn: a" ) );
+
+        assertEquals( Arrays.asList( "a", "b", "c" ), read( new SortedEntryCursor( createSearchCursor( entries ),
+            null, Collections.singletonList( new SortKey( "cn" ) ), 2, ( File ) null ) ) );
+    }
+
+
+    @Test
+    public void testUnknownAttribute() throws Exception
+    {
+        assertThrows( LdapException.class, () -> new SortedEntryCursor( createSearchCursor( new ArrayList<>() ),
+            schemaManager, Collections.singletonList( new SortKey( "unknownAttribute" ) ) ) );
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api.metrics;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.directory.api.ldap.model.message.MessageTypeEnum;
+import org.apache.directory.ldap.client.api.DefaultPoolableLdapConnectionFactory;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.LdapConnectionFactory;
+import org.apache.directory.ldap.client.api.LdapConnectionPool;
+import org.apache.directory.ldap.client.api.LdapConnectionValidator;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the LatencyHistogram and the DefaultLdapConnectionMetrics.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DefaultLdapConnectionMetricsTest
+{
+    @Test
+    public void testHistogramBuckets()
+    {
+        int previous = -1;
+
+        for ( long value = 0L; value < 100_000L; value++ )
+        {
+            int index = LatencyHistogram.bucketIndex( value );
+
+            // Buckets are contiguous, and each value is lower than its bucket upper bound
+            assertTrue( ( index == previous ) || ( index == previous + 1 ) );
+            assertTrue( value <= LatencyHistogram.bucketUpperBound( index ) );
+            assertTrue( ( index == 0 ) || ( value > LatencyHistogram.bucketUpperBound( index - 1 ) ) );
+            previous = index;
+        }
+
+        int last = LatencyHistogram.bucketIndex( Long.MAX_VALUE );
+        assertEquals( Long.MAX_VALUE, LatencyHistogram.bucketUpperBound( last ) );
+    }
+
+
+    @Test
+    public void testHistogramPercentiles()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for ( long value = 1L; value <= 1000L; value++ )
+        {
+            histogram.record( value * 1000L );
+        }
+
+        assertEquals( 1000L, histogram.getCount() );
+        assertEquals( 1_000_000L, histogram.getMax() );
+        assertEquals( 500_500d, histogram.getMean(), 0.1d );
+
+        long p50 = histogram.getValueAtPercentile( 50d );
+        long p99 = histogram.getValueAtPercentile( 99d );
+
+        // The relative error is bounded by the number of sub-buckets
+        assertTrue( p50 >= 500_000L && p50 <= 500_000L * 9 / 8, Long.toString( p50 ) );
+        assertTrue( p99 >= 990_000L && p99 <= 1_000_000L, Long.toString( p99 ) );
+        assertEquals( 1_000_000L, histogram.getValueAtPercentile( 100d ) );
+
+        LatencySnapshot snapshot = histogram.snapshotMicros();
+        assertEquals( 1000L, snapshot.getCount() );
+        assertEquals( 1000L, snapshot.getMax() );
+
+        histogram.reset();
+        assertEquals( 0L, histogram.getCount() );
+        assertEquals( 0L, histogram.getValueAtPercentile( 50d ) );
+    }
+
+
+    @Test
+    public void testOperations()
+    {
+        DefaultLdapConnectionMetrics metrics = new DefaultLdapConnectionMetrics();
+
+        metrics.operationStarted();
+        metrics.operationStarted();
+        metrics.operationStarted();
+        assertEquals( 3L, metrics.getInFlightOperations() );
+
+        metrics.operationCompleted( MessageTypeEnum.SEARCH_RESULT_DONE, 2_000_000L );
+        metrics.operationCompleted( MessageTypeEnum.ADD_RESPONSE, 1_000_000L );
+        metrics.operationAborted();
+
+        assertEquals( 0L, metrics.getInFlightOperations() );
+        assertEquals( 1L, metrics.getAbortedOperations() );
+        assertEquals( 2, metrics.getOperationLatencies().size() );
+        assertEquals( 2000L, metrics.getOperationLatencies().get( "SEARCH_RESULT_DONE" ).getMax() );
+        assertEquals( 1L, metrics.getOperationHistogram( MessageTypeEnum.ADD_RESPONSE ).getCount() );
+    }
+
+
+    @Test
+    public void testPoolMetrics() throws Exception
+    {
+        LdapConnectionFactory connectionFactory = mock( LdapConnectionFactory.class );
+        when( connectionFactory.newLdapConnection() ).thenAnswer( invocation ->
+        {
+            LdapConnection connection = mock( LdapConnection.class );
+            when( connection.isConnected() ).thenReturn( true );
+            when( connection.isAuthenticated() ).thenReturn( true );
+
+            return connection;
+        } );
+
+        LdapConnectionValidator validator = mock( LdapConnectionValidator.class );
+        when( validator.validate( any( LdapConnection.class ) ) ).thenReturn( true, false, true );
+
+        DefaultPoolableLdapConnectionFactory factory = new DefaultPoolableLdapConnectionFactory( connectionFactory );
+        factory.setValidator( validator );
+
+        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+        poolConfig.setTestOnBorrow( true );
+        poolConfig.setJmxEnabled( false );
+
+        DefaultLdapConnectionMetrics metrics = new DefaultLdapConnectionMetrics();
+
+        try ( LdapConnectionPool pool = new LdapConnectionPool( factory, poolConfig ) )
+        {
+            pool.setMetrics( metrics );
+            assertTrue( metrics == factory.getMetrics() );
+
+            LdapConnection connection = pool.getConnection();
+            pool.releaseConnection( connection );
+
+            // The second validation fails, the pool creates and validates a new connection
+            connection = pool.getConnection();
+            pool.releaseConnection( connection );
+        }
+
+        assertEquals( 2L, metrics.getBorrowWait().getCount() );
+        assertEquals( 2L, metrics.getHoldTime().getCount() );
+        assertEquals( 2L, metrics.getReturnTime().getCount() );
+        assertEquals( 3L, metrics.getValidationTime().getCount() );
+        assertEquals( 1L, metrics.getValidationFailures() );
+    }
+
+
+    @Test
+    public void testJmxRegistration() throws Exception
+    {
+        DefaultLdapConnectionMetrics metrics = new DefaultLdapConnectionMetrics();
+        metrics.connectionBorrowed( 3_000L );
+        metrics.operationStarted();
+        metrics.operationCompleted( MessageTypeEnum.BIND_RESPONSE, 5_000L );
+
+        ObjectName name = metrics.register( "test, pool" );
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try
+        {
+            assertTrue( server.isRegistered( name ) );
+
+            CompositeData borrowWait = ( CompositeData ) server.getAttribute( name, "BorrowWait" );
+            assertEquals( 1L, borrowWait.get( "count" ) );
+            assertEquals( 3L, borrowWait.get( "max" ) );
+            assertNotNull( server.getAttribute( name, "OperationLatencies" ) );
+            assertEquals( 0L, server.getAttribute( name, "InFlightOperations" ) );
+
+            server.invoke( name, "reset", null, null );
+            assertEquals( 0L, metrics.getBorrowWait().getCount() );
+        }
+        finally
+        {
+            metrics.unregister();
+        }
+
+        assertFalse( server.isRegistered( name ) );
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.ldap.client.template;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.directory.api.ldap.model.cursor.SearchCursor;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.SearchResultDoneImpl;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.message.controls.PagedResultsImpl;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.ldap.client.api.LdapConnection;
+import org.apache.directory.ldap.client.api.LdapConnectionPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+
+/**
+ * Tests the paged searches of the LdapConnectionTemplate.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapConnectionTemplateTest
+{
+    private static final EntryMapper<String> CN_MAPPER = new EntryMapper<String>()
+    {
+        @Override
+        public String map( Entry entry ) throws LdapException
+        {
+            return entry.get( "cn" ).getString();
+        }
+    };
+    
+    private LdapConnectionTemplate template;
+    
+    private LdapConnectionPool connectionPool;
+    
+    private LdapConnection connection;
+    
+    private SearchRequest searchRequest;
+    
+    /** The cookies sent with each search request */
+    private List<byte[]> sentCookies;
+    
+    /** The cookies sent with a zero size search request */
+    private List<byte[]> releasedCookies;
+    
+    /** The first page */
+    private SearchCursor page1;
+    
+    /** The cursor returned for the zero size search requests */
+    private SearchCursor release;
+    
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        connection = mock( LdapConnection.class );
+        connectionPool = mock( LdapConnectionPool.class );
+        when( connectionPool.getConnection() ).thenReturn( connection );
+        
+        template = new LdapConnectionTemplate( connectionPool );
+        searchRequest = template.newSearchRequest( "ou=people,dc=example,dc=com", "(objectClass=*)", 
+            SearchScope.ONELEVEL );
+        sentCookies = new ArrayList<>();
+        releasedCookies = new ArrayList<>();
+        
+        page1 = page( "c1", "one", "two" );
+        SearchCursor page2 = page( null, "three" );
+        release = page( null );
+        
+        when( connection.search( any( SearchRequest.class ) ) ).thenAnswer( invocation ->
+        {
+            SearchRequest request = invocation.getArgument( 0 );
+            
+            // The iterator works on a copy of the request
+            assertNotSame( searchRequest, request );
+            PagedResults pagedResults = ( PagedResults ) request.getControl( PagedResults.OID );
+            
+            if ( pagedResults.getSize() == 0 )
+            {
+                releasedCookies.add( pagedResults.getCookie() );
+                
+                return release;
+            }
+            
+            assertEquals( 2, pagedResults.getSize() );
+            sentCookies.add( pagedResults.getCookie() );
+            
+            return sentCookies.size() == 1 ? page1 : page2;
+        } );
+    }
+    
+    
+    /**
+     * Creates a page of entries, the server sending back the given cookie
+     */
+    private SearchCursor page( String cookie, String... cns ) throws Exception
+    {
+        SearchCursor cursor = mock( SearchCursor.class );
+        Boolean[] nexts = new Boolean[cns.length];
+        Entry[] entries = new Entry[cns.length];
+        
+        // next() returns true once per entry, then false
+        for ( int i = 0; i < cns.length; i++ )
+        {
+            nexts[i] = i < cns.length - 1;
+            entries[i] = new DefaultEntry( "cn=" + cns[i] + ",ou=people,dc=example,dc=com", "cn", cns[i] );
+        }
+
+        SearchResultDone done = new SearchResultDoneImpl();
+        done.getLdapResult().setResultCode( ResultCodeEnum.SUCCESS );
+        
+        if ( cookie != null )
+        {
+            PagedResults pagedResults = new PagedResultsImpl();
+            pagedResults.setCookie( Strings.getBytesUtf8( cookie ) );
+            done.addControl( pagedResults );
+        }
+
+        if ( cns.length == 0 )
+        {
+            when( cursor.next() ).thenReturn( false );
+        }
+        else
+        {
+            when( cursor.next() ).thenReturn( true, nexts );
+            when( cursor.isEntry() ).thenReturn( true );
+            when( cursor.getEntry() ).thenReturn( entries[0], Arrays.copyOfRange( entries, 1, entries.length ) );
+        }
+        
+        when( cursor.getSearchResultDone() ).thenReturn( done );
+        
+        return cursor;
+    }
+
+
+    @Test
+    public void testSearchPaged()
+    {
+        List<String> cns = new ArrayList<>();
+        
+        // The caller's PagedResults control is replaced in the copy, and left unchanged
+        PagedResults callerPagedResults = new PagedResultsImpl();
+        callerPagedResults.setSize( 50 );
+        searchRequest.addControl( callerPagedResults );
+        
+        template.searchPaged( searchRequest, 2, CN_MAPPER, cns::add );
+        
+        assertEquals( 3, cns.size() );
+        assertEquals( "one", cns.get( 0 ) );
+        assertEquals( "two", cns.get( 1 ) );
+        assertEquals( "three", cns.get( 2 ) );
+        
+        // The first request has no cookie, the second one has the cookie sent back by the server
+        assertEquals( 2, sentCookies.size() );
+        assertArrayEquals( Strings.EMPTY_BYTES, sentCookies.get( 0 ) );
+        assertArrayEquals( Strings.getBytesUtf8( "c1" ), sentCookies.get( 1 ) );
+        
+        // The caller's request has not been modified
+        assertSame( callerPagedResults, searchRequest.getControl( PagedResults.OID ) );
+        assertEquals( 50, callerPagedResults.getSize() );
+        assertArrayEquals( Strings.EMPTY_BYTES, callerPagedResults.getCookie() );
+    }
+
+
+    @Test
+    public void testSearchStream()
+    {
+        try ( Stream<String> stream = template.searchStream( searchRequest, 2, CN_MAPPER ) )
+        {
+            assertEquals( "one,two,three", stream.collect( Collectors.joining( "," ) ) );
+        }
+        
+        assertEquals( 2, sentCookies.size() );
+        assertNull( searchRequest.getControl( PagedResults.OID ) );
+    }
+
+
+    @Test
+    public void testSearchStreamClosedEarly()
+    {
+        try ( Stream<String> stream = template.searchStream( searchRequest, 2, CN_MAPPER ) )
+        {
+            assertEquals( "one", stream.findFirst().get() );
+        }
+        
+        // Only one page has been requested, and the server has been told to release its cookie
+        assertEquals( 1, sentCookies.size() );
+        assertEquals( 1, releasedCookies.size() );
+        assertArrayEquals( Strings.getBytesUtf8( "c1" ), releasedCookies.get( 0 ) );
+        assertNull( searchRequest.getControl( PagedResults.OID ) );
+    }
+
+
+    /**
+     * Checks that the zero size request is read until its SearchResultDone before being closed
+     */
+    private void assertReleased() throws Exception
+    {
+        assertEquals( 1, releasedCookies.size() );
+        assertArrayEquals( Strings.getBytesUtf8( "c1" ), releasedCookies.get( 0 ) );
+
+        InOrder inOrder = inOrder( release );
+        inOrder.verify( release ).next();
+        inOrder.verify( release ).close();
+    }
+
+
+    @Test
+    public void testCloseInPage() throws Exception
+    {
+        PagedSearchIterator<String> iterator = new PagedSearchIterator<>( connection, searchRequest, 2, CN_MAPPER );
+        
+        assertEquals( "one", iterator.next() );
+        iterator.close();
+        
+        // The current page is read to its end to get the cookie, not abandoned
+        InOrder inOrder = inOrder( page1 );
+        inOrder.verify( page1, times( 3 ) ).next();
+        inOrder.verify( page1 ).close();
+        assertEquals( 1, sentCookies.size() );
+        assertReleased();
+    }
+
+
+    @Test
+    public void testCloseBetweenPages() throws Exception
+    {
+        PagedSearchIterator<String> iterator = new PagedSearchIterator<>( connection, searchRequest, 2, CN_MAPPER );
+        
+        assertEquals( "one", iterator.next() );
+        assertEquals( "two", iterator.next() );
+        iterator.close();
+        
+        // The first page is done, the next one is not requested
+        assertEquals( 1, sentCookies.size() );
+        assertReleased();
+    }
+
+
+    @Test
+    public void testCloseAfterLastPage() throws Exception
+    {
+        PagedSearchIterator<String> iterator = new PagedSearchIterator<>( connection, searchRequest, 2, CN_MAPPER );
+        
+        while ( iterator.hasNext() )
+        {
+            iterator.next();
+        }
+        
+        iterator.close();
+        
+        // The server has no paging state left
+        assertEquals( 0, releasedCookies.size() );
+        verify( release, never() ).next();
+    }
+
+
+    @Test
+    public void testSearchStreamReleasesConnectionOnFailure() throws Exception
+    {
+        // The iterator can't be created, the connection must not leak
+        assertThrows( NullPointerException.class, () -> template.searchStream( null, 2, CN_MAPPER ) );
+        
+        verify( connectionPool ).releaseConnection( connection );
+    }
+}
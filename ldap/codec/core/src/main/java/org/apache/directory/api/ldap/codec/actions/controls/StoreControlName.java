@@ -23,6 +23,7 @@ package org.apache.directory.api.ldap.codec.actions.controls;
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.asn1.util.Oid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.ControlFactory;
@@ -81,10 +82,21 @@ public class StoreControlName extends GrammarAction<LdapMessageContainer<Message
         }
 
         byte[] value = tlv.getValue().getData();
-        String oidValue = Strings.asciiBytesToString( value );
+        InternedOid internedOid = InternedOid.get( value );
+        String oidValue;
+
+        if ( internedOid != null )
+        {
+            // A known OID, already checked
+            oidValue = internedOid.getValue();
+        }
+        else
+        {
+            oidValue = Strings.asciiBytesToString( value );
+        }
 
         // The OID is encoded as a String, not an Object Id
-        if ( !Oid.isOid( oidValue ) )
+        if ( ( internedOid == null ) && !Oid.isOid( oidValue ) )
         {
             String msg = I18n.err( I18n.ERR_08215_INVALID_CONTROL_OID, oidValue );
             LOG.error( msg );
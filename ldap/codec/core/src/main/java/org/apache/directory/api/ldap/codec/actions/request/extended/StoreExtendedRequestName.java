@@ -23,6 +23,7 @@ package org.apache.directory.api.ldap.codec.actions.request.extended;
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.asn1.util.Oid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.ExtendedOperationFactory;
@@ -82,12 +83,13 @@ public class StoreExtendedRequestName extends GrammarAction<LdapMessageContainer
         else
         {
             byte[] requestNameBytes = tlv.getValue().getData();
-            String requestName = Strings.utf8ToString( requestNameBytes );
+            InternedOid internedName = InternedOid.get( requestNameBytes );
+            String requestName = ( internedName != null ) ? internedName.getValue() : Strings.utf8ToString( requestNameBytes );
 
             try
             {
                 // Check the OID first, if it's invalid, reject the operation
-                if ( !Oid.isOid( requestName ) )
+                if ( ( internedName == null ) && !Oid.isOid( requestName ) )
                 {
                     String msg = I18n.err( I18n.ERR_05121_INVALID_REQUEST_NAME_OID,
                         requestName, Strings.dumpBytes( requestNameBytes ) );
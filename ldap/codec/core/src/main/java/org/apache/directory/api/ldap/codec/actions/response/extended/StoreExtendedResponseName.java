@@ -23,6 +23,7 @@ package org.apache.directory.api.ldap.codec.actions.response.extended;
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.asn1.util.Oid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.ExtendedOperationFactory;
@@ -81,12 +82,13 @@ public class StoreExtendedResponseName extends GrammarAction<LdapMessageContaine
         else
         {
             byte[] responseNameBytes = tlv.getValue().getData();
-            String responseName = Strings.asciiBytesToString( responseNameBytes );
+            InternedOid internedName = InternedOid.get( responseNameBytes );
+            String responseName = ( internedName != null ) ? internedName.getValue() : Strings.asciiBytesToString( responseNameBytes );
 
             try
             {
                 // Check the OID first, if it's invalid, reject the operation
-                if ( !Oid.isOid( responseName ) )
+                if ( ( internedName == null ) && !Oid.isOid( responseName ) )
                 {
                     String msg = I18n.err( I18n.ERR_05159_INVALID_RESPONSE_NAME_OID,
                         responseName, Strings.dumpBytes( responseNameBytes ) );
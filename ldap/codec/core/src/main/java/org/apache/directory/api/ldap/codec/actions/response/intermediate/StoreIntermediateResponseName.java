@@ -23,6 +23,7 @@ package org.apache.directory.api.ldap.codec.actions.response.intermediate;
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.asn1.util.Oid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.IntermediateOperationFactory;
@@ -82,9 +83,10 @@ public class StoreIntermediateResponseName extends GrammarAction<LdapMessageCont
             byte[] responseNameBytes = tlv.getValue().getData();
 
             // Check if the OID is valid
-            String oidStr = Strings.utf8ToString( responseNameBytes );
+            InternedOid internedName = InternedOid.get( responseNameBytes );
+            String oidStr = ( internedName != null ) ? internedName.getValue() : Strings.utf8ToString( responseNameBytes );
 
-            if ( Oid.isOid( oidStr ) )
+            if ( ( internedName != null ) || Oid.isOid( oidStr ) )
             {
                 // Get the factory
                 IntermediateOperationFactory intermediateFactory = 
@@ -20,6 +20,7 @@
 package org.apache.directory.api.ldap.codec.actions.response.search.entry;
 
 
+import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
 import org.apache.directory.api.i18n.I18n;
@@ -60,7 +61,7 @@ public class StoreSearchResultAttributeValue extends GrammarAction<LdapMessageCo
     /**
      * {@inheritDoc}
      */
-    public void action( LdapMessageContainer<SearchResultEntry> container )
+    public void action( LdapMessageContainer<SearchResultEntry> container ) throws DecoderException
     {
         Attribute currentAttribute = container.getCurrentAttribute();
 
@@ -78,6 +79,11 @@ public class StoreSearchResultAttributeValue extends GrammarAction<LdapMessageCo
                     LOG.debug( I18n.msg( I18n.MSG_05180_NULL_ATTRIBUTE_VALUE ) );
                 }
             }
+            else if ( tlv.getValue().isStreamed() )
+            {
+                // The value has been written to the sink, it's not stored in the attribute
+                container.closeValueChannel();
+            }
             else
             {
                 if ( container.isBinary( container.getCurrentAttribute().getId() ) )
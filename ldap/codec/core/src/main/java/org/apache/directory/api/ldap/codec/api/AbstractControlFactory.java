@@ -20,8 +20,10 @@
 package org.apache.directory.api.ldap.codec.api;
 
 import java.nio.ByteBuffer;
+import java.util.function.Function;
 
 import org.apache.directory.api.asn1.DecoderException;
+import org.apache.directory.api.asn1.ber.AbstractContainer;
 import org.apache.directory.api.asn1.ber.Asn1Container;
 import org.apache.directory.api.asn1.ber.Asn1Decoder;
 import org.apache.directory.api.asn1.util.Asn1Buffer;
@@ -41,6 +43,9 @@ public abstract class AbstractControlFactory<C extends Control> implements Contr
     /** The control's OID */
     protected String oid;
 
+    /** The container each thread reuses to decode this factory's control values */
+    private final ThreadLocal<AbstractContainer> containers = new ThreadLocal<>();
+
     /**
      *
      * Creates a new instance of AbstractControlFactory.
@@ -94,4 +99,41 @@ public abstract class AbstractControlFactory<C extends Control> implements Contr
         container.setControl( control );
         Asn1Decoder.decode( buffer, ( Asn1Container ) container );
     }
+
+
+    /**
+     * Decodes a control value using a container reused by the current thread, instead
+     * of allocating a new container for each control. This matters for the controls
+     * sent along with every entry, like the SyncStateValue control of a syncrepl
+     * stream.
+     *
+     * @param control The control to feed
+     * @param controlBytes The control value
+     * @param containerFactory The container constructor, used when the thread has no container yet
+     * @param <T> The container type
+     * @throws DecoderException If the decoding failed
+     */
+    protected <T extends AbstractContainer & ControlContainer> void decodeValue( Control control, byte[] controlBytes,
+        Function<Control, T> containerFactory ) throws DecoderException
+    {
+        AbstractContainer container = containers.get();
+
+        if ( container == null )
+        {
+            container = containerFactory.apply( control );
+        }
+        else
+        {
+            // Take the container while it's in use : a nested decoding gets its own
+            containers.set( null );
+        }
+
+        // A container which failed to decode is simply dropped
+        decodeValue( ( ControlContainer ) container, control, controlBytes );
+
+        container.clean();
+        container.setGrammarEndAllowed( false );
+        container.setDecodedBytes( 0 );
+        containers.set( container );
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.api;
+
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+
+
+/**
+ * Receives the values of some attributes while a SearchResultEntry is decoded, instead of
+ * having them stored in memory. This is meant for very large values, like photos, CRLs or
+ * blobs : the decoder writes each chunk it receives to the channel, so the value is never
+ * held in the heap.
+ * <br>
+ * The streamed values are only available through the sink : they are not added to the
+ * decoded attribute, which only contains the values stored in memory. An attribute which
+ * values have all been streamed is present in the entry, with no value.
+ * <br>
+ * The maximum PDU size of the decoder applies to the whole entry, streamed values included,
+ * as the PDU length is checked before its values are read. It has to be raised to receive
+ * entries larger than this size.
+ * <br>
+ * A sink is shared by all the decoders using it, and must be thread safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface AttributeValueSink
+{
+    /**
+     * Called when an attribute value starts.
+     *
+     * @param dn The entry's DN
+     * @param attributeId The attribute, as received
+     * @param length The value length
+     * @return The channel receiving the value bytes, or <code>null</code> if the value has to be
+     * stored in the attribute as usual
+     * @throws IOException If the channel can't be created
+     */
+    WritableByteChannel open( Dn dn, String attributeId, int length ) throws IOException;
+
+
+    /**
+     * Called when the whole value has been written to the channel.
+     *
+     * @param channel The channel
+     * @throws IOException If the channel can't be closed
+     */
+    void close( WritableByteChannel channel ) throws IOException;
+
+
+    /**
+     * Called when the decoding has been aborted before the value has been completely
+     * written to the channel.
+     *
+     * @param channel The channel
+     */
+    void abort( WritableByteChannel channel );
+}
@@ -28,6 +28,7 @@ import org.apache.directory.api.asn1.EncoderException;
 import org.apache.directory.api.asn1.ber.tlv.BerValue;
 import org.apache.directory.api.asn1.ber.tlv.UniversalTag;
 import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.factory.AbandonRequestFactory;
 import org.apache.directory.api.ldap.codec.factory.AddRequestFactory;
@@ -137,7 +138,7 @@ public final class LdapEncoder
             }
 
             // The OID
-            BerValue.encodeOctetString( buffer, control.getOid() );
+            BerValue.encodeOctetString( buffer, InternedOid.getBytes( control.getOid() ) );
 
             // The Control Sequence
             BerValue.encodeSequence( buffer, start );
@@ -222,7 +223,16 @@ public final class LdapEncoder
                 return;
 
             case SEARCH_REQUEST :
-                SearchRequestFactory.INSTANCE.encodeReverse( codec, buffer, message );
+                if ( message instanceof PreparedSearchRequest )
+                {
+                    // The search operation has already been encoded by its template
+                    ( ( PreparedSearchRequest ) message ).encodeReverse( buffer );
+                }
+                else
+                {
+                    SearchRequestFactory.INSTANCE.encodeReverse( codec, buffer, message );
+                }
+
                 return;
 
             case SEARCH_RESULT_DONE :
@@ -274,6 +284,24 @@ public final class LdapEncoder
      * @throws EncoderException If anything goes wrong.
      */
     public static ByteBuffer encodeMessage( Asn1Buffer buffer, LdapApiService codec, Message message ) throws EncoderException
+    {
+        encodeMessageInBuffer( buffer, codec, message );
+
+        return buffer.getBytes();
+    }
+
+
+    /**
+     * Encode a message in the given buffer, without extracting the result. The caller
+     * gets it using {@link Asn1Buffer#getBytes()} or {@link Asn1Buffer#getBuffers()}.
+     *
+     * @param buffer The Asn1Buffer instance in which we store the result
+     * @param codec The LdapApiService instance
+     * @param message The message to encode
+     * @throws EncoderException If anything goes wrong.
+     */
+    public static void encodeMessageInBuffer( Asn1Buffer buffer, LdapApiService codec, Message message )
+        throws EncoderException
     {
         int start = buffer.getPos();
 
@@ -296,7 +324,5 @@ public final class LdapEncoder
 
         // The LdapMessage Sequence
         BerValue.encodeSequence( buffer );
-
-        return buffer.getBytes();
     }
 }
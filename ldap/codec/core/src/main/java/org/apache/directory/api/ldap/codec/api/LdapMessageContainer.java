@@ -20,9 +20,13 @@
 package org.apache.directory.api.ldap.codec.api;
 
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.AbstractContainer;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
+import org.apache.directory.api.asn1.ber.tlv.UniversalTag;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.LdapMessageGrammar;
 import org.apache.directory.api.ldap.codec.LdapStatesEnum;
@@ -35,6 +39,7 @@ import org.apache.directory.api.ldap.model.message.ExtendedResponse;
 import org.apache.directory.api.ldap.model.message.LdapResult;
 import org.apache.directory.api.ldap.model.message.Message;
 import org.apache.directory.api.ldap.model.message.ResultResponse;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
 import org.apache.directory.api.ldap.model.name.DnFactory;
 
 
@@ -109,6 +114,15 @@ public class LdapMessageContainer<E extends Message> extends AbstractContainer
     /** The maximum accepted depth for nested search filters. Defaults to {@link #DEFAULT_MAX_FILTER_DEPTH} */
     private int maxFilterDepth = DEFAULT_MAX_FILTER_DEPTH;
 
+    /** Tells if complete SearchResultEntry PDUs can be decoded by the {@link SearchResultEntryDecoder}. Disabled by default */
+    private boolean searchResultEntryFastPath = false;
+
+    /** The sink receiving the large attribute values, if any */
+    private AttributeValueSink attributeValueSink;
+
+    /** The channel opened by the sink for the value being decoded */
+    private WritableByteChannel pendingChannel;
+
 
     /**
      * Creates a new LdapMessageContainer object. We will store ten grammars,
@@ -180,6 +194,13 @@ public class LdapMessageContainer<E extends Message> extends AbstractContainer
     {
         super.clean();
 
+        if ( pendingChannel != null )
+        {
+            // The value has not been fully received
+            attributeValueSink.abort( pendingChannel );
+            pendingChannel = null;
+        }
+
         messageId = -1;
         tlvId = -1;
         message = null;
@@ -577,6 +598,121 @@ public class LdapMessageContainer<E extends Message> extends AbstractContainer
     }
 
 
+    /**
+     * Tells if complete SearchResultEntry PDUs are decoded by the {@link SearchResultEntryDecoder}
+     * instead of the generic grammar
+     *
+     * @return <code>true</code> if the fast path is enabled. It is disabled by default
+     */
+    public boolean isSearchResultEntryFastPath()
+    {
+        return searchResultEntryFastPath;
+    }
+
+
+    /**
+     * Enables or disables the decoding of complete SearchResultEntry PDUs by the
+     * {@link SearchResultEntryDecoder}. Fragmented or unusual PDUs always go through
+     * the generic grammar. The fast path is disabled by default, so that all the PDUs
+     * are decoded and checked by the grammar unless it is explicitly requested.
+     *
+     * @param searchResultEntryFastPath <code>true</code> to enable the fast path
+     */
+    public void setSearchResultEntryFastPath( boolean searchResultEntryFastPath )
+    {
+        this.searchResultEntryFastPath = searchResultEntryFastPath;
+    }
+
+
+    /**
+     * @return The sink receiving the large attribute values of the SearchResultEntry
+     * messages, or <code>null</code> if all the values are stored in memory
+     */
+    public AttributeValueSink getAttributeValueSink()
+    {
+        return attributeValueSink;
+    }
+
+
+    /**
+     * Sets the sink receiving the large attribute values of the SearchResultEntry messages.
+     * Those messages are then always decoded by the generic grammar.
+     *
+     * @param attributeValueSink The sink, or <code>null</code> to store all the values in memory
+     */
+    public void setAttributeValueSink( AttributeValueSink attributeValueSink )
+    {
+        this.attributeValueSink = attributeValueSink;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * The attribute values of a SearchResultEntry are offered to the {@link AttributeValueSink}, if any.
+     */
+    @Override
+    public WritableByteChannel getValueChannel() throws DecoderException
+    {
+        if ( ( attributeValueSink == null ) || ( currentAttribute == null )
+            || !( message instanceof SearchResultEntry ) )
+        {
+            return null;
+        }
+
+        Enum<?> transition = getTransition();
+
+        if ( ( transition != LdapStatesEnum.VALS_SR_STATE ) && ( transition != LdapStatesEnum.VALUE_SR_STATE ) )
+        {
+            return null;
+        }
+
+        TLV tlv = getCurrentTLV();
+
+        if ( tlv.getTag() != UniversalTag.OCTET_STRING.getValue() )
+        {
+            return null;
+        }
+
+        try
+        {
+            pendingChannel = attributeValueSink.open( ( ( SearchResultEntry ) message ).getObjectName(),
+                currentAttribute.getUpId(), tlv.getLength() );
+        }
+        catch ( IOException ioe )
+        {
+            throw new DecoderException( I18n.err( I18n.ERR_05161_ATTRIBUTE_VALUE_SINK_FAILURE,
+                currentAttribute.getUpId(), ioe.getMessage() ), ioe );
+        }
+
+        return pendingChannel;
+    }
+
+
+    /**
+     * Closes the channel which received the current attribute value.
+     *
+     * @throws DecoderException If the sink failed
+     */
+    public void closeValueChannel() throws DecoderException
+    {
+        WritableByteChannel channel = pendingChannel;
+        pendingChannel = null;
+
+        try
+        {
+            attributeValueSink.close( channel );
+        }
+        catch ( IOException ioe )
+        {
+            attributeValueSink.abort( channel );
+
+            throw new DecoderException( I18n.err( I18n.ERR_05161_ATTRIBUTE_VALUE_SINK_FAILURE,
+                currentAttribute.getUpId(), ioe.getMessage() ), ioe );
+        }
+    }
+
+
     /**
      * Get the TopFilter element
      * 
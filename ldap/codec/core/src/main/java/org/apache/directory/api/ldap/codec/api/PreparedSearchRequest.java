@@ -0,0 +1,209 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.api;
+
+
+import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.filter.ExprNode;
+import org.apache.directory.api.ldap.model.message.AliasDerefMode;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+
+
+/**
+ * A SearchRequest created by a {@link SearchRequestTemplate}. Its search operation is
+ * encoded from the template, with the parameters spliced in, instead of being encoded
+ * from scratch. For this reason, the search operation can't be modified, but the
+ * message ID and the controls can.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class PreparedSearchRequest extends SearchRequestImpl
+{
+    /** The template this request has been created from */
+    private final SearchRequestTemplate template;
+
+    /** The encoded parameters */
+    private final byte[][] parameters;
+
+
+    /**
+     * Creates a new PreparedSearchRequest
+     *
+     * @param template The template
+     * @param parameters The encoded parameters
+     * @param filter The template filter, with the parameters replaced
+     */
+    /* no qualifier */ PreparedSearchRequest( SearchRequestTemplate template, byte[][] parameters, ExprNode filter )
+    {
+        super();
+        this.template = template;
+        this.parameters = parameters;
+
+        super.setBase( template.getBase() );
+        super.setScope( template.getScope() );
+        super.setDerefAliases( template.getDerefAliases() );
+        super.setSizeLimit( template.getSizeLimit() );
+        super.setTimeLimit( template.getTimeLimit() );
+        super.setTypesOnly( template.getTypesOnly() );
+        super.addAttributes( template.getAttributes().toArray( new String[0] ) );
+        super.setFilter( filter );
+    }
+
+
+    /**
+     * @return The template this request has been created from
+     */
+    public SearchRequestTemplate getTemplate()
+    {
+        return template;
+    }
+
+
+    /**
+     * Encodes the search operation, using the template.
+     *
+     * @param buffer The buffer where to put the PDU
+     */
+    /* no qualifier */ void encodeReverse( Asn1Buffer buffer )
+    {
+        template.encodeReverse( buffer, parameters );
+    }
+
+
+    private static UnsupportedOperationException readOnly()
+    {
+        return new UnsupportedOperationException( I18n.err( I18n.ERR_05209_PREPARED_REQUEST_READ_ONLY ) );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setBase( Dn base )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setDerefAliases( AliasDerefMode aliasDerefAliases )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setFilter( ExprNode filter )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setFilter( String filter )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setFilter( SchemaManager schemaManager, String filter )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setScope( SearchScope scope )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setSizeLimit( long entriesMax )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setTimeLimit( int secondsMax )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest setTypesOnly( boolean typesOnly )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest addAttributes( String... attributesToAdd )
+    {
+        throw readOnly();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchRequest removeAttribute( String attribute )
+    {
+        throw readOnly();
+    }
+}
@@ -20,6 +20,13 @@
 package org.apache.directory.api.ldap.codec.api;
 
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.security.sasl.Sasl;
 import javax.security.sasl.SaslClient;
 import javax.security.sasl.SaslException;
@@ -28,6 +35,9 @@ import javax.security.sasl.SaslServer;
 import org.apache.directory.api.ldap.model.constants.SaslQoP;
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.mina.core.filterchain.IoFilterAdapter;
+import org.apache.mina.core.future.DefaultWriteFuture;
+import org.apache.mina.core.future.IoFutureListener;
+import org.apache.mina.core.future.WriteFuture;
 import org.apache.mina.core.session.IoSession;
 import org.apache.mina.core.write.DefaultWriteRequest;
 import org.apache.mina.core.write.WriteRequest;
@@ -42,6 +52,10 @@ import org.slf4j.LoggerFactory;
  * CRAM-MD5, only support authentication and thus do not need this filter.  DIGEST-MD5
  * and GSSAPI do support message integrity and confidentiality and, therefore,
  * do need this filter.
+ * <br>
+ * The filter is bound to a single session. The PDUs written concurrently are gathered
+ * in SASL messages up to the negotiated max buffer size, and all the SASL messages received
+ * in a single buffer are unwrapped and forwarded at once.
  * 
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -64,13 +78,19 @@ public class SaslFilter extends IoFilterAdapter
     /**
      * A session attribute key that holds the received bytes of partially received
      * SASL message.
+     * 
+     * @deprecated The partially received message is kept by the filter
      */
+    @Deprecated
     public static final String BYTES = SaslFilter.class.getName() + ".Buffer";
 
     /**
      * A session attribute key that holds the offset of partially received
      * SASL message.
+     * 
+     * @deprecated The partially received message is kept by the filter
      */
+    @Deprecated
     public static final String OFFSET = SaslFilter.class.getName() + ".Offset";
 
     /** The SASL client, only set if the filter is used at the client side. */
@@ -85,6 +105,36 @@ public class SaslFilter extends IoFilterAdapter
     /** The negotiated max buffer size */
     private int maxBufferSize;
 
+    /** The lock protecting the SASL client or server, which is used by both the reads and the writes */
+    private final Object saslLock = new Object();
+
+    /** The lock protecting the partially received message */
+    private final Object receiveLock = new Object();
+
+    /** The buffer receiving a partial message, reused for the next ones */
+    private byte[] receiveBuffer;
+
+    /** The expected length of the message being received, or a negative value when it's not known yet */
+    private int frameLength = -1;
+
+    /** The length bytes read so far */
+    private int header;
+
+    /** The number of length bytes read so far */
+    private int headerLength;
+
+    /** The number of message bytes received so far */
+    private int frameOffset;
+
+    /** The write requests waiting to be wrapped */
+    private final Queue<WriteRequest> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    /** Tells if a thread is sending the pending write requests */
+    private final AtomicBoolean flushing = new AtomicBoolean( false );
+
+    /** The buffer gathering the requests to wrap, only used by the flushing thread */
+    private byte[] sendBuffer;
+
     /**
      * Creates a new instance of SaslFilter.  The SaslFilter must be constructed
      * with a SASL client that has completed SASL negotiation.  The SASL client
@@ -153,7 +203,7 @@ public class SaslFilter extends IoFilterAdapter
 
 
     @Override
-    public synchronized void messageReceived( NextFilter nextFilter, IoSession session, Object message )
+    public void messageReceived( NextFilter nextFilter, IoSession session, Object message )
         throws SaslException
     {
         LOG.debug( "Message received:  {}", message );
@@ -166,67 +216,153 @@ public class SaslFilter extends IoFilterAdapter
         }
 
         /*
-         * Unwrap the data for mechanisms that support QoP (DIGEST-MD5, GSSAPI).
+         * Unwrap the data for mechanisms that support QoP (DIGEST-MD5, GSSAPI). All the
+         * SASL messages completed by this buffer are forwarded at once.
          */
-        IoBuffer buf = ( IoBuffer ) message;
+        IoBuffer unwrapped;
+
+        synchronized ( receiveLock )
+        {
+            unwrapped = unwrapAll( ( IoBuffer ) message );
+        }
+
+        if ( unwrapped != null )
+        {
+            nextFilter.messageReceived( session, unwrapped );
+        }
+    }
+
+
+    /**
+     * Unwraps all the SASL messages completed by a received buffer. A partially received
+     * message is kept, in a reused buffer, until the next buffer is received.
+     *
+     * @param buf The received buffer
+     * @return The unwrapped data, or <code>null</code> if no SASL message has been completed
+     * @throws SaslException If a message cannot be unwrapped
+     */
+    private IoBuffer unwrapAll( IoBuffer buf ) throws SaslException
+    {
+        List<byte[]> tokens = null;
+
         while ( buf.hasRemaining() )
         {
             /*
-             * Check for a previously received partial SASL message which is stored in the session.
-             * Otherwise read the first 4 bytes which is the length and allocate the bytes.
-             * Ensure the buffer size doesn't exceed the negotiated max buffer size.
+             * Read the 4 bytes length first. They may have been split.
              */
-            byte[] bytes = ( byte[] ) session.getAttribute( BYTES, null );
-            int offset = ( int ) session.getAttribute( OFFSET, -1 );
-            if ( bytes == null )
+            if ( frameLength < 0 )
             {
-                int bufferSize = buf.getInt();
-                if ( bufferSize > maxBufferSize )
+                while ( ( headerLength < 4 ) && buf.hasRemaining() )
+                {
+                    header = ( header << 8 ) | ( buf.get() & 0xFF );
+                    headerLength++;
+                }
+
+                if ( headerLength < 4 )
+                {
+                    LOG.debug( "Partial SASL message length received" );
+                    break;
+                }
+
+                frameLength = header;
+                frameOffset = 0;
+                header = 0;
+                headerLength = 0;
+
+                /*
+                 * Ensure the buffer size doesn't exceed the negotiated max buffer size.
+                 */
+                if ( ( frameLength < 0 ) || ( frameLength > maxBufferSize ) )
                 {
                     throw new IllegalStateException(
-                        bufferSize + " exceeds the negotiated receive buffer size limit: " + maxBufferSize );
+                        frameLength + " exceeds the negotiated receive buffer size limit: " + maxBufferSize );
                 }
-                bytes = new byte[bufferSize];
-                offset = 0;
             }
 
-            /*
-             * Get the buffer as bytes. Handle the case that only a part of the SASL message was received.
-             */
-            int length = Math.min( bytes.length - offset, buf.remaining() );
-            buf.get( bytes, offset, length );
+            byte[] token;
 
-            /*
-             * Check if the full SASL message was received. If not store the partially received data in
-             * the session so it can be resumed when the next message is received.
-             */
-            offset += length;
-            if ( offset < bytes.length )
+            if ( ( frameOffset == 0 ) && buf.hasArray() && ( buf.remaining() >= frameLength ) )
             {
-                LOG.debug( "Partial SASL message received:  {}/{}", offset, bytes.length );
-                session.setAttribute( BYTES, bytes );
-                session.setAttribute( OFFSET, offset );
-                break;
+                /*
+                 * The whole SASL message is in the buffer : unwrap it in place.
+                 */
+                LOG.debug( "Will use SASL to unwrap received message of length:  {}", frameLength );
+                token = unwrap( buf.array(), buf.arrayOffset() + buf.position(), frameLength );
+                buf.skip( frameLength );
             }
+            else
+            {
+                /*
+                 * Gather the SASL message in the receive buffer, which is only reallocated
+                 * when a larger message is received.
+                 */
+                if ( ( receiveBuffer == null ) || ( receiveBuffer.length < frameLength ) )
+                {
+                    byte[] newBuffer = new byte[frameLength];
 
-            /*
-             * Unwrap the SASL message and forward it to the next filter.
-             */
-            LOG.debug( "Will use SASL to unwrap received message of length:  {}", bytes.length );
-            byte[] token = unwrap( bytes, 0, bytes.length );
-            nextFilter.messageReceived( session, IoBuffer.wrap( token ) );
+                    if ( frameOffset > 0 )
+                    {
+                        System.arraycopy( receiveBuffer, 0, newBuffer, 0, frameOffset );
+                    }
 
-            /*
-             * Finally clear the session attributes.
-             */
-            session.removeAttribute( BYTES );
-            session.removeAttribute( OFFSET );
+                    receiveBuffer = newBuffer;
+                }
+
+                int length = Math.min( frameLength - frameOffset, buf.remaining() );
+                buf.get( receiveBuffer, frameOffset, length );
+                frameOffset += length;
+
+                if ( frameOffset < frameLength )
+                {
+                    LOG.debug( "Partial SASL message received:  {}/{}", frameOffset, frameLength );
+                    break;
+                }
+
+                LOG.debug( "Will use SASL to unwrap received message of length:  {}", frameLength );
+                token = unwrap( receiveBuffer, 0, frameLength );
+            }
+
+            frameLength = -1;
+
+            if ( tokens == null )
+            {
+                tokens = new ArrayList<>();
+            }
+
+            tokens.add( token );
+        }
+
+        if ( tokens == null )
+        {
+            return null;
+        }
+
+        if ( tokens.size() == 1 )
+        {
+            return IoBuffer.wrap( tokens.get( 0 ) );
         }
+
+        // More than one message : concatenate them
+        int length = 0;
+
+        for ( byte[] token : tokens )
+        {
+            length += token.length;
+        }
+
+        IoBuffer unwrapped = IoBuffer.allocate( length );
+
+        for ( byte[] token : tokens )
+        {
+            unwrapped.put( token );
+        }
+
+        return unwrapped.flip();
     }
 
 
     @Override
-    public synchronized void filterWrite( NextFilter nextFilter, IoSession session, WriteRequest writeRequest )
+    public void filterWrite( NextFilter nextFilter, IoSession session, WriteRequest writeRequest )
         throws SaslException
     {
         LOG.debug( "Filtering write request:  {}", writeRequest );
@@ -251,40 +387,188 @@ public class SaslFilter extends IoFilterAdapter
         }
 
         /*
-         * Wrap the data for mechanisms that support QoP (DIGEST-MD5, GSSAPI).
+         * Wrap the data for mechanisms that support QoP (DIGEST-MD5, GSSAPI). The request
+         * is queued : if another thread is already wrapping, it will send it with its own
+         * messages, otherwise we send it, with the ones queued in the meantime.
          */
+        pendingWrites.add( writeRequest );
 
-        /*
-         * Get the buffer as bytes.
-         */
-        IoBuffer buf = ( IoBuffer ) writeRequest.getMessage();
-        int bufferLength = buf.remaining();
-        byte[] bufferBytes = new byte[bufferLength];
-        buf.get( bufferBytes );
+        while ( !pendingWrites.isEmpty() && flushing.compareAndSet( false, true ) )
+        {
+            try
+            {
+                flush( nextFilter, session );
+            }
+            finally
+            {
+                flushing.set( false );
+            }
+        }
+    }
 
-        LOG.info( "Will use SASL to wrap message of length:  {}", bufferLength );
 
+    /**
+     * Sends the pending write requests. The consecutive requests are gathered in
+     * a single SASL message, as long as it does not exceed the negotiated max buffer size.
+     *
+     * @param nextFilter The next filter
+     * @param session The session
+     * @throws SaslException If a message cannot be wrapped
+     */
+    private void flush( NextFilter nextFilter, IoSession session ) throws SaslException
+    {
         /*
          * Ensure to not send larger SASL message than negotiated.
          */
         int max = maxBufferSize - 200;
-        for ( int offset = 0; offset < bufferLength; offset += max )
+
+        if ( sendBuffer == null )
         {
-            int length = Math.min( bufferLength - offset, max );
-            byte[] saslLayer = wrap( bufferBytes, offset, length );
+            sendBuffer = new byte[max];
+        }
 
-            /*
-             * Prepend 4 byte length.
-             */
-            IoBuffer saslLayerBuffer = IoBuffer.allocate( 4 + saslLayer.length );
-            saslLayerBuffer.putInt( saslLayer.length );
-            saslLayerBuffer.put( saslLayer );
-            saslLayerBuffer.position( 0 );
-            saslLayerBuffer.limit( 4 + saslLayer.length );
-
-            LOG.debug( "Sending encrypted token of length {}.", saslLayerBuffer.limit() );
-            nextFilter.filterWrite( session, new DefaultWriteRequest( saslLayerBuffer, writeRequest.getFuture() ) );
+        List<WriteFuture> futures = new ArrayList<>();
+        int length = 0;
+        WriteRequest writeRequest;
+
+        while ( ( writeRequest = pendingWrites.poll() ) != null )
+        {
+            IoBuffer buf = ( IoBuffer ) writeRequest.getMessage();
+            int bufferLength = buf.remaining();
+
+            if ( length + bufferLength > max )
+            {
+                // Send what we have gathered so far
+                if ( length > 0 )
+                {
+                    send( nextFilter, session, sendBuffer, 0, length, futures );
+                    futures.clear();
+                    length = 0;
+                }
+
+                if ( bufferLength > max )
+                {
+                    // A large message is sent in as many SASL messages as needed
+                    sendLarge( nextFilter, session, buf, max, writeRequest.getFuture() );
+
+                    continue;
+                }
+            }
+
+            buf.get( sendBuffer, length, bufferLength );
+            length += bufferLength;
+            futures.add( writeRequest.getFuture() );
+        }
+
+        if ( length > 0 )
+        {
+            send( nextFilter, session, sendBuffer, 0, length, futures );
+        }
+    }
+
+
+    /**
+     * Sends a message larger than the negotiated max buffer size
+     *
+     * @param nextFilter The next filter
+     * @param session The session
+     * @param buf The message
+     * @param max The maximum length of a wrapped message
+     * @param future The message future
+     * @throws SaslException If a message cannot be wrapped
+     */
+    private void sendLarge( NextFilter nextFilter, IoSession session, IoBuffer buf, int max, WriteFuture future )
+        throws SaslException
+    {
+        List<WriteFuture> futures = Collections.singletonList( future );
+
+        while ( buf.hasRemaining() )
+        {
+            int length = Math.min( buf.remaining(), max );
+
+            if ( buf.hasArray() )
+            {
+                send( nextFilter, session, buf.array(), buf.arrayOffset() + buf.position(), length, futures );
+                buf.skip( length );
+            }
+            else
+            {
+                buf.get( sendBuffer, 0, length );
+                send( nextFilter, session, sendBuffer, 0, length, futures );
+            }
+        }
+    }
+
+
+    /**
+     * Wraps some data and sends the resulting SASL message
+     *
+     * @param nextFilter The next filter
+     * @param session The session
+     * @param buffer The buffer containing the data
+     * @param offset The data position in the buffer
+     * @param length The data length
+     * @param futures The futures of the write requests sent in this message
+     * @throws SaslException If the data cannot be wrapped
+     */
+    private void send( NextFilter nextFilter, IoSession session, byte[] buffer, int offset, int length,
+        List<WriteFuture> futures ) throws SaslException
+    {
+        LOG.debug( "Will use SASL to wrap message of length:  {}", length );
+
+        byte[] saslLayer;
+
+        try
+        {
+            saslLayer = wrap( buffer, offset, length );
         }
+        catch ( SaslException se )
+        {
+            for ( WriteFuture requestFuture : futures )
+            {
+                requestFuture.setException( se );
+            }
+
+            throw se;
+        }
+
+        /*
+         * Prepend 4 byte length.
+         */
+        IoBuffer saslLayerBuffer = IoBuffer.allocate( 4 + saslLayer.length );
+        saslLayerBuffer.putInt( saslLayer.length );
+        saslLayerBuffer.put( saslLayer );
+        saslLayerBuffer.flip();
+
+        WriteFuture future;
+
+        if ( futures.size() == 1 )
+        {
+            future = futures.get( 0 );
+        }
+        else
+        {
+            // Notify all the gathered requests when the SASL message is written
+            WriteFuture[] gathered = futures.toArray( new WriteFuture[0] );
+            future = new DefaultWriteFuture( session );
+            future.addListener( ( IoFutureListener<WriteFuture> ) written ->
+            {
+                for ( WriteFuture requestFuture : gathered )
+                {
+                    if ( written.isWritten() )
+                    {
+                        requestFuture.setWritten();
+                    }
+                    else
+                    {
+                        requestFuture.setException( written.getException() );
+                    }
+                }
+            } );
+        }
+
+        LOG.debug( "Sending encrypted token of length {}.", saslLayerBuffer.limit() );
+        nextFilter.filterWrite( session, new DefaultWriteRequest( saslLayerBuffer, future ) );
     }
 
 
@@ -299,13 +583,16 @@ public class SaslFilter extends IoFilterAdapter
      */
     private byte[] wrap( byte[] buffer, int offset, int length ) throws SaslException
     {
-        if ( saslClient != null )
+        synchronized ( saslLock )
         {
-            return saslClient.wrap( buffer, offset, length );
-        }
-        else
-        {
-            return saslServer.wrap( buffer, offset, length );
+            if ( saslClient != null )
+            {
+                return saslClient.wrap( buffer, offset, length );
+            }
+            else
+            {
+                return saslServer.wrap( buffer, offset, length );
+            }
         }
     }
 
@@ -321,13 +608,16 @@ public class SaslFilter extends IoFilterAdapter
      */
     private byte[] unwrap( byte[] buffer, int offset, int length ) throws SaslException
     {
-        if ( saslClient != null )
-        {
-            return saslClient.unwrap( buffer, offset, length );
-        }
-        else
+        synchronized ( saslLock )
         {
-            return saslServer.unwrap( buffer, offset, length );
+            if ( saslClient != null )
+            {
+                return saslClient.unwrap( buffer, offset, length );
+            }
+            else
+            {
+                return saslServer.unwrap( buffer, offset, length );
+            }
         }
     }
 
@@ -0,0 +1,787 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.api;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import org.apache.directory.api.asn1.ber.tlv.BerValue;
+import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.codec.factory.SearchRequestFactory;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.filter.BranchNode;
+import org.apache.directory.api.ldap.model.filter.ExprNode;
+import org.apache.directory.api.ldap.model.filter.ExtensibleNode;
+import org.apache.directory.api.ldap.model.filter.SimpleNode;
+import org.apache.directory.api.ldap.model.filter.SubstringNode;
+import org.apache.directory.api.ldap.model.message.AliasDerefMode;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * A SearchRequest which is encoded once, and used to create {@link PreparedSearchRequest}s
+ * only differing by some filter assertion values. The parameters are the assertion values
+ * equal to {@link #PARAMETER} in the template filter, like in <code>(uid=?)</code> or
+ * <code>(&amp;(objectClass=person)(|(uid=?)(mail=?)))</code>. They are numbered in the order
+ * they appear in the filter.
+ * <br>
+ * An assertion value only made of question marks is escaped by adding one more question mark :
+ * <code>(description=??)</code> matches the entries whose description is <code>?</code>, and
+ * <code>(description=???)</code> the ones whose description is <code>??</code>.
+ * <br>
+ * The search operation is encoded when the template is created, and each prepared request
+ * only splices its parameters and recomputes the enclosing lengths. The parameter values are
+ * stored as they are in the PDU, they don't have to be escaped.
+ * <br>
+ * A template is immutable and can be shared by many threads :
+ * <pre>
+ * SearchRequest searchRequest = new SearchRequestImpl();
+ * searchRequest.setBase( new Dn( "ou=people,dc=example,dc=com" ) );
+ * searchRequest.setScope( SearchScope.ONELEVEL );
+ * searchRequest.setFilter( "(uid=?)" );
+ * searchRequest.addAttributes( "cn", "mail" );
+ *
+ * SearchRequestTemplate template = new SearchRequestTemplate( codec, searchRequest );
+ *
+ * // For each lookup
+ * try ( SearchCursor cursor = connection.search( template.newRequest( uid ) ) )
+ * {
+ *     ...
+ * }
+ * </pre>
+ * The controls of the template are added to each prepared request, and are encoded with the
+ * message, as any control added later on.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SearchRequestTemplate
+{
+    /** The filter assertion value standing for a parameter */
+    public static final String PARAMETER = "?";
+
+    /** The character used for the parameters, and to escape the values made of this character */
+    private static final char PARAMETER_CHAR = '?';
+
+    /** The request base */
+    private final Dn base;
+
+    /** The request scope */
+    private final SearchScope scope;
+
+    /** The alias dereferencing mode */
+    private final AliasDerefMode derefAliases;
+
+    /** The size limit */
+    private final long sizeLimit;
+
+    /** The time limit */
+    private final int timeLimit;
+
+    /** The typesOnly flag */
+    private final boolean typesOnly;
+
+    /** The requested attributes */
+    private final List<String> attributes;
+
+    /** The filter, with the parameters */
+    private final ExprNode filter;
+
+    /** The filter, with the escaped values unescaped and the parameters replaced by the marker */
+    private final ExprNode markedFilter;
+
+    /** A value which is not used anywhere in the filter, standing for the parameters */
+    private final String marker;
+
+    /** The controls to add to each request */
+    private final Control[] controls;
+
+    /** Tells if the requests follow the referrals */
+    private final boolean followReferrals;
+
+    /** Tells if the requests ignore the referrals */
+    private final boolean ignoreReferrals;
+
+    /** The encoded search operation */
+    private final Segment protocolOp;
+
+    /** The number of parameters */
+    private final int parameterCount;
+
+
+    /**
+     * Creates a new SearchRequestTemplate. The given request is copied, later changes are
+     * not seen by the template.
+     *
+     * @param codec The LDAP Service to use
+     * @param template The SearchRequest to prepare, with its parameters in the filter
+     */
+    public SearchRequestTemplate( LdapApiService codec, SearchRequest template )
+    {
+        base = template.getBase();
+        scope = template.getScope();
+        derefAliases = template.getDerefAliases();
+        sizeLimit = template.getSizeLimit();
+        timeLimit = template.getTimeLimit();
+        typesOnly = template.getTypesOnly();
+        attributes = Collections.unmodifiableList( new ArrayList<>( template.getAttributes() ) );
+        filter = template.getFilter().clone();
+        controls = template.getControls().values().toArray( new Control[0] );
+        followReferrals = template.isFollowReferrals();
+        ignoreReferrals = template.isIgnoreReferrals();
+
+        // Replace the parameters by a value which can't be confused with an unescaped value
+        Set<String> values = new HashSet<>();
+        rewrite( filter, value ->
+        {
+            values.add( value );
+
+            return null;
+        } );
+
+        int index = 0;
+
+        while ( values.contains( PARAMETER + index ) )
+        {
+            index++;
+        }
+
+        marker = PARAMETER + index;
+        markedFilter = filter.clone();
+        rewrite( markedFilter, value ->
+        {
+            if ( PARAMETER.equals( value ) )
+            {
+                return marker;
+            }
+            else if ( isEscaped( value ) )
+            {
+                return value.substring( 1 );
+            }
+            else
+            {
+                return null;
+            }
+        } );
+
+        // Only the search operation is encoded : the message ID and the controls are not needed
+        SearchRequest markedRequest = new SearchRequestImpl();
+        markedRequest.setBase( base );
+        markedRequest.setScope( scope );
+        markedRequest.setDerefAliases( derefAliases );
+        markedRequest.setSizeLimit( sizeLimit );
+        markedRequest.setTimeLimit( timeLimit );
+        markedRequest.setTypesOnly( typesOnly );
+        markedRequest.setFilter( markedFilter );
+        markedRequest.addAttributes( attributes.toArray( new String[0] ) );
+
+        Asn1Buffer buffer = new Asn1Buffer();
+        SearchRequestFactory.INSTANCE.encodeReverse( codec, buffer, markedRequest );
+        byte[] bytes = buffer.getBytes().array();
+
+        // The SearchRequest sequence : baseObject, scope, derefAliases, sizeLimit,
+        // timeLimit and typesOnly are kept as is, followed by the filter and the attributes
+        int valueStart = valueStart( bytes, 0 );
+        int filterStart = valueStart;
+
+        for ( int i = 0; i < 6; i++ )
+        {
+            filterStart = tlvEnd( bytes, filterStart );
+        }
+
+        int filterEnd = tlvEnd( bytes, filterStart );
+        int[] counter = new int[1];
+
+        List<Segment> segments = new ArrayList<>();
+        segments.add( new FixedSegment( Arrays.copyOfRange( bytes, valueStart, filterStart ) ) );
+        compile( bytes, filterStart, filterEnd, segments, counter, Strings.getBytesUtf8( marker ) );
+        segments.add( new FixedSegment( Arrays.copyOfRange( bytes, filterEnd, bytes.length ) ) );
+
+        protocolOp = new ConstructedSegment( bytes[0], segments.toArray( new Segment[0] ) );
+        parameterCount = counter[0];
+    }
+
+
+    /**
+     * @return The number of parameters a request expects
+     */
+    public int getParameterCount()
+    {
+        return parameterCount;
+    }
+
+
+    /**
+     * @return The search base
+     */
+    public Dn getBase()
+    {
+        return base;
+    }
+
+
+    /**
+     * @return The search scope
+     */
+    public SearchScope getScope()
+    {
+        return scope;
+    }
+
+
+    /**
+     * @return The alias dereferencing mode
+     */
+    public AliasDerefMode getDerefAliases()
+    {
+        return derefAliases;
+    }
+
+
+    /**
+     * @return The size limit
+     */
+    public long getSizeLimit()
+    {
+        return sizeLimit;
+    }
+
+
+    /**
+     * @return The time limit
+     */
+    public int getTimeLimit()
+    {
+        return timeLimit;
+    }
+
+
+    /**
+     * @return The typesOnly flag
+     */
+    public boolean getTypesOnly()
+    {
+        return typesOnly;
+    }
+
+
+    /**
+     * @return The requested attributes
+     */
+    public List<String> getAttributes()
+    {
+        return attributes;
+    }
+
+
+    /**
+     * @return The filter, containing the parameters and the escaped values
+     */
+    public ExprNode getFilter()
+    {
+        return filter.clone();
+    }
+
+
+    /**
+     * Creates a new request, with the given parameters.
+     *
+     * @param parameters The parameters, as Strings or byte[], in the order they appear in the filter
+     * @return The prepared SearchRequest, which can be sent as any other SearchRequest
+     */
+    public PreparedSearchRequest newRequest( Object... parameters )
+    {
+        if ( parameters.length != parameterCount )
+        {
+            throw new IllegalArgumentException(
+                I18n.err( I18n.ERR_05207_WRONG_PARAMETER_COUNT, parameterCount, parameters.length ) );
+        }
+
+        byte[][] encodedParameters = new byte[parameters.length][];
+
+        for ( int i = 0; i < parameters.length; i++ )
+        {
+            Object parameter = parameters[i];
+
+            if ( parameter instanceof String )
+            {
+                encodedParameters[i] = Strings.getBytesUtf8( ( String ) parameter );
+            }
+            else if ( parameter instanceof byte[] )
+            {
+                encodedParameters[i] = ( byte[] ) parameter;
+            }
+            else
+            {
+                throw new IllegalArgumentException( I18n.err( I18n.ERR_05208_INVALID_PARAMETER_TYPE, i,
+                    parameter == null ? null : parameter.getClass().getName() ) );
+            }
+        }
+
+        ExprNode requestFilter = markedFilter.clone();
+        fill( requestFilter, marker, parameters, new int[1] );
+
+        PreparedSearchRequest request = new PreparedSearchRequest( this, encodedParameters, requestFilter );
+
+        request.addAllControls( controls );
+
+        if ( followReferrals )
+        {
+            request.followReferrals();
+        }
+        else if ( ignoreReferrals )
+        {
+            request.ignoreReferrals();
+        }
+
+        return request;
+    }
+
+
+    /**
+     * Encodes the search operation of a prepared request.
+     *
+     * @param buffer The buffer where to put the PDU
+     * @param parameters The encoded parameters
+     */
+    /* no qualifier */ void encodeReverse( Asn1Buffer buffer, byte[][] parameters )
+    {
+        protocolOp.encodeReverse( buffer, parameters );
+    }
+
+
+    /**
+     * Replaces the assertion values of a filter. The rewriter gets each value as a String,
+     * and returns the new value, or null to keep it.
+     */
+    private static void rewrite( ExprNode node, UnaryOperator<String> rewriter )
+    {
+        if ( node instanceof BranchNode )
+        {
+            for ( ExprNode child : ( ( BranchNode ) node ).getChildren() )
+            {
+                rewrite( child, rewriter );
+            }
+        }
+        else if ( node instanceof SimpleNode )
+        {
+            SimpleNode<?> simpleNode = ( SimpleNode<?> ) node;
+            String value = rewrite( simpleNode.getValue(), rewriter );
+
+            if ( value != null )
+            {
+                simpleNode.setValue( toValue( simpleNode.getValue(), value ) );
+            }
+        }
+        else if ( node instanceof SubstringNode )
+        {
+            SubstringNode substringNode = ( SubstringNode ) node;
+            String initial = rewrite( substringNode.getInitial(), rewriter );
+
+            if ( initial != null )
+            {
+                substringNode.setInitial( initial );
+            }
+
+            List<String> any = substringNode.getAny();
+
+            if ( any != null )
+            {
+                for ( int i = 0; i < any.size(); i++ )
+                {
+                    String value = rewrite( any.get( i ), rewriter );
+
+                    if ( value != null )
+                    {
+                        any.set( i, value );
+                    }
+                }
+            }
+
+            String finalValue = rewrite( substringNode.getFinal(), rewriter );
+
+            if ( finalValue != null )
+            {
+                substringNode.setFinal( finalValue );
+            }
+        }
+        else if ( node instanceof ExtensibleNode )
+        {
+            ExtensibleNode extensibleNode = ( ExtensibleNode ) node;
+            String value = rewrite( extensibleNode.getValue(), rewriter );
+
+            if ( value != null )
+            {
+                extensibleNode.setValue( toValue( extensibleNode.getValue(), value ) );
+            }
+        }
+    }
+
+
+    private static String rewrite( Value value, UnaryOperator<String> rewriter )
+    {
+        if ( ( value == null ) || ( value.getBytes() == null ) )
+        {
+            return null;
+        }
+
+        return rewriter.apply( Strings.utf8ToString( value.getBytes() ) );
+    }
+
+
+    private static String rewrite( String value, UnaryOperator<String> rewriter )
+    {
+        return value == null ? null : rewriter.apply( value );
+    }
+
+
+    /**
+     * Tells if a value is an escaped value, made of at least two question marks
+     */
+    private static boolean isEscaped( String value )
+    {
+        if ( value.length() < 2 )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            if ( value.charAt( i ) != PARAMETER_CHAR )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Replaces the parameters in a copy of the template filter, in the order they have
+     * been found in the encoded filter.
+     */
+    private static void fill( ExprNode node, String marker, Object[] parameters, int[] counter )
+    {
+        if ( node instanceof BranchNode )
+        {
+            for ( ExprNode child : ( ( BranchNode ) node ).getChildren() )
+            {
+                fill( child, marker, parameters, counter );
+            }
+        }
+        else if ( node instanceof SimpleNode )
+        {
+            SimpleNode<?> simpleNode = ( SimpleNode<?> ) node;
+
+            if ( isParameter( simpleNode.getValue(), marker ) )
+            {
+                simpleNode.setValue( toValue( simpleNode.getValue(), parameters[counter[0]++] ) );
+            }
+        }
+        else if ( node instanceof SubstringNode )
+        {
+            SubstringNode substringNode = ( SubstringNode ) node;
+
+            if ( marker.equals( substringNode.getInitial() ) )
+            {
+                substringNode.setInitial( asString( parameters[counter[0]++] ) );
+            }
+
+            List<String> any = substringNode.getAny();
+
+            if ( any != null )
+            {
+                for ( int i = 0; i < any.size(); i++ )
+                {
+                    if ( marker.equals( any.get( i ) ) )
+                    {
+                        any.set( i, asString( parameters[counter[0]++] ) );
+                    }
+                }
+            }
+
+            if ( marker.equals( substringNode.getFinal() ) )
+            {
+                substringNode.setFinal( asString( parameters[counter[0]++] ) );
+            }
+        }
+        else if ( node instanceof ExtensibleNode )
+        {
+            ExtensibleNode extensibleNode = ( ExtensibleNode ) node;
+
+            if ( isParameter( extensibleNode.getValue(), marker ) )
+            {
+                extensibleNode.setValue( toValue( extensibleNode.getValue(), parameters[counter[0]++] ) );
+            }
+        }
+    }
+
+
+    private static boolean isParameter( Value value, String marker )
+    {
+        return ( value != null ) && Arrays.equals( Strings.getBytesUtf8( marker ), value.getBytes() );
+    }
+
+
+    /**
+     * Creates the parameter value, keeping the kind of value the filter parser has created
+     */
+    private static Value toValue( Value placeholder, Object parameter )
+    {
+        if ( placeholder.isHumanReadable() )
+        {
+            return new Value( asString( parameter ) );
+        }
+        else if ( parameter instanceof String )
+        {
+            return new Value( Strings.getBytesUtf8( ( String ) parameter ) );
+        }
+        else
+        {
+            return new Value( ( byte[] ) parameter );
+        }
+    }
+
+
+    private static String asString( Object parameter )
+    {
+        if ( parameter instanceof String )
+        {
+            return ( String ) parameter;
+        }
+        else
+        {
+            return Strings.utf8ToString( ( byte[] ) parameter );
+        }
+    }
+
+
+    /**
+     * Compiles the TLVs found between start and end. The TLVs not containing any parameter
+     * are kept as is, the others are split.
+     */
+    private static void compile( byte[] bytes, int start, int end, List<Segment> segments, int[] counter,
+        byte[] marker )
+    {
+        int fixedStart = start;
+        int pos = start;
+
+        while ( pos < end )
+        {
+            int tlvEnd = tlvEnd( bytes, pos );
+
+            if ( hasParameter( bytes, pos, marker ) )
+            {
+                if ( fixedStart < pos )
+                {
+                    segments.add( new FixedSegment( Arrays.copyOfRange( bytes, fixedStart, pos ) ) );
+                }
+
+                if ( isConstructed( bytes[pos] ) )
+                {
+                    List<Segment> children = new ArrayList<>();
+                    compile( bytes, valueStart( bytes, pos ), tlvEnd, children, counter, marker );
+                    segments.add( new ConstructedSegment( bytes[pos], children.toArray( new Segment[0] ) ) );
+                }
+                else
+                {
+                    segments.add( new ParameterSegment( bytes[pos], counter[0]++ ) );
+                }
+
+                fixedStart = tlvEnd;
+            }
+
+            pos = tlvEnd;
+        }
+
+        if ( fixedStart < end )
+        {
+            segments.add( new FixedSegment( Arrays.copyOfRange( bytes, fixedStart, end ) ) );
+        }
+    }
+
+
+    /**
+     * Tells if a TLV is a parameter, or contains a parameter
+     */
+    private static boolean hasParameter( byte[] bytes, int pos, byte[] marker )
+    {
+        int valueStart = valueStart( bytes, pos );
+        int end = tlvEnd( bytes, pos );
+
+        if ( !isConstructed( bytes[pos] ) )
+        {
+            return ( end - valueStart == marker.length )
+                && Arrays.equals( marker, Arrays.copyOfRange( bytes, valueStart, end ) );
+        }
+
+        for ( int child = valueStart; child < end; child = tlvEnd( bytes, child ) )
+        {
+            if ( hasParameter( bytes, child, marker ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    private static boolean isConstructed( byte tag )
+    {
+        return ( tag & 0x20 ) != 0;
+    }
+
+
+    /**
+     * @return The position of the value of the TLV starting at pos
+     */
+    private static int valueStart( byte[] bytes, int pos )
+    {
+        int length = bytes[pos + 1];
+
+        if ( length >= 0 )
+        {
+            return pos + 2;
+        }
+
+        return pos + 2 + ( length & 0x7F );
+    }
+
+
+    /**
+     * @return The position following the TLV starting at pos
+     */
+    private static int tlvEnd( byte[] bytes, int pos )
+    {
+        int length = bytes[pos + 1];
+
+        if ( length >= 0 )
+        {
+            return pos + 2 + length;
+        }
+
+        int nbBytes = length & 0x7F;
+        length = 0;
+
+        for ( int i = 0; i < nbBytes; i++ )
+        {
+            length = ( length << 8 ) | ( bytes[pos + 2 + i] & 0x00FF );
+        }
+
+        return pos + 2 + nbBytes + length;
+    }
+
+    /**
+     * A part of the encoded search operation
+     */
+    private abstract static class Segment
+    {
+        abstract void encodeReverse( Asn1Buffer buffer, byte[][] parameters );
+    }
+
+    /**
+     * A part which doesn't depend on the parameters
+     */
+    private static final class FixedSegment extends Segment
+    {
+        private final byte[] bytes;
+
+
+        FixedSegment( byte[] bytes )
+        {
+            this.bytes = bytes;
+        }
+
+
+        @Override
+        void encodeReverse( Asn1Buffer buffer, byte[][] parameters )
+        {
+            buffer.put( bytes );
+        }
+    }
+
+    /**
+     * A parameter, encoded as an OCTET STRING with its original tag
+     */
+    private static final class ParameterSegment extends Segment
+    {
+        private final byte tag;
+
+        private final int index;
+
+
+        ParameterSegment( byte tag, int index )
+        {
+            this.tag = tag;
+            this.index = index;
+        }
+
+
+        @Override
+        void encodeReverse( Asn1Buffer buffer, byte[][] parameters )
+        {
+            BerValue.encodeOctetString( buffer, tag, parameters[index] );
+        }
+    }
+
+    /**
+     * A constructed TLV containing some parameters, which length has to be computed
+     */
+    private static final class ConstructedSegment extends Segment
+    {
+        private final byte tag;
+
+        private final Segment[] children;
+
+
+        ConstructedSegment( byte tag, Segment[] children )
+        {
+            this.tag = tag;
+            this.children = children;
+        }
+
+
+        @Override
+        void encodeReverse( Asn1Buffer buffer, byte[][] parameters )
+        {
+            int start = buffer.getPos();
+
+            for ( int i = children.length - 1; i >= 0; i-- )
+            {
+                children[i].encodeReverse( buffer, parameters );
+            }
+
+            BerValue.encodeSequence( buffer, tag, start );
+        }
+    }
+}
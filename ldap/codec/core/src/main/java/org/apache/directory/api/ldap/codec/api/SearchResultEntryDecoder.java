@@ -0,0 +1,441 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.api;
+
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.directory.api.asn1.ber.tlv.TLVStateEnum;
+import org.apache.directory.api.asn1.ber.tlv.UniversalTag;
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntryImpl;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.DnFactory;
+import org.apache.directory.api.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A specialized decoder for the most common LDAP response, a SearchResultEntry without
+ * controls. When the whole PDU is available in the buffer, and only uses definite
+ * lengths, the objectName, the attributes and their values are read in one single
+ * loop and stored directly into the Entry, bypassing the generic grammar.
+ * <br>
+ * Any other input (a fragmented PDU, another message, controls, indefinite or
+ * oversized lengths, an invalid DN...) is left untouched, so that the caller can
+ * fallback to the {@link org.apache.directory.api.asn1.ber.Asn1Decoder}, which will
+ * either decode it or report the error.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class SearchResultEntryDecoder
+{
+    /** The logger */
+    private static final Logger LOG = LoggerFactory.getLogger( SearchResultEntryDecoder.class );
+
+    /** The SEQUENCE tag */
+    private static final byte SEQUENCE_TAG = UniversalTag.SEQUENCE.getValue();
+
+    /** The SET tag */
+    private static final byte SET_TAG = UniversalTag.SET.getValue();
+
+    /** The OCTET STRING tag */
+    private static final byte OCTET_STRING_TAG = UniversalTag.OCTET_STRING.getValue();
+
+    /** The INTEGER tag */
+    private static final byte INTEGER_TAG = UniversalTag.INTEGER.getValue();
+
+    /** Returned by the helpers when the input has to be left to the generic decoder */
+    private static final int FALLBACK = -1;
+
+
+    private SearchResultEntryDecoder()
+    {
+        // Nothing to do
+    }
+
+
+    /**
+     * Tries to decode a complete SearchResultEntry starting at the buffer's current position.
+     * The container must not be in the middle of a PDU decoding.
+     * <br>
+     * On success, the buffer's position is moved after the PDU. Otherwise, the buffer
+     * and the container are left unchanged. The generic decoder is always used when the
+     * container has an {@link AttributeValueSink}.
+     *
+     * @param buffer The buffer containing the PDU
+     * @param container The container used to decode the PDUs received on this connection
+     * @return The decoded SearchResultEntry, or <code>null</code> if the generic decoder has to be used
+     */
+    public static SearchResultEntry decode( ByteBuffer buffer, LdapMessageContainer<?> container )
+    {
+        // The values offered to an AttributeValueSink are only handled by the generic decoder
+        if ( !buffer.hasArray() || ( container.getState() != TLVStateEnum.TAG_STATE_START )
+            || ( buffer.remaining() < 2 ) || ( container.getAttributeValueSink() != null ) )
+        {
+            return null;
+        }
+
+        byte[] data = buffer.array();
+        int start = buffer.arrayOffset() + buffer.position();
+        int limit = buffer.arrayOffset() + buffer.limit();
+
+        // LDAPMessage ::= SEQUENCE { ...
+        if ( data[start] != SEQUENCE_TAG )
+        {
+            return null;
+        }
+
+        long header = readLength( data, start + 1, limit );
+
+        if ( header == FALLBACK )
+        {
+            return null;
+        }
+
+        int pos = ( int ) ( header >>> 32 );
+        int pduEnd = pos + ( int ) header;
+
+        if ( ( pduEnd > limit ) || ( pduEnd < pos ) || ( pduEnd - start > container.getMaxPDUSize() ) )
+        {
+            return null;
+        }
+
+        // messageID MessageID, a positive INTEGER on at most 4 bytes
+        if ( ( pos + 2 > pduEnd ) || ( data[pos] != INTEGER_TAG ) )
+        {
+            return null;
+        }
+
+        int idLength = data[pos + 1];
+
+        if ( ( idLength < 1 ) || ( idLength > 4 ) || ( pos + 2 + idLength > pduEnd ) || ( data[pos + 2] < 0 ) )
+        {
+            return null;
+        }
+
+        pos += 2;
+        int messageId = 0;
+
+        for ( int i = 0; i < idLength; i++ )
+        {
+            messageId = ( messageId << 8 ) | ( data[pos++] & 0x00FF );
+        }
+
+        // protocolOp SearchResultEntry ::= [APPLICATION 4] SEQUENCE { ...
+        // without any control, so it has to fill the PDU
+        if ( ( pos >= pduEnd ) || ( data[pos] != LdapCodecConstants.SEARCH_RESULT_ENTRY_TAG ) )
+        {
+            return null;
+        }
+
+        pos = skipHeader( data, pos, pduEnd, pduEnd );
+
+        if ( pos == FALLBACK )
+        {
+            return null;
+        }
+
+        // objectName LDAPDN
+        if ( ( pos >= pduEnd ) || ( data[pos] != OCTET_STRING_TAG ) )
+        {
+            return null;
+        }
+
+        long objectName = readLength( data, pos + 1, pduEnd );
+
+        if ( objectName == FALLBACK )
+        {
+            return null;
+        }
+
+        pos = ( int ) ( objectName >>> 32 );
+        int dnLength = ( int ) objectName;
+
+        if ( pos + dnLength > pduEnd )
+        {
+            return null;
+        }
+
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl( messageId );
+
+        if ( !storeObjectName( searchResultEntry, data, pos, dnLength, container.getDnFactory() ) )
+        {
+            return null;
+        }
+
+        pos += dnLength;
+
+        // attributes PartialAttributeList ::= SEQUENCE OF partialAttribute PartialAttribute
+        if ( ( pos >= pduEnd ) || ( data[pos] != SEQUENCE_TAG ) )
+        {
+            return null;
+        }
+
+        pos = skipHeader( data, pos, pduEnd, pduEnd );
+
+        if ( pos == FALLBACK )
+        {
+            return null;
+        }
+
+        Entry entry = searchResultEntry.getEntry();
+
+        while ( pos < pduEnd )
+        {
+            // PartialAttribute ::= SEQUENCE { ...
+            if ( data[pos] != SEQUENCE_TAG )
+            {
+                return null;
+            }
+
+            long partialAttribute = readLength( data, pos + 1, pduEnd );
+
+            if ( partialAttribute == FALLBACK )
+            {
+                return null;
+            }
+
+            pos = ( int ) ( partialAttribute >>> 32 );
+            int attributeEnd = pos + ( int ) partialAttribute;
+
+            if ( ( attributeEnd > pduEnd ) || ( attributeEnd < pos ) )
+            {
+                return null;
+            }
+
+            // type AttributeDescription, which can't be empty
+            if ( ( pos >= attributeEnd ) || ( data[pos] != OCTET_STRING_TAG ) )
+            {
+                return null;
+            }
+
+            long type = readLength( data, pos + 1, attributeEnd );
+
+            if ( type == FALLBACK )
+            {
+                return null;
+            }
+
+            pos = ( int ) ( type >>> 32 );
+            int typeLength = ( int ) type;
+
+            if ( ( typeLength == 0 ) || ( pos + typeLength > attributeEnd ) )
+            {
+                return null;
+            }
+
+            Attribute attribute;
+
+            try
+            {
+                attribute = new DefaultAttribute( Arrays.copyOfRange( data, pos, pos + typeLength ) );
+                entry.put( attribute );
+            }
+            catch ( LdapException | IllegalArgumentException e )
+            {
+                return null;
+            }
+
+            pos += typeLength;
+
+            // vals SET OF value AttributeValue
+            if ( ( pos >= attributeEnd ) || ( data[pos] != SET_TAG ) )
+            {
+                return null;
+            }
+
+            pos = skipHeader( data, pos, attributeEnd, attributeEnd );
+
+            if ( pos == FALLBACK )
+            {
+                return null;
+            }
+
+            boolean isBinary = container.isBinary( attribute.getId() );
+
+            while ( pos < attributeEnd )
+            {
+                if ( data[pos] != OCTET_STRING_TAG )
+                {
+                    return null;
+                }
+
+                long value = readLength( data, pos + 1, attributeEnd );
+
+                if ( value == FALLBACK )
+                {
+                    return null;
+                }
+
+                pos = ( int ) ( value >>> 32 );
+                int valueLength = ( int ) value;
+
+                if ( pos + valueLength > attributeEnd )
+                {
+                    return null;
+                }
+
+                try
+                {
+                    if ( valueLength == 0 )
+                    {
+                        attribute.add( "" );
+                    }
+                    else if ( isBinary )
+                    {
+                        attribute.add( Arrays.copyOfRange( data, pos, pos + valueLength ) );
+                    }
+                    else
+                    {
+                        attribute.add( Strings.utf8ToString( data, pos, valueLength ) );
+                    }
+                }
+                catch ( LdapException le )
+                {
+                    // Can't occur on a schema agnostic attribute
+                }
+
+                pos += valueLength;
+            }
+        }
+
+        buffer.position( pduEnd - buffer.arrayOffset() );
+        container.setMessageId( messageId );
+
+        if ( LOG.isDebugEnabled() )
+        {
+            LOG.debug( I18n.msg( I18n.MSG_05182_SEARCH_RESULT_ENTRY_DN, searchResultEntry.getObjectName() ) );
+        }
+
+        return searchResultEntry;
+    }
+
+
+    /**
+     * Stores the objectName, using the DnFactory if any. An invalid DN is left to the
+     * generic decoder, which will report it.
+     */
+    private static boolean storeObjectName( SearchResultEntry searchResultEntry, byte[] data, int pos, int length,
+        DnFactory dnFactory )
+    {
+        if ( length == 0 )
+        {
+            searchResultEntry.setObjectName( Dn.EMPTY_DN );
+
+            return true;
+        }
+
+        String dnStr = Strings.utf8ToString( data, pos, length );
+
+        try
+        {
+            if ( dnFactory == null )
+            {
+                searchResultEntry.setObjectName( new Dn( dnStr ) );
+            }
+            else
+            {
+                searchResultEntry.setObjectName( dnFactory.create( dnStr ) );
+            }
+
+            return true;
+        }
+        catch ( LdapException le )
+        {
+            return false;
+        }
+    }
+
+
+    /**
+     * Skips the tag and the length of a constructed TLV, checking that its value
+     * exactly ends at the given position.
+     *
+     * @return The position of the TLV value, or FALLBACK
+     */
+    private static int skipHeader( byte[] data, int pos, int limit, int expectedEnd )
+    {
+        long header = readLength( data, pos + 1, limit );
+
+        if ( header == FALLBACK )
+        {
+            return FALLBACK;
+        }
+
+        int valueStart = ( int ) ( header >>> 32 );
+
+        if ( valueStart + ( int ) header != expectedEnd )
+        {
+            return FALLBACK;
+        }
+
+        return valueStart;
+    }
+
+
+    /**
+     * Reads a definite length, on at most 4 bytes.
+     *
+     * @return The position of the value in the 32 upper bits and the length in the 32
+     * lower bits, or FALLBACK if the length is not a definite length fitting in the limit
+     */
+    private static long readLength( byte[] data, int pos, int limit )
+    {
+        if ( pos >= limit )
+        {
+            return FALLBACK;
+        }
+
+        int length = data[pos++];
+
+        if ( length < 0 )
+        {
+            int nbBytes = length & 0x7F;
+
+            // Indefinite lengths and lengths above 2^31 - 1 are left to the generic decoder
+            if ( ( nbBytes == 0 ) || ( nbBytes > 4 ) || ( pos + nbBytes > limit ) )
+            {
+                return FALLBACK;
+            }
+
+            length = 0;
+
+            for ( int i = 0; i < nbBytes; i++ )
+            {
+                length = ( length << 8 ) | ( data[pos++] & 0x00FF );
+            }
+
+            if ( length < 0 )
+            {
+                return FALLBACK;
+            }
+        }
+
+        return ( ( long ) pos << 32 ) | length;
+    }
+}
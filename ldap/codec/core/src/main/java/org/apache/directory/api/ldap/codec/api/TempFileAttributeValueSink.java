@@ -0,0 +1,349 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.api;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * An {@link AttributeValueSink} writing the values of some attributes to temporary files. The
+ * files of an entry are obtained with {@link #takeFiles(Dn)} once the entry has been decoded,
+ * as they are not stored in the entry. They are not removed : the application owns them.
+ * <br>
+ * The streamed attributes are configured like the binary attributes of a
+ * {@link ConfigurableBinaryAttributeDetector} : the attribute options (like <code>;binary</code>
+ * or <code>;lang-fr</code>) are ignored, and when a {@link SchemaManager} is set, an attribute
+ * is also recognized by its OID and by all its names. Only the values at least as large as
+ * the minimum size are streamed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class TempFileAttributeValueSink implements AttributeValueSink
+{
+    /** The logger */
+    private static final Logger LOG = LoggerFactory.getLogger( TempFileAttributeValueSink.class );
+
+    /** The default minimum size of a streamed value : 1 MB */
+    public static final int DEFAULT_MINIMUM_SIZE = 1024 * 1024;
+
+    /** The directory where the files are created */
+    private final File directory;
+
+    /** The streamed attributes, as configured, lower cased */
+    private final Set<String> attributes = new HashSet<>();
+
+    /** The streamed attributes, resolved with the SchemaManager if any */
+    private volatile Set<String> resolvedAttributes = Collections.emptySet();
+
+    /** The SchemaManager used to resolve the attribute names, if any */
+    private volatile SchemaManager schemaManager;
+
+    /** The minimum size of a streamed value */
+    private volatile int minimumSize = DEFAULT_MINIMUM_SIZE;
+
+    /** The files being written */
+    private final Map<WritableByteChannel, PendingFile> pendingFiles = new ConcurrentHashMap<>();
+
+    /** The files written, per entry and per attribute, waiting for the application to take them */
+    private final Map<Dn, Map<String, List<Path>>> files = new ConcurrentHashMap<>();
+
+
+    /**
+     * A file being written
+     */
+    private static final class PendingFile
+    {
+        /** The entry's DN */
+        private final Dn dn;
+
+        /** The attribute, as received */
+        private final String attributeId;
+
+        /** The file */
+        private final Path path;
+
+
+        PendingFile( Dn dn, String attributeId, Path path )
+        {
+            this.dn = dn;
+            this.attributeId = attributeId;
+            this.path = path;
+        }
+    }
+
+
+    /**
+     * Creates a new TempFileAttributeValueSink.
+     *
+     * @param directory The directory where the files are created, or <code>null</code> for
+     * the default temporary directory
+     * @param attributes The streamed attributes
+     */
+    public TempFileAttributeValueSink( File directory, String... attributes )
+    {
+        this( directory, null, attributes );
+    }
+
+
+    /**
+     * Creates a new TempFileAttributeValueSink.
+     *
+     * @param directory The directory where the files are created, or <code>null</code> for
+     * the default temporary directory
+     * @param schemaManager The SchemaManager used to resolve the attribute names, or <code>null</code>
+     * @param attributes The streamed attributes
+     */
+    public TempFileAttributeValueSink( File directory, SchemaManager schemaManager, String... attributes )
+    {
+        this.directory = directory;
+        this.schemaManager = schemaManager;
+        addAttribute( attributes );
+    }
+
+
+    /**
+     * Sets the SchemaManager used to recognize an attribute by its OID or any of its names
+     *
+     * @param schemaManager The SchemaManager, or <code>null</code> to only use the configured names
+     */
+    public synchronized void setSchemaManager( SchemaManager schemaManager )
+    {
+        this.schemaManager = schemaManager;
+        resolve();
+    }
+
+
+    /**
+     * Adds some streamed attributes
+     *
+     * @param attributes The attributes to add
+     */
+    public synchronized void addAttribute( String... attributes )
+    {
+        if ( attributes != null )
+        {
+            for ( String attribute : attributes )
+            {
+                this.attributes.add( Strings.toLowerCaseAscii( attribute ) );
+            }
+
+            resolve();
+        }
+    }
+
+
+    /**
+     * Removes some streamed attributes
+     *
+     * @param attributes The attributes to remove
+     */
+    public synchronized void removeAttribute( String... attributes )
+    {
+        if ( attributes != null )
+        {
+            for ( String attribute : attributes )
+            {
+                this.attributes.remove( Strings.toLowerCaseAscii( attribute ) );
+            }
+
+            resolve();
+        }
+    }
+
+
+    /**
+     * Computes the set of resolved attributes, used when a value starts.
+     */
+    private void resolve()
+    {
+        Set<String> resolved = new HashSet<>();
+
+        for ( String attribute : attributes )
+        {
+            resolved.add( resolve( attribute ) );
+        }
+
+        resolvedAttributes = resolved;
+    }
+
+
+    /**
+     * Resolves an attribute the way the {@link SchemaBinaryAttributeDetector} does : the options
+     * are removed, and the OID is used when the SchemaManager knows the attribute.
+     *
+     * @param attributeId The attribute
+     * @return The attribute OID, or its lower cased name without options
+     */
+    private String resolve( String attributeId )
+    {
+        String attrId = Strings.toLowerCaseAscii( attributeId );
+        int optionPos = attrId.indexOf( ';' );
+
+        if ( optionPos != -1 )
+        {
+            attrId = attrId.substring( 0, optionPos );
+        }
+
+        SchemaManager manager = schemaManager;
+
+        if ( manager != null )
+        {
+            AttributeType attributeType = manager.getAttributeType( attrId );
+
+            if ( attributeType != null )
+            {
+                return attributeType.getOid();
+            }
+        }
+
+        return attrId;
+    }
+
+
+    /**
+     * @return The minimum size of a streamed value
+     */
+    public int getMinimumSize()
+    {
+        return minimumSize;
+    }
+
+
+    /**
+     * Sets the minimum size of a streamed value. Smaller values are stored in the attribute.
+     *
+     * @param minimumSize The minimum size
+     */
+    public void setMinimumSize( int minimumSize )
+    {
+        this.minimumSize = minimumSize;
+    }
+
+
+    /**
+     * Takes the files written for the values of an entry. They are forgotten by the sink,
+     * and further calls return an empty map, until the same entry is received again.
+     *
+     * @param dn The entry's DN
+     * @return The files, per attribute as received, in the order the values have been received
+     */
+    public Map<String, List<Path>> takeFiles( Dn dn )
+    {
+        // The files of an entry are only modified under the map's lock for this entry
+        Map<String, List<Path>> entryFiles = files.remove( dn );
+
+        if ( entryFiles == null )
+        {
+            return Collections.emptyMap();
+        }
+
+        return entryFiles;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WritableByteChannel open( Dn dn, String attributeId, int length ) throws IOException
+    {
+        if ( ( length < minimumSize ) || !resolvedAttributes.contains( resolve( attributeId ) ) )
+        {
+            return null;
+        }
+
+        File file = File.createTempFile( "ldap-", ".value", directory );
+        FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.WRITE );
+        pendingFiles.put( channel, new PendingFile( dn, attributeId, file.toPath() ) );
+
+        return channel;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close( WritableByteChannel channel ) throws IOException
+    {
+        PendingFile pendingFile = pendingFiles.remove( channel );
+        channel.close();
+
+        files.compute( pendingFile.dn, ( dn, entryFiles ) ->
+        {
+            Map<String, List<Path>> result = entryFiles;
+
+            if ( result == null )
+            {
+                result = new HashMap<>();
+            }
+
+            result.computeIfAbsent( pendingFile.attributeId, id -> new ArrayList<>() ).add( pendingFile.path );
+
+            return result;
+        } );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void abort( WritableByteChannel channel )
+    {
+        PendingFile pendingFile = pendingFiles.remove( channel );
+
+        try
+        {
+            channel.close();
+
+            if ( pendingFile != null )
+            {
+                Files.deleteIfExists( pendingFile.path );
+            }
+        }
+        catch ( IOException ioe )
+        {
+            LOG.warn( ioe.getMessage(), ioe );
+        }
+    }
+}
@@ -99,6 +99,6 @@ public class EntryChangeFactory extends AbstractControlFactory<EntryChange>
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new EntryChangeContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, EntryChangeContainer::new );
     }
 }
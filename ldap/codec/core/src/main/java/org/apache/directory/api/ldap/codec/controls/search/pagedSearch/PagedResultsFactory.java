@@ -85,6 +85,6 @@ public class PagedResultsFactory extends AbstractControlFactory<PagedResults>
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new PagedResultsContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, PagedResultsContainer::new );
     }
 }
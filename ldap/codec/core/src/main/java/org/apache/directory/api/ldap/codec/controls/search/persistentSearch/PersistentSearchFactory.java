@@ -88,6 +88,6 @@ public class PersistentSearchFactory extends AbstractControlFactory<PersistentSe
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new PersistentSearchContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, PersistentSearchContainer::new );
     }
 }
@@ -75,6 +75,6 @@ public class SubentriesFactory extends AbstractControlFactory<Subentries>
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new SubentriesContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, SubentriesContainer::new );
     }
 }
@@ -84,6 +84,7 @@ public class SortRequestContainer extends AbstractContainer implements ControlCo
     {
         super.clean();
         control = null;
+        currentKey = null;
     }
 
 
@@ -137,6 +137,6 @@ public class SortRequestFactory extends AbstractControlFactory<SortRequest>
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new SortRequestContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, SortRequestContainer::new );
     }
 }
@@ -95,6 +95,6 @@ public class SortResponseFactory extends AbstractControlFactory<SortResponse>
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new SortResponseContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, SortResponseContainer::new );
     }
 }
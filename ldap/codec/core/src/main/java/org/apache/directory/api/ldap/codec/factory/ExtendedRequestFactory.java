@@ -21,6 +21,7 @@ package org.apache.directory.api.ldap.codec.factory;
 
 import org.apache.directory.api.asn1.ber.tlv.BerValue;
 import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.ldap.codec.api.ExtendedOperationFactory;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.codec.api.LdapCodecConstants;
@@ -89,7 +90,7 @@ public final class ExtendedRequestFactory implements Messagefactory
         {
             BerValue.encodeOctetString( buffer, 
                 ( byte ) LdapCodecConstants.EXTENDED_REQUEST_NAME_TAG,
-                extendedRequest.getRequestName() );
+                InternedOid.getBytes( extendedRequest.getRequestName() ) );
         }
         
         // The sequence
@@ -21,6 +21,7 @@ package org.apache.directory.api.ldap.codec.factory;
 
 import org.apache.directory.api.asn1.ber.tlv.BerValue;
 import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.ldap.codec.api.ExtendedOperationFactory;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.codec.api.LdapCodecConstants;
@@ -101,7 +102,7 @@ public final class ExtendedResponseFactory extends ResponseFactory
         {
             BerValue.encodeOctetString( buffer, 
                 ( byte ) LdapCodecConstants.EXTENDED_RESPONSE_NAME_TAG,
-                extendedResponse.getResponseName() );
+                InternedOid.getBytes( extendedResponse.getResponseName() ) );
         }
         
         // The LDAPResult part
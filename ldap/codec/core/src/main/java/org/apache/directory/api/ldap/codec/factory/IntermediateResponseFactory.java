@@ -21,6 +21,7 @@ package org.apache.directory.api.ldap.codec.factory;
 
 import org.apache.directory.api.asn1.ber.tlv.BerValue;
 import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.ldap.codec.api.IntermediateOperationFactory;
 import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.codec.api.LdapCodecConstants;
@@ -95,7 +96,7 @@ public final class IntermediateResponseFactory extends ResponseFactory
         {
             BerValue.encodeOctetString( buffer, 
                 ( byte ) LdapCodecConstants.INTERMEDIATE_RESPONSE_NAME_TAG,
-                intermediateResponse.getResponseName() );
+                InternedOid.getBytes( intermediateResponse.getResponseName() ) );
         }
 
         // The sequence
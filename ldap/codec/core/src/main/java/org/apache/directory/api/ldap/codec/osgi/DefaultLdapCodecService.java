@@ -31,6 +31,7 @@ import javax.naming.ldap.BasicControl;
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.EncoderException;
 import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.BasicControlDecorator;
 import org.apache.directory.api.ldap.codec.api.ControlFactory;
@@ -110,13 +111,39 @@ public class DefaultLdapCodecService implements LdapApiService
     }
 
 
+    /**
+     * Interns the OID of a registered factory, so that it's encoded and decoded
+     * without any conversion. The decoders then use the String instance of the
+     * factory, and the lookups in the factory maps don't compare the characters.
+     *
+     * @param oid The factory's OID
+     * @return The OID
+     */
+    protected static String intern( String oid )
+    {
+        try
+        {
+            InternedOid.intern( oid );
+        }
+        catch ( DecoderException de )
+        {
+            if ( LOG.isDebugEnabled() )
+            {
+                LOG.debug( de.getMessage() );
+            }
+        }
+
+        return oid;
+    }
+
+
     /**
      * Loads the Controls implement out of the box in the codec.
      */
     private void loadStockControls()
     {
         ControlFactory<Cascade> cascadeFactory = new CascadeFactory( this );
-        requestControlFactories.put( cascadeFactory.getOid(), cascadeFactory );
+        requestControlFactories.put( intern( cascadeFactory.getOid() ), cascadeFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -124,7 +151,7 @@ public class DefaultLdapCodecService implements LdapApiService
         }
 
         ControlFactory<EntryChange> entryChangeFactory = new EntryChangeFactory( this );
-        responseControlFactories.put( entryChangeFactory.getOid(), entryChangeFactory );
+        responseControlFactories.put( intern( entryChangeFactory.getOid() ), entryChangeFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -132,7 +159,7 @@ public class DefaultLdapCodecService implements LdapApiService
         }
 
         ControlFactory<ManageDsaIT> manageDsaItFactory = new ManageDsaITFactory( this );
-        requestControlFactories.put( manageDsaItFactory.getOid(), manageDsaItFactory );
+        requestControlFactories.put( intern( manageDsaItFactory.getOid() ), manageDsaItFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -140,8 +167,8 @@ public class DefaultLdapCodecService implements LdapApiService
         }
 
         ControlFactory<PagedResults> pageResultsFactory = new PagedResultsFactory( this );
-        requestControlFactories.put( pageResultsFactory.getOid(), pageResultsFactory );
-        responseControlFactories.put( pageResultsFactory.getOid(), pageResultsFactory );
+        requestControlFactories.put( intern( pageResultsFactory.getOid() ), pageResultsFactory );
+        responseControlFactories.put( intern( pageResultsFactory.getOid() ), pageResultsFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -149,7 +176,7 @@ public class DefaultLdapCodecService implements LdapApiService
         }
 
         ControlFactory<PersistentSearch> persistentSearchFactory = new PersistentSearchFactory( this );
-        requestControlFactories.put( persistentSearchFactory.getOid(), persistentSearchFactory );
+        requestControlFactories.put( intern( persistentSearchFactory.getOid() ), persistentSearchFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -157,7 +184,7 @@ public class DefaultLdapCodecService implements LdapApiService
         }
 
         ControlFactory<ProxiedAuthz> proxiedAuthzFactory = new ProxiedAuthzFactory( this );
-        requestControlFactories.put( proxiedAuthzFactory.getOid(), proxiedAuthzFactory );
+        requestControlFactories.put( intern( proxiedAuthzFactory.getOid() ), proxiedAuthzFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -165,7 +192,7 @@ public class DefaultLdapCodecService implements LdapApiService
         }
 
         ControlFactory<SortRequest> sortRequestFactory = new SortRequestFactory( this );
-        requestControlFactories.put( sortRequestFactory.getOid(), sortRequestFactory );
+        requestControlFactories.put( intern( sortRequestFactory.getOid() ), sortRequestFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -173,7 +200,7 @@ public class DefaultLdapCodecService implements LdapApiService
         }
 
         ControlFactory<SortResponse> sortResponseFactory = new SortResponseFactory( this );
-        responseControlFactories.put( sortResponseFactory.getOid(), sortResponseFactory );
+        responseControlFactories.put( intern( sortResponseFactory.getOid() ), sortResponseFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -181,7 +208,7 @@ public class DefaultLdapCodecService implements LdapApiService
         }
 
         ControlFactory<Subentries> subentriesFactory = new SubentriesFactory( this );
-        requestControlFactories.put( subentriesFactory.getOid(), subentriesFactory );
+        requestControlFactories.put( intern( subentriesFactory.getOid() ), subentriesFactory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -200,7 +227,7 @@ public class DefaultLdapCodecService implements LdapApiService
     @Override
     public ControlFactory<?> registerRequestControl( ControlFactory<?> factory )
     {
-        return requestControlFactories.put( factory.getOid(), factory );
+        return requestControlFactories.put( intern( factory.getOid() ), factory );
     }
 
     /**
@@ -209,7 +236,7 @@ public class DefaultLdapCodecService implements LdapApiService
     @Override
     public ControlFactory<?> registerResponseControl( ControlFactory<?> factory )
     {
-        return responseControlFactories.put( factory.getOid(), factory );
+        return responseControlFactories.put( intern( factory.getOid() ), factory );
     }
 
 
@@ -289,7 +316,7 @@ public class DefaultLdapCodecService implements LdapApiService
     @Override
     public ExtendedOperationFactory registerExtendedRequest( ExtendedOperationFactory factory )
     {
-        return extendedRequestFactories.put( factory.getOid(), factory );
+        return extendedRequestFactories.put( intern( factory.getOid() ), factory );
     }
 
 
@@ -299,7 +326,7 @@ public class DefaultLdapCodecService implements LdapApiService
     @Override
     public ExtendedOperationFactory registerExtendedResponse( ExtendedOperationFactory factory )
     {
-        return extendedResponseFactories.put( factory.getOid(), factory );
+        return extendedResponseFactories.put( intern( factory.getOid() ), factory );
     }
 
 
@@ -319,7 +346,7 @@ public class DefaultLdapCodecService implements LdapApiService
     @Override
     public IntermediateOperationFactory registerIntermediateResponse( IntermediateOperationFactory factory )
     {
-        return intermediateResponseFactories.put( factory.getOid(), factory );
+        return intermediateResponseFactories.put( intern( factory.getOid() ), factory );
     }
 
 
@@ -0,0 +1,362 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.security.sasl.Sasl;
+import javax.security.sasl.SaslClient;
+
+import org.apache.directory.api.ldap.codec.api.SaslFilter;
+import org.apache.mina.core.buffer.IoBuffer;
+import org.apache.mina.core.filterchain.IoFilter.NextFilter;
+import org.apache.mina.core.future.DefaultWriteFuture;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.session.DummySession;
+import org.apache.mina.core.session.IoSession;
+import org.apache.mina.core.write.DefaultWriteRequest;
+import org.apache.mina.core.write.WriteRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the SaslFilter framing
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SaslFilterTest
+{
+    /** The negotiated max buffer size : the filter sends at most 800 bytes per SASL message */
+    private static final int MAX_BUFFER = 1000;
+
+    /** A SASL client XORing the data */
+    private static class XorSaslClient implements SaslClient
+    {
+        private int wraps;
+        private int unwraps;
+
+
+        private static byte[] xor( byte[] bytes, int offset, int length )
+        {
+            byte[] result = new byte[length];
+
+            for ( int i = 0; i < length; i++ )
+            {
+                result[i] = ( byte ) ( bytes[offset + i] ^ 0x5A );
+            }
+
+            return result;
+        }
+
+
+        @Override
+        public String getMechanismName()
+        {
+            return "XOR";
+        }
+
+
+        @Override
+        public boolean hasInitialResponse()
+        {
+            return false;
+        }
+
+
+        @Override
+        public byte[] evaluateChallenge( byte[] challenge )
+        {
+            return null;
+        }
+
+
+        @Override
+        public boolean isComplete()
+        {
+            return true;
+        }
+
+
+        @Override
+        public byte[] unwrap( byte[] incoming, int offset, int len )
+        {
+            unwraps++;
+
+            return xor( incoming, offset, len );
+        }
+
+
+        @Override
+        public byte[] wrap( byte[] outgoing, int offset, int len )
+        {
+            wraps++;
+
+            return xor( outgoing, offset, len );
+        }
+
+
+        @Override
+        public Object getNegotiatedProperty( String propName )
+        {
+            if ( Sasl.QOP.equals( propName ) )
+            {
+                return "auth-conf";
+            }
+            else if ( Sasl.MAX_BUFFER.equals( propName ) )
+            {
+                return Integer.toString( MAX_BUFFER );
+            }
+
+            return null;
+        }
+
+
+        @Override
+        public void dispose()
+        {
+            // Nothing to do
+        }
+    }
+
+    private XorSaslClient saslClient;
+    private SaslFilter filter;
+    private IoSession session;
+    private List<Object> received;
+    private List<WriteRequest> written;
+
+    /** Called when a SASL message is written */
+    private Runnable onWrite;
+
+
+    private NextFilter nextFilter()
+    {
+        return ( NextFilter ) Proxy.newProxyInstance( getClass().getClassLoader(), new Class<?>[]
+            { NextFilter.class }, ( proxy, method, args ) ->
+            {
+                if ( "messageReceived".equals( method.getName() ) )
+                {
+                    received.add( args[1] );
+                }
+                else if ( "filterWrite".equals( method.getName() ) )
+                {
+                    written.add( ( WriteRequest ) args[1] );
+
+                    if ( onWrite != null )
+                    {
+                        Runnable runnable = onWrite;
+                        onWrite = null;
+                        runnable.run();
+                    }
+                }
+
+                return null;
+            } );
+    }
+
+
+    private static byte[] bytes( int length, int seed )
+    {
+        byte[] bytes = new byte[length];
+
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes[i] = ( byte ) ( i + seed );
+        }
+
+        return bytes;
+    }
+
+
+    private static byte[] frame( byte[] data )
+    {
+        IoBuffer buffer = IoBuffer.allocate( 4 + data.length );
+        buffer.putInt( data.length );
+        buffer.put( XorSaslClient.xor( data, 0, data.length ) );
+
+        return buffer.array();
+    }
+
+
+    private static byte[] concat( byte[]... arrays )
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for ( byte[] array : arrays )
+        {
+            out.write( array, 0, array.length );
+        }
+
+        return out.toByteArray();
+    }
+
+
+    /**
+     * @return The data contained in the SASL messages written so far
+     */
+    private byte[] unwrapWritten()
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for ( WriteRequest request : written )
+        {
+            IoBuffer buffer = ( IoBuffer ) request.getMessage();
+            int length = buffer.getInt();
+            assertEquals( length, buffer.remaining() );
+            assertTrue( length <= MAX_BUFFER );
+            byte[] wrapped = new byte[length];
+            buffer.get( wrapped );
+            byte[] data = XorSaslClient.xor( wrapped, 0, length );
+            out.write( data, 0, data.length );
+        }
+
+        return out.toByteArray();
+    }
+
+
+    private WriteRequest request( byte[] data )
+    {
+        return new DefaultWriteRequest( IoBuffer.wrap( data ), new DefaultWriteFuture( session ) );
+    }
+
+
+    @BeforeEach
+    public void init()
+    {
+        saslClient = new XorSaslClient();
+        filter = new SaslFilter( saslClient );
+        session = new DummySession();
+        received = new ArrayList<>();
+        written = new ArrayList<>();
+    }
+
+
+    @Test
+    public void testUnwrapSplitMessages() throws Exception
+    {
+        byte[] data1 = bytes( 500, 1 );
+        byte[] data2 = bytes( 300, 2 );
+        byte[] stream = concat( frame( data1 ), frame( data2 ) );
+        NextFilter nextFilter = nextFilter();
+
+        // Feed the filter 3 bytes at a time, to split the lengths too
+        for ( int i = 0; i < stream.length; i += 3 )
+        {
+            int length = Math.min( 3, stream.length - i );
+            filter.messageReceived( nextFilter, session, IoBuffer.wrap( stream, i, length ) );
+        }
+
+        assertEquals( 2, received.size() );
+        assertArrayEquals( data1, ( ( IoBuffer ) received.get( 0 ) ).array() );
+        assertArrayEquals( data2, ( ( IoBuffer ) received.get( 1 ) ).array() );
+        assertEquals( 2, saslClient.unwraps );
+    }
+
+
+    @Test
+    public void testUnwrapSeveralMessagesAtOnce() throws Exception
+    {
+        byte[] data1 = bytes( 500, 1 );
+        byte[] data2 = bytes( 300, 2 );
+        byte[] data3 = bytes( 10, 3 );
+        byte[] stream = concat( frame( data1 ), frame( data2 ), frame( data3 ) );
+
+        // The last message is incomplete
+        filter.messageReceived( nextFilter(), session, IoBuffer.wrap( stream, 0, stream.length - 5 ) );
+
+        assertEquals( 1, received.size() );
+        IoBuffer unwrapped = ( IoBuffer ) received.get( 0 );
+        byte[] data = new byte[unwrapped.remaining()];
+        unwrapped.get( data );
+        assertArrayEquals( concat( data1, data2 ), data );
+
+        filter.messageReceived( nextFilter(), session, IoBuffer.wrap( stream, stream.length - 5, 5 ) );
+
+        assertEquals( 2, received.size() );
+        assertArrayEquals( data3, ( ( IoBuffer ) received.get( 1 ) ).array() );
+    }
+
+
+    @Test
+    public void testWrapLargeMessage() throws Exception
+    {
+        byte[] data = bytes( 2500, 1 );
+        WriteRequest request = request( data );
+
+        filter.filterWrite( nextFilter(), session, request );
+
+        assertEquals( 4, written.size() );
+        assertEquals( 4, saslClient.wraps );
+        assertArrayEquals( data, unwrapWritten() );
+    }
+
+
+    @Test
+    public void testGatherConcurrentWrites() throws Exception
+    {
+        byte[] data1 = bytes( 100, 1 );
+        byte[] data2 = bytes( 200, 2 );
+        byte[] data3 = bytes( 300, 3 );
+        byte[] data4 = bytes( 400, 4 );
+        NextFilter nextFilter = nextFilter();
+        WriteRequest request2 = request( data2 );
+        WriteRequest request3 = request( data3 );
+        WriteRequest request4 = request( data4 );
+
+        // Those requests are written while the first one is being sent
+        onWrite = () ->
+        {
+            try
+            {
+                filter.filterWrite( nextFilter, session, request2 );
+                filter.filterWrite( nextFilter, session, request3 );
+                filter.filterWrite( nextFilter, session, request4 );
+            }
+            catch ( Exception e )
+            {
+                throw new RuntimeException( e );
+            }
+        };
+
+        filter.filterWrite( nextFilter, session, request( data1 ) );
+
+        // The 2nd and 3rd requests are gathered, the 4th would exceed the max buffer size
+        assertEquals( 3, written.size() );
+        assertEquals( 3, saslClient.wraps );
+        assertArrayEquals( concat( data1, data2, data3, data4 ), unwrapWritten() );
+
+        WriteFuture gathered = written.get( 1 ).getFuture();
+        assertFalse( request2.getFuture().isWritten() );
+        gathered.setWritten();
+        assertTrue( request2.getFuture().isWritten() );
+        assertTrue( request3.getFuture().isWritten() );
+        assertFalse( request4.getFuture().isWritten() );
+        assertTrue( written.get( 2 ).getFuture() == request4.getFuture() );
+    }
+}
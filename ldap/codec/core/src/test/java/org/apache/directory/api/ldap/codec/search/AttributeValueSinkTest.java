@@ -0,0 +1,337 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.search;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.asn1.ber.Asn1Decoder;
+import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.ldap.codec.api.AttributeValueSink;
+import org.apache.directory.api.ldap.codec.api.LdapEncoder;
+import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.api.SearchResultEntryDecoder;
+import org.apache.directory.api.ldap.codec.api.TempFileAttributeValueSink;
+import org.apache.directory.api.ldap.codec.osgi.AbstractCodecServiceTest;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntryImpl;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Test the streaming of attribute values to an AttributeValueSink
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution( ExecutionMode.CONCURRENT)
+public class AttributeValueSinkTest extends AbstractCodecServiceTest
+{
+    /** A sink storing the jpegPhoto values in memory */
+    private static class MemorySink implements AttributeValueSink
+    {
+        private final Map<WritableByteChannel, ByteArrayOutputStream> opened = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private final List<Dn> dns = new ArrayList<>();
+        private int aborted;
+
+
+        @Override
+        public WritableByteChannel open( Dn dn, String attributeId, int length )
+        {
+            if ( !"jpegPhoto".equalsIgnoreCase( attributeId ) )
+            {
+                return null;
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            WritableByteChannel channel = Channels.newChannel( out );
+            opened.put( channel, out );
+            dns.add( dn );
+
+            return channel;
+        }
+
+
+        @Override
+        public void close( WritableByteChannel channel )
+        {
+            values.add( opened.remove( channel ).toByteArray() );
+        }
+
+
+        @Override
+        public void abort( WritableByteChannel channel )
+        {
+            opened.remove( channel );
+            aborted++;
+        }
+    }
+
+
+    /**
+     * A SchemaManager only knowing the jpegPhoto and cn attribute types, as the schema
+     * data are not available here
+     */
+    private static SchemaManager schemaManager()
+    {
+        Map<String, AttributeType> attributeTypes = new HashMap<>();
+
+        AttributeType jpegPhoto = new AttributeType( "0.9.2342.19200300.100.1.60" );
+        attributeTypes.put( "jpegphoto", jpegPhoto );
+        attributeTypes.put( jpegPhoto.getOid(), jpegPhoto );
+
+        AttributeType cn = new AttributeType( "2.5.4.3" );
+        attributeTypes.put( "cn", cn );
+        attributeTypes.put( "commonname", cn );
+        attributeTypes.put( cn.getOid(), cn );
+
+        return ( SchemaManager ) Proxy.newProxyInstance( SchemaManager.class.getClassLoader(),
+            new Class<?>[] { SchemaManager.class }, ( proxy, method, args ) ->
+            {
+                if ( "getAttributeType".equals( method.getName() ) )
+                {
+                    return attributeTypes.get( args[0] );
+                }
+
+                throw new UnsupportedOperationException( method.getName() );
+            } );
+    }
+
+
+    private static byte[] bytes( int length )
+    {
+        byte[] bytes = new byte[length];
+
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes[i] = ( byte ) i;
+        }
+
+        return bytes;
+    }
+
+
+    private ByteBuffer encode( int messageId, byte[]... photos ) throws Exception
+    {
+        DefaultEntry entry = new DefaultEntry( "cn=photo,dc=example,dc=com",
+            "objectClass: person",
+            "cn: photo",
+            "sn: photo" );
+        entry.add( "jpegPhoto", photos );
+
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl( messageId );
+        searchResultEntry.setEntry( entry );
+
+        return LdapEncoder.encodeMessage( new Asn1Buffer(), codec, searchResultEntry );
+    }
+
+
+    /**
+     * Feeds the decoder with small chunks of the PDU
+     */
+    private void decode( ByteBuffer stream, int chunkSize, LdapMessageContainer<SearchResultEntry> container )
+        throws Exception
+    {
+        while ( stream.hasRemaining() )
+        {
+            int size = Math.min( chunkSize, stream.remaining() );
+            byte[] chunk = new byte[size];
+            stream.get( chunk );
+
+            Asn1Decoder.decode( ByteBuffer.wrap( chunk ), container );
+        }
+    }
+
+
+    @Test
+    public void testStreamFragmentedValues() throws Exception
+    {
+        byte[] photo1 = bytes( 5000 );
+        byte[] photo2 = bytes( 300 );
+        ByteBuffer stream = encode( 1, photo1, photo2 );
+
+        MemorySink sink = new MemorySink();
+        LdapMessageContainer<SearchResultEntry> container = new LdapMessageContainer<>( codec );
+        container.setAttributeValueSink( sink );
+
+        decode( stream, 17, container );
+
+        SearchResultEntry entry = container.getMessage();
+        assertNotNull( entry );
+        assertEquals( "cn=photo,dc=example,dc=com", entry.getObjectName().getName() );
+        assertEquals( "photo", entry.getEntry().get( "sn" ).getString() );
+
+        // The streamed values are not stored in the entry
+        Attribute jpegPhoto = entry.getEntry().get( "jpegPhoto" );
+        assertEquals( 0, jpegPhoto.size() );
+
+        assertEquals( 2, sink.values.size() );
+        assertArrayEquals( photo1, sink.values.get( 0 ) );
+        assertArrayEquals( photo2, sink.values.get( 1 ) );
+        assertEquals( entry.getObjectName(), sink.dns.get( 0 ) );
+        assertEquals( 0, sink.aborted );
+    }
+
+
+    @Test
+    public void testFastPathDisabledWithSink() throws Exception
+    {
+        ByteBuffer stream = encode( 2, bytes( 10 ) );
+
+        LdapMessageContainer<SearchResultEntry> container = new LdapMessageContainer<>( codec );
+        container.setAttributeValueSink( new MemorySink() );
+
+        assertNull( SearchResultEntryDecoder.decode( stream, container ) );
+        assertEquals( 0, stream.position() );
+    }
+
+
+    @Test
+    public void testAbortOnClean() throws Exception
+    {
+        ByteBuffer stream = encode( 3, bytes( 5000 ) );
+        stream.limit( stream.limit() - 100 );
+
+        MemorySink sink = new MemorySink();
+        LdapMessageContainer<SearchResultEntry> container = new LdapMessageContainer<>( codec );
+        container.setAttributeValueSink( sink );
+
+        decode( stream, 1000, container );
+
+        assertTrue( sink.values.isEmpty() );
+        assertEquals( 1, sink.opened.size() );
+
+        container.clean();
+
+        assertEquals( 1, sink.aborted );
+        assertTrue( sink.opened.isEmpty() );
+    }
+
+
+    @Test
+    public void testTempFileSink( @TempDir Path directory ) throws Exception
+    {
+        byte[] large = bytes( 4000 );
+        byte[] small = bytes( 10 );
+        ByteBuffer stream = encode( 4, large, small );
+
+        TempFileAttributeValueSink sink = new TempFileAttributeValueSink( directory.toFile(), "JPEGPhoto" );
+        sink.setMinimumSize( 1000 );
+
+        LdapMessageContainer<SearchResultEntry> container = new LdapMessageContainer<>( codec );
+        container.setAttributeValueSink( sink );
+
+        decode( stream, 256, container );
+
+        SearchResultEntry entry = container.getMessage();
+        Attribute jpegPhoto = entry.getEntry().get( "jpegPhoto" );
+
+        // Only the small value is kept in memory
+        assertEquals( 1, jpegPhoto.size() );
+        assertTrue( jpegPhoto.contains( small ) );
+
+        File[] files = directory.toFile().listFiles();
+        assertEquals( 1, files.length );
+
+        Map<String, List<Path>> entryFiles = sink.takeFiles( entry.getObjectName() );
+        assertEquals( 1, entryFiles.size() );
+        assertEquals( 1, entryFiles.get( "jpegPhoto" ).size() );
+        assertEquals( files[0].toPath(), entryFiles.get( "jpegPhoto" ).get( 0 ) );
+        assertArrayEquals( large, Files.readAllBytes( files[0].toPath() ) );
+
+        // The files are only handed over once
+        assertTrue( sink.takeFiles( entry.getObjectName() ).isEmpty() );
+    }
+
+
+    @Test
+    public void testTempFileSinkAttributeNames( @TempDir Path directory ) throws IOException
+    {
+        TempFileAttributeValueSink sink = new TempFileAttributeValueSink( directory.toFile(), "JPEGPhoto" );
+        sink.setMinimumSize( 0 );
+
+        // The options are ignored
+        assertNotNull( sink.open( Dn.EMPTY_DN, "jpegPhoto;binary", 10 ) );
+        assertNotNull( sink.open( Dn.EMPTY_DN, "jpegphoto;lang-fr", 10 ) );
+
+        // Without a SchemaManager, the OID is not known
+        assertNull( sink.open( Dn.EMPTY_DN, "0.9.2342.19200300.100.1.60", 10 ) );
+        
+        sink.setSchemaManager( schemaManager() );
+
+        assertNotNull( sink.open( Dn.EMPTY_DN, "0.9.2342.19200300.100.1.60", 10 ) );
+        assertNotNull( sink.open( Dn.EMPTY_DN, "jpegPhoto;binary", 10 ) );
+        assertNull( sink.open( Dn.EMPTY_DN, "2.5.4.3", 10 ) );
+
+        // An attribute configured with one of its names is recognized by the others
+        TempFileAttributeValueSink cnSink = new TempFileAttributeValueSink( directory.toFile(),
+            schemaManager(), "commonName" );
+        cnSink.setMinimumSize( 0 );
+
+        assertNotNull( cnSink.open( Dn.EMPTY_DN, "CN", 10 ) );
+        assertNotNull( cnSink.open( Dn.EMPTY_DN, "2.5.4.3;lang-en", 10 ) );
+    }
+
+
+    @Test
+    public void testTempFileSinkAbort( @TempDir Path directory ) throws IOException
+    {
+        TempFileAttributeValueSink sink = new TempFileAttributeValueSink( directory.toFile(), "jpegPhoto" );
+        sink.setMinimumSize( 0 );
+
+        assertNull( sink.open( Dn.EMPTY_DN, "cn", 10 ) );
+
+        WritableByteChannel channel = sink.open( Dn.EMPTY_DN, "jpegPhoto", 10 );
+        assertNotNull( channel );
+        assertEquals( 1, directory.toFile().listFiles().length );
+
+        sink.abort( channel );
+
+        assertFalse( channel.isOpen() );
+        assertEquals( 0, directory.toFile().listFiles().length );
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.search;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+
+import org.apache.directory.api.asn1.ber.Asn1Decoder;
+import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.ldap.codec.api.LdapEncoder;
+import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.api.PreparedSearchRequest;
+import org.apache.directory.api.ldap.codec.api.SearchRequestTemplate;
+import org.apache.directory.api.ldap.codec.osgi.AbstractCodecServiceTest;
+import org.apache.directory.api.ldap.model.filter.EqualityNode;
+import org.apache.directory.api.ldap.model.message.AliasDerefMode;
+import org.apache.directory.api.ldap.model.message.Message;
+import org.apache.directory.api.ldap.model.message.SearchRequest;
+import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.ManageDsaITImpl;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.util.Strings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Test the SearchRequestTemplate
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution( ExecutionMode.CONCURRENT)
+public class SearchRequestTemplateTest extends AbstractCodecServiceTest
+{
+    private SearchRequest newSearchRequest( String filter ) throws Exception
+    {
+        SearchRequest searchRequest = new SearchRequestImpl();
+        searchRequest.setBase( new Dn( "ou=people,dc=example,dc=com" ) );
+        searchRequest.setScope( SearchScope.ONELEVEL );
+        searchRequest.setDerefAliases( AliasDerefMode.NEVER_DEREF_ALIASES );
+        searchRequest.setSizeLimit( 10 );
+        searchRequest.setTimeLimit( 5 );
+        searchRequest.setFilter( filter );
+        searchRequest.addAttributes( "cn", "mail" );
+        searchRequest.addControl( new ManageDsaITImpl() );
+
+        return searchRequest;
+    }
+
+
+    private byte[] encode( Message message ) throws Exception
+    {
+        return LdapEncoder.encodeMessage( new Asn1Buffer(), codec, message ).array();
+    }
+
+
+    /**
+     * Checks that a prepared request is encoded exactly as the equivalent request
+     */
+    private void assertPrepared( String templateFilter, String filter, Object... parameters ) throws Exception
+    {
+        SearchRequestTemplate template = new SearchRequestTemplate( codec, newSearchRequest( templateFilter ) );
+        assertEquals( parameters.length, template.getParameterCount() );
+
+        PreparedSearchRequest prepared = template.newRequest( parameters );
+        prepared.setMessageId( 1234 );
+
+        SearchRequest expected = newSearchRequest( filter );
+        expected.setMessageId( 1234 );
+
+        assertArrayEquals( encode( expected ), encode( prepared ) );
+        assertEquals( expected.getFilter().toString(), prepared.getFilter().toString() );
+    }
+
+
+    @Test
+    public void testEquality() throws Exception
+    {
+        assertPrepared( "(uid=?)", "(uid=jdoe)", "jdoe" );
+    }
+
+
+    @Test
+    public void testNestedParameters() throws Exception
+    {
+        assertPrepared( "(&(objectClass=person)(|(uid=?)(mail=?))(!(cn=?)))",
+            "(&(objectClass=person)(|(uid=jdoe)(mail=jdoe@example.com))(!(cn=admin)))",
+            "jdoe", "jdoe@example.com", "admin" );
+    }
+
+
+    @Test
+    public void testOtherAssertions() throws Exception
+    {
+        assertPrepared( "(|(cn>=?)(cn<=?)(cn~=?)(cn:caseExactMatch:=?))",
+            "(|(cn>=a)(cn<=b)(cn~=c)(cn:caseExactMatch:=d))",
+            "a", "b", "c", "d" );
+    }
+
+
+    @Test
+    public void testSubstrings() throws Exception
+    {
+        assertPrepared( "(|(cn=?*)(cn=*?*abc*?)(sn=a*?))", "(|(cn=j*)(cn=*o*abc*e)(sn=a*z))",
+            "j", "o", "e", "z" );
+    }
+
+
+    @Test
+    public void testLongAndEmptyValues() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for ( int i = 0; i < 300; i++ )
+        {
+            sb.append( 'x' );
+        }
+
+        String longValue = sb.toString();
+
+        assertPrepared( "(&(uid=?)(cn=?))", "(&(uid=" + longValue + ")(cn=))", longValue, "" );
+        assertPrepared( "(&(uid=?)(cn=?))", "(&(uid=a)(cn=b))", Strings.getBytesUtf8( "a" ), "b" );
+    }
+
+
+    @Test
+    public void testNoParameter() throws Exception
+    {
+        assertPrepared( "(objectClass=*)", "(objectClass=*)" );
+    }
+
+
+    @Test
+    public void testEscapedQuestionMarks() throws Exception
+    {
+        SearchRequestTemplate template = new SearchRequestTemplate( codec, newSearchRequest( "(description=??)" ) );
+        assertEquals( 0, template.getParameterCount() );
+
+        PreparedSearchRequest prepared = template.newRequest();
+        prepared.setMessageId( 1 );
+
+        SearchRequest expected = newSearchRequest( "(description=x)" );
+        expected.setMessageId( 1 );
+        expected.setFilter( new EqualityNode<String>( "description", "?" ) );
+
+        assertArrayEquals( encode( expected ), encode( prepared ) );
+        assertEquals( expected.getFilter().toString(), prepared.getFilter().toString() );
+
+        // A literal value can be mixed with parameters, and can't be taken for the parameter marker
+        assertPrepared( "(&(description=???)(cn=?0)(uid=?)(sn=??*?))", "(&(description=??)(cn=?0)(uid=jdoe)(sn=?*e))",
+            "jdoe", "e" );
+    }
+
+
+    @Test
+    public void testSpecialCharactersAreNotInterpreted() throws Exception
+    {
+        SearchRequestTemplate template = new SearchRequestTemplate( codec, newSearchRequest( "(uid=?)" ) );
+        PreparedSearchRequest prepared = template.newRequest( "*)(uid=admin" );
+        prepared.setMessageId( 1 );
+
+        SearchRequest expected = newSearchRequest( "(uid=x)" );
+        expected.setMessageId( 1 );
+        expected.setFilter( new EqualityNode<String>( "uid", "*)(uid=admin" ) );
+
+        assertArrayEquals( encode( expected ), encode( prepared ) );
+
+        // Decode it back
+        LdapMessageContainer<SearchRequest> container = new LdapMessageContainer<>( codec );
+        Asn1Decoder.decode( ByteBuffer.wrap( encode( prepared ) ), container );
+
+        assertEquals( expected.getFilter().toString(), container.getMessage().getFilter().toString() );
+    }
+
+
+    @Test
+    public void testWrongParameters() throws Exception
+    {
+        SearchRequestTemplate template = new SearchRequestTemplate( codec, newSearchRequest( "(&(uid=?)(cn=?))" ) );
+
+        assertThrows( IllegalArgumentException.class, () -> template.newRequest( "a" ) );
+        assertThrows( IllegalArgumentException.class, () -> template.newRequest( "a", 1 ) );
+    }
+
+
+    @Test
+    public void testReadOnly() throws Exception
+    {
+        SearchRequestTemplate template = new SearchRequestTemplate( codec, newSearchRequest( "(uid=?)" ) );
+        PreparedSearchRequest prepared = template.newRequest( "jdoe" );
+
+        assertThrows( UnsupportedOperationException.class, () -> prepared.setFilter( "(uid=admin)" ) );
+        assertThrows( UnsupportedOperationException.class, () -> prepared.addAttributes( "userPassword" ) );
+        assertThrows( UnsupportedOperationException.class, () -> prepared.setBase( Dn.ROOT_DSE ) );
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.codec.search;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.apache.directory.api.asn1.ber.Asn1Decoder;
+import org.apache.directory.api.asn1.util.Asn1Buffer;
+import org.apache.directory.api.ldap.codec.api.LdapEncoder;
+import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
+import org.apache.directory.api.ldap.codec.api.SearchResultEntryDecoder;
+import org.apache.directory.api.ldap.codec.osgi.AbstractCodecServiceTest;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.message.Message;
+import org.apache.directory.api.ldap.model.message.SearchResultDoneImpl;
+import org.apache.directory.api.ldap.model.message.SearchResultEntry;
+import org.apache.directory.api.ldap.model.message.SearchResultEntryImpl;
+import org.apache.directory.api.ldap.model.message.controls.ChangeType;
+import org.apache.directory.api.ldap.model.message.controls.EntryChange;
+import org.apache.directory.api.ldap.model.message.controls.EntryChangeImpl;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Test the SearchResultEntry fast path decoder
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution( ExecutionMode.CONCURRENT)
+public class SearchResultEntryDecoderTest extends AbstractCodecServiceTest
+{
+    private ByteBuffer encode( Message message ) throws Exception
+    {
+        return LdapEncoder.encodeMessage( new Asn1Buffer(), codec, message );
+    }
+
+
+    private SearchResultEntry decodeWithGrammar( ByteBuffer stream ) throws Exception
+    {
+        LdapMessageContainer<SearchResultEntry> container = new LdapMessageContainer<>( codec );
+        Asn1Decoder.decode( stream.duplicate(), container );
+
+        return container.getMessage();
+    }
+
+
+    private void assertSameAsGrammar( Entry entry ) throws Exception
+    {
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl( 300 );
+        searchResultEntry.setEntry( entry );
+        ByteBuffer stream = encode( searchResultEntry );
+        SearchResultEntry expected = decodeWithGrammar( stream );
+
+        SearchResultEntry decoded = SearchResultEntryDecoder.decode( stream, new LdapMessageContainer<>( codec ) );
+
+        assertNotNull( decoded );
+        assertEquals( 300, decoded.getMessageId() );
+        assertEquals( expected.getObjectName(), decoded.getObjectName() );
+        assertEquals( expected.getEntry(), decoded.getEntry() );
+        assertEquals( expected, decoded );
+        assertEquals( stream.limit(), stream.position() );
+    }
+
+
+    /**
+     * The fast path must be explicitly requested
+     */
+    @Test
+    public void testFastPathDisabledByDefault()
+    {
+        LdapMessageContainer<SearchResultEntry> container = new LdapMessageContainer<>( codec );
+        assertFalse( container.isSearchResultEntryFastPath() );
+
+        container.setSearchResultEntryFastPath( true );
+        assertTrue( container.isSearchResultEntryFastPath() );
+    }
+
+
+    @Test
+    public void testDecodeSameAsGrammar() throws Exception
+    {
+        assertSameAsGrammar( new DefaultEntry( "uid=jdoe,ou=people,dc=example,dc=com",
+            "objectClass: top",
+            "objectClass: person",
+            "cn: John Doe",
+            "sn: Doe",
+            "description:",
+            "jpegPhoto:: AAECAwQ=" ) );
+    }
+
+
+    @Test
+    public void testDecodeEmptyDnNoAttributes() throws Exception
+    {
+        assertSameAsGrammar( new DefaultEntry( Dn.EMPTY_DN ) );
+    }
+
+
+    @Test
+    public void testDecodeLargeValue() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for ( int i = 0; i < 100_000; i++ )
+        {
+            sb.append( 'a' );
+        }
+
+        assertSameAsGrammar( new DefaultEntry( "cn=large", "cn: large", "description: " + sb ) );
+    }
+
+
+    @Test
+    public void testDecodeEmptyVals() throws Exception
+    {
+        ByteBuffer stream = ByteBuffer.wrap( new byte[]
+            {
+                0x30, 0x15,                     // LDAPMessage ::=SEQUENCE {
+                  0x02, 0x01, 0x01,             // messageID MessageID
+                  0x64, 0x10,                   // SearchResultEntry ::= [APPLICATION 4] SEQUENCE {
+                    0x04, 0x04, 'c', 'n', '=', 'a',
+                    0x30, 0x08,                 // attributes PartialAttributeList
+                      0x30, 0x06,
+                        0x04, 0x02, 'c', 'n',
+                        0x31, 0x00              // vals SET OF value AttributeValue
+            } );
+
+        SearchResultEntry expected = decodeWithGrammar( stream );
+        SearchResultEntry decoded = SearchResultEntryDecoder.decode( stream, new LdapMessageContainer<>( codec ) );
+
+        assertEquals( expected, decoded );
+        assertTrue( decoded.getEntry().containsAttribute( "cn" ) );
+    }
+
+
+    @Test
+    public void testDecodeTwoPdus() throws Exception
+    {
+        SearchResultEntry first = new SearchResultEntryImpl( 1 );
+        first.setEntry( new DefaultEntry( "cn=first", "cn: first" ) );
+        SearchResultEntry second = new SearchResultEntryImpl( 2 );
+        second.setEntry( new DefaultEntry( "cn=second", "cn: second" ) );
+
+        ByteBuffer firstBuffer = encode( first );
+        ByteBuffer secondBuffer = encode( second );
+        ByteBuffer stream = ByteBuffer.allocate( firstBuffer.remaining() + secondBuffer.remaining() );
+        stream.put( firstBuffer ).put( secondBuffer ).flip();
+
+        LdapMessageContainer<SearchResultEntry> container = new LdapMessageContainer<>( codec );
+
+        assertEquals( first, SearchResultEntryDecoder.decode( stream, container ) );
+        assertEquals( second, SearchResultEntryDecoder.decode( stream, container ) );
+        assertEquals( stream.limit(), stream.position() );
+    }
+
+
+    @Test
+    public void testFallbackOnControls() throws Exception
+    {
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl( 1 );
+        searchResultEntry.setEntry( new DefaultEntry( "cn=test", "cn: test" ) );
+        EntryChange entryChange = new EntryChangeImpl();
+        entryChange.setChangeType( ChangeType.ADD );
+        searchResultEntry.addControl( entryChange );
+
+        assertFallback( encode( searchResultEntry ) );
+    }
+
+
+    @Test
+    public void testFallbackOnOtherMessage() throws Exception
+    {
+        assertFallback( encode( new SearchResultDoneImpl( 1 ) ) );
+    }
+
+
+    @Test
+    public void testFallbackOnFragmentedPdu() throws Exception
+    {
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl( 1 );
+        searchResultEntry.setEntry( new DefaultEntry( "cn=test", "cn: test" ) );
+        ByteBuffer stream = encode( searchResultEntry );
+        stream.limit( stream.limit() - 1 );
+
+        assertFallback( stream );
+    }
+
+
+    @Test
+    public void testFallbackOnInvalidDn() throws Exception
+    {
+        assertFallback( ByteBuffer.wrap( new byte[]
+            {
+                0x30, 0x0D,
+                  0x02, 0x01, 0x01,
+                  0x64, 0x08,
+                    0x04, 0x04, 'c', 'n', 'a', 'a',
+                    0x30, 0x00
+            } ) );
+    }
+
+
+    @Test
+    public void testFallbackOnIndefiniteLength() throws Exception
+    {
+        assertFallback( ByteBuffer.wrap( new byte[]
+            {
+                0x30, ( byte ) 0x80,
+                  0x02, 0x01, 0x01,
+                  0x64, 0x08,
+                    0x04, 0x04, 'c', 'n', '=', 'a',
+                    0x30, 0x00,
+                0x00, 0x00
+            } ) );
+    }
+
+
+    @Test
+    public void testFallbackOnEmptyType() throws Exception
+    {
+        assertFallback( ByteBuffer.wrap( new byte[]
+            {
+                0x30, 0x13,
+                  0x02, 0x01, 0x01,
+                  0x64, 0x0E,
+                    0x04, 0x04, 'c', 'n', '=', 'a',
+                    0x30, 0x06,
+                      0x30, 0x04,
+                        0x04, 0x00,
+                        0x31, 0x00
+            } ) );
+    }
+
+
+    @Test
+    public void testFallbackOnPduTooLarge() throws Exception
+    {
+        SearchResultEntry searchResultEntry = new SearchResultEntryImpl( 1 );
+        searchResultEntry.setEntry( new DefaultEntry( "cn=test", "cn: test" ) );
+        ByteBuffer stream = encode( searchResultEntry );
+
+        LdapMessageContainer<SearchResultEntry> container = new LdapMessageContainer<>( codec );
+        container.setMaxPDUSize( stream.remaining() - 1 );
+
+        assertNull( SearchResultEntryDecoder.decode( stream, container ) );
+        assertEquals( 0, stream.position() );
+    }
+
+
+    private void assertFallback( ByteBuffer stream )
+    {
+        byte[] before = new byte[stream.remaining()];
+        stream.duplicate().get( before );
+        int position = stream.position();
+
+        assertNull( SearchResultEntryDecoder.decode( stream, new LdapMessageContainer<>( codec ) ) );
+        assertEquals( position, stream.position() );
+
+        byte[] after = new byte[stream.remaining()];
+        stream.duplicate().get( after );
+        assertArrayEquals( before, after );
+    }
+}
@@ -469,7 +469,7 @@ public class StandaloneLdapApiService extends DefaultLdapCodecService
 
         ExtendedOperationFactory factory = ( ExtendedOperationFactory ) constructor
             .newInstance( this );
-        getExtendedRequestFactories().put( factory.getOid(), factory );
+        getExtendedRequestFactories().put( intern( factory.getOid() ), factory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -527,7 +527,7 @@ public class StandaloneLdapApiService extends DefaultLdapCodecService
 
         IntermediateOperationFactory factory = ( IntermediateOperationFactory ) constructor
             .newInstance();
-        getIntermediateResponseFactories().put( factory.getOid(), factory );
+        getIntermediateResponseFactories().put( intern( factory.getOid() ), factory );
 
         if ( LOG.isInfoEnabled() )
         {
@@ -89,6 +89,6 @@ public class AdDirSyncRequestFactory extends AbstractControlFactory<AdDirSyncReq
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new AdDirSyncRequestContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, AdDirSyncRequestContainer::new );
     }
 }
@@ -89,6 +89,6 @@ public class AdDirSyncResponseFactory extends AbstractControlFactory<AdDirSyncRe
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new AdDirSyncResponseContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, AdDirSyncResponseContainer::new );
     }
 }
@@ -82,6 +82,6 @@ public class AdPolicyHintsFactory extends AbstractControlFactory<AdPolicyHints>
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new AdPolicyHintsContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, AdPolicyHintsContainer::new );
     }
 }
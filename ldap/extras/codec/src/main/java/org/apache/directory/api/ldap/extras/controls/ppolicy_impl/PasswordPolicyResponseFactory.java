@@ -118,6 +118,6 @@ public class PasswordPolicyResponseFactory extends AbstractControlFactory<Passwo
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new PasswordPolicyResponseContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, PasswordPolicyResponseContainer::new );
     }
 }
@@ -94,6 +94,6 @@ public class SyncDoneValueFactory extends AbstractControlFactory<SyncDoneValue>
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new SyncDoneValueContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, SyncDoneValueContainer::new );
     }
 }
@@ -92,6 +92,6 @@ public class SyncRequestValueFactory extends AbstractControlFactory<SyncRequestV
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new SyncRequestValueContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, SyncRequestValueContainer::new );
     }
 }
@@ -92,6 +92,6 @@ public class SyncStateValueFactory extends AbstractControlFactory<SyncStateValue
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new SyncStateValueContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, SyncStateValueContainer::new );
     }
 }
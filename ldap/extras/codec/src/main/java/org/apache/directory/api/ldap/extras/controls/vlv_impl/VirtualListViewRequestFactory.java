@@ -113,6 +113,6 @@ public class VirtualListViewRequestFactory extends AbstractControlFactory<Virtua
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new VirtualListViewRequestContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, VirtualListViewRequestContainer::new );
     }
 }
@@ -94,6 +94,6 @@ public class VirtualListViewResponseFactory extends AbstractControlFactory<Virtu
     @Override
     public void decodeValue( Control control, byte[] controlBytes ) throws DecoderException
     {
-        decodeValue( new VirtualListViewResponseContainer( control ), control, controlBytes );
+        decodeValue( control, controlBytes, VirtualListViewResponseContainer::new );
     }
 }
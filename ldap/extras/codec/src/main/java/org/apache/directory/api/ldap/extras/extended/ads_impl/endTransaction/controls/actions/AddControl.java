@@ -23,6 +23,7 @@ package org.apache.directory.api.ldap.extras.extended.ads_impl.endTransaction.co
 import org.apache.directory.api.asn1.DecoderException;
 import org.apache.directory.api.asn1.ber.grammar.GrammarAction;
 import org.apache.directory.api.asn1.ber.tlv.TLV;
+import org.apache.directory.api.asn1.util.InternedOid;
 import org.apache.directory.api.asn1.util.Oid;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.codec.api.ControlFactory;
@@ -77,10 +78,11 @@ public class AddControl extends GrammarAction<ControlsContainer>
         }
 
         byte[] value = tlv.getValue().getData();
-        String oidValue = Strings.asciiBytesToString( value );
+        InternedOid internedOid = InternedOid.get( value );
+        String oidValue = ( internedOid != null ) ? internedOid.getValue() : Strings.asciiBytesToString( value );
 
         // The OID is encoded as a String, not an Object Id
-        if ( !Oid.isOid( oidValue ) )
+        if ( ( internedOid == null ) && !Oid.isOid( oidValue ) )
         {
             String msg = I18n.err( I18n.ERR_08215_INVALID_CONTROL_OID, oidValue );
             LOG.error( msg );
@@ -302,4 +302,59 @@ public class SyncStateValueControlTest
         // Test reverse encoding
         testReverseEncoding( syncStateValue, factory, bb );
     }
+
+
+    /**
+     * Test that the container reused by a thread is left clean after a successful,
+     * a failed and an incomplete decoding
+     *
+     * @throws DecoderException If the ASN1 decoding failed
+     */
+    @Test
+    public void testDecodeSyncStateValueControlReusedContainer() throws DecoderException
+    {
+        byte[] present = new byte[]
+            {
+                0x30, 0x0E,
+                  0x0A, 0x01, 0x00,
+                  0x04, 0x03, 'a', 'b', 'c',
+                  0x04, 0x04, 'x', 'k', 'c', 'd'
+            };
+
+        byte[] delete = new byte[]
+            {
+                0x30, 0x08,
+                  0x0A, 0x01, 0x03,
+                  0x04, 0x03, 'd', 'e', 'f'
+            };
+
+        SyncStateValueFactory factory = ( SyncStateValueFactory ) codec.getResponseControlFactories().
+            get( SyncStateValue.OID );
+
+        for ( int i = 0; i < 3; i++ )
+        {
+            SyncStateValue first = factory.newControl();
+            factory.decodeValue( first, present );
+
+            assertEquals( SyncStateTypeEnum.PRESENT, first.getSyncStateType() );
+            assertEquals( "abc", Strings.utf8ToString( first.getEntryUUID() ) );
+            assertEquals( "xkcd", Strings.utf8ToString( first.getCookie() ) );
+
+            // A failed decoding
+            assertThrows( DecoderException.class, ( ) ->
+            {
+                factory.decodeValue( factory.newControl(), new byte[] { 0x30, 0x00 } );
+            } );
+
+            // An incomplete value
+            factory.decodeValue( factory.newControl(), new byte[] { 0x30, 0x08, 0x0A, 0x01, 0x01 } );
+
+            SyncStateValue second = factory.newControl();
+            factory.decodeValue( second, delete );
+
+            assertEquals( SyncStateTypeEnum.DELETE, second.getSyncStateType() );
+            assertEquals( "def", Strings.utf8ToString( second.getEntryUUID() ) );
+            assertNull( second.getCookie() );
+        }
+    }
 }
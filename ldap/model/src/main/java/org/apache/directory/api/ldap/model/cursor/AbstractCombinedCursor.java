@@ -0,0 +1,306 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.cursor;
+
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+
+
+/**
+ * The base class of the forward only cursors combining several ordered cursors, like
+ * {@link MergeCursor} and {@link IntersectionCursor}. The combined cursors are
+ * closed when this cursor is closed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ * @param <E> The type of element on which this cursor will iterate
+ */
+abstract class AbstractCombinedCursor<E> extends AbstractCursor<E>
+{
+    /** The combined cursors */
+    protected final List<Cursor<E>> cursors;
+
+    /** The order of the elements in each combined cursor */
+    protected final Comparator<E> comparator;
+
+    /** The current element */
+    protected E current;
+
+    /** A flag to tell if the cursor is on an element */
+    protected boolean onElement;
+
+    /** A flag to tell if the cursor is set after the last element */
+    protected boolean afterLast;
+
+
+    /**
+     * Creates a new instance of AbstractCombinedCursor.
+     *
+     * @param comparator The order of the elements in each combined cursor
+     * @param prefetchSize If above 0, each combined cursor is read ahead by its own thread
+     * in a {@link PrefetchingCursor} with a buffer of this size, otherwise the cursors are read
+     * by the consumer thread
+     * @param cursors The combined cursors
+     */
+    protected AbstractCombinedCursor( Comparator<E> comparator, int prefetchSize, List<? extends Cursor<E>> cursors )
+    {
+        this.comparator = comparator;
+        this.cursors = new ArrayList<>( cursors.size() );
+
+        for ( Cursor<E> cursor : cursors )
+        {
+            if ( prefetchSize > 0 )
+            {
+                this.cursors.add( PrefetchingCursor.readAhead( cursor, prefetchSize ) );
+            }
+            else
+            {
+                this.cursors.add( cursor );
+            }
+        }
+    }
+
+
+    /**
+     * Moves a combined cursor to its next element
+     *
+     * @param cursor The combined cursor
+     * @return The next element, or null if the cursor has no more element
+     * @throws LdapException If the cursor can't be moved
+     * @throws CursorException If the cursor can't be moved
+     */
+    protected E advance( Cursor<E> cursor ) throws LdapException, CursorException
+    {
+        if ( cursor.next() )
+        {
+            return cursor.get();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Sets the position after the last element
+     *
+     * @return false
+     */
+    protected boolean setAfterLast()
+    {
+        afterLast = true;
+        onElement = false;
+        current = null;
+
+        return false;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E get() throws CursorException
+    {
+        checkNotClosed();
+
+        if ( onElement )
+        {
+            return current;
+        }
+
+        if ( afterLast )
+        {
+            throw new InvalidCursorPositionException( I18n.err( I18n.ERR_13113_CANNOT_ACCESS_IF_AFTER_LAST ) );
+        }
+
+        throw new InvalidCursorPositionException( I18n.err( I18n.ERR_13109_CURSOR_NOT_POSITIONED ) );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean available()
+    {
+        return onElement;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAfterLast()
+    {
+        return afterLast;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        close( null );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close( Exception cause ) throws IOException
+    {
+        IOException failure = null;
+
+        // Close all the cursors, even if one of them fails
+        for ( Cursor<E> cursor : cursors )
+        {
+            try
+            {
+                if ( cause == null )
+                {
+                    cursor.close();
+                }
+                else
+                {
+                    cursor.close( cause );
+                }
+            }
+            catch ( IOException ioe )
+            {
+                if ( failure == null )
+                {
+                    failure = ioe;
+                }
+            }
+        }
+
+        current = null;
+        onElement = false;
+
+        if ( cause == null )
+        {
+            super.close();
+        }
+        else
+        {
+            super.close( cause );
+        }
+
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+
+    // rest of all operations will throw UnsupportedOperationException
+
+    /**
+     * This operation is not supported in combined cursors.
+     * {@inheritDoc}
+     */
+    @Override
+    public void after( E element ) throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "after( E element )" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in combined cursors.
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterLast() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "afterLast()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in combined cursors.
+     * {@inheritDoc}
+     */
+    @Override
+    public void before( E element ) throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "before( E element )" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in combined cursors.
+     * {@inheritDoc}
+     */
+    @Override
+    public void beforeFirst() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "beforeFirst()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in combined cursors.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean first() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "first()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in combined cursors.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean last() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "last()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in combined cursors.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean previous() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "previous()" ) ) );
+    }
+}
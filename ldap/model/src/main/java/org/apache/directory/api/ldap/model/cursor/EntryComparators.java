@@ -0,0 +1,109 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.cursor;
+
+
+import java.util.Comparator;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+
+
+/**
+ * Comparators used to merge, deduplicate or intersect cursors of entries, with a
+ * {@link MergeCursor} or an {@link IntersectionCursor}. The cursors have to be sorted with
+ * the same comparator.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class EntryComparators
+{
+    /** Compares the entries' normalized Dn */
+    private static final Comparator<Entry> DN_COMPARATOR =
+        ( entry1, entry2 ) -> entry1.getDn().getNormName().compareTo( entry2.getDn().getNormName() );
+
+
+    /**
+     * Private constructor.
+     */
+    private EntryComparators()
+    {
+    }
+
+
+    /**
+     * @return A comparator ordering the entries by their normalized Dn
+     */
+    public static Comparator<Entry> byDn()
+    {
+        return DN_COMPARATOR;
+    }
+
+
+    /**
+     * Creates a comparator ordering the entries by the normalized value of an attribute, like
+     * the entryUUID. If the attribute has more than one value, the first one is used. The
+     * entries having the same value are equal, even if their Dn differ, so that an entry renamed
+     * while the cursors were read is still recognized. The entries without this attribute are
+     * the greatest, and are ordered by their normalized Dn : they are never equal to a distinct
+     * entry.
+     *
+     * @param attributeId The attribute ID
+     * @return A comparator ordering the entries by the given attribute
+     */
+    public static Comparator<Entry> byAttribute( String attributeId )
+    {
+        return ( entry1, entry2 ) ->
+        {
+            String value1 = getNormalizedValue( entry1, attributeId );
+            String value2 = getNormalizedValue( entry2, attributeId );
+
+            if ( value1 == null )
+            {
+                return value2 == null ? DN_COMPARATOR.compare( entry1, entry2 ) : 1;
+            }
+            else if ( value2 == null )
+            {
+                return -1;
+            }
+
+            return value1.compareTo( value2 );
+        };
+    }
+
+
+    /**
+     * @return The normalized first value of an attribute, or null if the entry doesn't have it
+     */
+    private static String getNormalizedValue( Entry entry, String attributeId )
+    {
+        Attribute attribute = entry.get( attributeId );
+
+        if ( ( attribute == null ) || ( attribute.size() == 0 ) )
+        {
+            return null;
+        }
+
+        Value value = attribute.get();
+
+        return value == null ? null : value.getNormalized();
+    }
+}
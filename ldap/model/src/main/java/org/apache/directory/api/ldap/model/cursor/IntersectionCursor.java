@@ -0,0 +1,166 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.cursor;
+
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+
+
+/**
+ * A forward only Cursor returning the elements present in all the cursors it combines, these
+ * cursors being sorted in the same order. Two elements are considered the same when the
+ * comparator finds them equal, and the element of the first cursor is returned. Only the current
+ * element of each cursor is kept in memory.
+ * <p>
+ * The combined cursors must be sorted with the given comparator, for instance one of the
+ * {@link EntryComparators}, otherwise some common elements will be missed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ * @param <E> The type of element on which this cursor will iterate
+ */
+public class IntersectionCursor<E> extends AbstractCombinedCursor<E>
+{
+    /** The current element of each cursor */
+    private final Object[] heads;
+
+
+    /**
+     * Creates a new instance of IntersectionCursor, reading the cursors in the consumer thread.
+     *
+     * @param comparator The order of the elements in each cursor
+     * @param cursors The intersected cursors
+     */
+    public IntersectionCursor( Comparator<E> comparator, List<? extends Cursor<E>> cursors )
+    {
+        this( comparator, 0, cursors );
+    }
+
+
+    /**
+     * Creates a new instance of IntersectionCursor.
+     *
+     * @param comparator The order of the elements in each cursor
+     * @param prefetchSize If above 0, each cursor is read concurrently by its own thread, with
+     * a read ahead buffer of this size
+     * @param cursors The intersected cursors
+     */
+    public IntersectionCursor( Comparator<E> comparator, int prefetchSize, List<? extends Cursor<E>> cursors )
+    {
+        super( comparator, prefetchSize, cursors );
+        heads = new Object[cursors.size()];
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private E head( int index )
+    {
+        return ( E ) heads[index];
+    }
+
+
+    /**
+     * Moves all the cursors to their next element.
+     *
+     * @return false if one of the cursors has no more element
+     */
+    private boolean advanceAll() throws LdapException, CursorException
+    {
+        for ( int i = 0; i < heads.length; i++ )
+        {
+            heads[i] = advance( cursors.get( i ) );
+
+            if ( heads[i] == null )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean next() throws LdapException, CursorException
+    {
+        checkNotClosed();
+        onElement = false;
+        current = null;
+
+        if ( afterLast )
+        {
+            return false;
+        }
+
+        // Move all the cursors past the previous common element
+        if ( ( heads.length == 0 ) || !advanceAll() )
+        {
+            return setAfterLast();
+        }
+
+        while ( true )
+        {
+            // The greatest current element is the first candidate
+            E candidate = head( 0 );
+
+            for ( int i = 1; i < heads.length; i++ )
+            {
+                if ( comparator.compare( head( i ), candidate ) > 0 )
+                {
+                    candidate = head( i );
+                }
+            }
+
+            // Move all the cursors up to the candidate
+            boolean allEqual = true;
+
+            for ( int i = 0; i < heads.length; i++ )
+            {
+                while ( comparator.compare( head( i ), candidate ) < 0 )
+                {
+                    heads[i] = advance( cursors.get( i ) );
+
+                    if ( heads[i] == null )
+                    {
+                        return setAfterLast();
+                    }
+                }
+
+                if ( comparator.compare( head( i ), candidate ) > 0 )
+                {
+                    allEqual = false;
+                }
+            }
+
+            if ( allEqual )
+            {
+                current = head( 0 );
+                onElement = true;
+
+                return true;
+            }
+        }
+    }
+}
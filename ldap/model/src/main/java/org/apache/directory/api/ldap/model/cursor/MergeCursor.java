@@ -0,0 +1,185 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.cursor;
+
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+
+
+/**
+ * A forward only Cursor doing a k-way merge of cursors sorted in the same order, like the results
+ * of the same search sent to several servers or naming contexts. The elements are returned in
+ * this order, and if the merge is distinct, the elements equal to the previous one (according
+ * to the comparator) are skipped, which gives a deduplicated union. Only the current element of
+ * each cursor is kept in memory.
+ * <p>
+ * The combined cursors must be sorted with the given comparator, for instance one of the
+ * {@link EntryComparators}. Otherwise, the result is not sorted, and the duplicates are not all
+ * removed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ * @param <E> The type of element on which this cursor will iterate
+ */
+public class MergeCursor<E> extends AbstractCombinedCursor<E>
+{
+    /** Tells if the elements equal to the previous one are skipped */
+    private final boolean distinct;
+
+    /** The current element of each cursor, the smallest first */
+    private final PriorityQueue<Head<E>> heads;
+
+    /** A flag to tell if the cursors have been moved to their first element */
+    private boolean started;
+
+    /** The previously returned element, used to remove the duplicates */
+    private E previous;
+
+    /** Tells if an element has been returned */
+    private boolean hasPrevious;
+
+
+    /**
+     * The current element of a cursor
+     */
+    private static final class Head<E>
+    {
+        /** The cursor position, used to keep the order of equal elements stable */
+        private final int index;
+
+        /** The cursor */
+        private final Cursor<E> cursor;
+
+        /** The current element */
+        private E element;
+
+
+        private Head( int index, Cursor<E> cursor )
+        {
+            this.index = index;
+            this.cursor = cursor;
+        }
+    }
+
+
+    /**
+     * Creates a new instance of MergeCursor, reading the cursors in the consumer thread.
+     *
+     * @param comparator The order of the elements in each cursor
+     * @param distinct If true, the elements equal to the previous one are skipped
+     * @param cursors The merged cursors
+     */
+    public MergeCursor( Comparator<E> comparator, boolean distinct, List<? extends Cursor<E>> cursors )
+    {
+        this( comparator, distinct, 0, cursors );
+    }
+
+
+    /**
+     * Creates a new instance of MergeCursor.
+     *
+     * @param comparator The order of the elements in each cursor
+     * @param distinct If true, the elements equal to the previous one are skipped
+     * @param prefetchSize If above 0, each cursor is read concurrently by its own thread, with
+     * a read ahead buffer of this size
+     * @param cursors The merged cursors
+     */
+    public MergeCursor( Comparator<E> comparator, boolean distinct, int prefetchSize,
+        List<? extends Cursor<E>> cursors )
+    {
+        super( comparator, prefetchSize, cursors );
+        this.distinct = distinct;
+        heads = new PriorityQueue<>( Math.max( 1, cursors.size() ), ( head1, head2 ) ->
+        {
+            int comparison = comparator.compare( head1.element, head2.element );
+
+            return comparison != 0 ? comparison : Integer.compare( head1.index, head2.index );
+        } );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean next() throws LdapException, CursorException
+    {
+        checkNotClosed();
+        onElement = false;
+        current = null;
+
+        if ( afterLast )
+        {
+            return false;
+        }
+
+        if ( !started )
+        {
+            started = true;
+
+            for ( int i = 0; i < cursors.size(); i++ )
+            {
+                push( new Head<>( i, cursors.get( i ) ) );
+            }
+        }
+
+        while ( true )
+        {
+            Head<E> head = heads.poll();
+
+            if ( head == null )
+            {
+                return setAfterLast();
+            }
+
+            E element = head.element;
+            push( head );
+
+            if ( distinct && hasPrevious && ( comparator.compare( element, previous ) == 0 ) )
+            {
+                continue;
+            }
+
+            current = element;
+            previous = element;
+            hasPrevious = true;
+            onElement = true;
+
+            return true;
+        }
+    }
+
+
+    /**
+     * Moves the cursor of a head, and puts it back in the queue if it has an element
+     */
+    private void push( Head<E> head ) throws LdapException, CursorException
+    {
+        head.element = advance( head.cursor );
+
+        if ( head.element != null )
+        {
+            heads.add( head );
+        }
+    }
+}
@@ -0,0 +1,570 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.cursor;
+
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.constants.Loggers;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A forward only Cursor reading ahead another Cursor, and transforming its elements, in the
+ * background. A dedicated thread moves the underlying cursor and stores the elements in a
+ * bounded buffer, while the consumer reads them. The transformation (mapping an entry to a
+ * domain object, normalizing it...) is done either by this thread, or by an ExecutorService,
+ * in which case the elements are transformed in parallel. In any case, the elements are
+ * returned in the underlying cursor order.
+ * <p>
+ * At most <code>bufferSize</code> elements are read ahead, so memory stays bounded if the
+ * consumer is slower than the underlying cursor. The underlying cursor is only used, and
+ * closed, by the reading thread, when it has read all the elements or when this cursor is
+ * closed : it's never closed while the reading thread is moving it. This cursor can be closed
+ * by another thread, waking up a consumer waiting for the next element.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ * @param <S> The type of element of the underlying cursor
+ * @param <E> The type of element on which this cursor will iterate
+ */
+public class PrefetchingCursor<S, E> extends AbstractCursor<E>
+{
+    /** A dedicated log for cursors */
+    private static final Logger LOG_CURSOR = LoggerFactory.getLogger( Loggers.CURSOR_LOG.getName() );
+
+    /** The maximum time, in milliseconds, to wait for the reading thread when closing */
+    private static final long STOP_TIMEOUT = 1000L;
+
+    /** The underlying cursor */
+    private final Cursor<S> source;
+
+    /** The transformation applied to each element */
+    private final Transformer<S, E> transformer;
+
+    /** The executor transforming the elements, or null if the reading thread does it */
+    private final ExecutorService executor;
+
+    /** The elements read ahead, in order */
+    private final BlockingQueue<Future<E>> buffer;
+
+    /** The marker of the end of the underlying cursor */
+    private final Future<E> end = new CompletableFuture<>();
+
+    /** The thread reading the underlying cursor, started on the first move */
+    private Thread reader;
+
+    /** Set when this cursor is closed, to stop the reading thread */
+    private volatile boolean stopped;
+
+    /** The exception this cursor has been closed with, if any, used to close the underlying cursor */
+    private volatile Exception closeCause;
+
+    /** The current element */
+    private E current;
+
+    /** A flag to tell if the cursor is on an element */
+    private boolean onElement;
+
+    /** A flag to tell if the cursor is set after the last element */
+    private boolean afterLast;
+
+
+    /**
+     * The transformation applied to the elements of the underlying cursor.
+     *
+     * @param <S> The type of element of the underlying cursor
+     * @param <E> The type of transformed element
+     */
+    @FunctionalInterface
+    public interface Transformer<S, E>
+    {
+        /**
+         * Transforms an element
+         *
+         * @param element The element read from the underlying cursor
+         * @return The transformed element
+         * @throws LdapException If the element can't be transformed
+         */
+        E transform( S element ) throws LdapException;
+    }
+
+
+    /**
+     * Creates a new instance of PrefetchingCursor, transforming the elements in the reading thread.
+     *
+     * @param source The underlying cursor
+     * @param transformer The transformation applied to each element
+     * @param bufferSize The maximum number of elements read ahead
+     */
+    public PrefetchingCursor( Cursor<S> source, Transformer<S, E> transformer, int bufferSize )
+    {
+        this( source, transformer, bufferSize, null );
+    }
+
+
+    /**
+     * Creates a new instance of PrefetchingCursor, transforming the elements in parallel with
+     * an executor. The executor is not shut down when this cursor is closed.
+     *
+     * @param source The underlying cursor
+     * @param transformer The transformation applied to each element
+     * @param bufferSize The maximum number of elements read ahead, or being transformed
+     * @param executor The executor transforming the elements
+     */
+    public PrefetchingCursor( Cursor<S> source, Transformer<S, E> transformer, int bufferSize,
+        ExecutorService executor )
+    {
+        if ( LOG_CURSOR.isDebugEnabled() )
+        {
+            LOG_CURSOR.debug( I18n.msg( I18n.MSG_13107_CREATING_PREFETCHING_CURSOR, this ) );
+        }
+
+        this.source = source;
+        this.transformer = transformer;
+        this.executor = executor;
+        buffer = new ArrayBlockingQueue<>( bufferSize );
+    }
+
+
+    /**
+     * Creates a PrefetchingCursor reading ahead a cursor, without transforming its elements.
+     *
+     * @param source The underlying cursor
+     * @param bufferSize The maximum number of elements read ahead
+     * @param <E> The type of element
+     * @return The read ahead cursor
+     */
+    public static <E> PrefetchingCursor<E, E> readAhead( Cursor<E> source, int bufferSize )
+    {
+        return new PrefetchingCursor<>( source, element -> element, bufferSize );
+    }
+
+
+    /**
+     * Reads the underlying cursor until its end, or until this cursor is closed, and then
+     * closes it.
+     */
+    private void read()
+    {
+        try
+        {
+            while ( !stopped && source.next() )
+            {
+                S element = source.get();
+
+                if ( stopped )
+                {
+                    // Nobody will take it
+                    break;
+                }
+
+                if ( executor == null )
+                {
+                    buffer.put( transform( element ) );
+                }
+                else
+                {
+                    buffer.put( executor.submit( () -> transformer.transform( element ) ) );
+                }
+            }
+
+            if ( !stopped )
+            {
+                buffer.put( end );
+            }
+        }
+        catch ( InterruptedException ie )
+        {
+            // This cursor has been closed
+            Thread.currentThread().interrupt();
+        }
+        catch ( Exception e )
+        {
+            if ( !stopped )
+            {
+                // Hand the failure over to the consumer, and stop there
+                CompletableFuture<E> failure = new CompletableFuture<>();
+                failure.completeExceptionally( e );
+
+                try
+                {
+                    buffer.put( failure );
+                    buffer.put( end );
+                }
+                catch ( InterruptedException ie )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        finally
+        {
+            closeSource();
+        }
+    }
+
+
+    /**
+     * Closes the underlying cursor, with the exception this cursor has been closed with, if any
+     */
+    private void closeSource()
+    {
+        try
+        {
+            Exception cause = closeCause;
+
+            if ( cause == null )
+            {
+                source.close();
+            }
+            else
+            {
+                source.close( cause );
+            }
+        }
+        catch ( IOException ioe )
+        {
+            LOG_CURSOR.warn( ioe.getMessage(), ioe );
+        }
+    }
+
+
+    /**
+     * Starts the reading thread, unless it's already started or this cursor is closed.
+     */
+    private synchronized void startReader()
+    {
+        if ( ( reader == null ) && !stopped )
+        {
+            reader = new Thread( this::read, "PrefetchingCursor-reader" );
+            reader.setDaemon( true );
+            reader.start();
+        }
+    }
+
+
+    /**
+     * Transforms an element in the current thread
+     */
+    private Future<E> transform( S element )
+    {
+        CompletableFuture<E> future = new CompletableFuture<>();
+
+        try
+        {
+            future.complete( transformer.transform( element ) );
+        }
+        catch ( Exception e )
+        {
+            future.completeExceptionally( e );
+        }
+
+        return future;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean next() throws LdapException, CursorException
+    {
+        checkNotClosed();
+        onElement = false;
+        current = null;
+
+        if ( afterLast )
+        {
+            return false;
+        }
+
+        startReader();
+
+        try
+        {
+            Future<E> future = buffer.take();
+
+            if ( future == end )
+            {
+                afterLast = true;
+
+                return false;
+            }
+
+            current = future.get();
+            onElement = true;
+
+            return true;
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new CursorException( I18n.err( I18n.ERR_13114_PREFETCH_INTERRUPTED ), ie );
+        }
+        catch ( ExecutionException ee )
+        {
+            Throwable cause = ee.getCause();
+
+            if ( cause instanceof LdapException )
+            {
+                throw ( LdapException ) cause;
+            }
+            else if ( cause instanceof CursorException )
+            {
+                throw ( CursorException ) cause;
+            }
+            else if ( cause instanceof RuntimeException )
+            {
+                throw ( RuntimeException ) cause;
+            }
+            else if ( cause instanceof Error )
+            {
+                throw ( Error ) cause;
+            }
+
+            throw new CursorException( I18n.err( I18n.ERR_13115_PREFETCH_FAILURE, cause.getMessage() ), cause );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E get() throws CursorException
+    {
+        checkNotClosed();
+
+        if ( onElement )
+        {
+            return current;
+        }
+
+        if ( afterLast )
+        {
+            throw new InvalidCursorPositionException( I18n.err( I18n.ERR_13113_CANNOT_ACCESS_IF_AFTER_LAST ) );
+        }
+
+        throw new InvalidCursorPositionException( I18n.err( I18n.ERR_13109_CURSOR_NOT_POSITIONED ) );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean available()
+    {
+        return onElement;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAfterLast()
+    {
+        return afterLast;
+    }
+
+
+    /**
+     * Stops the reading thread, and cancels the pending transformations. The reading thread may
+     * be blocked in the underlying cursor : we only wait a bit for it to end, and it will close
+     * the underlying cursor when it's done. A consumer waiting for an element gets the end marker.
+     *
+     * @return <code>true</code> if the reading thread has been started, and closes the underlying cursor
+     */
+    private boolean stop()
+    {
+        Thread readingThread;
+
+        synchronized ( this )
+        {
+            stopped = true;
+            readingThread = reader;
+        }
+
+        if ( readingThread != null )
+        {
+            readingThread.interrupt();
+
+            try
+            {
+                readingThread.join( STOP_TIMEOUT );
+            }
+            catch ( InterruptedException ie )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for ( Future<E> future : buffer )
+        {
+            future.cancel( true );
+        }
+
+        buffer.clear();
+        buffer.offer( end );
+        current = null;
+        onElement = false;
+
+        return readingThread != null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if ( LOG_CURSOR.isDebugEnabled() )
+        {
+            LOG_CURSOR.debug( I18n.msg( I18n.MSG_13108_CLOSING_PREFETCHING_CURSOR, this ) );
+        }
+
+        if ( !stop() )
+        {
+            source.close();
+        }
+
+        super.close();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close( Exception cause ) throws IOException
+    {
+        if ( LOG_CURSOR.isDebugEnabled() )
+        {
+            LOG_CURSOR.debug( I18n.msg( I18n.MSG_13108_CLOSING_PREFETCHING_CURSOR, this ) );
+        }
+
+        closeCause = cause;
+
+        if ( !stop() )
+        {
+            source.close( cause );
+        }
+
+        super.close( cause );
+    }
+
+
+    // rest of all operations will throw UnsupportedOperationException
+
+    /**
+     * This operation is not supported in PrefetchingCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void after( E element ) throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "after( E element )" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in PrefetchingCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterLast() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "afterLast()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in PrefetchingCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void before( E element ) throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "before( E element )" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in PrefetchingCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public void beforeFirst() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "beforeFirst()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in PrefetchingCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean first() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "first()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in PrefetchingCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean last() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "last()" ) ) );
+    }
+
+
+    /**
+     * This operation is not supported in PrefetchingCursor.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean previous() throws LdapException, CursorException
+    {
+        throw new UnsupportedOperationException( I18n.err( I18n.ERR_13102_UNSUPPORTED_OPERATION, getClass().getName()
+            .concat( "." ).concat( "previous()" ) ) );
+    }
+}
@@ -20,12 +20,21 @@
 
 package org.apache.directory.api.ldap.model.ldif.anonymizer;
 
+import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
 import org.apache.directory.api.ldap.model.schema.SchemaManager;
+import org.apache.directory.api.util.Strings;
 
 /**
  * An abstract class implementing the default behavior of an Aninymizer instance
@@ -45,6 +54,21 @@ public abstract class AbstractAnonymizer<K> implements Anonymizer<K>
     /** A flag set to <code>true</code> if the AttributeType is case sensitive */
     protected boolean caseSensitive = false;
     
+    /** The secret key used to derive the anonymized values. If null, we use sequential values */
+    protected byte[] hashKey;
+    
+    /** The keyed hash instances, one per thread as a Mac is not thread safe */
+    private ThreadLocal<Mac> macs;
+    
+    /** The keyed hash algorithm */
+    private static final String HASH_ALGORITHM = "HmacSHA256";
+    
+    /** The minimal number of bits of hash an anonymized value carries, so that collisions are negligible */
+    private static final int MIN_HASH_BITS = 128;
+    
+    /** The number of distinct bytes used in the anonymized binary values */
+    private static final int BINARY_MAP_SIZE = 26;
+    
     /** Map of non sensitive chars to use in the anonymized values*/
     private static final char[] NOT_SENSITIVE_MAP = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789'()-./".toCharArray();
     
@@ -159,6 +183,250 @@ public abstract class AbstractAnonymizer<K> implements Anonymizer<K>
     }
     
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHashKey( byte[] hashKey )
+    {
+        if ( hashKey == null )
+        {
+            this.hashKey = null;
+            macs = null;
+            
+            return;
+        }
+        
+        this.hashKey = Arrays.copyOf( hashKey, hashKey.length );
+        SecretKeySpec keySpec = new SecretKeySpec( this.hashKey, HASH_ALGORITHM );
+        
+        macs = ThreadLocal.withInitial( () -> 
+        {
+            try
+            {
+                Mac mac = Mac.getInstance( HASH_ALGORITHM );
+                mac.init( keySpec );
+                
+                return mac;
+            }
+            catch ( GeneralSecurityException gse )
+            {
+                throw new IllegalStateException( I18n.err( I18n.ERR_13476_CANNOT_CREATE_KEYED_HASH, 
+                    HASH_ALGORITHM, gse.getMessage() ), gse );
+            }
+        } );
+        
+        // Fail fast if the algorithm is not available
+        macs.get();
+    }
+    
+    
+    /**
+     * Anonymize an attribute using the keyed hash : each value is replaced by a value
+     * derived from the value itself. The same value will always be anonymized the same
+     * way, whatever the thread and the order in which we process the values.
+     * <br>
+     * The anonymized value keeps the original length, unless this length is too short to
+     * carry {@value #MIN_HASH_BITS} bits of hash : the value is then extended, so that two
+     * distinct values don't get the same anonymized value. Nothing has to be remembered
+     * to avoid collisions.
+     *
+     * @param attribute The attribute to anonymize
+     * @return The anonymized attribute
+     */
+    protected Attribute anonymizeHashed( Attribute attribute )
+    {
+        Attribute result = new DefaultAttribute( attribute.getAttributeType() );
+
+        for ( Value value : attribute )
+        {
+            try
+            {
+                if ( value.isHumanReadable() )
+                {
+                    // Use the normalized value, so that two equal values get the same anonymized value
+                    String normValue = value.getNormalized();
+                    
+                    if ( normValue == null )
+                    {
+                        normValue = value.getString();
+                    }
+                    
+                    int length = getHashedLength( value.getString().length() );
+                    
+                    result.add( computeHashedValue( new KeyedHash( macs.get(), Strings.getBytesUtf8( normValue ) ),
+                        length ) );
+                }
+                else
+                {
+                    byte[] bytes = value.getBytes();
+                    int length = Math.max( bytes.length, getMinHashedLength( BINARY_MAP_SIZE ) );
+                    
+                    result.add( computeHashedBytes( new KeyedHash( macs.get(), bytes ), length ) );
+                }
+            }
+            catch ( LdapInvalidAttributeValueException e )
+            {
+                throw new RuntimeException( I18n.err( I18n.ERR_13436_ERROR_ANONYMIZING_VALUE, value ), e );
+            }
+        }
+        
+        return result;
+    }
+    
+    
+    /**
+     * Compute the length of an anonymized String value, from the length of the original
+     * value. This is the original length, extended to carry enough bits of hash.
+     *
+     * @param length The original value length
+     * @return The anonymized value length
+     */
+    protected int getHashedLength( int length )
+    {
+        int mapSize = caseSensitive ? SENSITIVE_MAP.length : NOT_SENSITIVE_MAP.length;
+        
+        return Math.max( length, getMinHashedLength( mapSize ) );
+    }
+    
+    
+    /**
+     * Compute the minimal number of chars needed to carry {@value #MIN_HASH_BITS} bits
+     * of hash, when each char is picked from a map of the given size.
+     *
+     * @param mapSize The number of chars we can pick from
+     * @return The minimal anonymized value length
+     */
+    protected static int getMinHashedLength( int mapSize )
+    {
+        return ( int ) Math.ceil( MIN_HASH_BITS * Math.log( 2 ) / Math.log( mapSize ) );
+    }
+    
+    
+    /**
+     * The keyed hash of a value, read as a sequence of indexes in a map of chars. The hash
+     * is extended as needed by hashing the value again with an incremented counter. The
+     * hash bytes which would make some indexes more frequent than others are skipped, so
+     * that each index is equally likely and each char carries its full share of the hash.
+     */
+    protected static final class KeyedHash
+    {
+        /** The keyed hash instance */
+        private final Mac mac;
+        
+        /** The value to hash */
+        private final byte[] value;
+        
+        /** The current block of hash */
+        private byte[] block;
+        
+        /** The position in the current block */
+        private int pos;
+        
+        /** The number of blocks computed so far */
+        private int counter;
+        
+        
+        /**
+         * Creates a new KeyedHash instance
+         *
+         * @param mac The keyed hash instance, used by the current thread only
+         * @param value The value to hash
+         */
+        KeyedHash( Mac mac, byte[] value )
+        {
+            this.mac = mac;
+            this.value = value;
+        }
+        
+        
+        /**
+         * Read the next index from the hash
+         *
+         * @param bound The size of the map, lower than 256
+         * @return An index between 0 (included) and bound (excluded)
+         */
+        public int nextIndex( int bound )
+        {
+            // The greatest multiple of bound we can get from one byte
+            int limit = 256 - ( 256 % bound );
+            
+            while ( true )
+            {
+                if ( ( block == null ) || ( pos == block.length ) )
+                {
+                    mac.update( value );
+                    mac.update( ( byte ) ( counter >>> 24 ) );
+                    mac.update( ( byte ) ( counter >>> 16 ) );
+                    mac.update( ( byte ) ( counter >>> 8 ) );
+                    mac.update( ( byte ) counter );
+                    block = mac.doFinal();
+                    pos = 0;
+                    counter++;
+                }
+                
+                int b = block[pos++] & 0x00FF;
+                
+                if ( b < limit )
+                {
+                    return b % bound;
+                }
+            }
+        }
+    }
+    
+    
+    /**
+     * Compute an anonymized String value from a keyed hash
+     *
+     * @param hash The keyed hash of the value
+     * @param length The anonymized value length
+     * @return The anonymized value
+     */
+    protected String computeHashedValue( KeyedHash hash, int length )
+    {
+        char[] charMap;
+        
+        if ( caseSensitive )
+        {
+            charMap = SENSITIVE_MAP;
+        }
+        else
+        {
+            charMap = NOT_SENSITIVE_MAP;
+        }
+        
+        char[] newValue = new char[length];
+        
+        for ( int i = 0; i < length; i++ )
+        {
+            newValue[i] = charMap[hash.nextIndex( charMap.length )];
+        }
+        
+        return new String( newValue );
+    }
+    
+    
+    /**
+     * Compute an anonymized byte[] value from a keyed hash
+     *
+     * @param hash The keyed hash of the value
+     * @param length The anonymized value length
+     * @return The anonymized value
+     */
+    protected byte[] computeHashedBytes( KeyedHash hash, int length )
+    {
+        byte[] newValue = new byte[length];
+        
+        for ( int i = 0; i < length; i++ )
+        {
+            newValue[i] = ( byte ) ( 'A' + hash.nextIndex( BINARY_MAP_SIZE ) );
+        }
+        
+        return newValue;
+    }
+    
+    
     /**
      * Compute the next String value
      *
@@ -95,4 +95,20 @@ public interface Anonymizer<K>
      * @param latestBytesMap The latest byte[] anonymized value map
      */
     void setLatestBytesMap( Map<Integer, byte[]> latestBytesMap );
+    
+    
+    /**
+     * Set the secret key used to derive the anonymized values using a keyed hash. When
+     * this key is set, the anonymized value only depends on the original value and on
+     * the key : the value maps are not used anymore, and the anonymizer can be used
+     * concurrently.
+     * 
+     * The default implementation ignores the key, for the anonymizers which don't support it.
+     * 
+     * @param hashKey The secret key, or <code>null</code> to get back to sequential values
+     */
+    default void setHashKey( byte[] hashKey )
+    {
+        // Nothing to do
+    }
 }
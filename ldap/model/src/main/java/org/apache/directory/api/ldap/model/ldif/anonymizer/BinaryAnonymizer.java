@@ -74,6 +74,11 @@ public class BinaryAnonymizer extends AbstractAnonymizer<byte[]>
     @Override
     public Attribute anonymize( Map<Value, Value> valueMap, Set<Value> valueSet, Attribute attribute )
     {
+        if ( hashKey != null )
+        {
+            return anonymizeHashed( attribute );
+        }
+        
         Attribute result = new DefaultAttribute( attribute.getAttributeType() );
 
         for ( Value value : attribute )
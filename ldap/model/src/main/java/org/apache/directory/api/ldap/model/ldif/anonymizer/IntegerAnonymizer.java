@@ -75,6 +75,11 @@ public class IntegerAnonymizer extends AbstractAnonymizer<String>
     @Override
     public Attribute anonymize( Map<Value, Value> valueMap, Set<Value> valueSet, Attribute attribute )
     {
+        if ( hashKey != null )
+        {
+            return anonymizeHashed( attribute );
+        }
+        
         Attribute result = new DefaultAttribute( attribute.getAttributeType() );
 
         for ( Value value : attribute )
@@ -137,6 +142,45 @@ public class IntegerAnonymizer extends AbstractAnonymizer<String>
     }
 
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int getHashedLength( int length )
+    {
+        return Math.max( length, getMinHashedLength( 10 ) );
+    }
+    
+    
+    /**
+     * Compute an anonymized Integer value from a keyed hash. The first digit can't be
+     * a '0', unless the value is only one digit long.
+     *
+     * @param hash The keyed hash of the value
+     * @param length The anonymized value length
+     * @return The anonymized value
+     */
+    @Override
+    protected String computeHashedValue( KeyedHash hash, int length )
+    {
+        char[] newValue = new char[length];
+        
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( ( i == 0 ) && ( length > 1 ) )
+            {
+                newValue[i] = ( char ) ( '1' + hash.nextIndex( 9 ) );
+            }
+            else
+            {
+                newValue[i] = ( char ) ( '0' + hash.nextIndex( 10 ) );
+            }
+        }
+        
+        return new String( newValue );
+    }
+    
+    
     /**
      * Compute the next Integer value
      *
@@ -79,6 +79,11 @@ public class StringAnonymizer extends AbstractAnonymizer<String>
     @Override
     public Attribute anonymize( Map<Value, Value> valueMap, Set<Value> valueSet, Attribute attribute )
     {
+        if ( hashKey != null )
+        {
+            return anonymizeHashed( attribute );
+        }
+        
         AttributeType attributeType = attribute.getAttributeType();
         Attribute result = new DefaultAttribute( attributeType );
 
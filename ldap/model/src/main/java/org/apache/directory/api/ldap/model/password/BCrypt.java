@@ -67,7 +67,7 @@ import org.apache.directory.api.i18n.I18n;
 public class BCrypt
 {
     // BCrypt parameters
-    private static final int GENSALT_DEFAULT_LOG2_ROUNDS = 10;
+    static final int GENSALT_DEFAULT_LOG2_ROUNDS = 10;
     private static final int BCRYPT_SALT_LEN = 16;
 
     // Blowfish parameters
@@ -26,9 +26,18 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.KeySpec;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
@@ -84,6 +93,22 @@ public final class PasswordUtil
     private static final byte[] CRYPT_SALT_CHARS = Strings
         .getBytesUtf8( "./0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz" );
 
+    /** The random generator used for the salts. A SecureRandom is thread safe, and costly to seed */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * The MessageDigest instances, by algorithm. They are not thread safe, and
+     * costly to get from the providers, so each thread keeps its own instances.
+     */
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = ThreadLocal.withInitial( HashMap::new );
+
+    /** The SecretKeyFactory instances, by algorithm, for the same reasons */
+    private static final ThreadLocal<Map<String, SecretKeyFactory>> KEY_FACTORIES =
+        ThreadLocal.withInitial( HashMap::new );
+
+    /** The number of tasks per processor a bulk operation is split into, to balance the load */
+    private static final int BULK_TASKS_PER_PROCESSOR = 4;
+
     private PasswordUtil()
     {
     }
@@ -199,13 +224,13 @@ public final class PasswordUtil
             case HASH_METHOD_SMD5:
                 // we use 8 byte salt always except for "crypt" which needs 2 byte salt
                 salt = new byte[8];
-                new SecureRandom().nextBytes( salt );
+                RANDOM.nextBytes( salt );
                 break;
 
             case HASH_METHOD_PKCS5S2:
                 // we use 16 byte salt for PKCS5S2
                 salt = new byte[16];
-                new SecureRandom().nextBytes( salt );
+                RANDOM.nextBytes( salt );
                 break;
 
             case HASH_METHOD_CRYPT:
@@ -219,7 +244,7 @@ public final class PasswordUtil
                 break;
                 
             case HASH_METHOD_CRYPT_BCRYPT:
-                salt = Strings.getBytesUtf8( BCrypt.genSalt() );
+                salt = Strings.getBytesUtf8( BCrypt.genSalt( BCrypt.GENSALT_DEFAULT_LOG2_ROUNDS, RANDOM ) );
                 break;
 
             default:
@@ -341,6 +366,171 @@ public final class PasswordUtil
             return compareBytes( receivedCredentials, storedCredentials );
         }
     }
+
+
+
+    /**
+     * Creates the hashed passwords of a batch of credentials, in parallel on the common
+     * ForkJoinPool.
+     * 
+     * @see #createStoragePassword(byte[], LdapSecurityConstants)
+     * 
+     * @param credentials the plain text passwords
+     * @param algorithm the hashing algorithm to be applied
+     * @return the passwords after hashing, in the same order as the credentials
+     * @throws IllegalArgumentException if the specified algorithm is null or unknown
+     */
+    public static List<byte[]> createStoragePasswords( List<byte[]> credentials, LdapSecurityConstants algorithm )
+    {
+        byte[][] storagePasswords = new byte[credentials.size()][];
+
+        IntStream.range( 0, storagePasswords.length ).parallel().forEach(
+            i -> storagePasswords[i] = createStoragePassword( credentials.get( i ), algorithm ) );
+
+        return Arrays.asList( storagePasswords );
+    }
+
+
+    /**
+     * Creates the hashed passwords of a batch of credentials, using the given executor.
+     * The batch is split in a few tasks per processor, each of them hashing a contiguous
+     * range of credentials, so the executor can be a fixed pool as well as a virtual
+     * thread per task executor.
+     * 
+     * @see #createStoragePassword(byte[], LdapSecurityConstants)
+     * 
+     * @param credentials the plain text passwords
+     * @param algorithm the hashing algorithm to be applied
+     * @param executor the executor running the hashing tasks
+     * @return the passwords after hashing, in the same order as the credentials
+     * @throws IllegalArgumentException if the specified algorithm is null or unknown
+     */
+    public static List<byte[]> createStoragePasswords( List<byte[]> credentials, LdapSecurityConstants algorithm,
+        ExecutorService executor )
+    {
+        byte[][] storagePasswords = new byte[credentials.size()][];
+
+        runInBulk( storagePasswords.length, executor,
+            i -> storagePasswords[i] = createStoragePassword( credentials.get( i ), algorithm ) );
+
+        return Arrays.asList( storagePasswords );
+    }
+
+
+    /**
+     * Compares a batch of credentials with the stored ones, in parallel on the common
+     * ForkJoinPool.
+     * 
+     * @see #compareCredentials(byte[], byte[])
+     * 
+     * @param receivedCredentials the credentials provided by users
+     * @param storedCredentials the credentials stored in the server, in the same order
+     * @return for each credential, true if it is equal to the stored one
+     */
+    public static boolean[] compareAllCredentials( List<byte[]> receivedCredentials, List<byte[]> storedCredentials )
+    {
+        checkBulkSizes( receivedCredentials, storedCredentials );
+        boolean[] results = new boolean[receivedCredentials.size()];
+
+        IntStream.range( 0, results.length ).parallel().forEach(
+            i -> results[i] = compareCredentials( receivedCredentials.get( i ), storedCredentials.get( i ) ) );
+
+        return results;
+    }
+
+
+    /**
+     * Compares a batch of credentials with the stored ones, using the given executor.
+     * 
+     * @see #compareCredentials(byte[], byte[])
+     * @see #createStoragePasswords(List, LdapSecurityConstants, ExecutorService)
+     * 
+     * @param receivedCredentials the credentials provided by users
+     * @param storedCredentials the credentials stored in the server, in the same order
+     * @param executor the executor running the comparison tasks
+     * @return for each credential, true if it is equal to the stored one
+     */
+    public static boolean[] compareAllCredentials( List<byte[]> receivedCredentials, List<byte[]> storedCredentials,
+        ExecutorService executor )
+    {
+        checkBulkSizes( receivedCredentials, storedCredentials );
+        boolean[] results = new boolean[receivedCredentials.size()];
+
+        runInBulk( results.length, executor,
+            i -> results[i] = compareCredentials( receivedCredentials.get( i ), storedCredentials.get( i ) ) );
+
+        return results;
+    }
+
+
+    private static void checkBulkSizes( List<byte[]> receivedCredentials, List<byte[]> storedCredentials )
+    {
+        if ( receivedCredentials.size() != storedCredentials.size() )
+        {
+            throw new IllegalArgumentException( I18n.err( I18n.ERR_13042_CREDENTIALS_COUNT_MISMATCH,
+                receivedCredentials.size(), storedCredentials.size() ) );
+        }
+    }
+
+
+    /**
+     * Runs a task on every index of a batch, splitting the batch in ranges executed by the executor,
+     * and waits for all of them to complete.
+     * 
+     * @param count the batch size
+     * @param executor the executor running the ranges
+     * @param task the task to run on each index
+     */
+    private static void runInBulk( int count, ExecutorService executor, IntConsumer task )
+    {
+        int nbTasks = Math.min( count, Runtime.getRuntime().availableProcessors() * BULK_TASKS_PER_PROCESSOR );
+        List<Future<?>> futures = new ArrayList<>( nbTasks );
+
+        for ( int t = 0; t < nbTasks; t++ )
+        {
+            int start = ( int ) ( ( long ) count * t / nbTasks );
+            int end = ( int ) ( ( long ) count * ( t + 1 ) / nbTasks );
+
+            futures.add( executor.submit( () ->
+            {
+                for ( int i = start; i < end; i++ )
+                {
+                    task.accept( i );
+                }
+            } ) );
+        }
+
+        try
+        {
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        catch ( InterruptedException ie )
+        {
+            futures.forEach( future -> future.cancel( true ) );
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( I18n.err( I18n.ERR_13043_BULK_CREDENTIALS_INTERRUPTED ), ie );
+        }
+        catch ( ExecutionException ee )
+        {
+            futures.forEach( future -> future.cancel( true ) );
+            Throwable cause = ee.getCause();
+
+            if ( cause instanceof RuntimeException )
+            {
+                throw ( RuntimeException ) cause;
+            }
+            else if ( cause instanceof Error )
+            {
+                throw ( Error ) cause;
+            }
+
+            throw new IllegalStateException( cause );
+        }
+    }
     
     
     /**
@@ -455,15 +645,21 @@ public final class PasswordUtil
      */
     private static byte[] digest( LdapSecurityConstants algorithm, byte[] password, byte[] salt )
     {
-        MessageDigest digest;
+        Map<String, MessageDigest> digests = DIGESTS.get();
+        MessageDigest digest = digests.get( algorithm.getAlgorithm() );
 
-        try
-        {
-            digest = MessageDigest.getInstance( algorithm.getAlgorithm() );
-        }
-        catch ( NoSuchAlgorithmException e1 )
+        if ( digest == null )
         {
-            return null;
+            try
+            {
+                digest = MessageDigest.getInstance( algorithm.getAlgorithm() );
+            }
+            catch ( NoSuchAlgorithmException e1 )
+            {
+                return null;
+            }
+
+            digests.put( algorithm.getAlgorithm(), digest );
         }
 
         if ( salt != null )
@@ -647,7 +843,15 @@ public final class PasswordUtil
     {
         try
         {
-            SecretKeyFactory sk = SecretKeyFactory.getInstance( algorithm.getAlgorithm() );
+            Map<String, SecretKeyFactory> keyFactories = KEY_FACTORIES.get();
+            SecretKeyFactory sk = keyFactories.get( algorithm.getAlgorithm() );
+
+            if ( sk == null )
+            {
+                sk = SecretKeyFactory.getInstance( algorithm.getAlgorithm() );
+                keyFactories.put( algorithm.getAlgorithm(), sk );
+            }
+
             char[] password = Strings.utf8ToString( credentials ).toCharArray();
             KeySpec keySpec = new PBEKeySpec( password, salt, 10000, PKCS5S2_LENGTH * 8 );
             Key key = sk.generateSecret( keySpec );
@@ -691,10 +895,10 @@ public final class PasswordUtil
     private static byte[] generateCryptSalt( int length )
     {
         byte[] salt = new byte[length];
-        SecureRandom sr = new SecureRandom();
+
         for ( int i = 0; i < salt.length; i++ )
         {
-            salt[i] = CRYPT_SALT_CHARS[sr.nextInt( CRYPT_SALT_CHARS.length )];
+            salt[i] = CRYPT_SALT_CHARS[RANDOM.nextInt( CRYPT_SALT_CHARS.length )];
         }
         
         return salt;
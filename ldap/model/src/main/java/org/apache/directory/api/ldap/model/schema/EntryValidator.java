@@ -0,0 +1,476 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.schema;
+
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.directory.api.i18n.I18n;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeTypeException;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
+import org.apache.directory.api.ldap.model.exception.LdapOperationException;
+import org.apache.directory.api.ldap.model.exception.LdapSchemaViolationException;
+import org.apache.directory.api.ldap.model.ldif.LdifEntry;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * An offline validator checking that whole entries comply with a schema, before
+ * they are sent to a server. An entry is checked for :
+ * <ul>
+ *   <li>objectClasses : they must exist, and at least one of them must be structural</li>
+ *   <li>attribute types : they must exist, and be allowed by the MUST and MAY lists of
+ *   the entry's objectClasses and their superiors, unless the entry is an extensibleObject
+ *   or the attribute type is operational</li>
+ *   <li>mandatory attributes : all the MUST attributes must be present</li>
+ *   <li>single valued attributes : they can't have more than one value</li>
+ *   <li>values : the values that are not schema aware are checked by the attribute's
+ *   SyntaxChecker (schema aware values have been checked when they were created)</li>
+ * </ul>
+ * All the violations are reported, as {@link LdapOperationException}s carrying the
+ * result code a server would return.
+ * <p>
+ * The allowed and mandatory attributes of a set of objectClasses are computed once, and
+ * cached as bitsets, so that checking an entry does not walk the objectClass hierarchy.
+ * This class is thread safe, and entries can be validated in parallel.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class EntryValidator
+{
+    /** The maximum number of objectClass sets we cache */
+    private static final int MAX_CACHED_OBJECT_CLASS_SETS = 1024;
+
+    /** The SchemaManager used to check the entries */
+    private final SchemaManager schemaManager;
+
+    /** The bit associated with each AttributeType OID */
+    private final Map<String, Integer> attributeTypeBits = new ConcurrentHashMap<>();
+
+    /** The next bit to associate to an AttributeType */
+    private final AtomicInteger nextBit = new AtomicInteger();
+
+    /** The computed objectClass sets, by lowercased objectClass names */
+    private final Map<Set<String>, ObjectClassSet> objectClassSets = new ConcurrentHashMap<>();
+
+
+    /**
+     * What we know about a set of objectClasses
+     */
+    private static final class ObjectClassSet
+    {
+        /** The objectClass names that are not in the schema */
+        private final List<String> unknownObjectClasses = new ArrayList<>();
+
+        /** Tells if one of the objectClasses is structural */
+        private boolean hasStructural;
+
+        /** Tells if one of the objectClasses is extensibleObject */
+        private boolean isExtensible;
+
+        /** The allowed attributes, MUST and MAY */
+        private final BitSet allowed = new BitSet();
+
+        /** The mandatory attributes */
+        private final List<AttributeType> mustAttributeTypes = new ArrayList<>();
+    }
+
+
+    /**
+     * Creates a new EntryValidator instance
+     *
+     * @param schemaManager The SchemaManager used to check the entries
+     */
+    public EntryValidator( SchemaManager schemaManager )
+    {
+        this.schemaManager = schemaManager;
+    }
+
+
+    /**
+     * Validates an entry against the schema.
+     *
+     * @param entry The entry to validate
+     * @return The list of violations, empty if the entry is valid
+     */
+    public List<LdapOperationException> validate( Entry entry )
+    {
+        List<LdapOperationException> violations = new ArrayList<>();
+        Dn dn = entry.getDn();
+        ObjectClassSet objectClassSet = getObjectClassSet( entry.get( SchemaConstants.OBJECT_CLASS_AT ) );
+
+        if ( objectClassSet == null )
+        {
+            violations.add( new LdapSchemaViolationException( ResultCodeEnum.OBJECT_CLASS_VIOLATION,
+                I18n.err( I18n.ERR_13870_ENTRY_WITHOUT_OBJECT_CLASS, dn ) ) );
+        }
+        else
+        {
+            for ( String unknownObjectClass : objectClassSet.unknownObjectClasses )
+            {
+                violations.add( new LdapSchemaViolationException( ResultCodeEnum.OBJECT_CLASS_VIOLATION,
+                    I18n.err( I18n.ERR_13871_ENTRY_UNKNOWN_OBJECT_CLASS, dn, unknownObjectClass ) ) );
+            }
+
+            if ( !objectClassSet.hasStructural )
+            {
+                violations.add( new LdapSchemaViolationException( ResultCodeEnum.OBJECT_CLASS_VIOLATION,
+                    I18n.err( I18n.ERR_13872_ENTRY_WITHOUT_STRUCTURAL_OBJECT_CLASS, dn ) ) );
+            }
+        }
+
+        BitSet present = new BitSet();
+
+        for ( Attribute attribute : entry )
+        {
+            AttributeType attributeType = getAttributeType( attribute );
+
+            if ( attributeType == null )
+            {
+                violations.add( new LdapInvalidAttributeTypeException(
+                    I18n.err( I18n.ERR_13873_ENTRY_UNKNOWN_ATTRIBUTE_TYPE, dn, attribute.getUpId() ) ) );
+
+                continue;
+            }
+
+            int bit = getBit( attributeType );
+            present.set( bit );
+
+            if ( ( objectClassSet != null ) && !objectClassSet.isExtensible && !objectClassSet.allowed.get( bit )
+                && ( attributeType.getUsage() == UsageEnum.USER_APPLICATIONS ) )
+            {
+                violations.add( new LdapSchemaViolationException( ResultCodeEnum.OBJECT_CLASS_VIOLATION,
+                    I18n.err( I18n.ERR_13874_ENTRY_ATTRIBUTE_NOT_ALLOWED, dn, attribute.getUpId() ) ) );
+            }
+
+            if ( attributeType.isSingleValued() && ( attribute.size() > 1 ) )
+            {
+                violations.add( new LdapInvalidAttributeValueException( ResultCodeEnum.CONSTRAINT_VIOLATION,
+                    I18n.err( I18n.ERR_13876_ENTRY_SINGLE_VALUED_ATTRIBUTE, dn, attribute.getUpId(),
+                        attribute.size() ) ) );
+            }
+
+            checkSyntax( dn, attribute, attributeType, violations );
+        }
+
+        if ( objectClassSet != null )
+        {
+            for ( AttributeType mustAttributeType : objectClassSet.mustAttributeTypes )
+            {
+                if ( !present.get( getBit( mustAttributeType ) ) )
+                {
+                    violations.add( new LdapSchemaViolationException( ResultCodeEnum.OBJECT_CLASS_VIOLATION,
+                        I18n.err( I18n.ERR_13875_ENTRY_MISSING_MUST_ATTRIBUTE, dn, mustAttributeType.getName() ) ) );
+                }
+            }
+        }
+
+        return violations;
+    }
+
+
+    /**
+     * Validates a LDIF entry against the schema. Only the LDIF entries containing an entry
+     * (plain content, or an added entry) are checked, the other changes are considered valid.
+     *
+     * @param ldifEntry The LDIF entry to validate
+     * @return The list of violations, empty if the entry is valid
+     */
+    public List<LdapOperationException> validate( LdifEntry ldifEntry )
+    {
+        if ( !ldifEntry.isEntry() )
+        {
+            return Collections.emptyList();
+        }
+
+        return validate( ldifEntry.getEntry() );
+    }
+
+
+    /**
+     * Validates a stream of entries in parallel.
+     *
+     * @param entries The entries to validate
+     * @return The violations of the invalid entries, by Dn. The valid entries are not present.
+     */
+    public Map<Dn, List<LdapOperationException>> validate( Stream<? extends Entry> entries )
+    {
+        Map<Dn, List<LdapOperationException>> invalidEntries = new ConcurrentHashMap<>();
+
+        entries.parallel().forEach( entry -> addViolations( invalidEntries, entry.getDn(), validate( entry ) ) );
+
+        return invalidEntries;
+    }
+
+
+    /**
+     * Validates LDIF entries in parallel. The entries can be read from a {@link org.apache.directory.api.ldap.model.ldif.LdifReader},
+     * in which case they are read by batches and dispatched to the validating threads.
+     *
+     * @param ldifEntries The LDIF entries to validate
+     * @return The violations of the invalid entries, by Dn. The valid entries are not present.
+     */
+    public Map<Dn, List<LdapOperationException>> validateLdif( Iterable<LdifEntry> ldifEntries )
+    {
+        Map<Dn, List<LdapOperationException>> invalidEntries = new ConcurrentHashMap<>();
+
+        StreamSupport.stream( ldifEntries.spliterator(), true ).forEach(
+            ldifEntry -> addViolations( invalidEntries, ldifEntry.getDn(), validate( ldifEntry ) ) );
+
+        return invalidEntries;
+    }
+
+
+    /**
+     * Stores the violations of an entry, if any. The same Dn may be present more than once.
+     */
+    private static void addViolations( Map<Dn, List<LdapOperationException>> invalidEntries, Dn dn,
+        List<LdapOperationException> violations )
+    {
+        if ( !violations.isEmpty() )
+        {
+            invalidEntries.merge( dn, violations, ( existing, added ) ->
+            {
+                List<LdapOperationException> merged = new ArrayList<>( existing );
+                merged.addAll( added );
+
+                return merged;
+            } );
+        }
+    }
+
+
+    /**
+     * Checks the values which are not schema aware with the attribute's SyntaxChecker
+     */
+    private static void checkSyntax( Dn dn, Attribute attribute, AttributeType attributeType,
+        List<LdapOperationException> violations )
+    {
+        LdapSyntax syntax = attributeType.getSyntax();
+
+        if ( ( syntax == null ) || ( syntax.getSyntaxChecker() == null ) )
+        {
+            return;
+        }
+
+        SyntaxChecker syntaxChecker = syntax.getSyntaxChecker();
+
+        for ( Value value : attribute )
+        {
+            if ( value.isSchemaAware() )
+            {
+                continue;
+            }
+
+            boolean valid;
+
+            if ( value.isHumanReadable() )
+            {
+                valid = syntaxChecker.isValidSyntax( value.getString() );
+            }
+            else
+            {
+                valid = syntaxChecker.isValidSyntax( value.getBytes() );
+            }
+
+            if ( !valid )
+            {
+                violations.add( new LdapInvalidAttributeValueException( ResultCodeEnum.INVALID_ATTRIBUTE_SYNTAX,
+                    I18n.err( I18n.ERR_13877_ENTRY_INVALID_ATTRIBUTE_SYNTAX, dn, attribute.getUpId(), value ) ) );
+            }
+        }
+    }
+
+
+    /**
+     * Gets the AttributeType of an attribute, looking it up in the schema if the attribute
+     * is not schema aware. The attribute options are ignored.
+     */
+    private AttributeType getAttributeType( Attribute attribute )
+    {
+        AttributeType attributeType = attribute.getAttributeType();
+
+        if ( attributeType != null )
+        {
+            return attributeType;
+        }
+
+        String id = attribute.getUpId();
+
+        if ( id == null )
+        {
+            return null;
+        }
+
+        int optionPos = id.indexOf( ';' );
+
+        if ( optionPos != -1 )
+        {
+            id = id.substring( 0, optionPos );
+        }
+
+        return schemaManager.getAttributeType( id );
+    }
+
+
+    /**
+     * @return The bit associated with an AttributeType
+     */
+    private int getBit( AttributeType attributeType )
+    {
+        return attributeTypeBits.computeIfAbsent( attributeType.getOid(), oid -> nextBit.getAndIncrement() );
+    }
+
+
+    /**
+     * Gets the cached ObjectClassSet for the values of an objectClass attribute, computing it
+     * if needed.
+     *
+     * @return The ObjectClassSet, or null if the attribute is absent or empty
+     */
+    private ObjectClassSet getObjectClassSet( Attribute objectClass )
+    {
+        if ( ( objectClass == null ) || ( objectClass.size() == 0 ) )
+        {
+            return null;
+        }
+
+        Set<String> names = new HashSet<>();
+
+        for ( Value value : objectClass )
+        {
+            if ( value.isHumanReadable() )
+            {
+                names.add( Strings.toLowerCaseAscii( Strings.trim( value.getString() ) ) );
+            }
+        }
+
+        ObjectClassSet objectClassSet = objectClassSets.get( names );
+
+        if ( objectClassSet == null )
+        {
+            objectClassSet = computeObjectClassSet( names );
+
+            // Don't let the cache grow forever if the entries have random objectClasses
+            if ( objectClassSets.size() < MAX_CACHED_OBJECT_CLASS_SETS )
+            {
+                objectClassSets.put( names, objectClassSet );
+            }
+        }
+
+        return objectClassSet;
+    }
+
+
+    /**
+     * Computes the structural flags and the allowed and mandatory attributes of a
+     * set of objectClasses, including their superiors.
+     */
+    private ObjectClassSet computeObjectClassSet( Set<String> names )
+    {
+        ObjectClassSet objectClassSet = new ObjectClassSet();
+        Set<ObjectClass> objectClasses = new HashSet<>();
+
+        for ( String name : names )
+        {
+            ObjectClass objectClass = null;
+
+            if ( schemaManager.getObjectClassRegistry().contains( name ) )
+            {
+                try
+                {
+                    objectClass = schemaManager.lookupObjectClassRegistry( name );
+                }
+                catch ( LdapException le )
+                {
+                    // Handled as an unknown objectClass
+                }
+            }
+
+            if ( objectClass == null )
+            {
+                objectClassSet.unknownObjectClasses.add( name );
+            }
+            else
+            {
+                addWithSuperiors( objectClass, objectClasses );
+            }
+        }
+
+        BitSet must = new BitSet();
+
+        for ( ObjectClass objectClass : objectClasses )
+        {
+            objectClassSet.hasStructural |= objectClass.isStructural();
+            objectClassSet.isExtensible |= SchemaConstants.EXTENSIBLE_OBJECT_OC_OID.equals( objectClass.getOid() );
+
+            for ( AttributeType mustAttributeType : objectClass.getMustAttributeTypes() )
+            {
+                int bit = getBit( mustAttributeType );
+                objectClassSet.allowed.set( bit );
+
+                if ( !must.get( bit ) )
+                {
+                    must.set( bit );
+                    objectClassSet.mustAttributeTypes.add( mustAttributeType );
+                }
+            }
+
+            for ( AttributeType mayAttributeType : objectClass.getMayAttributeTypes() )
+            {
+                objectClassSet.allowed.set( getBit( mayAttributeType ) );
+            }
+        }
+
+        return objectClassSet;
+    }
+
+
+    /**
+     * Adds an ObjectClass and all its superiors into a set
+     */
+    private static void addWithSuperiors( ObjectClass objectClass, Set<ObjectClass> objectClasses )
+    {
+        if ( objectClasses.add( objectClass ) && ( objectClass.getSuperiors() != null ) )
+        {
+            for ( ObjectClass superior : objectClass.getSuperiors() )
+            {
+                addWithSuperiors( superior, objectClasses );
+            }
+        }
+    }
+}
@@ -64,6 +64,90 @@ public abstract class LdapComparator<T> extends LoadableSchemaObject implements
     }
     
     
+    /**
+     * Computes the sort key of a value. Comparing the sort keys of two values with
+     * {@link #compareSortKeys(byte[], byte[])} gives the same order as comparing the
+     * values with this comparator, so the key can be computed once per value and used
+     * to sort the values or to build an index, without parsing them again.
+     *
+     * @param value The value, which must not be null
+     * @return The sort key, or <code>null</code> if this comparator has no sort key
+     */
+    public byte[] getSortKey( T value )
+    {
+        return null;
+    }
+
+
+    /**
+     * Compares two sort keys, byte per byte, as unsigned values. A key which is a prefix
+     * of another key is lower.
+     *
+     * @param key1 The first sort key
+     * @param key2 The second sort key
+     * @return A negative value, zero or a positive value if the first key is lower, equal
+     * or greater than the second key
+     */
+    public static int compareSortKeys( byte[] key1, byte[] key2 )
+    {
+        int length = Math.min( key1.length, key2.length );
+
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( key1[i] != key2[i] )
+            {
+                return ( key1[i] & 0xFF ) - ( key2[i] & 0xFF );
+            }
+        }
+
+        return key1.length - key2.length;
+    }
+
+
+    /**
+     * Builds the sort key of a String compared with {@link String#compareTo(String)} :
+     * each char is stored on two bytes.
+     *
+     * @param value The String
+     * @return The sort key
+     */
+    protected static byte[] getStringSortKey( String value )
+    {
+        byte[] key = new byte[value.length() * 2];
+
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            key[i * 2] = ( byte ) ( c >> 8 );
+            key[i * 2 + 1] = ( byte ) c;
+        }
+
+        return key;
+    }
+
+
+    /**
+     * Builds the sort key of a long : the long is stored on 8 bytes, with its sign
+     * bit flipped so that the negative values are lower than the positive ones.
+     *
+     * @param value The long
+     * @return The sort key
+     */
+    protected static byte[] getLongSortKey( long value )
+    {
+        long flipped = value ^ Long.MIN_VALUE;
+        byte[] key = new byte[8];
+
+        for ( int i = 7; i >= 0; i-- )
+        {
+            key[i] = ( byte ) flipped;
+            flipped >>>= 8;
+        }
+
+        return key;
+    }
+
+
     /**
      * {@inheritDoc}
      */
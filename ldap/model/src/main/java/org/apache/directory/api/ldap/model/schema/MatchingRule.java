@@ -187,6 +187,25 @@ public class MatchingRule extends AbstractSchemaObject
     }
 
 
+    /**
+     * Computes the sort key of a value using the ordering LdapComparator.
+     *
+     * @see LdapComparator#getSortKey(Object)
+     * @param value The value, which must not be null
+     * @return The sort key, or <code>null</code> if this MatchingRule has no LdapComparator,
+     * or if its LdapComparator has no sort key
+     */
+    public byte[] getSortKey( Object value )
+    {
+        if ( ldapComparator == null )
+        {
+            return null;
+        }
+
+        return ldapComparator.getSortKey( value );
+    }
+
+
 
     /**
      * Gets the Normalizer enabling the use of this MatchingRule for EQUALITY
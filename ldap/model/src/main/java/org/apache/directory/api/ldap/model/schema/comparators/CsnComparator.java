@@ -111,4 +111,21 @@ public class CsnComparator extends LdapComparator<Object>
 
         return csnStr1.compareTo( csnStr2 );
     }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] getSortKey( Object csnObj )
+    {
+        if ( csnObj instanceof Value )
+        {
+            return getStringSortKey( ( ( Value ) csnObj ).getString() );
+        }
+        else
+        {
+            return getStringSortKey( csnObj.toString() );
+        }
+    }
 }
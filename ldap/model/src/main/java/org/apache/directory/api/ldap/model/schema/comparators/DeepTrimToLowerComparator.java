@@ -59,11 +59,33 @@ public class DeepTrimToLowerComparator extends LdapComparator<String>
      */
     public int compare( String key, String value )
     {
-        String normalizedValue;
+        return key.compareTo( normalize( value ) );
+    }
+
 
+    /**
+     * {@inheritDoc}
+     * 
+     * The key is built from the normalized value.
+     */
+    @Override
+    public byte[] getSortKey( String value )
+    {
+        return getStringSortKey( normalize( value ) );
+    }
+
+
+    /**
+     * Normalizes a value, or keeps it as is if it can't be normalized
+     * 
+     * @param value The value to normalize
+     * @return The normalized value
+     */
+    private String normalize( String value )
+    {
         try
         {
-            normalizedValue = normalizer.normalize( value );
+            return normalizer.normalize( value );
         }
         catch ( LdapException e )
         {
@@ -72,9 +94,7 @@ public class DeepTrimToLowerComparator extends LdapComparator<String>
                 LOG.warn( I18n.msg( I18n.MSG_13700_FAILED_TO_NORMALIZE, value ), e );
             }
             
-            normalizedValue = value;
+            return value;
         }
-
-        return key.compareTo( normalizedValue );
     }
 }
@@ -106,4 +106,23 @@ public class GeneralizedTimeComparator extends LdapComparator<String>
 
         return backendTime.compareTo( assertTime );
     }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The key is the time in milliseconds.
+     */
+    @Override
+    public byte[] getSortKey( String value )
+    {
+        try
+        {
+            return getLongSortKey( new GeneralizedTime( value ).getTime() );
+        }
+        catch ( ParseException pe )
+        {
+            throw new IllegalArgumentException( I18n.err( I18n.ERR_13724_INVALID_VALUE, value ), pe );
+        }
+    }
 }
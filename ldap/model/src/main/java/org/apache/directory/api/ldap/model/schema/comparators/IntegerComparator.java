@@ -165,4 +165,61 @@ public class IntegerComparator extends LdapComparator<Object> implements Seriali
             return b1.compareTo( b2 );
         }
     }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The key starts with the sign, then the length of the magnitude on 4 bytes and the
+     * magnitude, both inverted for the negative values.
+     */
+    @Override
+    public byte[] getSortKey( Object value )
+    {
+        BigInteger integer;
+
+        if ( value instanceof Long )
+        {
+            integer = BigInteger.valueOf( ( Long ) value );
+        }
+        else
+        {
+            String stringValue = ( value instanceof Value ) ? ( ( Value ) value ).getString() : ( String ) value;
+
+            try
+            {
+                integer = new BigInteger( new NumericNormalizer().normalize( stringValue ) );
+            }
+            catch ( LdapException | NumberFormatException e )
+            {
+                throw new IllegalArgumentException( I18n.err( I18n.ERR_13724_INVALID_VALUE, stringValue ), e );
+            }
+        }
+
+        int signum = integer.signum();
+
+        if ( signum == 0 )
+        {
+            return new byte[] { 0x01 };
+        }
+
+        byte[] magnitude = integer.abs().toByteArray();
+        int offset = ( magnitude[0] == 0 ) ? 1 : 0;
+        int length = magnitude.length - offset;
+        byte[] key = new byte[5 + length];
+        int mask = ( signum < 0 ) ? 0xFF : 0x00;
+
+        key[0] = ( byte ) ( ( signum < 0 ) ? 0x00 : 0x02 );
+        key[1] = ( byte ) ( ( length >>> 24 ) ^ mask );
+        key[2] = ( byte ) ( ( length >>> 16 ) ^ mask );
+        key[3] = ( byte ) ( ( length >>> 8 ) ^ mask );
+        key[4] = ( byte ) ( length ^ mask );
+
+        for ( int i = 0; i < length; i++ )
+        {
+            key[5 + i] = ( byte ) ( magnitude[offset + i] ^ mask );
+        }
+
+        return key;
+    }
 }
@@ -110,4 +110,24 @@ public class TelephoneNumberComparator extends LdapComparator<String>
 
         return strippedTelephoneNumber1.compareToIgnoreCase( strippedTelephoneNumber2 );
     }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The key is built from the stripped telephone number, case folded the way
+     * {@link String#compareToIgnoreCase(String)} does it.
+     */
+    @Override
+    public byte[] getSortKey( String telephoneNumber )
+    {
+        char[] chars = strip( telephoneNumber ).toCharArray();
+
+        for ( int i = 0; i < chars.length; i++ )
+        {
+            chars[i] = Character.toLowerCase( Character.toUpperCase( chars[i] ) );
+        }
+
+        return getStringSortKey( new String( chars ) );
+    }
 }
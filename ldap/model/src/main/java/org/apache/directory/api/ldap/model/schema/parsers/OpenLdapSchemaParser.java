@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.apache.directory.api.asn1.util.Oid;
 import org.apache.directory.api.i18n.I18n;
@@ -141,6 +142,9 @@ public class OpenLdapSchemaParser
     
     private static final boolean UN_QUOTED = false;
     
+    /** The minimal number of elements of a schema parsed in parallel */
+    private static final int PARALLEL_THRESHOLD = 32;
+    
     /** Flag for strict or relaxed mode */
     private static final boolean STRICT = false;
     private static final boolean RELAXED = true;
@@ -6594,6 +6598,11 @@ public class OpenLdapSchemaParser
      * comments, and unfolded.
      *
      * The lines represent *one* entry.
+     * <br>
+     * The elements are first read in order, the object identifiers being processed on the fly,
+     * then the attribute types and object classes are parsed, in parallel if there are enough
+     * of them. They are added to the schema descriptions in the order they were read, and the
+     * reported error, if any, is the first one in the stream.
      *
      * @param reader The stream reader
      * @throws LdapSchemaException If something went wrong in the schema
@@ -6601,46 +6610,247 @@ public class OpenLdapSchemaParser
      */
     public void parse( Reader reader ) throws LdapSchemaException, IOException
     {
-        PosSchema pos = new PosSchema( isQuirksModeEnabled );
+        List<Object> elements = readElements( reader );
+        Stream<Object> stream = elements.size() >= PARALLEL_THRESHOLD ? elements.parallelStream() : elements.stream();
 
-        while ( true )
+        stream.filter( SchemaElement.class::isInstance ).forEach( element -> ( ( SchemaElement ) element ).parse() );
+
+        for ( Object element : elements )
         {
-            // Always move forward to the next element, skipping whites, NL and comments
-            skipWhites( reader, pos, false );
-            
-            if ( pos.line == null )
+            if ( element instanceof LdapSchemaException )
             {
-                // The end, get out
-                break;
+                throw ( LdapSchemaException ) element;
             }
-            
-            // Ok, we have something which must be one of openLdapObjectIdentifier( "objectidentifier" ), 
-            // openLdapAttributeType ( "attributetype" )  or openLdapObjectClass ( "objectclass" )
-            if ( startsWith( pos, "objectidentifier" ) )
+
+            SchemaElement schemaElement = ( SchemaElement ) element;
+
+            if ( schemaElement.error instanceof IOException )
             {
-                pos.start += "objectidentifier".length();
-                
-                processObjectIdentifier( reader, pos );
+                throw ( IOException ) schemaElement.error;
             }
-            else if ( startsWith( pos, "attributetype" ) )
+            else if ( schemaElement.error != null )
             {
-                pos.start += "attributetype".length();
-                
-                AttributeType attributeType = parseAttributeTypeStrict( reader, pos, objectIdentifierMacros );
-                schemaDescriptions.add( attributeType );
+                throw ( LdapSchemaException ) schemaElement.error;
             }
-            else if ( startsWith( pos, "objectclass" ) )
+
+            schemaDescriptions.add( schemaElement.schemaObject );
+        }
+    }
+
+
+    /**
+     * Reads the elements of a schema. The object identifiers are processed, the attribute
+     * types and object classes are returned, not yet parsed. If an error is met, it is
+     * returned as the last element.
+     *
+     * @param reader The stream reader
+     * @return The SchemaElements, and the error if any
+     * @throws IOException If the stream can't be read
+     */
+    private List<Object> readElements( Reader reader ) throws IOException
+    {
+        List<Object> elements = new ArrayList<>();
+        PosSchema pos = new PosSchema( isQuirksModeEnabled );
+
+        // The macros known by the next elements, copied when a new macro is defined
+        Map<String, OpenLdapObjectIdentifierMacro> macros = null;
+
+        try
+        {
+            while ( true )
             {
-                pos.start += "objectclass".length();
+                // Always move forward to the next element, skipping whites, NL and comments
+                skipWhites( reader, pos, false );
                 
-                ObjectClass objectClass = parseObjectClassStrict( reader, pos, objectIdentifierMacros );
-                schemaDescriptions.add( objectClass );
+                if ( pos.line == null )
+                {
+                    // The end, get out
+                    break;
+                }
+                
+                // Ok, we have something which must be one of openLdapObjectIdentifier( "objectidentifier" ), 
+                // openLdapAttributeType ( "attributetype" )  or openLdapObjectClass ( "objectclass" )
+                if ( startsWith( pos, "objectidentifier" ) )
+                {
+                    pos.start += "objectidentifier".length();
+                    
+                    processObjectIdentifier( reader, pos );
+                    macros = null;
+                }
+                else if ( startsWith( pos, "attributetype" ) || startsWith( pos, "objectclass" ) )
+                {
+                    boolean isAttributeType = startsWith( pos, "attributetype" );
+                    pos.start += isAttributeType ? "attributetype".length() : "objectclass".length();
+
+                    if ( macros == null )
+                    {
+                        macros = new HashMap<>( objectIdentifierMacros );
+                    }
+
+                    elements.add( readElement( reader, pos, isAttributeType, macros ) );
+                }
+                else
+                {
+                    // This is an error
+                    throw new LdapSchemaException( I18n.err( I18n.ERR_13806_UNEXPECTED_ELEMENT_READ, 
+                        pos.line.substring( pos.start ), pos.lineNumber, pos.start ) );
+                }
             }
-            else
+        }
+        catch ( LdapSchemaException lse )
+        {
+            elements.add( lse );
+        }
+
+        return elements;
+    }
+
+
+    /**
+     * Reads the text of an attribute type or an object class, up to the parenthesis closing
+     * the one following the keyword. Quoted strings and comments are skipped.
+     *
+     * @param reader The stream reader
+     * @param pos The position in the Schema, right after the keyword
+     * @param isAttributeType Tells if the element is an attribute type or an object class
+     * @param macros The macros defined before the element
+     * @return The element
+     * @throws IOException If the stream can't be read
+     */
+    private SchemaElement readElement( Reader reader, PosSchema pos, boolean isAttributeType,
+        Map<String, OpenLdapObjectIdentifierMacro> macros ) throws IOException
+    {
+        SchemaElement element = new SchemaElement( isAttributeType, pos.lineNumber, pos.start, macros );
+        StringBuilder text = new StringBuilder( pos.line );
+        int depth = 0;
+        int index = pos.start;
+
+        while ( true )
+        {
+            String line = pos.line;
+            boolean quoted = false;
+
+            for ( ; index < line.length(); index++ )
             {
-                // This is an error
-                throw new LdapSchemaException( I18n.err( I18n.ERR_13806_UNEXPECTED_ELEMENT_READ, 
-                    pos.line.substring( pos.start ), pos.lineNumber, pos.start ) );
+                char c = line.charAt( index );
+
+                if ( quoted )
+                {
+                    quoted = c != SQUOTE;
+                }
+                else if ( ( c == SHARP ) && ( ( index == 0 ) || Character.isWhitespace( line.charAt( index - 1 ) ) ) )
+                {
+                    // A comment, up to the end of the line
+                    break;
+                }
+                else if ( ( depth == 0 ) && ( c != LPAREN ) && !Character.isWhitespace( c ) )
+                {
+                    // No opening parenthesis, the parser will report the error
+                    pos.start = line.length();
+                    element.text = text.toString();
+
+                    return element;
+                }
+                else if ( c == SQUOTE )
+                {
+                    quoted = true;
+                }
+                else if ( c == LPAREN )
+                {
+                    depth++;
+                }
+                else if ( c == RPAREN )
+                {
+                    depth--;
+
+                    if ( depth == 0 )
+                    {
+                        // The end of the element : the rest of the line belongs to the next one
+                        pos.start = index + 1;
+                        text.setLength( text.length() - line.length() + pos.start );
+                        element.text = text.toString();
+
+                        return element;
+                    }
+                }
+            }
+
+            getLine( reader, pos );
+
+            if ( pos.line == null )
+            {
+                // The element is not closed, the parser will report the error
+                element.text = text.toString();
+
+                return element;
+            }
+
+            text.append( '\n' ).append( pos.line );
+            index = 0;
+        }
+    }
+
+
+    /**
+     * An attribute type or an object class read from a schema, and parsed later.
+     */
+    private class SchemaElement
+    {
+        /** Tells if the element is an attribute type or an object class */
+        final boolean isAttributeType;
+
+        /** The line number of the keyword in the file */
+        final int lineNumber;
+
+        /** The position in the first line, right after the keyword */
+        final int start;
+
+        /** The macros defined before the element */
+        final Map<String, OpenLdapObjectIdentifierMacro> macros;
+
+        /** The element lines */
+        String text;
+
+        /** The parsed element */
+        SchemaObject schemaObject;
+
+        /** The error met while parsing the element, if any */
+        Exception error;
+
+        SchemaElement( boolean isAttributeType, int lineNumber, int start,
+            Map<String, OpenLdapObjectIdentifierMacro> macros )
+        {
+            this.isAttributeType = isAttributeType;
+            this.lineNumber = lineNumber;
+            this.start = start;
+            this.macros = macros;
+        }
+
+
+        /**
+         * Parses the element. The positions are the ones in the original schema.
+         */
+        void parse()
+        {
+            try ( Reader reader = new BufferedReader( new StringReader( text ) ) )
+            {
+                PosSchema pos = new PosSchema( isQuirksModeEnabled );
+                pos.lineNumber = lineNumber - 1;
+                getLine( reader, pos );
+                pos.start = start;
+
+                if ( isAttributeType )
+                {
+                    schemaObject = parseAttributeTypeStrict( reader, pos, macros );
+                }
+                else
+                {
+                    schemaObject = parseObjectClassStrict( reader, pos, macros );
+                }
+            }
+            catch ( IOException | LdapSchemaException e )
+            {
+                error = e;
             }
         }
     }
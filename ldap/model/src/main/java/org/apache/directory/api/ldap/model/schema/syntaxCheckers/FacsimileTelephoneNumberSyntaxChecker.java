@@ -65,6 +65,9 @@ public final class FacsimileTelephoneNumberSyntaxChecker extends SyntaxChecker
     /** The compiled default pattern */
     private Pattern defaultPattern = Pattern.compile( DEFAULT_REGEXP );
 
+    /** Tells if the default pattern is in use, in which case it's checked without the regexp engine */
+    private boolean isDefaultPattern;
+
     /** Fax parameters possible values */
     private static final String TWO_DIMENSIONAL = "twoDimensional";
     private static final String FINE_RESOLUTION = "fineResolution";
@@ -177,6 +180,7 @@ public final class FacsimileTelephoneNumberSyntaxChecker extends SyntaxChecker
         
         this.defaultPattern = defaultPattern;
         this.defaultRegexp = defaultRegexp;
+        isDefaultPattern = DEFAULT_REGEXP.equals( defaultPattern.pattern() );
     }
 
     
@@ -255,7 +259,7 @@ public final class FacsimileTelephoneNumberSyntaxChecker extends SyntaxChecker
         if ( dollarPos == -1 )
         {
             // We have no fax-parameter : check the Telephone number
-            boolean result = defaultPattern.matcher( strValue ).matches();
+            boolean result = isTelephoneNumber( strValue );
 
             if ( LOG.isDebugEnabled() )
             {
@@ -275,7 +279,7 @@ public final class FacsimileTelephoneNumberSyntaxChecker extends SyntaxChecker
         // First check the telephone number if the '$' is not at the first position
         if ( dollarPos > 0 )
         {
-            boolean result = defaultPattern.matcher( strValue.substring( 0, dollarPos - 1 ) ).matches();
+            boolean result = isTelephoneNumber( strValue.substring( 0, dollarPos - 1 ) );
 
             if ( LOG.isDebugEnabled() )
             {
@@ -360,4 +364,22 @@ public final class FacsimileTelephoneNumberSyntaxChecker extends SyntaxChecker
         
         return false;
     }
+
+
+    /**
+     * Checks the telephone number part, without the regexp engine if the default
+     * pattern is in use.
+     * 
+     * @param value The telephone number to check
+     * @return <tt>true</tt> if the telephone number is valid
+     */
+    private boolean isTelephoneNumber( String value )
+    {
+        if ( isDefaultPattern )
+        {
+            return TelephoneNumberSyntaxChecker.isTelephoneNumber( value );
+        }
+
+        return defaultPattern.matcher( value ).matches();
+    }
 }
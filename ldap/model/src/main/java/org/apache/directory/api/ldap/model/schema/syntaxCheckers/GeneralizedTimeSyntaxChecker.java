@@ -20,11 +20,10 @@
 package org.apache.directory.api.ldap.model.schema.syntaxCheckers;
 
 
-import java.util.regex.Pattern;
-
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.schema.SyntaxChecker;
+import org.apache.directory.api.util.Chars;
 import org.apache.directory.api.util.Strings;
 
 
@@ -70,30 +69,6 @@ import org.apache.directory.api.util.Strings;
 @SuppressWarnings("serial")
 public final class GeneralizedTimeSyntaxChecker extends SyntaxChecker
 {
-    /** The GeneralizedDate pattern matching */
-    private static final String GENERALIZED_TIME_PATTERN =
-        // century + year : 0000 to 9999
-        "^\\d{4}"
-            // month : 01 to 12
-            + "(0[1-9]|1[0-2])"
-            // day : 01 to 31
-            + "(0[1-9]|[12]\\d|3[01])"
-            // hour : 00 to 23
-            + "([01]\\d|2[0-3])"
-            + "("
-            // optional minute : 00 to 59
-            + "([0-5]\\d)"
-            // optional second | leap second
-            + "([0-5]\\d|60)?"
-            + ")?"
-            // fraction
-            + "([.,]\\d+)?"
-            // time-zone
-            + "(Z|[+-]([01]\\d|2[0-3])([0-5]\\d)?)$";
-
-    /** The date pattern. The regexp pattern is immutable, only one instance needed. */
-    private static final Pattern DATE_PATTERN = Pattern.compile( GENERALIZED_TIME_PATTERN );
-    
     /**
      * A static instance of GeneralizedTimeSyntaxChecker
      */
@@ -189,7 +164,7 @@ public final class GeneralizedTimeSyntaxChecker extends SyntaxChecker
         }
 
         // Start the date parsing
-        boolean result = DATE_PATTERN.matcher( strValue ).find();
+        boolean result = isGeneralizedTime( strValue );
 
         if ( LOG.isDebugEnabled() )
         {
@@ -205,4 +180,198 @@ public final class GeneralizedTimeSyntaxChecker extends SyntaxChecker
 
         return result;
     }
+
+
+    /**
+     * Checks that a String is a GeneralizedTime, in a single pass and without
+     * any allocation. The accepted values are :
+     * <pre>
+     * century + year : 0000 to 9999
+     * month          : 01 to 12
+     * day            : 01 to 31
+     * hour           : 00 to 23
+     * minute         : optional, 00 to 59
+     * second         : optional, 00 to 60 (leap second), only after a minute
+     * fraction       : optional, [.,] followed by at least one digit
+     * time-zone      : Z, or [+-] followed by an hour and an optional minute
+     * </pre>
+     * 
+     * @param value The value to check, at least 11 chars long
+     * @return <tt>true</tt> if the value is a GeneralizedTime
+     */
+    private static boolean isGeneralizedTime( String value )
+    {
+        int length = value.length();
+
+        // century + year, month, day and hour
+        if ( !Chars.isDigit( value.charAt( 0 ) ) || !Chars.isDigit( value.charAt( 1 ) )
+            || !Chars.isDigit( value.charAt( 2 ) ) || !Chars.isDigit( value.charAt( 3 ) )
+            || !isMonth( value, 4 ) || !isDay( value, 6 ) || !isHour( value, 8 ) )
+        {
+            return false;
+        }
+
+        int pos = 10;
+
+        // optional minute, and optional second
+        if ( Chars.isDigit( value.charAt( pos ) ) )
+        {
+            if ( ( pos + 2 > length ) || !isMinute( value, pos ) )
+            {
+                return false;
+            }
+
+            pos += 2;
+
+            if ( ( pos < length ) && Chars.isDigit( value.charAt( pos ) ) )
+            {
+                if ( ( pos + 2 > length ) || !isSecond( value, pos ) )
+                {
+                    return false;
+                }
+
+                pos += 2;
+            }
+        }
+
+        // optional fraction
+        if ( ( pos < length ) && ( ( value.charAt( pos ) == '.' ) || ( value.charAt( pos ) == ',' ) ) )
+        {
+            pos++;
+            int start = pos;
+
+            while ( ( pos < length ) && Chars.isDigit( value.charAt( pos ) ) )
+            {
+                pos++;
+            }
+
+            if ( pos == start )
+            {
+                return false;
+            }
+        }
+
+        // time-zone
+        if ( pos == length )
+        {
+            return false;
+        }
+
+        char c = value.charAt( pos++ );
+
+        if ( c == 'Z' )
+        {
+            return pos == length;
+        }
+
+        if ( ( ( c != '+' ) && ( c != '-' ) ) || ( pos + 2 > length ) || !isHour( value, pos ) )
+        {
+            return false;
+        }
+
+        pos += 2;
+
+        return ( pos == length ) || ( ( pos + 2 == length ) && isMinute( value, pos ) );
+    }
+
+
+    /**
+     * Tells if the two chars at the given position are a month (01 to 12)
+     * 
+     * @param value The value to check
+     * @param pos The position of the first char
+     * @return <tt>true</tt> if the two chars match
+     */
+    static boolean isMonth( String value, int pos )
+    {
+        char c0 = value.charAt( pos );
+        char c1 = value.charAt( pos + 1 );
+
+        if ( c0 == '0' )
+        {
+            return ( c1 >= '1' ) && ( c1 <= '9' );
+        }
+
+        return ( c0 == '1' ) && ( c1 >= '0' ) && ( c1 <= '2' );
+    }
+
+
+    /**
+     * Tells if the two chars at the given position are a day (01 to 31)
+     * 
+     * @param value The value to check
+     * @param pos The position of the first char
+     * @return <tt>true</tt> if the two chars match
+     */
+    static boolean isDay( String value, int pos )
+    {
+        char c0 = value.charAt( pos );
+        char c1 = value.charAt( pos + 1 );
+
+        switch ( c0 )
+        {
+            case '0':
+                return ( c1 >= '1' ) && ( c1 <= '9' );
+
+            case '1':
+            case '2':
+                return Chars.isDigit( c1 );
+
+            case '3':
+                return ( c1 == '0' ) || ( c1 == '1' );
+
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Tells if the two chars at the given position are an hour (00 to 23)
+     * 
+     * @param value The value to check
+     * @param pos The position of the first char
+     * @return <tt>true</tt> if the two chars match
+     */
+    static boolean isHour( String value, int pos )
+    {
+        char c0 = value.charAt( pos );
+        char c1 = value.charAt( pos + 1 );
+
+        if ( ( c0 == '0' ) || ( c0 == '1' ) )
+        {
+            return Chars.isDigit( c1 );
+        }
+
+        return ( c0 == '2' ) && ( c1 >= '0' ) && ( c1 <= '3' );
+    }
+
+
+    /**
+     * Tells if the two chars at the given position are a minute (00 to 59)
+     * 
+     * @param value The value to check
+     * @param pos The position of the first char
+     * @return <tt>true</tt> if the two chars match
+     */
+    static boolean isMinute( String value, int pos )
+    {
+        char c0 = value.charAt( pos );
+
+        return ( c0 >= '0' ) && ( c0 <= '5' ) && Chars.isDigit( value.charAt( pos + 1 ) );
+    }
+
+
+    /**
+     * Tells if the two chars at the given position are a second,
+     * or a leap second (00 to 60)
+     * 
+     * @param value The value to check
+     * @param pos The position of the first char
+     * @return <tt>true</tt> if the two chars match
+     */
+    private static boolean isSecond( String value, int pos )
+    {
+        return isMinute( value, pos ) || ( ( value.charAt( pos ) == '6' ) && ( value.charAt( pos + 1 ) == '0' ) );
+    }
 }
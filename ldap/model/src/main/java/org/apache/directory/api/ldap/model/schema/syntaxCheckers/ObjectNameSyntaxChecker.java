@@ -20,11 +20,10 @@
 package org.apache.directory.api.ldap.model.schema.syntaxCheckers;
 
 
-import java.util.regex.Pattern;
-
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.schema.SyntaxChecker;
+import org.apache.directory.api.util.Chars;
 import org.apache.directory.api.util.Strings;
 
 
@@ -48,10 +47,6 @@ import org.apache.directory.api.util.Strings;
 @SuppressWarnings("serial")
 public final class ObjectNameSyntaxChecker extends SyntaxChecker
 {
-    private static final String REGEXP = "^([a-zA-Z][a-zA-Z0-9-;]*)$";
-
-    private static final Pattern PATTERN = Pattern.compile( REGEXP );
-    
     /**
      * A static instance of ObjectNameSyntaxChecker
      */
@@ -145,8 +140,7 @@ public final class ObjectNameSyntaxChecker extends SyntaxChecker
             return false;
         }
 
-        // Search for the '$' separator
-        boolean result = PATTERN.matcher( strValue ).matches();
+        boolean result = isObjectName( strValue );
 
         if ( LOG.isDebugEnabled() )
         {
@@ -162,4 +156,32 @@ public final class ObjectNameSyntaxChecker extends SyntaxChecker
 
         return result;
     }
+
+
+    /**
+     * Checks that a String is an ObjectName (an ASCII letter followed by ASCII
+     * letters, digits, '-' or ';'), in a single pass and without any allocation.
+     * 
+     * @param value The value to check
+     * @return <tt>true</tt> if the value is an ObjectName
+     */
+    private static boolean isObjectName( String value )
+    {
+        if ( !Chars.isAlpha( value.charAt( 0 ) ) )
+        {
+            return false;
+        }
+
+        for ( int pos = 1; pos < value.length(); pos++ )
+        {
+            char c = value.charAt( pos );
+
+            if ( !Chars.isAlphaDigitMinus( c ) && ( c != ';' ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
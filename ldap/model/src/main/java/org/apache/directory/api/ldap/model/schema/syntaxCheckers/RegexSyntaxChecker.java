@@ -20,6 +20,8 @@
 package org.apache.directory.api.ldap.model.schema.syntaxCheckers;
 
 
+import java.util.regex.Pattern;
+
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.model.schema.SyntaxChecker;
 import org.apache.directory.api.util.Strings;
@@ -36,6 +38,9 @@ public final class RegexSyntaxChecker extends SyntaxChecker
 {
     /** the set of regular expressions */
     private String[] expressions;
+
+    /** the compiled regular expressions, in the same order */
+    private Pattern[] patterns;
     
     /**
      * A static Builder for this class
@@ -95,6 +100,21 @@ public final class RegexSyntaxChecker extends SyntaxChecker
         super( oid );
 
         this.expressions = matchExprArray;
+        
+        if ( matchExprArray == null )
+        {
+            patterns = new Pattern[0];
+        }
+        else
+        {
+            // Compile the expressions once, instead of once per checked value
+            patterns = new Pattern[matchExprArray.length];
+            
+            for ( int i = 0; i < matchExprArray.length; i++ )
+            {
+                patterns[i] = Pattern.compile( matchExprArray[i] );
+            }
+        }
     }
 
     
@@ -119,9 +139,9 @@ public final class RegexSyntaxChecker extends SyntaxChecker
         {
             str = ( String ) value;
 
-            for ( String regexp : expressions )
+            for ( Pattern pattern : patterns )
             {
-                if ( !str.matches( regexp ) )
+                if ( !pattern.matcher( str ).matches() )
                 {
                     if ( LOG.isDebugEnabled() )
                     {
@@ -26,6 +26,7 @@ import java.util.regex.PatternSyntaxException;
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.schema.SyntaxChecker;
+import org.apache.directory.api.util.Chars;
 import org.apache.directory.api.util.Strings;
 
 
@@ -56,6 +57,9 @@ public final class TelephoneNumberSyntaxChecker extends SyntaxChecker
     /** The compiled default pattern */
     private final Pattern defaultPattern;
 
+    /** Tells if the default pattern is in use, in which case it's checked without the regexp engine */
+    private final boolean isDefaultPattern;
+
     /**
      * A static instance of TelephoneNumberSyntaxChecker
      */
@@ -143,6 +147,7 @@ public final class TelephoneNumberSyntaxChecker extends SyntaxChecker
         
         this.defaultPattern = defaultPattern;
         this.defaultRegexp = defaultRegexp;
+        isDefaultPattern = DEFAULT_REGEXP.equals( defaultPattern.pattern() );
     }
 
     
@@ -207,11 +212,14 @@ public final class TelephoneNumberSyntaxChecker extends SyntaxChecker
             return false;
         }
 
-        // We will use a regexp to check the TelephoneNumber.
+        // We will use a regexp to check the TelephoneNumber, unless it's the default one
         boolean result;
         
-        // Not sure this is 100% necessary...
-        synchronized ( defaultPattern )
+        if ( isDefaultPattern )
+        {
+            result = isTelephoneNumber( strValue );
+        }
+        else
         {
             result = defaultPattern.matcher( strValue ).matches();
         }
@@ -230,4 +238,93 @@ public final class TelephoneNumberSyntaxChecker extends SyntaxChecker
 
         return result;
     }
+
+
+    /**
+     * Checks that a String matches the default TelephoneNumber regexp, in a single
+     * pass and without any allocation. The value may start with spaces and a '+',
+     * followed by a non empty sequence of digits, '-', ' ', ',', ';', '/', '#', '*',
+     * possibly grouped in non empty parenthesis.
+     * 
+     * @param value The value to check
+     * @return <tt>true</tt> if the value matches the default regexp
+     */
+    static boolean isTelephoneNumber( String value )
+    {
+        int length = value.length();
+        int pos = 0;
+
+        while ( ( pos < length ) && ( value.charAt( pos ) == ' ' ) )
+        {
+            pos++;
+        }
+
+        if ( ( pos < length ) && ( value.charAt( pos ) == '+' ) )
+        {
+            pos++;
+        }
+        else
+        {
+            // The leading spaces are part of the number
+            pos = 0;
+        }
+
+        if ( pos == length )
+        {
+            return false;
+        }
+
+        while ( pos < length )
+        {
+            char c = value.charAt( pos++ );
+
+            if ( c == '(' )
+            {
+                int start = pos;
+
+                while ( ( pos < length ) && isTelephoneChar( value.charAt( pos ) ) )
+                {
+                    pos++;
+                }
+
+                if ( ( pos == start ) || ( pos == length ) || ( value.charAt( pos ) != ')' ) )
+                {
+                    return false;
+                }
+
+                pos++;
+            }
+            else if ( !isTelephoneChar( c ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Tells if a char is one of [0-9- ,;/#*]
+     * 
+     * @param c The char to check
+     * @return <tt>true</tt> if the char can be used in a TelephoneNumber
+     */
+    private static boolean isTelephoneChar( char c )
+    {
+        switch ( c )
+        {
+            case '-':
+            case ' ':
+            case ',':
+            case ';':
+            case '/':
+            case '#':
+            case '*':
+                return true;
+
+            default:
+                return Chars.isDigit( c );
+        }
+    }
 }
@@ -20,11 +20,10 @@
 package org.apache.directory.api.ldap.model.schema.syntaxCheckers;
 
 
-import java.util.regex.Pattern;
-
 import org.apache.directory.api.i18n.I18n;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.schema.SyntaxChecker;
+import org.apache.directory.api.util.Chars;
 import org.apache.directory.api.util.Strings;
 
 
@@ -64,28 +63,6 @@ import org.apache.directory.api.util.Strings;
 @SuppressWarnings("serial")
 public final class UtcTimeSyntaxChecker extends SyntaxChecker
 {
-    /** The GeneralizedDate pattern matching */
-    private static final String UTC_TIME_PATTERN =
-        // year : 00 to 99
-        "^\\d{2}"
-            // month : 01 to 12
-            + "(0[1-9]|1[0-2])"
-            // day : 01 to 31
-            + "(0[1-9]|[12]\\d|3[01])"
-            // hour: 00 to 23
-            + "([01]\\d|2[0-3])"
-            // minute : 00 to 59
-            + "([0-5]\\d)"
-            + "("
-            // optional second : 00 to 59
-            + "([0-5]\\d)?"
-            // optional time-zone
-            + "(Z|([+-]([01]\\d|2[0-3])[0-5]\\d))?"
-            + ")$";
-
-    // The regexp pattern, java.util.regex.Pattern is immutable so only one instance is needed.
-    private static final Pattern DATE_PATTERN = Pattern.compile( UTC_TIME_PATTERN );
-    
     /**
      * A static instance of UtcTimeSyntaxChecker
      */
@@ -180,7 +157,7 @@ public final class UtcTimeSyntaxChecker extends SyntaxChecker
         }
 
         // Start the date parsing
-        boolean result = DATE_PATTERN.matcher( strValue ).find();
+        boolean result = isUtcTime( strValue );
 
         if ( result )
         {
@@ -199,4 +176,66 @@ public final class UtcTimeSyntaxChecker extends SyntaxChecker
         
         return result;
     }
+
+
+    /**
+     * Checks that a String is a UTCTime, in a single pass and without
+     * any allocation. The accepted values are :
+     * <pre>
+     * year      : 00 to 99
+     * month     : 01 to 12
+     * day       : 01 to 31
+     * hour      : 00 to 23
+     * minute    : 00 to 59
+     * second    : optional, 00 to 59
+     * time-zone : optional, Z, or [+-] followed by an hour and a minute
+     * </pre>
+     * 
+     * @param value The value to check, at least 11 chars long
+     * @return <tt>true</tt> if the value is a UTCTime
+     */
+    private static boolean isUtcTime( String value )
+    {
+        int length = value.length();
+
+        // year, month, day, hour and minute
+        if ( !Chars.isDigit( value.charAt( 0 ) ) || !Chars.isDigit( value.charAt( 1 ) )
+            || !GeneralizedTimeSyntaxChecker.isMonth( value, 2 )
+            || !GeneralizedTimeSyntaxChecker.isDay( value, 4 )
+            || !GeneralizedTimeSyntaxChecker.isHour( value, 6 )
+            || !GeneralizedTimeSyntaxChecker.isMinute( value, 8 ) )
+        {
+            return false;
+        }
+
+        int pos = 10;
+
+        // optional second
+        if ( Chars.isDigit( value.charAt( pos ) ) )
+        {
+            if ( ( pos + 2 > length ) || !GeneralizedTimeSyntaxChecker.isMinute( value, pos ) )
+            {
+                return false;
+            }
+
+            pos += 2;
+        }
+
+        // optional time-zone
+        if ( pos == length )
+        {
+            return true;
+        }
+
+        char c = value.charAt( pos++ );
+
+        if ( c == 'Z' )
+        {
+            return pos == length;
+        }
+
+        return ( ( c == '+' ) || ( c == '-' ) ) && ( pos + 4 == length )
+            && GeneralizedTimeSyntaxChecker.isHour( value, pos )
+            && GeneralizedTimeSyntaxChecker.isMinute( value, pos + 2 );
+    }
 }
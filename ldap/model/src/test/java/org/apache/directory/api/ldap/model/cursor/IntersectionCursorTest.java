@@ -0,0 +1,131 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.cursor;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Tests the IntersectionCursor class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution(ExecutionMode.CONCURRENT)
+public class IntersectionCursorTest
+{
+    private static <E> List<E> read( Cursor<E> cursor ) throws Exception
+    {
+        List<E> result = new ArrayList<>();
+
+        for ( E element : cursor )
+        {
+            result.add( element );
+        }
+
+        return result;
+    }
+
+
+    @Test
+    public void testIntersection() throws Exception
+    {
+        List<ListCursor<Integer>> cursors = Arrays.asList(
+            new ListCursor<>( Arrays.asList( 1, 2, 4, 6, 8, 10, 12 ) ),
+            new ListCursor<>( Arrays.asList( 2, 3, 4, 8, 9, 12 ) ),
+            new ListCursor<>( Arrays.asList( 0, 2, 4, 5, 8, 12, 13 ) ) );
+
+        try ( IntersectionCursor<Integer> cursor = new IntersectionCursor<>( Comparator.naturalOrder(), cursors ) )
+        {
+            assertEquals( Arrays.asList( 2, 4, 8, 12 ), read( cursor ) );
+            assertFalse( cursor.next() );
+        }
+    }
+
+
+    @Test
+    public void testEmptyIntersection() throws Exception
+    {
+        List<ListCursor<Integer>> cursors = Arrays.asList(
+            new ListCursor<>( Arrays.asList( 1, 2, 3 ) ),
+            new ListCursor<>( Collections.<Integer>emptyList() ) );
+
+        try ( IntersectionCursor<Integer> cursor = new IntersectionCursor<>( Comparator.naturalOrder(), 4, cursors ) )
+        {
+            assertFalse( cursor.next() );
+        }
+    }
+
+
+    @Test
+    public void testIntersectionByAttribute() throws Exception
+    {
+        List<Entry> server1 = Arrays.asList(
+            new DefaultEntry( "cn=a,dc=example,dc=com", "entryUUID: 1" ),
+            new DefaultEntry( "cn=b,dc=example,dc=com", "entryUUID: 2" ) );
+        List<Entry> server2 = Arrays.asList(
+            new DefaultEntry( "cn=b,ou=moved,dc=example,dc=com", "entryUUID: 2" ),
+            new DefaultEntry( "cn=c,dc=example,dc=com", "entryUUID: 3" ) );
+
+        try ( IntersectionCursor<Entry> cursor = new IntersectionCursor<>( EntryComparators.byAttribute( "entryUUID" ),
+            Arrays.asList( new ListCursor<>( server1 ), new ListCursor<>( server2 ) ) ) )
+        {
+            List<Entry> entries = read( cursor );
+
+            assertEquals( 1, entries.size() );
+            assertEquals( "cn=b,dc=example,dc=com", entries.get( 0 ).getDn().getName() );
+        }
+    }
+
+
+    @Test
+    public void testIntersectionWithoutAttribute() throws Exception
+    {
+        List<Entry> server1 = Arrays.asList(
+            new DefaultEntry( "cn=a,dc=example,dc=com" ),
+            new DefaultEntry( "cn=b,dc=example,dc=com" ) );
+        List<Entry> server2 = Arrays.asList(
+            new DefaultEntry( "cn=b,dc=example,dc=com" ),
+            new DefaultEntry( "cn=c,dc=example,dc=com" ) );
+
+        // Entries lacking the entryUUID are not all equal
+        try ( IntersectionCursor<Entry> cursor = new IntersectionCursor<>( EntryComparators.byAttribute( "entryUUID" ),
+            Arrays.asList( new ListCursor<>( server1 ), new ListCursor<>( server2 ) ) ) )
+        {
+            List<Entry> entries = read( cursor );
+
+            assertEquals( 1, entries.size() );
+            assertEquals( "cn=b,dc=example,dc=com", entries.get( 0 ).getDn().getName() );
+        }
+    }
+}
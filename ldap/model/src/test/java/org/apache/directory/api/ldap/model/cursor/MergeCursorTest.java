@@ -0,0 +1,186 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.cursor;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Tests the MergeCursor class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution(ExecutionMode.CONCURRENT)
+public class MergeCursorTest
+{
+    private static List<Integer> read( Cursor<Integer> cursor ) throws Exception
+    {
+        List<Integer> result = new ArrayList<>();
+
+        for ( Integer element : cursor )
+        {
+            result.add( element );
+        }
+
+        return result;
+    }
+
+
+    private static List<ListCursor<Integer>> createCursors()
+    {
+        return Arrays.asList(
+            new ListCursor<>( Arrays.asList( 1, 4, 7, 10 ) ),
+            new ListCursor<>( Arrays.asList( 2, 4, 8 ) ),
+            new ListCursor<>( Collections.<Integer>emptyList() ),
+            new ListCursor<>( Arrays.asList( 3, 4, 10, 12 ) ) );
+    }
+
+
+    @Test
+    public void testMerge() throws Exception
+    {
+        try ( MergeCursor<Integer> cursor = new MergeCursor<>( Comparator.naturalOrder(), false, createCursors() ) )
+        {
+            assertEquals( Arrays.asList( 1, 2, 3, 4, 4, 4, 7, 8, 10, 10, 12 ), read( cursor ) );
+            assertTrue( cursor.isAfterLast() );
+            assertFalse( cursor.next() );
+        }
+    }
+
+
+    @Test
+    public void testDistinctMerge() throws Exception
+    {
+        try ( MergeCursor<Integer> cursor = new MergeCursor<>( Comparator.naturalOrder(), true, createCursors() ) )
+        {
+            assertEquals( Arrays.asList( 1, 2, 3, 4, 7, 8, 10, 12 ), read( cursor ) );
+        }
+    }
+
+
+    @Test
+    public void testDistinctMergePrefetched() throws Exception
+    {
+        List<ListCursor<Integer>> cursors = new ArrayList<>();
+
+        for ( int i = 0; i < 4; i++ )
+        {
+            List<Integer> list = new ArrayList<>();
+
+            for ( int j = 0; j < 1000; j++ )
+            {
+                list.add( j * ( i + 1 ) );
+            }
+
+            cursors.add( new ListCursor<>( list ) );
+        }
+
+        List<Integer> result;
+
+        try ( MergeCursor<Integer> cursor = new MergeCursor<>( Comparator.naturalOrder(), true, 8, cursors ) )
+        {
+            result = read( cursor );
+        }
+
+        // The multiples of 1, 2, 3 and 4 below 1000, plus the multiples of 2, 3 and 4 above
+        assertEquals( 0, result.get( 0 ).intValue() );
+        assertEquals( 3996, result.get( result.size() - 1 ).intValue() );
+
+        for ( int i = 1; i < result.size(); i++ )
+        {
+            assertTrue( result.get( i - 1 ) < result.get( i ) );
+        }
+
+        for ( ListCursor<Integer> cursor : cursors )
+        {
+            assertTrue( cursor.isClosed() );
+        }
+    }
+
+
+    @Test
+    public void testUnionByDn() throws Exception
+    {
+        List<Entry> server1 = Arrays.asList(
+            new DefaultEntry( "cn=a,dc=example,dc=com" ),
+            new DefaultEntry( "cn=c,dc=example,dc=com" ) );
+        List<Entry> server2 = Arrays.asList(
+            new DefaultEntry( "cn=b,dc=example,dc=com" ),
+            new DefaultEntry( "cn=c,dc=example,dc=com" ) );
+
+        try ( MergeCursor<Entry> cursor = new MergeCursor<>( EntryComparators.byDn(), true,
+            Arrays.asList( new ListCursor<>( server1 ), new ListCursor<>( server2 ) ) ) )
+        {
+            List<String> dns = new ArrayList<>();
+
+            for ( Entry entry : cursor )
+            {
+                dns.add( entry.getDn().getName() );
+            }
+
+            assertEquals( Arrays.asList( "cn=a,dc=example,dc=com", "cn=b,dc=example,dc=com",
+                "cn=c,dc=example,dc=com" ), dns );
+        }
+    }
+
+
+    @Test
+    public void testDistinctMergeWithoutAttribute() throws Exception
+    {
+        List<Entry> server1 = Arrays.asList(
+            new DefaultEntry( "cn=a,dc=example,dc=com", "entryUUID: 1" ),
+            new DefaultEntry( "cn=b,dc=example,dc=com" ),
+            new DefaultEntry( "cn=d,dc=example,dc=com" ) );
+        List<Entry> server2 = Arrays.asList(
+            new DefaultEntry( "cn=a,ou=moved,dc=example,dc=com", "entryUUID: 1" ),
+            new DefaultEntry( "cn=c,dc=example,dc=com" ),
+            new DefaultEntry( "cn=d,dc=example,dc=com" ) );
+
+        // The entries without entryUUID are only merged when they have the same Dn
+        try ( MergeCursor<Entry> cursor = new MergeCursor<>( EntryComparators.byAttribute( "entryUUID" ), true,
+            Arrays.asList( new ListCursor<>( server1 ), new ListCursor<>( server2 ) ) ) )
+        {
+            List<String> dns = new ArrayList<>();
+
+            for ( Entry entry : cursor )
+            {
+                dns.add( entry.getDn().getName() );
+            }
+
+            assertEquals( Arrays.asList( "cn=a,dc=example,dc=com", "cn=b,dc=example,dc=com",
+                "cn=c,dc=example,dc=com", "cn=d,dc=example,dc=com" ), dns );
+        }
+    }
+}
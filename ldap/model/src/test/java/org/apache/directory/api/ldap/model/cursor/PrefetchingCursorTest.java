@@ -0,0 +1,241 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.cursor;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Tests the PrefetchingCursor class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution(ExecutionMode.CONCURRENT)
+public class PrefetchingCursorTest
+{
+    private static ListCursor<Integer> createSource( int size )
+    {
+        List<Integer> list = new ArrayList<>();
+
+        for ( int i = 0; i < size; i++ )
+        {
+            list.add( i );
+        }
+
+        return new ListCursor<>( list );
+    }
+
+
+    @Test
+    public void testReadAhead() throws Exception
+    {
+        try ( PrefetchingCursor<Integer, Integer> cursor = PrefetchingCursor.readAhead( createSource( 1000 ), 10 ) )
+        {
+            assertThrows( InvalidCursorPositionException.class, () -> cursor.get() );
+
+            for ( int i = 0; i < 1000; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.available() );
+                assertEquals( i, cursor.get().intValue() );
+            }
+
+            assertFalse( cursor.next() );
+            assertFalse( cursor.available() );
+            assertTrue( cursor.isAfterLast() );
+            assertFalse( cursor.next() );
+        }
+    }
+
+
+    @Test
+    public void testEmptySource() throws Exception
+    {
+        try ( PrefetchingCursor<Integer, Integer> cursor = PrefetchingCursor.readAhead( createSource( 0 ), 10 ) )
+        {
+            assertFalse( cursor.next() );
+        }
+    }
+
+
+    @Test
+    public void testTransformWithExecutor() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+
+        try ( PrefetchingCursor<Integer, String> cursor = new PrefetchingCursor<>( createSource( 1000 ),
+            element -> "value" + element, 16, executor ) )
+        {
+            int count = 0;
+
+            for ( String value : cursor )
+            {
+                assertEquals( "value" + count, value );
+                count++;
+            }
+
+            assertEquals( 1000, count );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testTransformFailure() throws Exception
+    {
+        PrefetchingCursor.Transformer<Integer, Integer> transformer = element ->
+        {
+            if ( element == 5 )
+            {
+                throw new LdapException( "invalid element" );
+            }
+
+            return element;
+        };
+
+        try ( PrefetchingCursor<Integer, Integer> cursor = new PrefetchingCursor<>( createSource( 10 ), transformer, 2 ) )
+        {
+            for ( int i = 0; i < 5; i++ )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            assertThrows( LdapException.class, () -> cursor.next() );
+            assertFalse( cursor.available() );
+
+            // The following elements are still available
+            assertTrue( cursor.next() );
+            assertEquals( 6, cursor.get().intValue() );
+        }
+    }
+
+
+    @Test
+    public void testCloseBeforeEnd() throws Exception
+    {
+        ListCursor<Integer> source = createSource( 1000 );
+        PrefetchingCursor<Integer, Integer> cursor = PrefetchingCursor.readAhead( source, 4 );
+
+        assertTrue( cursor.next() );
+        assertTrue( cursor.next() );
+
+        cursor.close();
+
+        assertTrue( cursor.isClosed() );
+        assertTrue( source.isClosed() );
+        assertThrows( CursorClosedException.class, () -> cursor.next() );
+    }
+
+
+    @Test
+    public void testCloseWhileBlocked() throws Exception
+    {
+        CountDownLatch released = new CountDownLatch( 1 );
+
+        // A source blocked in next(), ignoring the interruptions, until it's released
+        ListCursor<Integer> source = new ListCursor<Integer>( new ArrayList<>() )
+        {
+            @Override
+            public boolean next()
+            {
+                while ( released.getCount() > 0 )
+                {
+                    try
+                    {
+                        released.await();
+                    }
+                    catch ( InterruptedException ie )
+                    {
+                        // Ignore it
+                    }
+                }
+
+                return false;
+            }
+        };
+
+        PrefetchingCursor<Integer, Integer> cursor = PrefetchingCursor.readAhead( source, 4 );
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try
+        {
+            // The consumer waits for an element which never comes
+            Future<Boolean> consumer = executor.submit( () -> cursor.next() );
+            Thread.sleep( 50L );
+
+            // Closing neither waits forever for the reading thread, nor leaves the consumer blocked
+            long start = System.nanoTime();
+            cursor.close();
+            assertTrue( TimeUnit.NANOSECONDS.toSeconds( System.nanoTime() - start ) < 5L );
+            assertFalse( consumer.get( 5L, TimeUnit.SECONDS ) );
+            assertTrue( cursor.isClosed() );
+
+            // The underlying cursor is not closed while the reading thread is using it
+            assertFalse( source.isClosed() );
+
+            // It's closed by the reading thread once it's done
+            released.countDown();
+            long deadline = System.currentTimeMillis() + 5000L;
+
+            while ( !source.isClosed() && ( System.currentTimeMillis() < deadline ) )
+            {
+                Thread.sleep( 10L );
+            }
+
+            assertTrue( source.isClosed() );
+        }
+        finally
+        {
+            released.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    public void testUnsupportedOperations()
+    {
+        PrefetchingCursor<Integer, Integer> cursor = PrefetchingCursor.readAhead( createSource( 1 ), 4 );
+
+        assertThrows( UnsupportedOperationException.class, () -> cursor.previous() );
+        assertThrows( UnsupportedOperationException.class, () -> cursor.beforeFirst() );
+        assertThrows( UnsupportedOperationException.class, () -> cursor.last() );
+    }
+}
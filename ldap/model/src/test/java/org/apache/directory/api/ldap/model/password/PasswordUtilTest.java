@@ -55,6 +55,11 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import org.apache.directory.api.ldap.model.constants.LdapSecurityConstants;
 import org.apache.directory.api.util.Strings;
 import org.junit.jupiter.api.Test;
@@ -414,4 +419,71 @@ public class PasswordUtilTest
         }
     }
 
+
+    @Test
+    public void testBulkCreateAndCompare()
+    {
+        List<byte[]> credentials = new ArrayList<>();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            credentials.add( Strings.getBytesUtf8( "secret" + i ) );
+        }
+
+        List<byte[]> stored = PasswordUtil.createStoragePasswords( credentials, HASH_METHOD_SSHA512 );
+
+        assertEquals( 100, stored.size() );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertTrue( PasswordUtil.compareCredentials( credentials.get( i ), stored.get( i ) ) );
+        }
+
+        // Compare with a shifted list : only the first one matches
+        List<byte[]> shifted = new ArrayList<>( stored );
+        shifted.add( shifted.remove( 1 ) );
+        boolean[] results = PasswordUtil.compareAllCredentials( credentials, shifted );
+
+        assertTrue( results[0] );
+
+        for ( int i = 1; i < 100; i++ )
+        {
+            assertFalse( results[i] );
+        }
+    }
+
+
+    @Test
+    public void testBulkWithExecutor()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( 3 );
+
+        try
+        {
+            List<byte[]> credentials = new ArrayList<>();
+
+            for ( int i = 0; i < 20; i++ )
+            {
+                credentials.add( Strings.getBytesUtf8( "secret" + i ) );
+            }
+
+            List<byte[]> stored = PasswordUtil.createStoragePasswords( credentials, HASH_METHOD_PKCS5S2, executor );
+            boolean[] results = PasswordUtil.compareAllCredentials( credentials, stored, executor );
+
+            for ( boolean result : results )
+            {
+                assertTrue( result );
+            }
+
+            assertThrows( IllegalArgumentException.class,
+                () -> PasswordUtil.createStoragePasswords( credentials, null, executor ) );
+            assertThrows( IllegalArgumentException.class,
+                () -> PasswordUtil.compareAllCredentials( credentials, stored.subList( 1, 20 ), executor ) );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
 }
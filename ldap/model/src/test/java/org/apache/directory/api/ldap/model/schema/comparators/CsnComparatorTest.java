@@ -117,4 +117,26 @@ public class CsnComparatorTest
         assertEquals( -1, comparator.compare( csn1.toString(), csn2.toString() ) );
         assertEquals( 1, comparator.compare( csn2.toString(), csn1.toString() ) );
     }
+
+
+    @Test
+    public void testSortKeys()
+    {
+        long t0 = System.currentTimeMillis();
+        String[] values = 
+            {
+                new Csn( t0, 0, 0, 0 ).toString(), new Csn( t0, 1, 0, 0 ).toString(),
+                new Csn( t0, 0, 1, 0 ).toString(), new Csn( t0 + 1000, 0, 0, 0 ).toString()
+            };
+
+        for ( String value1 : values )
+        {
+            for ( String value2 : values )
+            {
+                assertEquals( Integer.signum( comparator.compare( value1, value2 ) ),
+                    Integer.signum( CsnComparator.compareSortKeys( comparator.getSortKey( value1 ),
+                        comparator.getSortKey( value2 ) ) ) );
+            }
+        }
+    }
 }
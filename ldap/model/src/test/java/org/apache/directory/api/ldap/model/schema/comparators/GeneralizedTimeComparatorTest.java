@@ -0,0 +1,76 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.apache.directory.api.ldap.model.schema.comparators;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+
+/**
+ * Test the GeneralizedTime comparator
+ * 
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+@Execution(ExecutionMode.CONCURRENT)
+public class GeneralizedTimeComparatorTest
+{
+    private GeneralizedTimeComparator comparator;
+
+
+    @BeforeEach
+    public void init()
+    {
+        comparator = new GeneralizedTimeComparator( null );
+    }
+
+
+    @Test
+    public void testSortKeys()
+    {
+        String[] values = 
+            {
+                "19691231235959Z", "19700101000000Z", "20240101120000Z", "20240101120000.5Z",
+                "20240101130000+0200", "202401011200Z", "20991231235959.999Z"
+            };
+
+        for ( String value1 : values )
+        {
+            for ( String value2 : values )
+            {
+                assertEquals( Integer.signum( comparator.compare( value1, value2 ) ),
+                    Integer.signum( GeneralizedTimeComparator.compareSortKeys( comparator.getSortKey( value1 ),
+                        comparator.getSortKey( value2 ) ) ) );
+            }
+        }
+    }
+
+
+    @Test
+    public void testSortKeyInvalidValue()
+    {
+        assertThrows( IllegalArgumentException.class, () -> comparator.getSortKey( "not a time" ) );
+    }
+}
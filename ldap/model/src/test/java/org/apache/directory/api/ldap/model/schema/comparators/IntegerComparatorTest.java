@@ -19,6 +19,7 @@
  */
 package org.apache.directory.api.ldap.model.schema.comparators;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -75,4 +76,27 @@ public class IntegerComparatorTest
         
             assertEquals( 1, comparator.compare( "1000000000000000000000001", "1000000000000000000000000" ) );
     }
+
+
+    @Test
+    public void testSortKeys()
+    {
+        String[] values = 
+            {
+                "-1000000000000000000000000", "-300", "-256", "-255", "-1", "0", "1", "255", "256",
+                "9223372036854775807", "1000000000000000000000000"
+            };
+
+        for ( String value1 : values )
+        {
+            for ( String value2 : values )
+            {
+                assertEquals( Integer.signum( comparator.compare( value1, value2 ) ),
+                    Integer.signum( IntegerComparator.compareSortKeys( comparator.getSortKey( value1 ),
+                        comparator.getSortKey( value2 ) ) ) );
+            }
+        }
+
+        assertArrayEquals( comparator.getSortKey( "-300" ), comparator.getSortKey( -300L ) );
+    }
 }
@@ -107,4 +107,21 @@ public class TelephoneNumberComparatorTest
         assertEquals( 0, comparator.compare( "1 801 555 1212", tel1 ) );
         assertEquals( 0, comparator.compare( "1 801 555 1212", tel2 ) );
     }
+
+
+    @Test
+    public void testSortKeys()
+    {
+        String[] values = { "+1 408 555 1212", "+1-408-555-1213", "+14085551212", "+33 1 23 45", "abc", "ABD", "ab" };
+
+        for ( String value1 : values )
+        {
+            for ( String value2 : values )
+            {
+                assertEquals( Integer.signum( comparator.compare( value1, value2 ) ),
+                    Integer.signum( TelephoneNumberComparator.compareSortKeys( comparator.getSortKey( value1 ),
+                        comparator.getSortKey( value2 ) ) ) );
+            }
+        }
+    }
 }
@@ -22,10 +22,12 @@ package org.apache.directory.api.ldap.model.schema.parsers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.InputStream;
+import java.text.ParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -457,6 +459,75 @@ public class FastOpenLdapSchemaParserTest
     }
 
 
+    @Test
+    public void testParseManyElements() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "objectidentifier TestRoot 1.3.6.1.4.1.18060.0.4.1\n" );
+
+        for ( int i = 0; i < 200; i++ )
+        {
+            if ( i % 50 == 0 )
+            {
+                sb.append( "objectidentifier TestAttr" ).append( i / 50 ).append( " TestRoot:" ).append( i / 50 )
+                    .append( '\n' );
+            }
+
+            sb.append( "# A comment with a (\n" );
+            sb.append( "attributetype ( TestAttr" ).append( i / 50 ).append( ':' ).append( i )
+                .append( " NAME 'attr" ).append( i ).append( "'\n" );
+            sb.append( "    DESC 'attribute (" ).append( i ).append( ") # not a comment'\n" );
+            sb.append( "    SYNTAX 1.3.6.1.4.1.1466.115.121.1.15 ) objectclass ( TestRoot:100." ).append( i )
+                .append( " NAME 'oc" ).append( i ).append( "' SUP top AUXILIARY MAY attr" ).append( i ).append( " )\n" );
+        }
+
+        parser.parse( sb.toString() );
+
+        List<AttributeType> attributeTypes = parser.getAttributeTypes();
+        List<ObjectClass> objectClasses = parser.getObjectClasses();
+
+        assertEquals( 200, attributeTypes.size() );
+        assertEquals( 200, objectClasses.size() );
+        assertEquals( 5, parser.getObjectIdentifierMacros().size() );
+
+        // The elements are kept in the schema order
+        for ( int i = 0; i < 200; i++ )
+        {
+            AttributeType attributeType = attributeTypes.get( i );
+            assertEquals( "attr" + i, attributeType.getName() );
+            assertEquals( "1.3.6.1.4.1.18060.0.4.1." + ( i / 50 ) + "." + i, attributeType.getOid() );
+            assertEquals( "attribute (" + i + ") # not a comment", attributeType.getDescription() );
+
+            ObjectClass objectClass = objectClasses.get( i );
+            assertEquals( "oc" + i, objectClass.getName() );
+            assertEquals( "1.3.6.1.4.1.18060.0.4.1.100." + i, objectClass.getOid() );
+        }
+    }
+
+
+    @Test
+    public void testParseManyElementsFirstError() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            if ( ( i == 60 ) || ( i == 80 ) )
+            {
+                sb.append( "attributetype ( bad-oid NAME 'attr" ).append( i ).append( "' SUP name )\n" );
+            }
+            else
+            {
+                sb.append( "attributetype ( 1.1." ).append( i ).append( " NAME 'attr" ).append( i ).append( "' SUP name )\n" );
+            }
+        }
+
+        ParseException pe = assertThrows( ParseException.class, () -> parser.parse( sb.toString() ) );
+
+        assertTrue( pe.getMessage().contains( "line 61," ), pe.getMessage() );
+    }
+
+
     @Test
     public void testFastLdifParsePerf() throws Exception
     {
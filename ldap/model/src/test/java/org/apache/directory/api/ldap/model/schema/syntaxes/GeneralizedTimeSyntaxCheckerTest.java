@@ -20,9 +20,13 @@
 package org.apache.directory.api.ldap.model.schema.syntaxes;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Random;
+import java.util.regex.Pattern;
+
 import org.apache.directory.api.ldap.model.schema.syntaxCheckers.GeneralizedTimeSyntaxChecker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
@@ -92,4 +96,57 @@ public class GeneralizedTimeSyntaxCheckerTest
         assertTrue( checker.isValidSyntax( "20061205184527,123+0100" ) );
         assertTrue( checker.isValidSyntax( "2006120519Z" ) );
     }
+
+
+    /**
+     * Check that the checker accepts exactly the values the former regexp accepted,
+     * on random mutations of valid values
+     */
+    @Test
+    public void testSameAsRegexp()
+    {
+        Pattern pattern = Pattern.compile( "\\d{4}(0[1-9]|1[0-2])(0[1-9]|[12]\\d|3[01])([01]\\d|2[0-3])(([0-5]\\d)([0-5]\\d|60)?)?([.,]\\d+)?(Z|[+-]([01]\\d|2[0-3])([0-5]\\d)?)" );
+        String[] samples = { "20061205184527Z", "2006120518Z", "200612051845,5-08", "20061231235960.123+0100", "19991130090000+23", "00010101000000Z" };
+        String alphabet = "0123456789Z+-.,6a ";
+        Random random = new Random( 45L );
+
+        for ( int i = 0; i < 20000; i++ )
+        {
+            StringBuilder sb = new StringBuilder( samples[random.nextInt( samples.length )] );
+            int mutations = random.nextInt( 3 ) + 1;
+
+            for ( int j = 0; j < mutations; j++ )
+            {
+                int pos = random.nextInt( sb.length() + 1 );
+                char c = alphabet.charAt( random.nextInt( alphabet.length() ) );
+
+                switch ( random.nextInt( 3 ) )
+                {
+                    case 0:
+                        sb.insert( pos, c );
+                        break;
+
+                    case 1:
+                        if ( pos < sb.length() )
+                        {
+                            sb.setCharAt( pos, c );
+                        }
+
+                        break;
+
+                    default:
+                        if ( pos < sb.length() )
+                        {
+                            sb.deleteCharAt( pos );
+                        }
+
+                        break;
+                }
+            }
+
+            String value = sb.toString();
+
+            assertEquals( ( value.length() >= 11 ) && pattern.matcher( value ).matches(), checker.isValidSyntax( value ), value );
+        }
+    }
 }
@@ -24,6 +24,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Random;
+import java.util.regex.Pattern;
+
 import org.apache.directory.api.ldap.model.schema.syntaxCheckers.TelephoneNumberSyntaxChecker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
@@ -111,4 +114,57 @@ public class TelephoneNumberSyntaxCheckerTest
         checker = TelephoneNumberSyntaxChecker.builder().build();
         assertTrue( checker.isValidSyntax( "1" ) );
     }
+
+
+    /**
+     * Check that the checker accepts exactly the values the former regexp accepted,
+     * on random mutations of valid values
+     */
+    @Test
+    public void testSameAsRegexp()
+    {
+        Pattern pattern = Pattern.compile( " *[+]? *((\\([0-9- ,;/#*]+\\))|[0-9- ,;/#*]+)+" );
+        String[] samples = { "+1 (555) 123-4567", " + 12 34 ; 56* 78 90, # ", "(1)(2)", "1", "  +33/1#2*3,4;5" };
+        String alphabet = "0123456789 +-(),;/#*a";
+        Random random = new Random( 45L );
+
+        for ( int i = 0; i < 20000; i++ )
+        {
+            StringBuilder sb = new StringBuilder( samples[random.nextInt( samples.length )] );
+            int mutations = random.nextInt( 3 ) + 1;
+
+            for ( int j = 0; j < mutations; j++ )
+            {
+                int pos = random.nextInt( sb.length() + 1 );
+                char c = alphabet.charAt( random.nextInt( alphabet.length() ) );
+
+                switch ( random.nextInt( 3 ) )
+                {
+                    case 0:
+                        sb.insert( pos, c );
+                        break;
+
+                    case 1:
+                        if ( pos < sb.length() )
+                        {
+                            sb.setCharAt( pos, c );
+                        }
+
+                        break;
+
+                    default:
+                        if ( pos < sb.length() )
+                        {
+                            sb.deleteCharAt( pos );
+                        }
+
+                        break;
+                }
+            }
+
+            String value = sb.toString();
+
+            assertEquals( pattern.matcher( value ).matches(), checker.isValidSyntax( value ), value );
+        }
+    }
 }
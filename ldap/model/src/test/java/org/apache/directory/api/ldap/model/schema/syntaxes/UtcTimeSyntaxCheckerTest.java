@@ -20,9 +20,13 @@
 package org.apache.directory.api.ldap.model.schema.syntaxes;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Random;
+import java.util.regex.Pattern;
+
 import org.apache.directory.api.ldap.model.schema.syntaxCheckers.UtcTimeSyntaxChecker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
@@ -93,4 +97,57 @@ public class UtcTimeSyntaxCheckerTest
         assertTrue( checker.isValidSyntax( "0612051845+0100" ) );
         assertTrue( checker.isValidSyntax( "061205194527" ) );
     }
+
+
+    /**
+     * Check that the checker accepts exactly the values the former regexp accepted,
+     * on random mutations of valid values
+     */
+    @Test
+    public void testSameAsRegexp()
+    {
+        Pattern pattern = Pattern.compile( "\\d{2}(0[1-9]|1[0-2])(0[1-9]|[12]\\d|3[01])([01]\\d|2[0-3])([0-5]\\d)(([0-5]\\d)?(Z|([+-]([01]\\d|2[0-3])[0-5]\\d))?)" );
+        String[] samples = { "061205184527Z", "0612051845Z", "0612312359+0100", "991130090000-2359", "06120518451" };
+        String alphabet = "0123456789Z+-.5a ";
+        Random random = new Random( 45L );
+
+        for ( int i = 0; i < 20000; i++ )
+        {
+            StringBuilder sb = new StringBuilder( samples[random.nextInt( samples.length )] );
+            int mutations = random.nextInt( 3 ) + 1;
+
+            for ( int j = 0; j < mutations; j++ )
+            {
+                int pos = random.nextInt( sb.length() + 1 );
+                char c = alphabet.charAt( random.nextInt( alphabet.length() ) );
+
+                switch ( random.nextInt( 3 ) )
+                {
+                    case 0:
+                        sb.insert( pos, c );
+                        break;
+
+                    case 1:
+                        if ( pos < sb.length() )
+                        {
+                            sb.setCharAt( pos, c );
+                        }
+
+                        break;
+
+                    default:
+                        if ( pos < sb.length() )
+                        {
+                            sb.deleteCharAt( pos );
+                        }
+
+                        break;
+                }
+            }
+
+            String value = sb.toString();
+
+            assertEquals( ( value.length() >= 11 ) && pattern.matcher( value ).matches(), checker.isValidSyntax( value ), value );
+        }
+    }
 }
@@ -32,6 +32,7 @@ import org.apache.directory.api.ldap.codec.api.LdapApiService;
 import org.apache.directory.api.ldap.codec.api.LdapDecoder;
 import org.apache.directory.api.ldap.codec.api.LdapMessageContainer;
 import org.apache.directory.api.ldap.codec.api.ResponseCarryingException;
+import org.apache.directory.api.ldap.codec.api.SearchResultEntryDecoder;
 import org.apache.directory.api.ldap.model.constants.Loggers;
 import org.apache.directory.api.ldap.model.exception.ResponseCarryingMessageException;
 import org.apache.directory.api.ldap.model.message.AbstractMessage;
@@ -143,6 +144,20 @@ public class LdapProtocolDecoder implements ProtocolDecoder
                     }
                 }
 
+                if ( messageContainer.isSearchResultEntryFastPath() )
+                {
+                    // Complete SearchResultEntry PDUs don't need the grammar
+                    Message entry = SearchResultEntryDecoder.decode( buffer, messageContainer );
+
+                    if ( entry != null )
+                    {
+                        decodedMessages.add( entry );
+                        messageContainer.clean();
+
+                        continue;
+                    }
+                }
+
                 Asn1Decoder.decode( buffer, messageContainer );
 
                 if ( messageContainer.getState() == TLVStateEnum.PDU_DECODED )
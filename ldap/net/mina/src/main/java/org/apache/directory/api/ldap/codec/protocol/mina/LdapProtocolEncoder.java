@@ -52,6 +52,9 @@ public class LdapProtocolEncoder implements ProtocolEncoder
     /** The LDAP API Service instance */
     private LdapApiService codec;
     
+    /** The PDU size above which the encoded chunks are taken from the buffer instead of being copied */
+    private static final int GATHER_THRESHOLD = 8 * 1024;
+
     /** A thread local storage used to store the Asn1Buffer instance */
     private ThreadLocal<Asn1Buffer> threadLocalStorage = new ThreadLocal<>();
     
@@ -92,8 +95,19 @@ public class LdapProtocolEncoder implements ProtocolEncoder
         
         try
         { 
-            LdapEncoder.encodeMessage( asn1Buffer, codec, ( Message ) message );
-            encoded = asn1Buffer.getBytes();
+            LdapEncoder.encodeMessageInBuffer( asn1Buffer, codec, ( Message ) message );
+            
+            if ( asn1Buffer.getPos() <= GATHER_THRESHOLD )
+            {
+                // Small PDUs are copied, the buffer keeps its storage
+                encoded = asn1Buffer.getBytes();
+            }
+            else
+            {
+                // Big PDUs are taken from the buffer without being copied when they fit 
+                // in one chunk
+                encoded = gather( asn1Buffer.getPos(), asn1Buffer.getBuffers() );
+            }
         }
         catch ( EncoderException e )
         {
@@ -105,17 +119,46 @@ public class LdapProtocolEncoder implements ProtocolEncoder
             asn1Buffer.clear();
         }
         
-        IoBuffer ioBuffer = IoBuffer.wrap( encoded );
-    
         if ( CODEC_LOG.isDebugEnabled() )
         {
-            byte[] dumpBuffer = new byte[encoded.limit()];
-            encoded.get( dumpBuffer );
-            encoded.flip();
-            CODEC_LOG.debug( I18n.msg( I18n.MSG_14003_ENCODED_LDAP_MESSAGE, message, Strings.dumpBytes( dumpBuffer ) ) );
+            byte[] dumpBuffer = new byte[encoded.remaining()];
+            encoded.duplicate().get( dumpBuffer );
+            
+            CODEC_LOG.debug( I18n.msg( I18n.MSG_14003_ENCODED_LDAP_MESSAGE, message, 
+                Strings.dumpBytes( dumpBuffer ) ) );
         }
 
-        out.write( ioBuffer );
+        // The PDU must be written at once : each write goes down the filter chain on its own,
+        // and the writes of two threads using the same session could be interleaved
+        out.write( IoBuffer.wrap( encoded ) );
+    }
+    
+    
+    /**
+     * Gather the chunks of an encoded PDU in a single ByteBuffer. The chunk is used as is
+     * when there is only one.
+     *
+     * @param size The PDU size
+     * @param buffers The chunks, in order
+     * @return The whole PDU
+     */
+    private static ByteBuffer gather( int size, ByteBuffer[] buffers )
+    {
+        if ( buffers.length == 1 )
+        {
+            return buffers[0];
+        }
+        
+        ByteBuffer result = ByteBuffer.allocate( size );
+        
+        for ( ByteBuffer buffer : buffers )
+        {
+            result.put( buffer );
+        }
+        
+        result.flip();
+        
+        return result;
     }
 
 